@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.benchmarks;
+
+import org.apache.shiro.util.AntPathMatcher;
+import org.apache.shiro.util.CompiledAntPathMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link AntPathMatcher#matches(String, String)} with the {@link CompiledAntPathMatcher} for typical filter
+ * chain patterns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AntPathMatcherBenchmark {
+
+    @Param({"plain", "compiled"})
+    public String matcher;
+
+    private AntPathMatcher pathMatcher;
+
+    @Setup
+    public void setUp() {
+        pathMatcher = "compiled".equals(matcher) ? new CompiledAntPathMatcher() : new AntPathMatcher();
+    }
+
+    @Benchmark
+    public boolean exact() {
+        return pathMatcher.matches("/login.jsp", "/login.jsp");
+    }
+
+    @Benchmark
+    public boolean doubleWildcard() {
+        return pathMatcher.matches("/api/**", "/api/v1/accounts/42/transactions");
+    }
+
+    @Benchmark
+    public boolean segmentWildcards() {
+        return pathMatcher.matches("/api/*/accounts/*/transactions", "/api/v1/accounts/42/transactions");
+    }
+
+    @Benchmark
+    public boolean extension() {
+        return pathMatcher.matches("/static/**/*.css", "/static/themes/default/site.css");
+    }
+
+    @Benchmark
+    public boolean mismatch() {
+        return pathMatcher.matches("/admin/**", "/api/v1/accounts/42/transactions");
+    }
+}
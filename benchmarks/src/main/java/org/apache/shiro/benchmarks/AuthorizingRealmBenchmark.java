@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.benchmarks;
+
+import org.apache.shiro.authc.AuthenticationException;
+import org.apache.shiro.authc.AuthenticationInfo;
+import org.apache.shiro.authc.AuthenticationToken;
+import org.apache.shiro.authz.AuthorizationInfo;
+import org.apache.shiro.authz.SimpleAuthorizationInfo;
+import org.apache.shiro.cache.MemoryConstrainedCacheManager;
+import org.apache.shiro.realm.AuthorizingRealm;
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link AuthorizingRealm#isPermitted(PrincipalCollection, String)} for a subject granted a large number of
+ * permissions, with the authorization info cached (the steady state of a running application).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthorizingRealmBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int permissionCount;
+
+    private AuthorizingRealm realm;
+    private PrincipalCollection principals;
+    private String firstGranted;
+    private String lastGranted;
+    private String denied;
+
+    /**
+     * Grants {@code permissionCount} permissions of the form {@code resource<N>:read,write:*}.
+     */
+    private static class LargePermissionSetRealm extends AuthorizingRealm {
+        private final int permissionCount;
+
+        private LargePermissionSetRealm(int permissionCount) {
+            this.permissionCount = permissionCount;
+        }
+
+        @Override
+        protected AuthorizationInfo doGetAuthorizationInfo(PrincipalCollection principals) {
+            SimpleAuthorizationInfo info = new SimpleAuthorizationInfo();
+            for (int i = 0; i < permissionCount; i++) {
+                info.addStringPermission("resource" + i + ":read,write:*");
+            }
+            return info;
+        }
+
+        @Override
+        protected AuthenticationInfo doGetAuthenticationInfo(AuthenticationToken token) throws AuthenticationException {
+            return null;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        realm = new LargePermissionSetRealm(permissionCount);
+        realm.setName("benchmark");
+        realm.setCacheManager(new MemoryConstrainedCacheManager());
+        principals = new SimplePrincipalCollection("jsmith", realm.getName());
+        firstGranted = "resource0:read:42";
+        lastGranted = "resource" + (permissionCount - 1) + ":write:42";
+        denied = "resource0:delete:42";
+        //populate the authorization cache:
+        realm.isPermitted(principals, firstGranted);
+    }
+
+    @Benchmark
+    public boolean isPermittedFirst() {
+        return realm.isPermitted(principals, firstGranted);
+    }
+
+    @Benchmark
+    public boolean isPermittedLast() {
+        return realm.isPermitted(principals, lastGranted);
+    }
+
+    @Benchmark
+    public boolean isPermittedDenied() {
+        return realm.isPermitted(principals, denied);
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.benchmarks;
+
+import org.apache.shiro.web.filter.mgt.FilterChainManager;
+import org.apache.shiro.web.filter.mgt.PathMatchingFilterChainResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link PathMatchingFilterChainResolver#getChain(ServletRequest, ServletResponse, FilterChain)} with
+ * {@code chainCount} configured chains, for a request matching the first chain, one matching the last (catch-all)
+ * chain and one matching no chain.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterChainResolverBenchmark {
+
+    @Param({"10", "100"})
+    public int chainCount;
+
+    private PathMatchingFilterChainResolver resolver;
+    private PathMatchingFilterChainResolver resolverWithoutCatchAll;
+    private HttpServletRequest firstRequest;
+    private HttpServletRequest lastRequest;
+    private HttpServletResponse response;
+    private FilterChain chain;
+
+    /**
+     * Returns a request proxy for the specified URI within the root context.  Only the methods used when resolving a
+     * chain return a value.
+     */
+    static HttpServletRequest request(final String requestURI) {
+        return (HttpServletRequest) Proxy.newProxyInstance(FilterChainResolverBenchmark.class.getClassLoader(),
+                new Class[]{HttpServletRequest.class}, new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        String name = method.getName();
+                        if ("getRequestURI".equals(name)) {
+                            return requestURI;
+                        }
+                        if ("getContextPath".equals(name)) {
+                            return "";
+                        }
+                        if ("getCharacterEncoding".equals(name)) {
+                            return "UTF-8";
+                        }
+                        return null;
+                    }
+                });
+    }
+
+    private PathMatchingFilterChainResolver createResolver(boolean catchAll) {
+        PathMatchingFilterChainResolver resolver = new PathMatchingFilterChainResolver();
+        FilterChainManager manager = resolver.getFilterChainManager();
+        manager.addToChain("/login.jsp", "authc");
+        for (int i = 1; i < chainCount - 1; i++) {
+            manager.addToChain("/app" + i + "/**", "authcBasic");
+        }
+        if (catchAll) {
+            manager.addToChain("/**", "anon");
+        }
+        return resolver;
+    }
+
+    @Setup
+    public void setUp() {
+        resolver = createResolver(true);
+        resolverWithoutCatchAll = createResolver(false);
+        firstRequest = request("/login.jsp");
+        lastRequest = request("/other/page.html");
+        response = (HttpServletResponse) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{HttpServletResponse.class}, new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        return null;
+                    }
+                });
+        chain = new FilterChain() {
+            public void doFilter(ServletRequest request, ServletResponse response) {
+            }
+        };
+    }
+
+    @Benchmark
+    public FilterChain firstChain() {
+        return resolver.getChain(firstRequest, response, chain);
+    }
+
+    @Benchmark
+    public FilterChain lastChain() {
+        return resolver.getChain(lastRequest, response, chain);
+    }
+
+    @Benchmark
+    public FilterChain noChain() {
+        return resolverWithoutCatchAll.getChain(lastRequest, response, chain);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.benchmarks;
+
+import org.apache.shiro.crypto.hash.Hash;
+import org.apache.shiro.crypto.hash.Pbkdf2Hash;
+import org.apache.shiro.crypto.hash.ScryptHash;
+import org.apache.shiro.crypto.hash.SimpleHash;
+import org.apache.shiro.util.ByteSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures password hash computation: iterated {@link SimpleHash} digests (including the
+ * {@code DefaultPasswordService} default of 500,000 SHA-256 iterations), PBKDF2 and scrypt.  Run with
+ * {@code -prof gc} to see the allocation rate, and with {@code -t} to measure throughput per core.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HashBenchmark {
+
+    @Param({"1", "1000", "500000"})
+    public int iterations;
+
+    private ByteSource password;
+    private ByteSource salt;
+
+    @Setup
+    public void setUp() {
+        password = ByteSource.Util.bytes("correct horse battery staple");
+        salt = ByteSource.Util.bytes("0123456789abcdef");
+    }
+
+    @Benchmark
+    public Hash sha256() {
+        return new SimpleHash("SHA-256", password, salt, iterations);
+    }
+
+    @Benchmark
+    public Hash sha512() {
+        return new SimpleHash("SHA-512", password, salt, iterations);
+    }
+
+    @Benchmark
+    public Hash pbkdf2Sha256() {
+        return new Pbkdf2Hash(Pbkdf2Hash.DEFAULT_ALGORITHM_NAME, password, salt, iterations);
+    }
+
+    /**
+     * scrypt with the recommended interactive-login cost {@code N = 16384} (16 MB), independent of
+     * {@code iterations}.
+     */
+    @Benchmark
+    public Hash scrypt() {
+        return new ScryptHash(password, salt, 16384);
+    }
+}
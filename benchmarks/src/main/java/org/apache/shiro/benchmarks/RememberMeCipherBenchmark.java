@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.benchmarks;
+
+import org.apache.shiro.crypto.AesCipherService;
+import org.apache.shiro.io.DefaultSerializer;
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.apache.shiro.util.ByteSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link AesCipherService} encryption and decryption of serialized principals, as performed by the
+ * {@link org.apache.shiro.mgt.AbstractRememberMeManager AbstractRememberMeManager} for every rememberMe cookie, with
+ * and without cipher pooling.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RememberMeCipherBenchmark {
+
+    @Param({"0", "16"})
+    public int maxPooledCiphers;
+
+    private AesCipherService cipherService;
+    private byte[] key;
+    private byte[] serialized;
+    private byte[] encrypted;
+
+    @Setup
+    public void setUp() {
+        cipherService = new AesCipherService();
+        cipherService.setMaxPooledCiphers(maxPooledCiphers);
+        key = cipherService.generateNewKey().getEncoded();
+        PrincipalCollection principals = new SimplePrincipalCollection("jsmith", "benchmark");
+        serialized = new DefaultSerializer<PrincipalCollection>().serialize(principals);
+        encrypted = cipherService.encrypt(serialized, key).getBytes();
+    }
+
+    @Benchmark
+    public ByteSource encrypt() {
+        return cipherService.encrypt(serialized, key);
+    }
+
+    @Benchmark
+    public ByteSource decrypt() {
+        return cipherService.decrypt(encrypted, key);
+    }
+}
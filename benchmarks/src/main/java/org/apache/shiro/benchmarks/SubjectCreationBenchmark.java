@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.benchmarks;
+
+import org.apache.shiro.mgt.DefaultSecurityManager;
+import org.apache.shiro.mgt.DefaultSessionStorageEvaluator;
+import org.apache.shiro.mgt.DefaultSubjectDAO;
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.subject.support.DefaultSubjectContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link DefaultSecurityManager#createSubject(org.apache.shiro.subject.SubjectContext)} for an anonymous
+ * subject and for an already authenticated subject of a stateless (session storage disabled) application, which
+ * creates a subject on every request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubjectCreationBenchmark {
+
+    private DefaultSecurityManager securityManager;
+    private DefaultSecurityManager statelessSecurityManager;
+    private PrincipalCollection principals;
+
+    @Setup
+    public void setUp() {
+        securityManager = new DefaultSecurityManager();
+        statelessSecurityManager = new DefaultSecurityManager();
+        DefaultSubjectDAO subjectDAO = (DefaultSubjectDAO) statelessSecurityManager.getSubjectDAO();
+        ((DefaultSessionStorageEvaluator) subjectDAO.getSessionStorageEvaluator()).setSessionStorageEnabled(false);
+        principals = new SimplePrincipalCollection("jsmith", "benchmark");
+    }
+
+    @Benchmark
+    public Subject anonymous() {
+        return securityManager.createSubject(new DefaultSubjectContext());
+    }
+
+    @Benchmark
+    public Subject statelessAuthenticated() {
+        DefaultSubjectContext context = new DefaultSubjectContext();
+        context.setPrincipals(principals);
+        context.setAuthenticated(true);
+        context.setSessionCreationEnabled(false);
+        return statelessSecurityManager.createSubject(context);
+    }
+}
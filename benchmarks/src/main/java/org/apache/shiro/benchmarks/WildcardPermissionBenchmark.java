@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.benchmarks;
+
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.permission.WildcardPermission;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link WildcardPermission#implies(Permission)} for typical granted/required permission shapes, and the
+ * cost of parsing a permission string.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WildcardPermissionBenchmark {
+
+    private Permission exact;
+    private Permission wildcard;
+    private Permission multiValued;
+    private Permission required;
+    private Permission unrelated;
+
+    @Setup
+    public void setUp() {
+        exact = new WildcardPermission("printer:print:lp7200");
+        wildcard = new WildcardPermission("printer:*");
+        multiValued = new WildcardPermission("printer:query,print,manage:lp7200,epsoncolor");
+        required = new WildcardPermission("printer:print:lp7200");
+        unrelated = new WildcardPermission("document:read:budget");
+    }
+
+    @Benchmark
+    public boolean impliesExact() {
+        return exact.implies(required);
+    }
+
+    @Benchmark
+    public boolean impliesWildcard() {
+        return wildcard.implies(required);
+    }
+
+    @Benchmark
+    public boolean impliesMultiValued() {
+        return multiValued.implies(required);
+    }
+
+    @Benchmark
+    public boolean impliesUnrelated() {
+        return multiValued.implies(unrelated);
+    }
+
+    @Benchmark
+    public Permission parse() {
+        return new WildcardPermission("printer:query,print,manage:lp7200,epsoncolor");
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.benchmarks.web;
+
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Minimal, allocation-light stand-ins for the servlet container objects used when running the {@code ShiroFilter}
+ * in-process.  Only the methods Shiro's filters and session/rememberMe cookie handling call return meaningful
+ * values; every other method returns {@code null}, {@code false} or zero.
+ */
+final class MockServletContainer {
+
+    private MockServletContainer() {
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return Boolean.FALSE;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(MockServletContainer.class.getClassLoader(), new Class[]{type}, handler);
+    }
+
+    static ServletContext servletContext() {
+        final Map<String, Object> attributes = new ConcurrentHashMap<String, Object>();
+        return proxy(ServletContext.class, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                String name = method.getName();
+                if ("getAttribute".equals(name)) {
+                    return attributes.get((String) args[0]);
+                }
+                if ("setAttribute".equals(name)) {
+                    attributes.put((String) args[0], args[1]);
+                    return null;
+                }
+                if ("removeAttribute".equals(name)) {
+                    attributes.remove((String) args[0]);
+                    return null;
+                }
+                if ("getAttributeNames".equals(name)) {
+                    return Collections.enumeration(attributes.keySet());
+                }
+                if ("getContextPath".equals(name)) {
+                    return "";
+                }
+                if ("getInitParameterNames".equals(name)) {
+                    return Collections.enumeration(Collections.emptyList());
+                }
+                return defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    static FilterConfig filterConfig(final ServletContext servletContext) {
+        return proxy(FilterConfig.class, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                String name = method.getName();
+                if ("getServletContext".equals(name)) {
+                    return servletContext;
+                }
+                if ("getFilterName".equals(name)) {
+                    return "ShiroFilter";
+                }
+                if ("getInitParameterNames".equals(name)) {
+                    return Collections.enumeration(Collections.emptyList());
+                }
+                return defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    /**
+     * Returns a {@code GET} request for the specified URI within the root context, sending the specified cookies and
+     * headers.
+     */
+    static HttpServletRequest request(final String requestURI, Map<String, String> cookies,
+                                      final Map<String, String> headers) {
+        final Cookie[] cookieArray = toCookies(cookies);
+        final Map<String, Object> attributes = new HashMap<String, Object>();
+        return proxy(HttpServletRequest.class, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                String name = method.getName();
+                if ("getAttribute".equals(name)) {
+                    return attributes.get((String) args[0]);
+                }
+                if ("setAttribute".equals(name)) {
+                    attributes.put((String) args[0], args[1]);
+                    return null;
+                }
+                if ("removeAttribute".equals(name)) {
+                    attributes.remove((String) args[0]);
+                    return null;
+                }
+                if ("getAttributeNames".equals(name)) {
+                    return Collections.enumeration(attributes.keySet());
+                }
+                if ("getRequestURI".equals(name) || "getServletPath".equals(name)) {
+                    return requestURI;
+                }
+                if ("getRequestURL".equals(name)) {
+                    return new StringBuffer("http://localhost:8080").append(requestURI);
+                }
+                if ("getContextPath".equals(name)) {
+                    return "";
+                }
+                if ("getCookies".equals(name)) {
+                    return cookieArray;
+                }
+                if ("getHeader".equals(name)) {
+                    return headers.get((String) args[0]);
+                }
+                if ("getMethod".equals(name)) {
+                    return "GET";
+                }
+                if ("getScheme".equals(name)) {
+                    return "http";
+                }
+                if ("getServerName".equals(name)) {
+                    return "localhost";
+                }
+                if ("getServerPort".equals(name)) {
+                    return 8080;
+                }
+                if ("getRemoteHost".equals(name) || "getRemoteAddr".equals(name)) {
+                    return "127.0.0.1";
+                }
+                if ("getCharacterEncoding".equals(name)) {
+                    return "UTF-8";
+                }
+                return defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    private static Cookie[] toCookies(Map<String, String> cookies) {
+        if (cookies.isEmpty()) {
+            return null;
+        }
+        Cookie[] array = new Cookie[cookies.size()];
+        int i = 0;
+        for (Map.Entry<String, String> entry : cookies.entrySet()) {
+            array[i++] = new Cookie(entry.getKey(), entry.getValue());
+        }
+        return array;
+    }
+
+    /**
+     * Records the {@code Set-Cookie} headers and status of a response.
+     */
+    static final class ResponseRecorder implements InvocationHandler {
+
+        private final List<String> setCookieHeaders = new ArrayList<String>(2);
+        private int status = HttpServletResponse.SC_OK;
+
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            String name = method.getName();
+            if (("addHeader".equals(name) || "setHeader".equals(name)) && "Set-Cookie".equals(args[0])) {
+                setCookieHeaders.add((String) args[1]);
+                return null;
+            }
+            if ("addCookie".equals(name)) {
+                Cookie cookie = (Cookie) args[0];
+                setCookieHeaders.add(cookie.getName() + "=" + cookie.getValue() +
+                        (cookie.getMaxAge() == 0 ? "; Max-Age=0" : ""));
+                return null;
+            }
+            if ("setStatus".equals(name) || "sendError".equals(name)) {
+                status = (Integer) args[0];
+                return null;
+            }
+            if ("sendRedirect".equals(name)) {
+                status = HttpServletResponse.SC_MOVED_TEMPORARILY;
+                return null;
+            }
+            if (name.startsWith("encode")) {
+                return args[0];
+            }
+            if ("getCharacterEncoding".equals(name)) {
+                return "UTF-8";
+            }
+            return defaultValue(method.getReturnType());
+        }
+
+        HttpServletResponse newResponse() {
+            return proxy(HttpServletResponse.class, this);
+        }
+
+        int getStatus() {
+            return status;
+        }
+
+        /**
+         * Applies the recorded {@code Set-Cookie} headers to the specified cookie jar, as a browser would.
+         */
+        void applyCookies(Map<String, String> jar) {
+            for (String header : setCookieHeaders) {
+                int eq = header.indexOf('=');
+                int end = header.indexOf(';');
+                String name = header.substring(0, eq);
+                String value = header.substring(eq + 1, end < 0 ? header.length() : end);
+                if (header.contains("Max-Age=0") || "deleteMe".equals(value)) {
+                    jar.remove(name);
+                } else {
+                    jar.put(name, value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a new, empty cookie jar.
+     */
+    static Map<String, String> cookieJar() {
+        return new LinkedHashMap<String, String>(4);
+    }
+
+    /**
+     * Returns a copy of the cookie jar without the named cookie.
+     */
+    static Map<String, String> without(Map<String, String> jar, String cookieName) {
+        Map<String, String> copy = new LinkedHashMap<String, String>(jar);
+        copy.remove(cookieName);
+        return copy;
+    }
+}
@@ -0,0 +1,445 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.benchmarks.web;
+
+import org.apache.shiro.authc.UsernamePasswordToken;
+import org.apache.shiro.codec.Base64;
+import org.apache.shiro.mgt.SecurityManager;
+import org.apache.shiro.mgt.SessionsSecurityManager;
+import org.apache.shiro.session.Session;
+import org.apache.shiro.session.SessionException;
+import org.apache.shiro.session.mgt.DefaultSessionKey;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.web.env.EnvironmentLoader;
+import org.apache.shiro.web.env.IniWebEnvironment;
+import org.apache.shiro.web.mgt.CookieRememberMeManager;
+import org.apache.shiro.web.mgt.DefaultWebSecurityManager;
+import org.apache.shiro.web.servlet.ShiroFilter;
+import org.apache.shiro.web.session.mgt.DefaultWebSessionManager;
+import org.apache.shiro.web.subject.WebSubject;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import static org.apache.shiro.benchmarks.web.MockServletContainer.*;
+
+/**
+ * An in-process load test of the {@link ShiroFilter}: it configures an {@link IniWebEnvironment} in a mock servlet
+ * container and has concurrent virtual users send requests through the filter (and a no-op terminal
+ * {@code FilterChain}), so what is measured is the overhead Shiro adds to each request - subject creation,
+ * {@code ThreadContext} binding, session lookup, rememberMe cookie decryption, chain resolution and filter execution.
+ * <p/>
+ * Each virtual user repeatedly makes a 'visit' of {@code --requestsPerVisit} requests as one of:
+ * <ul>
+ * <li>an <b>anonymous</b> user, requesting the anonymous URL without any cookies;</li>
+ * <li>a <b>session</b> user, logging in once via HTTP Basic authentication at the login URL and then requesting the
+ * protected URL with the resulting session cookie;</li>
+ * <li>a <b>rememberMe</b> user, requesting the protected URL with a rememberMe cookie (and, after the first request,
+ * the session cookie Shiro creates for the remembered identity).</li>
+ * </ul>
+ * The session of each visit is stopped once the visit ends, so the number of active sessions stays bounded.  After a
+ * warm-up period, the test reports the throughput, latency percentiles and bytes allocated per request (which
+ * includes the mock request and response objects, but not the sessions stopped between visits).
+ * <p/>
+ * Usage ({@code mvn -Pbenchmarks install} first):
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar org.apache.shiro.benchmarks.web.ShiroFilterLoadTest [options]
+ *
+ *   --ini &lt;location&gt;           the INI configuration (default: the bundled loadtest.ini)
+ *   --threads &lt;n&gt;              the number of virtual users (default: the number of processors)
+ *   --warmup &lt;seconds&gt;         the warm-up time (default: 10)
+ *   --duration &lt;seconds&gt;       the measurement time (default: 30)
+ *   --mix &lt;a,s,r&gt;              the anonymous, session and rememberMe visit weights (default: 40,40,20)
+ *   --requestsPerVisit &lt;n&gt;     the requests per visit (default: 10)
+ *   --username, --password     the credentials of the session and rememberMe users (default: loadtest/secret)
+ *   --anonymousUrl, --loginUrl, --protectedUrl
+ *                              the requested URLs (default: /public/index.html, /login, /account/profile)
+ * </pre>
+ * A custom INI configuration must use Shiro's native sessions (the mock container has no servlet sessions), the
+ * default {@code CookieRememberMeManager}, and map its URLs so that the login URL requires {@code authcBasic}.
+ */
+public class ShiroFilterLoadTest {
+
+    private static final int SAMPLES_PER_THREAD = 100000;
+
+    private static final FilterChain NO_OP_CHAIN = new FilterChain() {
+        public void doFilter(ServletRequest request, ServletResponse response) {
+        }
+    };
+
+    private enum VisitType {
+        ANONYMOUS, SESSION, REMEMBER_ME
+    }
+
+    private String ini = "classpath:org/apache/shiro/benchmarks/web/loadtest.ini";
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int warmupSeconds = 10;
+    private int durationSeconds = 30;
+    private int[] mix = {40, 40, 20};
+    private int requestsPerVisit = 10;
+    private String username = "loadtest";
+    private String password = "secret";
+    private String anonymousUrl = "/public/index.html";
+    private String loginUrl = "/login";
+    private String protectedUrl = "/account/profile";
+
+    private ShiroFilter filter;
+    private SessionsSecurityManager securityManager;
+    private String sessionCookieName;
+    private String rememberMeCookieName;
+    private String rememberMeCookieValue;
+    private String authorizationHeader;
+
+    private volatile boolean measuring;
+    private volatile boolean stopped;
+
+    public static void main(String[] args) throws Exception {
+        ShiroFilterLoadTest test = new ShiroFilterLoadTest();
+        test.parse(args);
+        test.setUp();
+        test.run();
+    }
+
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for argument " + arg);
+            }
+            String value = args[++i];
+            if ("--ini".equals(arg)) {
+                ini = value;
+            } else if ("--threads".equals(arg)) {
+                threads = Integer.parseInt(value);
+            } else if ("--warmup".equals(arg)) {
+                warmupSeconds = Integer.parseInt(value);
+            } else if ("--duration".equals(arg)) {
+                durationSeconds = Integer.parseInt(value);
+            } else if ("--mix".equals(arg)) {
+                String[] weights = value.split(",");
+                if (weights.length != 3) {
+                    throw new IllegalArgumentException("--mix requires three weights: anonymous,session,rememberMe");
+                }
+                for (int w = 0; w < 3; w++) {
+                    mix[w] = Integer.parseInt(weights[w].trim());
+                }
+            } else if ("--requestsPerVisit".equals(arg)) {
+                requestsPerVisit = Integer.parseInt(value);
+            } else if ("--username".equals(arg)) {
+                username = value;
+            } else if ("--password".equals(arg)) {
+                password = value;
+            } else if ("--anonymousUrl".equals(arg)) {
+                anonymousUrl = value;
+            } else if ("--loginUrl".equals(arg)) {
+                loginUrl = value;
+            } else if ("--protectedUrl".equals(arg)) {
+                protectedUrl = value;
+            } else {
+                throw new IllegalArgumentException("Unknown argument " + arg);
+            }
+        }
+        if (threads < 1 || durationSeconds < 1 || warmupSeconds < 0 || requestsPerVisit < 1 ||
+                mix[0] < 0 || mix[1] < 0 || mix[2] < 0 || mix[0] + mix[1] + mix[2] == 0) {
+            throw new IllegalArgumentException("Invalid arguments " + Arrays.toString(args));
+        }
+    }
+
+    private void setUp() throws Exception {
+        ServletContext servletContext = servletContext();
+        IniWebEnvironment environment = new IniWebEnvironment();
+        environment.setServletContext(servletContext);
+        environment.setConfigLocations(ini);
+        environment.init();
+        servletContext.setAttribute(EnvironmentLoader.ENVIRONMENT_ATTRIBUTE_KEY, environment);
+
+        filter = new ShiroFilter();
+        filter.init(filterConfig(servletContext));
+
+        SecurityManager sm = environment.getWebSecurityManager();
+        if (!(sm instanceof DefaultWebSecurityManager) ||
+                !(((DefaultWebSecurityManager) sm).getSessionManager() instanceof DefaultWebSessionManager) ||
+                !(((DefaultWebSecurityManager) sm).getRememberMeManager() instanceof CookieRememberMeManager)) {
+            throw new IllegalStateException("The load test requires a DefaultWebSecurityManager with a " +
+                    "DefaultWebSessionManager (native sessions) and a CookieRememberMeManager.");
+        }
+        DefaultWebSecurityManager webSecurityManager = (DefaultWebSecurityManager) sm;
+        securityManager = webSecurityManager;
+        sessionCookieName = ((DefaultWebSessionManager) webSecurityManager.getSessionManager())
+                .getSessionIdCookie().getName();
+        rememberMeCookieName = ((CookieRememberMeManager) webSecurityManager.getRememberMeManager())
+                .getCookie().getName();
+        authorizationHeader = "Basic " + Base64.encodeToString((username + ":" + password).getBytes("UTF-8"));
+        rememberMeCookieValue = createRememberMeCookie(webSecurityManager);
+    }
+
+    /**
+     * Logs in once with 'rememberMe' enabled and returns the rememberMe cookie value that was set, as the value sent
+     * by all rememberMe users.
+     */
+    private String createRememberMeCookie(DefaultWebSecurityManager sm) {
+        Map<String, String> jar = cookieJar();
+        HttpServletRequest request = request(protectedUrl, jar, Collections.<String, String>emptyMap());
+        ResponseRecorder recorder = new ResponseRecorder();
+        Subject subject = new WebSubject.Builder(sm, request, recorder.newResponse()).buildWebSubject();
+        subject.login(new UsernamePasswordToken(username, password, true));
+        recorder.applyCookies(jar);
+        subject.logout();
+        String value = jar.get(rememberMeCookieName);
+        if (value == null) {
+            throw new IllegalStateException("No rememberMe cookie was set on login.");
+        }
+        return value;
+    }
+
+    private void run() throws Exception {
+        System.out.println("Shiro filter load test: " + threads + " virtual users, " + warmupSeconds +
+                "s warm-up, " + durationSeconds + "s measurement, anonymous/session/rememberMe mix " +
+                mix[0] + "/" + mix[1] + "/" + mix[2] + ", " + requestsPerVisit + " requests per visit");
+
+        final CountDownLatch done = new CountDownLatch(threads);
+        final List<VirtualUser> users = new ArrayList<VirtualUser>(threads);
+        for (int i = 0; i < threads; i++) {
+            final VirtualUser user = new VirtualUser(i);
+            users.add(user);
+            Thread thread = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        user.run();
+                    } catch (Throwable t) {
+                        user.failure = t;
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }, "virtual-user-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        Thread.sleep(warmupSeconds * 1000L);
+        long start = System.nanoTime();
+        measuring = true;
+        Thread.sleep(durationSeconds * 1000L);
+        measuring = false;
+        long elapsed = System.nanoTime() - start;
+        stopped = true;
+        done.await();
+
+        for (VirtualUser user : users) {
+            if (user.failure != null) {
+                throw new IllegalStateException("Virtual user failed", user.failure);
+            }
+        }
+        report(users, elapsed);
+        filter.destroy();
+    }
+
+    private void report(List<VirtualUser> users, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        long total = 0;
+        for (VisitType type : VisitType.values()) {
+            Stats stats = new Stats();
+            for (VirtualUser user : users) {
+                stats.merge(user.stats[type.ordinal()]);
+            }
+            total += stats.requests;
+            if (stats.requests > 0) {
+                System.out.println(stats.format(type.name().toLowerCase(), seconds));
+            }
+        }
+        Stats all = new Stats();
+        for (VirtualUser user : users) {
+            for (Stats stats : user.stats) {
+                all.merge(stats);
+            }
+        }
+        System.out.println(all.format("all", seconds));
+        if (total == 0) {
+            System.out.println("No requests completed during the measurement period.");
+        }
+        if (!allocationMeasured()) {
+            System.out.println("(allocation per request is not supported by this JVM)");
+        }
+    }
+
+    private static boolean allocationMeasured() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        return bean instanceof com.sun.management.ThreadMXBean &&
+                ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported() &&
+                ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemoryEnabled();
+    }
+
+    private final class VirtualUser {
+
+        private final Random random;
+        private final Stats[] stats = {new Stats(), new Stats(), new Stats()};
+        private final com.sun.management.ThreadMXBean allocation;
+        private volatile Throwable failure;
+
+        private VirtualUser(int index) {
+            this.random = new Random(index * 7919L + 1);
+            this.allocation = allocationMeasured() ?
+                    (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean() : null;
+        }
+
+        private VisitType nextVisitType() {
+            int n = random.nextInt(mix[0] + mix[1] + mix[2]);
+            if (n < mix[0]) {
+                return VisitType.ANONYMOUS;
+            }
+            return n < mix[0] + mix[1] ? VisitType.SESSION : VisitType.REMEMBER_ME;
+        }
+
+        private void run() throws Exception {
+            Map<String, String> noHeaders = Collections.emptyMap();
+            Map<String, String> loginHeaders = Collections.singletonMap("Authorization", authorizationHeader);
+            while (!stopped) {
+                VisitType type = nextVisitType();
+                Stats stats = this.stats[type.ordinal()];
+                Map<String, String> jar = cookieJar();
+                String url = protectedUrl;
+                if (type == VisitType.ANONYMOUS) {
+                    url = anonymousUrl;
+                } else if (type == VisitType.SESSION) {
+                    execute(loginUrl, jar, loginHeaders, stats);
+                } else {
+                    jar.put(rememberMeCookieName, rememberMeCookieValue);
+                }
+                for (int i = 0; i < requestsPerVisit && !stopped; i++) {
+                    execute(url, jar, noHeaders, stats);
+                }
+                stopSession(jar.get(sessionCookieName));
+            }
+        }
+
+        private void execute(String url, Map<String, String> jar, Map<String, String> headers, Stats stats)
+                throws Exception {
+            HttpServletRequest request = request(url, jar, headers);
+            ResponseRecorder recorder = new ResponseRecorder();
+            HttpServletResponse response = recorder.newResponse();
+
+            boolean measured = measuring;
+            long threadId = Thread.currentThread().getId();
+            long allocatedBefore = measured && allocation != null ? allocation.getThreadAllocatedBytes(threadId) : 0;
+            long start = System.nanoTime();
+            filter.doFilter(request, response, NO_OP_CHAIN);
+            long latency = System.nanoTime() - start;
+            if (measured) {
+                long allocated = allocation != null ? allocation.getThreadAllocatedBytes(threadId) - allocatedBefore : 0;
+                stats.record(latency, allocated, recorder.getStatus() != HttpServletResponse.SC_OK, random);
+            }
+            recorder.applyCookies(jar);
+        }
+
+        private void stopSession(String sessionId) {
+            if (sessionId == null) {
+                return;
+            }
+            try {
+                Session session = securityManager.getSession(new DefaultSessionKey(sessionId));
+                if (session != null) {
+                    session.stop();
+                }
+            } catch (SessionException e) {
+                //already stopped or expired - nothing to clean up
+            }
+        }
+    }
+
+    /**
+     * The request count, errors, allocation and a reservoir sample of latencies of one visit type.
+     */
+    private static final class Stats {
+
+        private long requests;
+        private long errors;
+        private long allocatedBytes;
+        private long maxLatency;
+        private long[] samples = new long[SAMPLES_PER_THREAD];
+        private int sampleCount;
+
+        private void record(long latency, long allocated, boolean error, Random random) {
+            requests++;
+            if (error) {
+                errors++;
+            }
+            allocatedBytes += allocated;
+            if (latency > maxLatency) {
+                maxLatency = latency;
+            }
+            if (sampleCount < samples.length) {
+                samples[sampleCount++] = latency;
+            } else {
+                //reservoir sampling keeps a uniform sample of all latencies:
+                long slot = (long) (random.nextDouble() * requests);
+                if (slot < samples.length) {
+                    samples[(int) slot] = latency;
+                }
+            }
+        }
+
+        private void merge(Stats other) {
+            requests += other.requests;
+            errors += other.errors;
+            allocatedBytes += other.allocatedBytes;
+            maxLatency = Math.max(maxLatency, other.maxLatency);
+            if (sampleCount + other.sampleCount > samples.length) {
+                samples = Arrays.copyOf(samples, sampleCount + other.sampleCount);
+            }
+            System.arraycopy(other.samples, 0, samples, sampleCount, other.sampleCount);
+            sampleCount += other.sampleCount;
+        }
+
+        private String percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return "-";
+            }
+            int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile / 100 * sorted.length) - 1);
+            return micros(sorted[Math.max(0, index)]);
+        }
+
+        private static String micros(long nanos) {
+            return String.format("%.1f", nanos / 1000.0);
+        }
+
+        private String format(String name, double seconds) {
+            long[] sorted = Arrays.copyOf(samples, sampleCount);
+            Arrays.sort(sorted);
+            return String.format("%-12s %,12d requests %,12.0f req/s %,8d non-200   latency (us) p50 %s p90 %s " +
+                    "p99 %s p99.9 %s max %s   %,d bytes/request",
+                    name, requests, requests / seconds, errors,
+                    percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99),
+                    percentile(sorted, 99.9), micros(maxLatency), requests == 0 ? 0 : allocatedBytes / requests);
+        }
+    }
+}
@@ -19,6 +19,7 @@
 package org.apache.shiro.authc.credential;
 
 import org.apache.shiro.crypto.hash.DefaultHashService;
+import org.apache.shiro.crypto.hash.ExecutorHashService;
 import org.apache.shiro.crypto.hash.Hash;
 import org.apache.shiro.crypto.hash.HashRequest;
 import org.apache.shiro.crypto.hash.HashService;
@@ -35,6 +36,16 @@ import org.slf4j.LoggerFactory;
  * <h2>Comparing Passwords</h2>
  * All hashing operations are performed by the internal {@link #getHashService() hashService}.  After the hash
  * is computed, it is formatted into a String value via the internal {@link #getHashFormat() hashFormat}.
+ * <p/>
+ * Hashing is performed on the calling thread.  To cap the CPU spent on password hashing separately from request
+ * handling, configure an {@link org.apache.shiro.crypto.hash.ExecutorHashService ExecutorHashService} wrapping the
+ * desired {@code HashService} as the {@link #setHashService(HashService) hashService}.
+ * <p/>
+ * Saved hashes without a salt (e.g. legacy {@code MD5} hashes) are verified without a salt even if the
+ * {@code hashService} generates salts for new hashes, on the {@code ExecutorHashService}'s threads if one is
+ * configured.  Such hashes, and any hash computed with a different algorithm
+ * or iteration count than currently configured, {@link #isRehashRequired(Hash) require a re-hash}; see
+ * {@link PasswordUpgradeHandler}.
  *
  * @since 1.2
  */
@@ -49,6 +60,11 @@ public class DefaultPasswordService implements HashingPasswordService {
     private HashFormat hashFormat;
     private HashFormatFactory hashFormatFactory;
 
+    /**
+     * Verifies legacy unsalted hashes: a {@code DefaultHashService} with default settings never adds a salt.
+     */
+    private final HashService unsaltedHashService = new DefaultHashService();
+
     private volatile boolean hashFormatWarned; //used to avoid excessive log noise
 
     public DefaultPasswordService() {
@@ -92,11 +108,53 @@ public class DefaultPasswordService implements HashingPasswordService {
 
         HashRequest request = buildHashRequest(plaintextBytes, saved);
 
-        Hash computed = this.hashService.computeHash(request);
+        Hash computed;
+        if (isUnsalted(saved) && isSalting(getDefaultHashService())) {
+            //a legacy unsalted hash - the hashService would add a salt, so compute it without one:
+            computed = computeUnsaltedHash(request);
+        } else {
+            computed = this.hashService.computeHash(request);
+        }
 
         return saved.equals(computed);
     }
 
+    /**
+     * Computes the hash without a salt, on the {@link #getHashService() hashService}'s executor (and within its
+     * limits) if it is an {@link ExecutorHashService}.
+     */
+    private Hash computeUnsaltedHash(HashRequest request) {
+        HashService hashService = getHashService();
+        if (hashService instanceof ExecutorHashService) {
+            return ((ExecutorHashService) hashService).computeHash(request, this.unsaltedHashService);
+        }
+        return this.unsaltedHashService.computeHash(request);
+    }
+
+    private static boolean isUnsalted(Hash hash) {
+        return hash.getSalt() == null || hash.getSalt().isEmpty();
+    }
+
+    private static boolean isSalting(DefaultHashService hashService) {
+        if (hashService == null) {
+            return false;
+        }
+        ByteSource privateSalt = hashService.getPrivateSalt();
+        return hashService.isGeneratePublicSalt() || (privateSalt != null && !privateSalt.isEmpty());
+    }
+
+    /**
+     * Returns the {@link #getHashService() hashService} if it is a {@link DefaultHashService} or an
+     * {@link ExecutorHashService} wrapping one, or {@code null} otherwise.
+     */
+    private DefaultHashService getDefaultHashService() {
+        HashService hashService = getHashService();
+        if (hashService instanceof ExecutorHashService) {
+            hashService = ((ExecutorHashService) hashService).getHashService();
+        }
+        return hashService instanceof DefaultHashService ? (DefaultHashService) hashService : null;
+    }
+
     protected void checkHashFormatDurability() {
 
         if (!this.hashFormatWarned) {
@@ -164,6 +222,64 @@ public class DefaultPasswordService implements HashingPasswordService {
         return saved.equals(formatted);
     }
 
+    /**
+     * Returns {@code true} if the specified saved password hash was not computed with the current configuration and
+     * should be replaced by a re-hash of the password, {@code false} otherwise.
+     * <p/>
+     * A re-hash is required if the saved hash's algorithm name or iteration count differ from the
+     * {@link #getHashService() hashService}'s, or if the saved hash has no salt while the {@code hashService} would use
+     * one.  This can only be determined if the {@code hashService} is a {@link DefaultHashService} (possibly wrapped
+     * by an {@link ExecutorHashService}); for any other {@code hashService} this method returns {@code false}.
+     *
+     * @param saved the saved password hash
+     * @return {@code true} if the saved password hash should be replaced by a re-hash of the password.
+     * @see PasswordUpgradeHandler
+     * @since 1.3
+     */
+    public boolean isRehashRequired(Hash saved) {
+        if (saved == null || saved.isEmpty()) {
+            return false;
+        }
+        DefaultHashService current = getDefaultHashService();
+        if (current == null) {
+            return false;
+        }
+        String algorithmName = current.getHashAlgorithmName();
+        if (algorithmName == null || !algorithmName.equalsIgnoreCase(saved.getAlgorithmName())) {
+            return true;
+        }
+        if (saved.getIterations() != Math.max(1, current.getHashIterations())) {
+            return true;
+        }
+        return isSalting(current) && isUnsalted(saved);
+    }
+
+    /**
+     * Returns {@code true} if the specified saved formatted password can be parsed by a
+     * {@link ParsableHashFormat ParsableHashFormat} and the resulting hash
+     * {@link #isRehashRequired(Hash) requires a re-hash}, {@code false} otherwise.
+     *
+     * @param saved the saved formatted password
+     * @return {@code true} if the saved password should be replaced by a re-hash of the password.
+     * @since 1.3
+     */
+    public boolean isRehashRequired(String saved) {
+        if (saved == null || saved.length() == 0) {
+            return false;
+        }
+        HashFormat discoveredFormat = this.hashFormatFactory.getInstance(saved);
+        if (!(discoveredFormat instanceof ParsableHashFormat)) {
+            return false;
+        }
+        Hash savedHash;
+        try {
+            savedHash = ((ParsableHashFormat) discoveredFormat).parse(saved);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return isRehashRequired(savedHash);
+    }
+
     protected HashRequest buildHashRequest(ByteSource plaintext, Hash saved) {
         //keep everything from the saved hash except for the source:
         return new HashRequest.Builder().setSource(plaintext)
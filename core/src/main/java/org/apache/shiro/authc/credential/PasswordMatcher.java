@@ -21,6 +21,8 @@ package org.apache.shiro.authc.credential;
 import org.apache.shiro.authc.AuthenticationInfo;
 import org.apache.shiro.authc.AuthenticationToken;
 import org.apache.shiro.crypto.hash.Hash;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * A {@link CredentialsMatcher} that employs best-practices comparisons for hashed text passwords.
@@ -28,13 +30,27 @@ import org.apache.shiro.crypto.hash.Hash;
  * This implementation delegates to an internal {@link PasswordService} to perform the actual password
  * comparison.  This class is essentially a bridge between the generic CredentialsMatcher interface and the
  * more specific {@code PasswordService} component.
+ * <p/>
+ * If a {@link #setPasswordUpgradeHandler(PasswordUpgradeHandler) passwordUpgradeHandler} is configured and the
+ * {@code passwordService} is a {@link DefaultPasswordService}, a successfully matched password whose stored hash
+ * {@link DefaultPasswordService#isRehashRequired(Hash) requires a re-hash} is re-hashed with the current configuration
+ * and handed to the handler to be persisted.  For example, in {@code shiro.ini}:
+ * <pre>
+ * passwordMatcher = org.apache.shiro.authc.credential.PasswordMatcher
+ * myRealm.credentialsMatcher = $passwordMatcher
+ * passwordMatcher.passwordUpgradeHandler = $myRealm
+ * </pre>
  *
  * @since 1.2
  */
 public class PasswordMatcher implements CredentialsMatcher {
 
+    private static final Logger log = LoggerFactory.getLogger(PasswordMatcher.class);
+
     private PasswordService passwordService;
 
+    private PasswordUpgradeHandler passwordUpgradeHandler;
+
     public PasswordMatcher() {
         this.passwordService = new DefaultPasswordService();
     }
@@ -50,11 +66,31 @@ public class PasswordMatcher implements CredentialsMatcher {
         if (storedCredentials instanceof Hash) {
             Hash hashedPassword = (Hash)storedCredentials;
             HashingPasswordService hashingService = assertHashingPasswordService(service);
-            return hashingService.passwordsMatch(submittedPassword, hashedPassword);
+            boolean match = hashingService.passwordsMatch(submittedPassword, hashedPassword);
+            if (match && getPasswordUpgradeHandler() != null && service instanceof DefaultPasswordService &&
+                    ((DefaultPasswordService) service).isRehashRequired(hashedPassword)) {
+                upgradePassword(info, hashingService.hashPassword(submittedPassword));
+            }
+            return match;
         }
         //otherwise they are a String (asserted in the 'assertStoredCredentialsType' method call above):
         String formatted = (String)storedCredentials;
-        return passwordService.passwordsMatch(submittedPassword, formatted);
+        boolean match = passwordService.passwordsMatch(submittedPassword, formatted);
+        if (match && getPasswordUpgradeHandler() != null && service instanceof DefaultPasswordService &&
+                ((DefaultPasswordService) service).isRehashRequired(formatted)) {
+            upgradePassword(info, service.encryptPassword(submittedPassword));
+        }
+        return match;
+    }
+
+    private void upgradePassword(AuthenticationInfo info, Object upgradedCredentials) {
+        PasswordUpgradeHandler handler = getPasswordUpgradeHandler();
+        try {
+            handler.upgradePassword(info, upgradedCredentials);
+        } catch (RuntimeException e) {
+            log.warn("Unable to upgrade the stored password hash for account [" +
+                    (info != null ? info.getPrincipals() : null) + "].  The existing hash remains in use.", e);
+        }
     }
 
     private HashingPasswordService assertHashingPasswordService(PasswordService service) {
@@ -107,4 +143,26 @@ public class PasswordMatcher implements CredentialsMatcher {
     public void setPasswordService(PasswordService passwordService) {
         this.passwordService = passwordService;
     }
+
+    /**
+     * Returns the handler that persists passwords re-hashed with the current configuration, or {@code null} if stored
+     * passwords are never upgraded (the default).
+     *
+     * @return the handler that persists passwords re-hashed with the current configuration, or {@code null}.
+     * @since 1.3
+     */
+    public PasswordUpgradeHandler getPasswordUpgradeHandler() {
+        return passwordUpgradeHandler;
+    }
+
+    /**
+     * Sets the handler that persists passwords re-hashed with the current configuration, typically the realm that
+     * uses this matcher.  If {@code null} (the default), stored passwords are never upgraded.
+     *
+     * @param passwordUpgradeHandler the handler that persists passwords re-hashed with the current configuration.
+     * @since 1.3
+     */
+    public void setPasswordUpgradeHandler(PasswordUpgradeHandler passwordUpgradeHandler) {
+        this.passwordUpgradeHandler = passwordUpgradeHandler;
+    }
 }
@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authc.credential;
+
+import org.apache.shiro.authc.AuthenticationInfo;
+
+/**
+ * Persists an account's password re-hashed with the current password hashing configuration, typically implemented
+ * by the {@code Realm} that owns the account's credentials.
+ * <p/>
+ * When a {@link PasswordMatcher PasswordMatcher} with a configured
+ * {@link PasswordMatcher#setPasswordUpgradeHandler(PasswordUpgradeHandler) passwordUpgradeHandler} successfully
+ * matches a submitted password against a stored hash that was computed with outdated parameters (for example a legacy
+ * {@code MD5} hash, or fewer iterations than currently configured), it re-hashes the submitted password and hands the
+ * result to this handler.  Stored passwords are thereby migrated to the current configuration as users log in,
+ * without forcing password resets.
+ *
+ * @see DefaultPasswordService#isRehashRequired(org.apache.shiro.crypto.hash.Hash)
+ * @since 1.3
+ */
+public interface PasswordUpgradeHandler {
+
+    /**
+     * Replaces the stored credentials of the account represented by the specified {@code AuthenticationInfo} with
+     * the specified upgraded credentials.
+     * <p/>
+     * The upgraded credentials are of the same kind as the stored credentials: a formatted String (as returned by
+     * {@link PasswordService#encryptPassword(Object) encryptPassword}) if the stored credentials were a String, or a
+     * {@link org.apache.shiro.crypto.hash.Hash Hash} if they were a {@code Hash}.  Implementations that cache
+     * authentication information should also clear the account's cached information.
+     * <p/>
+     * This method is called during authentication; any exception it throws is logged and otherwise ignored, so a
+     * failed upgrade never prevents a successful login.
+     *
+     * @param info                the stored account information whose password was successfully matched
+     * @param upgradedCredentials the submitted password, hashed with the current configuration
+     */
+    void upgradePassword(AuthenticationInfo info, Object upgradedCredentials);
+}
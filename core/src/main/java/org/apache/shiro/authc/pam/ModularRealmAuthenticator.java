@@ -22,10 +22,28 @@ import org.apache.shiro.authc.*;
 import org.apache.shiro.realm.Realm;
 import org.apache.shiro.subject.PrincipalCollection;
 import org.apache.shiro.util.CollectionUtils;
+import org.apache.shiro.util.Destroyable;
+import org.apache.shiro.util.ThreadContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A {@code ModularRealmAuthenticator} delgates account lookups to a pluggable (modular) collection of
@@ -54,6 +72,13 @@ import java.util.Collection;
  * <p/>
  * As most multi-realm applications require at least one Realm authenticates successfully, the default
  * implementation is the {@link AtLeastOneSuccessfulStrategy}.
+ * <p/>
+ * <h3>Concurrent authentication</h3>
+ * By default realms are consulted one after the other, so a multi-realm log-in takes as long as all realms combined.
+ * When {@link #setConcurrentAuthenticationEnabled(boolean) concurrentAuthenticationEnabled} is {@code true}, all
+ * realms supporting the token are consulted at the same time on an {@link #setExecutor(Executor) executor}, and a
+ * log-in takes roughly as long as the slowest realm that must be waited for.  See
+ * {@link #doConcurrentMultiRealmAuthentication(Collection, AuthenticationToken)} for how results are combined.
  *
  * @see #setRealms
  * @see AtLeastOneSuccessfulStrategy
@@ -61,13 +86,20 @@ import java.util.Collection;
  * @see FirstSuccessfulStrategy
  * @since 0.1
  */
-public class ModularRealmAuthenticator extends AbstractAuthenticator {
+public class ModularRealmAuthenticator extends AbstractAuthenticator implements Destroyable {
 
     /*--------------------------------------------
     |             C O N S T A N T S             |
     ============================================*/
     private static final Logger log = LoggerFactory.getLogger(ModularRealmAuthenticator.class);
 
+    /**
+     * The default maximum number of threads of the internal realm authentication pool, {@code 32}.
+     *
+     * @since 1.3
+     */
+    public static final int DEFAULT_MAX_THREADS = 32;
+
     /*--------------------------------------------
     |    I N S T A N C E   V A R I A B L E S    |
     ============================================*/
@@ -82,6 +114,15 @@ public class ModularRealmAuthenticator extends AbstractAuthenticator {
      */
     private AuthenticationStrategy authenticationStrategy;
 
+    private boolean concurrentAuthenticationEnabled = false;
+
+    private long realmTimeout = 0;
+
+    private int maxThreads = DEFAULT_MAX_THREADS;
+
+    private Executor executor;
+    private ThreadPoolExecutor internalExecutor;
+
     /*--------------------------------------------
     |         C O N S T R U C T O R S           |
     ============================================*/
@@ -143,6 +184,112 @@ public class ModularRealmAuthenticator extends AbstractAuthenticator {
         this.authenticationStrategy = authenticationStrategy;
     }
 
+    /**
+     * Returns {@code true} if multi-realm log-in attempts consult all supporting realms concurrently,
+     * {@code false} if realms are consulted one after the other.  The default is {@code false}.
+     *
+     * @return {@code true} if multi-realm log-in attempts consult all supporting realms concurrently.
+     * @since 1.3
+     */
+    public boolean isConcurrentAuthenticationEnabled() {
+        return concurrentAuthenticationEnabled;
+    }
+
+    /**
+     * Sets whether multi-realm log-in attempts consult all supporting realms concurrently or one after the other.
+     * The default is {@code false}.  This setting has no effect when only one realm is configured.
+     *
+     * @param concurrentAuthenticationEnabled whether or not realms are consulted concurrently.
+     * @since 1.3
+     */
+    public void setConcurrentAuthenticationEnabled(boolean concurrentAuthenticationEnabled) {
+        this.concurrentAuthenticationEnabled = concurrentAuthenticationEnabled;
+    }
+
+    /**
+     * Returns the maximum time, in milliseconds, to wait for each realm during a concurrent multi-realm log-in
+     * attempt.  A value of {@code 0} or less waits indefinitely.  The default is {@code 0}.
+     *
+     * @return the maximum time, in milliseconds, to wait for each realm.
+     * @since 1.3
+     */
+    public long getRealmTimeout() {
+        return realmTimeout;
+    }
+
+    /**
+     * Sets the maximum time, in milliseconds, to wait for each realm during a concurrent multi-realm log-in
+     * attempt.  A value of {@code 0} or less waits indefinitely.  The default is {@code 0}.
+     * <p/>
+     * A realm that does not return in time is interrupted and reported to the {@code AuthenticationStrategy} as
+     * having thrown an {@link AuthenticationException}.  Override {@link #getRealmTimeout(Realm)} to use different
+     * timeouts for different realms.
+     *
+     * @param realmTimeout the maximum time, in milliseconds, to wait for each realm.
+     * @since 1.3
+     */
+    public void setRealmTimeout(long realmTimeout) {
+        this.realmTimeout = realmTimeout;
+    }
+
+    /**
+     * Returns the maximum number of threads of the internal pool that consults realms during concurrent log-in
+     * attempts.  The default is {@link #DEFAULT_MAX_THREADS}.
+     *
+     * @return the maximum number of threads of the internal realm authentication pool.
+     * @since 1.3
+     */
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    /**
+     * Sets the maximum number of threads of the internal pool that consults realms during concurrent log-in
+     * attempts.  When every thread is busy (for example because a realm blocks), further realms are consulted on the
+     * calling thread, one after the other, instead of creating more threads.  The default is
+     * {@link #DEFAULT_MAX_THREADS}.  This setting has no effect if an {@link #setExecutor(Executor) executor} is
+     * configured.
+     *
+     * @param maxThreads the maximum number of threads of the internal realm authentication pool.
+     * @throws IllegalArgumentException if {@code maxThreads} is less than one.
+     * @since 1.3
+     */
+    public void setMaxThreads(int maxThreads) {
+        if (maxThreads < 1) {
+            throw new IllegalArgumentException("maxThreads must be greater than zero.");
+        }
+        synchronized (this) {
+            if (this.internalExecutor != null) {
+                this.internalExecutor.setMaximumPoolSize(maxThreads);
+            }
+            this.maxThreads = maxThreads;
+        }
+    }
+
+    /**
+     * Returns the {@code Executor} that consults realms during concurrent log-in attempts, or {@code null} if an
+     * internal pool of daemon threads is used.
+     *
+     * @return the {@code Executor} that consults realms, or {@code null} if an internal pool is used.
+     * @since 1.3
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Sets the {@code Executor} that consults realms during concurrent log-in attempts.  The executor's lifecycle is
+     * not managed by this authenticator.  If not set, a pool of at most {@link #setMaxThreads(int) maxThreads} daemon
+     * threads is created on first use and shut down when this instance is {@link #destroy() destroyed}.  A realm
+     * that the executor rejects is consulted on the calling thread.
+     *
+     * @param executor the {@code Executor} that consults realms, or {@code null} to use an internal pool.
+     * @since 1.3
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
     /*--------------------------------------------
     |               M E T H O D S               |
 
@@ -197,6 +344,10 @@ public class ModularRealmAuthenticator extends AbstractAuthenticator {
      */
     protected AuthenticationInfo doMultiRealmAuthentication(Collection<Realm> realms, AuthenticationToken token) {
 
+        if (isConcurrentAuthenticationEnabled()) {
+            return doConcurrentMultiRealmAuthentication(realms, token);
+        }
+
         AuthenticationStrategy strategy = getAuthenticationStrategy();
 
         AuthenticationInfo aggregate = strategy.beforeAllAttempts(realms, token);
@@ -237,6 +388,260 @@ public class ModularRealmAuthenticator extends AbstractAuthenticator {
         return aggregate;
     }
 
+    /**
+     * Performs the multi-realm authentication attempt by consulting all realms that support the {@code token}
+     * concurrently, calling back to the {@link AuthenticationStrategy} as results arrive.
+     * <p/>
+     * The strategy callbacks are always made on the calling thread:
+     * <ol>
+     * <li>{@code beforeAllAttempts}, then {@code beforeAttempt} for every realm in configured order, before any
+     * realm is consulted.  Each {@code beforeAttempt} call therefore sees the aggregate as returned by the previous
+     * {@code beforeAttempt} call, not as updated by earlier realms' results.</li>
+     * <li>{@code afterAttempt} for each consulted realm, in configured order - a result that arrives early is held
+     * until all earlier realms have been handled.</li>
+     * <li>{@code afterAllAttempts}.</li>
+     * </ol>
+     * The strategy therefore sees the same sequence of results as in a sequential attempt, and the resulting account
+     * is the same; for example, an {@link AtLeastOneSuccessfulStrategy} still aggregates the principals of every
+     * successful realm.  Only for a {@link FirstSuccessfulStrategy} does the attempt complete as soon as the
+     * aggregate contains principals, without waiting for (and interrupting) the remaining realms.
+     * <p/>
+     * A realm that does not return within its {@link #getRealmTimeout(Realm) timeout} is interrupted and reported
+     * to the strategy as having thrown an {@link AuthenticationException}.  A realm that the executor rejects (for
+     * example because all {@link #setMaxThreads(int) maxThreads} threads are busy) is consulted on the calling thread
+     * before the remaining realms are submitted, and is not subject to a timeout.
+     *
+     * @param realms the multiple realms configured on this Authenticator instance.
+     * @param token  the submitted AuthenticationToken representing the subject's (user's) log-in principals and credentials.
+     * @return an aggregated AuthenticationInfo instance representing account data across all the successfully
+     *         consulted realms.
+     * @since 1.3
+     */
+    protected AuthenticationInfo doConcurrentMultiRealmAuthentication(Collection<Realm> realms, AuthenticationToken token) {
+
+        AuthenticationStrategy strategy = getAuthenticationStrategy();
+
+        AuthenticationInfo aggregate = strategy.beforeAllAttempts(realms, token);
+
+        List<Realm> supporting = new ArrayList<Realm>(realms.size());
+        for (Realm realm : realms) {
+            aggregate = strategy.beforeAttempt(realm, token, aggregate);
+            if (realm.supports(token)) {
+                supporting.add(realm);
+            } else {
+                log.debug("Realm [{}] does not support token {}.  Skipping realm.", realm, token);
+            }
+        }
+
+        if (log.isTraceEnabled()) {
+            log.trace("Consulting {} realms concurrently for PAM authentication", supporting.size());
+        }
+
+        boolean shortCircuit = strategy instanceof FirstSuccessfulStrategy;
+
+        int count = supporting.size();
+        RealmAttempt[] attempts = new RealmAttempt[count];
+        List<Future<RealmAttempt>> futures = new ArrayList<Future<RealmAttempt>>(count);
+        long[] deadlines = new long[count];
+
+        CompletionService<RealmAttempt> completionService =
+                new ExecutorCompletionService<RealmAttempt>(callerRunsOnRejection(getRequiredExecutor()));
+        Map<Object, Object> resources = ThreadContext.getResources();
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < count; i++) {
+                Realm realm = supporting.get(i);
+                long timeout = getRealmTimeout(realm);
+                deadlines[i] = timeout > 0 ? start + TimeUnit.MILLISECONDS.toNanos(timeout) : 0;
+                futures.add(completionService.submit(new RealmAttempt(i, realm, token, resources)));
+            }
+
+            int next = 0;
+            boolean complete = false;
+            while (!complete && next < count) {
+                if (attempts[next] == null) {
+                    awaitAttempts(completionService, supporting, attempts, futures, deadlines);
+                }
+                while (next < count && attempts[next] != null) {
+                    aggregate = afterAttempt(strategy, attempts[next++], token, aggregate);
+                    if (shortCircuit && isAuthenticated(aggregate)) {
+                        complete = true;
+                        break;
+                    }
+                }
+            }
+        } finally {
+            //interrupt any realm still running, its result is no longer needed:
+            for (Future<RealmAttempt> future : futures) {
+                future.cancel(true);
+            }
+        }
+
+        aggregate = strategy.afterAllAttempts(token, aggregate);
+
+        return aggregate;
+    }
+
+    /**
+     * Returns the maximum time, in milliseconds, to wait for the specified realm during a concurrent multi-realm
+     * log-in attempt, {@code 0} or less to wait indefinitely.  This implementation returns the
+     * {@link #getRealmTimeout() realmTimeout} for every realm.
+     *
+     * @param realm the realm about to be consulted.
+     * @return the maximum time, in milliseconds, to wait for the realm.
+     * @since 1.3
+     */
+    protected long getRealmTimeout(Realm realm) {
+        return getRealmTimeout();
+    }
+
+    /**
+     * Waits until at least one realm returns or times out and records each such attempt in {@code attempts}.
+     */
+    private void awaitAttempts(CompletionService<RealmAttempt> completionService, List<Realm> realms,
+                               RealmAttempt[] attempts, List<Future<RealmAttempt>> futures, long[] deadlines) {
+        boolean arrived = false;
+        while (!arrived) {
+            long now = System.nanoTime();
+            long wait = Long.MAX_VALUE;
+            for (int i = 0; i < attempts.length; i++) {
+                if (attempts[i] != null || deadlines[i] == 0) {
+                    continue;
+                }
+                long remaining = deadlines[i] - now;
+                if (remaining <= 0) {
+                    futures.get(i).cancel(true);
+                    Realm realm = realms.get(i);
+                    String msg = "Realm [" + realm + "] did not return within " + getRealmTimeout(realm) +
+                            " milliseconds during a concurrent multi-realm authentication attempt.";
+                    attempts[i] = new RealmAttempt(i, realm, new AuthenticationException(msg));
+                    arrived = true;
+                } else if (remaining < wait) {
+                    wait = remaining;
+                }
+            }
+            if (arrived) {
+                break;
+            }
+
+            Future<RealmAttempt> future;
+            try {
+                future = wait == Long.MAX_VALUE ? completionService.take() :
+                        completionService.poll(wait, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AuthenticationException("Interrupted while waiting for realms to authenticate.", e);
+            }
+            //also take everything else that is already available:
+            while (future != null) {
+                RealmAttempt attempt = getAttempt(future);
+                //a null or already recorded attempt was cancelled after timing out:
+                if (attempt != null && attempts[attempt.index] == null) {
+                    attempts[attempt.index] = attempt;
+                    arrived = true;
+                }
+                future = completionService.poll();
+            }
+        }
+    }
+
+    private static RealmAttempt getAttempt(Future<RealmAttempt> future) {
+        try {
+            return future.get();
+        } catch (CancellationException e) {
+            return null;
+        } catch (InterruptedException e) {
+            //the future is already done, get() does not block:
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            //RealmAttempt.call() catches everything the realm throws:
+            throw new IllegalStateException("Unexpected realm attempt failure.", e.getCause());
+        }
+    }
+
+    private AuthenticationInfo afterAttempt(AuthenticationStrategy strategy, RealmAttempt attempt,
+                                            AuthenticationToken token, AuthenticationInfo aggregate) {
+        if (attempt.throwable != null && log.isDebugEnabled()) {
+            String msg = "Realm [" + attempt.realm + "] threw an exception during a multi-realm authentication attempt:";
+            log.debug(msg, attempt.throwable);
+        }
+        return strategy.afterAttempt(attempt.realm, token, attempt.info, aggregate, attempt.throwable);
+    }
+
+    private static boolean isAuthenticated(AuthenticationInfo aggregate) {
+        return aggregate != null && !CollectionUtils.isEmpty(aggregate.getPrincipals());
+    }
+
+    private Executor getRequiredExecutor() {
+        Executor executor = getExecutor();
+        if (executor != null) {
+            return executor;
+        }
+        synchronized (this) {
+            if (this.internalExecutor == null) {
+                this.internalExecutor = createExecutor(this.maxThreads);
+            }
+            return this.internalExecutor;
+        }
+    }
+
+    /**
+     * Returns an {@code Executor} that runs a task the specified executor rejects on the calling thread.
+     */
+    private static Executor callerRunsOnRejection(final Executor executor) {
+        return new Executor() {
+            public void execute(Runnable task) {
+                try {
+                    executor.execute(task);
+                } catch (RejectedExecutionException e) {
+                    log.debug("Realm authentication rejected by executor, consulting the realm on the calling thread.");
+                    task.run();
+                }
+            }
+        };
+    }
+
+    /**
+     * Creates the internal pool used when no {@link #setExecutor(Executor) executor} is configured.  Threads are
+     * created as needed, up to {@code maxThreads}, and discarded after being idle for a minute.  Tasks are never
+     * queued: when all threads are busy the pool rejects the task and the realm is consulted on the calling thread.
+     *
+     * @param maxThreads the maximum number of threads
+     * @return the internal pool
+     * @since 1.3
+     */
+    protected ThreadPoolExecutor createExecutor(int maxThreads) {
+        log.debug("Creating realm authentication pool with at most {} threads.", maxThreads);
+        return new ThreadPoolExecutor(0, maxThreads, 60L, TimeUnit.SECONDS,
+                new SynchronousQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "shiro-realm-authentication-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Shuts down the internal realm authentication pool, if one was created.  A configured
+     * {@link #setExecutor(Executor) executor} is left untouched.
+     *
+     * @since 1.3
+     */
+    public void destroy() {
+        ThreadPoolExecutor pool;
+        synchronized (this) {
+            pool = this.internalExecutor;
+            this.internalExecutor = null;
+        }
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
 
     /**
      * Attempts to authenticate the given token by iterating over the internal collection of
@@ -292,4 +697,44 @@ public class ModularRealmAuthenticator extends AbstractAuthenticator {
             }
         }
     }
+
+    /**
+     * A single realm's part of a concurrent authentication attempt, run with the calling thread's
+     * {@link ThreadContext} resources bound.
+     */
+    private static final class RealmAttempt implements Callable<RealmAttempt> {
+
+        private final int index;
+        private final Realm realm;
+        private final AuthenticationToken token;
+        private final Map<Object, Object> resources;
+
+        private AuthenticationInfo info;
+        private Throwable throwable;
+
+        private RealmAttempt(int index, Realm realm, AuthenticationToken token, Map<Object, Object> resources) {
+            this.index = index;
+            this.realm = realm;
+            this.token = token;
+            this.resources = resources;
+        }
+
+        private RealmAttempt(int index, Realm realm, Throwable throwable) {
+            this(index, realm, null, null);
+            this.throwable = throwable;
+        }
+
+        public RealmAttempt call() {
+            log.trace("Attempting to authenticate token [{}] using realm [{}]", token, realm);
+            ThreadContext.setResources(resources);
+            try {
+                info = realm.getAuthenticationInfo(token);
+            } catch (Throwable t) {
+                throwable = t;
+            } finally {
+                ThreadContext.remove();
+            }
+            return this;
+        }
+    }
 }
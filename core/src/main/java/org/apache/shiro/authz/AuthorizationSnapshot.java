@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authz;
+
+import org.apache.shiro.subject.PrincipalCollection;
+
+/**
+ * An {@code AuthorizationSnapshot} answers any number of role and permission checks for a single Subject using
+ * authorization data that was looked up once, when the snapshot was created.
+ * <p/>
+ * Each check performed directly on an {@link Authorizer Authorizer} (or a {@link org.apache.shiro.subject.Subject}
+ * delegating to one) looks up the Subject's authorization data anew in every configured realm.  That is fine for a
+ * handful of checks, but is wasteful when a single request performs hundreds of them, for example when rendering
+ * a menu with a permission check per item.  A snapshot instead acquires each realm's authorization data
+ * (e.g. {@link AuthorizationInfo AuthorizationInfo}) at most once and evaluates every subsequent check against it.
+ * <p/>
+ * Because the underlying data is captured, a snapshot will not reflect authorization data changes made after it was
+ * created.  Snapshots are therefore intended to be short-lived - typically scoped to a single request - and are not
+ * intended for concurrent use by multiple threads.
+ *
+ * @see AuthorizationSnapshotUtils#getAuthorizationSnapshot(org.apache.shiro.subject.Subject)
+ * @see AuthorizationSnapshotFactory
+ * @since 1.3
+ */
+public interface AuthorizationSnapshot {
+
+    /**
+     * Returns the principals of the Subject this snapshot was created for, or {@code null} if the Subject was
+     * anonymous.
+     *
+     * @return the principals of the Subject this snapshot was created for, or {@code null} if the Subject was
+     *         anonymous.
+     */
+    PrincipalCollection getPrincipals();
+
+    /**
+     * Returns {@code true} if the snapshot's Subject is permitted to perform an action or access a resource
+     * summarized by the specified permission string, {@code false} otherwise.
+     *
+     * @param permission the String representation of a Permission that is being checked.
+     * @return {@code true} if the snapshot's Subject is permitted, {@code false} otherwise.
+     * @see Authorizer#isPermitted(org.apache.shiro.subject.PrincipalCollection, String)
+     */
+    boolean isPermitted(String permission);
+
+    /**
+     * Returns {@code true} if the snapshot's Subject is permitted to perform an action or access a resource
+     * summarized by the specified permission, {@code false} otherwise.
+     *
+     * @param permission the permission that is being checked.
+     * @return {@code true} if the snapshot's Subject is permitted, {@code false} otherwise.
+     * @see Authorizer#isPermitted(org.apache.shiro.subject.PrincipalCollection, Permission)
+     */
+    boolean isPermitted(Permission permission);
+
+    /**
+     * Returns {@code true} if the snapshot's Subject has the specified role, {@code false} otherwise.
+     *
+     * @param roleIdentifier the application-specific role identifier (usually a role id or role name).
+     * @return {@code true} if the snapshot's Subject has the specified role, {@code false} otherwise.
+     * @see Authorizer#hasRole(org.apache.shiro.subject.PrincipalCollection, String)
+     */
+    boolean hasRole(String roleIdentifier);
+}
@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authz;
+
+import org.apache.shiro.subject.PrincipalCollection;
+
+/**
+ * An {@code AuthorizationSnapshotFactory} creates {@link AuthorizationSnapshot AuthorizationSnapshot}s that can answer
+ * many authorization checks for a Subject more efficiently than calling the equivalent {@link Authorizer Authorizer}
+ * methods one at a time.
+ * <p/>
+ * This interface is usually implemented by {@code Authorizer}s (including realms and {@code SecurityManager}s) that
+ * can take advantage of looking up a Subject's authorization data only once.  Components that cannot should simply
+ * not implement it - callers fall back to a {@link DelegatingAuthorizationSnapshot DelegatingAuthorizationSnapshot}
+ * in that case.
+ *
+ * @since 1.3
+ */
+public interface AuthorizationSnapshotFactory {
+
+    /**
+     * Creates a new {@code AuthorizationSnapshot} for the Subject identified by the specified {@code principals}.
+     *
+     * @param principals the application-specific subject/user identifier, may be {@code null} or empty for an
+     *                   anonymous Subject.
+     * @return a new {@code AuthorizationSnapshot} for the Subject identified by the specified {@code principals}.
+     */
+    AuthorizationSnapshot createAuthorizationSnapshot(PrincipalCollection principals);
+}
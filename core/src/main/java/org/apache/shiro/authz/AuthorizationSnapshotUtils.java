@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authz;
+
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.subject.support.DelegatingSubject;
+import org.apache.shiro.util.CollectionUtils;
+
+/**
+ * Utility methods for obtaining {@link AuthorizationSnapshot AuthorizationSnapshot}s.
+ *
+ * @since 1.3
+ */
+public final class AuthorizationSnapshotUtils {
+
+    private AuthorizationSnapshotUtils() {
+    }
+
+    /**
+     * Returns a new {@link AuthorizationSnapshot AuthorizationSnapshot} that can answer any number of role and
+     * permission checks for the specified Subject's current identity while looking up its authorization data only
+     * once.
+     * <p/>
+     * This is useful when many checks are performed in quick succession, for example when rendering a page that
+     * shows or hides hundreds of elements based on the Subject's permissions.  The snapshot is not updated if the
+     * Subject's identity or authorization data subsequently change, so it should not be retained beyond the current
+     * request or operation.
+     * <p/>
+     * For a {@link DelegatingSubject} (the default {@code Subject} implementation) this returns
+     * {@link DelegatingSubject#getAuthorizationSnapshot()}.  For any other {@code Subject} implementation the
+     * returned snapshot simply delegates each check to the Subject itself.  If the Subject is anonymous, the returned
+     * snapshot denies all checks.
+     *
+     * @param subject the Subject for which to create the snapshot.
+     * @return a new {@code AuthorizationSnapshot} for the Subject's current identity.
+     */
+    public static AuthorizationSnapshot getAuthorizationSnapshot(Subject subject) {
+        if (subject == null) {
+            throw new IllegalArgumentException("Subject argument cannot be null.");
+        }
+        if (subject instanceof DelegatingSubject) {
+            return ((DelegatingSubject) subject).getAuthorizationSnapshot();
+        }
+        return new SubjectAuthorizationSnapshot(subject);
+    }
+
+    /**
+     * Snapshot that delegates every check to a {@code Subject} that does not support snapshots itself.
+     */
+    private static final class SubjectAuthorizationSnapshot implements AuthorizationSnapshot {
+
+        private final Subject subject;
+        private final PrincipalCollection principals;
+
+        private SubjectAuthorizationSnapshot(Subject subject) {
+            PrincipalCollection principals = subject.getPrincipals();
+            this.subject = subject;
+            this.principals = CollectionUtils.isEmpty(principals) ? null : principals;
+        }
+
+        public PrincipalCollection getPrincipals() {
+            return this.principals;
+        }
+
+        public boolean isPermitted(String permission) {
+            return this.principals != null && this.subject.isPermitted(permission);
+        }
+
+        public boolean isPermitted(Permission permission) {
+            return this.principals != null && this.subject.isPermitted(permission);
+        }
+
+        public boolean hasRole(String roleIdentifier) {
+            return this.principals != null && this.subject.hasRole(roleIdentifier);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authz;
+
+import org.apache.shiro.subject.PrincipalCollection;
+
+/**
+ * An {@link AuthorizationSnapshot AuthorizationSnapshot} that simply delegates every check to an
+ * {@link Authorizer Authorizer}.  This is used for {@code Authorizer}s that do not implement
+ * {@link AuthorizationSnapshotFactory AuthorizationSnapshotFactory}, and so gives exactly the same results (and
+ * performance) as calling the {@code Authorizer} directly.
+ * <p/>
+ * If the snapshot's principals are {@code null} or empty, all checks return {@code false} without consulting the
+ * {@code Authorizer}, consistent with an anonymous Subject.
+ *
+ * @since 1.3
+ */
+public class DelegatingAuthorizationSnapshot implements AuthorizationSnapshot {
+
+    private final Authorizer authorizer;
+    private final PrincipalCollection principals;
+
+    public DelegatingAuthorizationSnapshot(Authorizer authorizer, PrincipalCollection principals) {
+        if (authorizer == null) {
+            throw new IllegalArgumentException("Authorizer argument cannot be null.");
+        }
+        this.authorizer = authorizer;
+        this.principals = principals;
+    }
+
+    public PrincipalCollection getPrincipals() {
+        return principals;
+    }
+
+    protected boolean hasPrincipals() {
+        return principals != null && !principals.isEmpty();
+    }
+
+    public boolean isPermitted(String permission) {
+        return hasPrincipals() && authorizer.isPermitted(principals, permission);
+    }
+
+    public boolean isPermitted(Permission permission) {
+        return hasPrincipals() && authorizer.isPermitted(principals, permission);
+    }
+
+    public boolean hasRole(String roleIdentifier) {
+        return hasPrincipals() && authorizer.hasRole(principals, roleIdentifier);
+    }
+}
@@ -24,7 +24,9 @@ import org.apache.shiro.authz.permission.RolePermissionResolver;
 import org.apache.shiro.authz.permission.RolePermissionResolverAware;
 import org.apache.shiro.realm.Realm;
 import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.util.ClassUtils;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
@@ -35,7 +37,8 @@ import java.util.List;
  *
  * @since 0.2
  */
-public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAware, RolePermissionResolverAware {
+public class ModularRealmAuthorizer implements Authorizer, AuthorizationSnapshotFactory, PermissionResolverAware,
+        RolePermissionResolverAware {
 
     /**
      * The realms to consult during any authorization check.
@@ -54,6 +57,12 @@ public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAwa
      */
     protected RolePermissionResolver rolePermissionResolver;
 
+    /**
+     * Whether this authorizer's class overrides one of the public checks answered by an
+     * {@link #createAuthorizationSnapshot(PrincipalCollection) authorization snapshot}.
+     */
+    private final boolean authorizationChecksOverridden = overridesAuthorizationChecks(getClass());
+
     /**
      * Default no-argument constructor, does nothing.
      */
@@ -441,4 +450,102 @@ public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAwa
             }
         }
     }
+
+    /**
+     * Returns a snapshot that consults the configured realms in iteration order, just like the other
+     * {@code Authorizer} methods in this class, but that acquires a snapshot from each realm at most once (on
+     * first use) and reuses it for all subsequent checks.  Realms that implement
+     * {@link AuthorizationSnapshotFactory AuthorizationSnapshotFactory} (such as any
+     * {@link org.apache.shiro.realm.AuthorizingRealm AuthorizingRealm}) thereby look up the Subject's authorization
+     * data only once for the life of the snapshot; other {@code Authorizer} realms are called directly for each check.
+     * <p/>
+     * If this authorizer's class overrides {@link #isPermitted(PrincipalCollection, String)},
+     * {@link #isPermitted(PrincipalCollection, Permission)} or {@link #hasRole(PrincipalCollection, String)}, the
+     * returned snapshot instead delegates every check to those methods so that the overridden behavior is retained.
+     *
+     * @param principals the application-specific subject/user identifier.
+     * @return a new snapshot for the Subject identified by the specified {@code principals}.
+     * @since 1.3
+     */
+    public AuthorizationSnapshot createAuthorizationSnapshot(PrincipalCollection principals) {
+        assertRealmsConfigured();
+        if (this.authorizationChecksOverridden) {
+            return new DelegatingAuthorizationSnapshot(this, principals);
+        }
+        List<Authorizer> authorizers = new ArrayList<Authorizer>(getRealms().size());
+        for (Realm realm : getRealms()) {
+            if (realm instanceof Authorizer) {
+                authorizers.add((Authorizer) realm);
+            }
+        }
+        return new RealmsAuthorizationSnapshot(principals, authorizers);
+    }
+
+    private static boolean overridesAuthorizationChecks(Class<?> clazz) {
+        Class<?> base = ModularRealmAuthorizer.class;
+        return ClassUtils.isOverridden(clazz, base, "isPermitted", PrincipalCollection.class, String.class) ||
+                ClassUtils.isOverridden(clazz, base, "isPermitted", PrincipalCollection.class, Permission.class) ||
+                ClassUtils.isOverridden(clazz, base, "hasRole", PrincipalCollection.class, String.class);
+    }
+
+    /**
+     * Composite snapshot that lazily acquires one snapshot per realm {@code Authorizer}.
+     */
+    private static final class RealmsAuthorizationSnapshot implements AuthorizationSnapshot {
+
+        private final PrincipalCollection principals;
+        private final List<Authorizer> authorizers;
+        private final AuthorizationSnapshot[] snapshots;
+
+        private RealmsAuthorizationSnapshot(PrincipalCollection principals, List<Authorizer> authorizers) {
+            this.principals = principals;
+            this.authorizers = authorizers;
+            this.snapshots = new AuthorizationSnapshot[authorizers.size()];
+        }
+
+        private AuthorizationSnapshot getSnapshot(int index) {
+            AuthorizationSnapshot snapshot = this.snapshots[index];
+            if (snapshot == null) {
+                Authorizer authorizer = this.authorizers.get(index);
+                if (authorizer instanceof AuthorizationSnapshotFactory) {
+                    snapshot = ((AuthorizationSnapshotFactory) authorizer).createAuthorizationSnapshot(this.principals);
+                } else {
+                    snapshot = new DelegatingAuthorizationSnapshot(authorizer, this.principals);
+                }
+                this.snapshots[index] = snapshot;
+            }
+            return snapshot;
+        }
+
+        public PrincipalCollection getPrincipals() {
+            return this.principals;
+        }
+
+        public boolean isPermitted(String permission) {
+            for (int i = 0; i < this.snapshots.length; i++) {
+                if (getSnapshot(i).isPermitted(permission)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public boolean isPermitted(Permission permission) {
+            for (int i = 0; i < this.snapshots.length; i++) {
+                if (getSnapshot(i).isPermitted(permission)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public boolean hasRole(String roleIdentifier) {
+            for (int i = 0; i < this.snapshots.length; i++) {
+                if (getSnapshot(i).hasRole(roleIdentifier)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
 }
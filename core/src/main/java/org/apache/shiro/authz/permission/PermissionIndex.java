@@ -0,0 +1,280 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authz.permission;
+
+import org.apache.shiro.authz.Permission;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable, pre-compiled view of a collection of granted {@link Permission Permission}s that can answer
+ * {@link #implies(Permission) implies} checks without consulting every granted permission in turn.
+ * <p/>
+ * Granted {@link WildcardPermission WildcardPermission}s are compiled into a trie, one level per permission part,
+ * where each level branches on the part's sub-part tokens and has a separate branch for parts containing the
+ * {@link WildcardPermission#WILDCARD_TOKEN wildcard token}.  A check for a {@code WildcardPermission} whose parts
+ * each contain a single token (e.g. {@code "newsletter:edit:13"}, by far the most common form) walks that trie, so
+ * its cost is proportional to the number of parts in the checked permission and not to the number of granted
+ * permissions.
+ * <p/>
+ * Semantics are identical to iterating the granted permissions and returning {@code true} if any of them
+ * {@link Permission#implies(Permission) implies} the checked permission.  To guarantee this, the following are
+ * <em>not</em> compiled into the trie and are instead evaluated by calling their {@code implies} method directly:
+ * <ul>
+ * <li>Granted permissions that are not {@code WildcardPermission}s, or are subclasses that override
+ * {@link WildcardPermission#implies(Permission) implies}.</li>
+ * <li>Granted permissions with so many comma-delimited sub-parts that expanding them into the trie would be
+ * unreasonably large.</li>
+ * </ul>
+ * Checks for a {@code WildcardPermission} that has multiple sub-parts in any part (e.g. {@code "newsletter:view,edit"})
+ * must be implied by a single granted permission, so they too fall back to checking each compiled permission.
+ * <p/>
+ * Instances are immutable and safe to share across threads once constructed.
+ *
+ * @since 1.3
+ */
+public final class PermissionIndex {
+
+    /**
+     * The maximum number of trie paths a single granted permission may expand into (the product of its per-part
+     * sub-part counts) before it is evaluated directly instead of being compiled into the trie.
+     */
+    private static final int MAX_PATHS_PER_PERMISSION = 256;
+
+    /**
+     * Caches whether or not a given {@code WildcardPermission} class inherits the default {@code implies} logic, and
+     * therefore may be compiled into the trie.
+     */
+    private static final Map<Class<?>, Boolean> COMPILABLE_TYPES = new ConcurrentHashMap<Class<?>, Boolean>();
+
+    private final Node root;
+    private final List<WildcardPermission> compiled;
+    private final List<Permission> uncompiled;
+
+    /**
+     * Compiles the specified granted permissions into a new index.
+     *
+     * @param permissions the granted permissions to index; may be {@code null} or empty.
+     */
+    public PermissionIndex(Collection<? extends Permission> permissions) {
+        Node root = new Node();
+        List<WildcardPermission> compiled = new ArrayList<WildcardPermission>();
+        List<Permission> uncompiled = new ArrayList<Permission>();
+
+        if (permissions != null) {
+            for (Permission permission : permissions) {
+                if (permission == null) {
+                    continue;
+                }
+                if (isCompilable(permission)) {
+                    List<Set<String>> parts = ((WildcardPermission) permission).getParts();
+                    root.insert(parts, 0);
+                    compiled.add((WildcardPermission) permission);
+                } else {
+                    uncompiled.add(permission);
+                }
+            }
+        }
+        root.complete();
+
+        this.root = root;
+        this.compiled = compiled.isEmpty() ? Collections.<WildcardPermission>emptyList() : compiled;
+        this.uncompiled = uncompiled.isEmpty() ? Collections.<Permission>emptyList() : uncompiled;
+    }
+
+    private static boolean isCompilable(Permission permission) {
+        if (!(permission instanceof WildcardPermission)) {
+            return false;
+        }
+        List<Set<String>> parts = ((WildcardPermission) permission).getParts();
+        if (parts == null || parts.isEmpty() || !inheritsImplies(permission.getClass())) {
+            return false;
+        }
+        int paths = 1;
+        for (Set<String> part : parts) {
+            if (part == null || part.isEmpty()) {
+                return false;
+            }
+            if (!WildcardPermission.isWildcard(part)) {
+                paths *= part.size();
+                if (paths > MAX_PATHS_PER_PERMISSION) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean inheritsImplies(Class<?> clazz) {
+        Boolean inherits = COMPILABLE_TYPES.get(clazz);
+        if (inherits == null) {
+            try {
+                inherits = clazz.getMethod("implies", Permission.class).getDeclaringClass() == WildcardPermission.class;
+            } catch (NoSuchMethodException e) {
+                inherits = Boolean.FALSE;
+            }
+            COMPILABLE_TYPES.put(clazz, inherits);
+        }
+        return inherits;
+    }
+
+    /**
+     * Returns {@code true} if any of the indexed permissions implies the specified permission, {@code false}
+     * otherwise.
+     *
+     * @param permission the permission to check
+     * @return {@code true} if any of the indexed permissions implies the specified permission, {@code false}
+     *         otherwise.
+     */
+    public boolean implies(Permission permission) {
+        //indexed iteration (instead of an Iterator) keeps this check allocation-free:
+        for (int i = 0; i < this.uncompiled.size(); i++) {
+            if (this.uncompiled.get(i).implies(permission)) {
+                return true;
+            }
+        }
+
+        if (this.compiled.isEmpty() || !(permission instanceof WildcardPermission)) {
+            //compiled permissions only ever imply other WildcardPermissions
+            return false;
+        }
+
+        List<Set<String>> parts = ((WildcardPermission) permission).getParts();
+        if (parts == null) {
+            return false;
+        }
+        for (int i = 0; i < parts.size(); i++) {
+            if (parts.get(i).size() != 1) {
+                return impliesDirectly(permission);
+            }
+        }
+        return this.root.matches(parts, 0);
+    }
+
+    private boolean impliesDirectly(Permission permission) {
+        for (WildcardPermission wp : this.compiled) {
+            if (wp.implies(permission)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the total number of granted permissions in this index.
+     *
+     * @return the total number of granted permissions in this index.
+     */
+    public int size() {
+        return this.compiled.size() + this.uncompiled.size();
+    }
+
+    /**
+     * Returns {@code true} if this index does not contain any granted permissions, {@code false} otherwise.
+     *
+     * @return {@code true} if this index does not contain any granted permissions, {@code false} otherwise.
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * A single level in the compiled trie.  Nodes are only mutated while the owning {@code PermissionIndex} is being
+     * constructed and are safely published via its final {@code root} field.
+     */
+    private static final class Node {
+
+        private Map<String, Node> children;
+        private Node wildcardChild;
+        /**
+         * {@code true} if a granted permission has no further parts after this node.
+         */
+        private boolean terminal;
+        /**
+         * {@code true} if a granted permission has no further parts after this node other than wildcard parts.
+         */
+        private boolean wildcardTerminal;
+
+        private void insert(List<Set<String>> parts, int index) {
+            if (index == parts.size()) {
+                this.terminal = true;
+                return;
+            }
+            Set<String> part = parts.get(index);
+            if (WildcardPermission.isWildcard(part)) {
+                if (this.wildcardChild == null) {
+                    this.wildcardChild = new Node();
+                }
+                this.wildcardChild.insert(parts, index + 1);
+            } else {
+                if (this.children == null) {
+                    this.children = new HashMap<String, Node>();
+                }
+                for (String token : part) {
+                    Node child = this.children.get(token);
+                    if (child == null) {
+                        child = new Node();
+                        this.children.put(token, child);
+                    }
+                    child.insert(parts, index + 1);
+                }
+            }
+        }
+
+        private void complete() {
+            if (this.children != null) {
+                for (Node child : this.children.values()) {
+                    child.complete();
+                }
+            } else {
+                this.children = Collections.emptyMap();
+            }
+            if (this.wildcardChild != null) {
+                this.wildcardChild.complete();
+            }
+            this.wildcardTerminal = this.terminal || (this.wildcardChild != null && this.wildcardChild.wildcardTerminal);
+        }
+
+        private boolean matches(List<Set<String>> parts, int index) {
+            if (this.terminal) {
+                //a granted permission with fewer parts implies everything after its last part:
+                return true;
+            }
+            if (index == parts.size()) {
+                //a granted permission with more parts only implies if all of its remaining parts are wildcards:
+                return this.wildcardTerminal;
+            }
+            Set<String> part = parts.get(index);
+            String token = part instanceof WildcardPermission.Part ?
+                    ((WildcardPermission.Part) part).first() : part.iterator().next();
+            Node child = this.children.get(token);
+            if (child != null && child.matches(parts, index + 1)) {
+                return true;
+            }
+            return this.wildcardChild != null && this.wildcardChild.matches(parts, index + 1);
+        }
+    }
+}
@@ -19,11 +19,14 @@
 package org.apache.shiro.authz.permission;
 
 import org.apache.shiro.authz.Permission;
-import org.apache.shiro.util.CollectionUtils;
 
 import java.io.Serializable;
+import java.util.AbstractSet;
 import java.util.ArrayList;
-import java.util.LinkedHashSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
@@ -112,6 +115,8 @@ public class WildcardPermission implements Permission, Serializable {
     protected static final String WILDCARD_TOKEN = "*";
     protected static final String PART_DIVIDER_TOKEN = ":";
     protected static final String SUBPART_DIVIDER_TOKEN = ",";
+    private static final char PART_DIVIDER_CHAR = ':';
+    private static final char SUBPART_DIVIDER_CHAR = ',';
     protected static final boolean DEFAULT_CASE_SENSITIVE = false;
 
     /*--------------------------------------------
@@ -153,31 +158,53 @@ public class WildcardPermission implements Permission, Serializable {
 
         wildcardString = wildcardString.trim();
 
-        List<String> parts = CollectionUtils.asList(wildcardString.split(PART_DIVIDER_TOKEN));
+        List<String> parts = split(wildcardString, PART_DIVIDER_CHAR);
 
-        this.parts = new ArrayList<Set<String>>();
+        List<Set<String>> partSets = new ArrayList<Set<String>>(parts.size());
         for (String part : parts) {
-            Set<String> subparts = CollectionUtils.asSet(part.split(SUBPART_DIVIDER_TOKEN));
-            if (!caseSensitive) {
-                subparts = lowercase(subparts);
-            }
+            List<String> subparts = split(part, SUBPART_DIVIDER_CHAR);
             if (subparts.isEmpty()) {
                 throw new IllegalArgumentException("Wildcard string cannot contain parts with only dividers. Make sure permission strings are properly formatted.");
             }
-            this.parts.add(subparts);
+            partSets.add(new Part(subparts, caseSensitive));
         }
 
-        if (this.parts.isEmpty()) {
+        if (partSets.isEmpty()) {
             throw new IllegalArgumentException("Wildcard string cannot contain only dividers. Make sure permission strings are properly formatted.");
         }
+
+        this.parts = Collections.unmodifiableList(partSets);
     }
 
-    private Set<String> lowercase(Set<String> subparts) {
-        Set<String> lowerCasedSubparts = new LinkedHashSet<String>(subparts.size());
-        for (String subpart : subparts) {
-            lowerCasedSubparts.add(subpart.toLowerCase());
+    /**
+     * Splits the specified string around occurrences of the specified divider character with the same semantics as
+     * {@code String.split} for a single literal character: trailing empty strings are discarded and a string without
+     * any divider results in a single element list containing the string itself.  Unlike {@code String.split}, no
+     * regular expression is compiled or evaluated.
+     *
+     * @param s       the string to split
+     * @param divider the divider character
+     * @return the list of tokens
+     */
+    private static List<String> split(String s, char divider) {
+        int index = s.indexOf(divider);
+        if (index < 0) {
+            return Collections.singletonList(s);
+        }
+        List<String> tokens = new ArrayList<String>();
+        int start = 0;
+        while (index >= 0) {
+            tokens.add(s.substring(start, index));
+            start = index + 1;
+            index = s.indexOf(divider, start);
         }
-        return lowerCasedSubparts;
+        tokens.add(s.substring(start));
+
+        int size = tokens.size();
+        while (size > 0 && tokens.get(size - 1).length() == 0) {
+            size--;
+        }
+        return tokens.subList(0, size);
     }
 
     /*--------------------------------------------
@@ -199,27 +226,28 @@ public class WildcardPermission implements Permission, Serializable {
 
         WildcardPermission wp = (WildcardPermission) p;
 
+        List<Set<String>> parts = getParts();
         List<Set<String>> otherParts = wp.getParts();
+        int size = parts.size();
+        int otherSize = otherParts.size();
 
+        // Indexed iteration (instead of an Iterator) keeps this check allocation-free:
         int i = 0;
-        for (Set<String> otherPart : otherParts) {
+        for (; i < otherSize; i++) {
             // If this permission has less parts than the other permission, everything after the number of parts contained
             // in this permission is automatically implied, so return true
-            if (getParts().size() - 1 < i) {
+            if (size - 1 < i) {
                 return true;
-            } else {
-                Set<String> part = getParts().get(i);
-                if (!part.contains(WILDCARD_TOKEN) && !part.containsAll(otherPart)) {
-                    return false;
-                }
-                i++;
+            }
+            Set<String> part = parts.get(i);
+            if (!isWildcard(part) && !part.containsAll(otherParts.get(i))) {
+                return false;
             }
         }
 
         // If this permission has more parts than the other parts, only imply it if all of the other parts are wildcards
-        for (; i < getParts().size(); i++) {
-            Set<String> part = getParts().get(i);
-            if (!part.contains(WILDCARD_TOKEN)) {
+        for (; i < size; i++) {
+            if (!isWildcard(parts.get(i))) {
                 return false;
             }
         }
@@ -227,6 +255,13 @@ public class WildcardPermission implements Permission, Serializable {
         return true;
     }
 
+    static boolean isWildcard(Set<String> part) {
+        if (part instanceof Part) {
+            return ((Part) part).wildcard;
+        }
+        return part.contains(WILDCARD_TOKEN);
+    }
+
     public String toString() {
         StringBuilder buffer = new StringBuilder();
         for (Set<String> part : parts) {
@@ -250,4 +285,89 @@ public class WildcardPermission implements Permission, Serializable {
         return parts.hashCode();
     }
 
+    /**
+     * Compact, immutable {@code Set} of the sub-part tokens of a single permission part.  Tokens are kept in an
+     * array in declaration order, which for the typical one to a few tokens per part is smaller and faster to search
+     * than a hash-based set.  Parts with many tokens (e.g. long instance id lists) additionally keep a sorted copy
+     * that is binary searched.
+     *
+     * @since 1.3
+     */
+    static final class Part extends AbstractSet<String> implements Serializable {
+
+        private static final int SORTED_LOOKUP_THRESHOLD = 8;
+
+        private final String[] tokens;
+        private final String[] sortedTokens;
+        private final boolean wildcard;
+
+        private Part(List<String> subparts, boolean caseSensitive) {
+            List<String> unique = new ArrayList<String>(subparts.size());
+            for (String subpart : subparts) {
+                String token = caseSensitive ? subpart : subpart.toLowerCase();
+                if (!unique.contains(token)) {
+                    unique.add(token);
+                }
+            }
+            this.tokens = unique.toArray(new String[unique.size()]);
+            if (this.tokens.length > SORTED_LOOKUP_THRESHOLD) {
+                String[] sorted = new String[this.tokens.length];
+                System.arraycopy(this.tokens, 0, sorted, 0, sorted.length);
+                Arrays.sort(sorted);
+                this.sortedTokens = sorted;
+            } else {
+                this.sortedTokens = null;
+            }
+            this.wildcard = indexOf(WILDCARD_TOKEN) >= 0;
+        }
+
+        private int indexOf(Object o) {
+            if (this.sortedTokens != null) {
+                return o instanceof String ? Arrays.binarySearch(this.sortedTokens, (String) o) : -1;
+            }
+            for (int i = 0; i < this.tokens.length; i++) {
+                if (this.tokens[i].equals(o)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Returns the first token in this part.  Parts always have at least one token.
+         *
+         * @return the first token in this part.
+         */
+        String first() {
+            return this.tokens[0];
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return indexOf(o) >= 0;
+        }
+
+        @Override
+        public boolean containsAll(Collection<?> c) {
+            if (c instanceof Part) {
+                for (String token : ((Part) c).tokens) {
+                    if (indexOf(token) < 0) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            return super.containsAll(c);
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return Arrays.asList(this.tokens).iterator();
+        }
+
+        @Override
+        public int size() {
+            return this.tokens.length;
+        }
+    }
 }
@@ -20,24 +20,91 @@ package org.apache.shiro.authz.permission;
 
 import org.apache.shiro.authz.Permission;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 
 /**
- * <tt>PermissionResolver</tt> implementation that returns a new {@link WildcardPermission WildcardPermission}
+ * <tt>PermissionResolver</tt> implementation that returns a {@link WildcardPermission WildcardPermission}
  * based on the input string.
+ * <p/>
+ * <h3>Canonical instances</h3>
+ * Permission strings are usually drawn from a small, fixed vocabulary (e.g. the strings passed to
+ * {@code subject.isPermitted(String)} throughout an application), so by default this resolver returns a canonical
+ * {@code WildcardPermission} instance for each distinct permission string, held in a bounded cache shared by all
+ * {@code WildcardPermissionResolver} instances.  Repeated resolution of the same string is then a single map lookup
+ * and does not parse or allocate anything.  This is safe because {@code WildcardPermission} instances are immutable.
+ * <p/>
+ * The shared cache holds at most {@link #MAX_CANONICAL_PERMISSIONS} entries.  If an application resolves more
+ * distinct strings than that (for example, by embedding ever-changing instance ids in permission strings), the cache
+ * is cleared and repopulated on demand, so memory use stays bounded.  Canonicalization may be disabled entirely
+ * per resolver via {@link #setCanonicalizationEnabled(boolean)}, in which case a new instance is returned on every call.
  *
  * @since 0.9
  */
 public class WildcardPermissionResolver implements PermissionResolver {
 
     /**
-     * Returns a new {@link WildcardPermission WildcardPermission} instance constructed based on the specified
-     * <tt>permissionString</tt>.
+     * The maximum number of canonical permission instances retained in the shared cache.
+     *
+     * @since 1.3
+     */
+    public static final int MAX_CANONICAL_PERMISSIONS = 4096;
+
+    private static final ConcurrentMap<String, WildcardPermission> CANONICAL_PERMISSIONS =
+            new ConcurrentHashMap<String, WildcardPermission>();
+
+    private boolean canonicalizationEnabled = true;
+
+    /**
+     * Returns {@code true} if this resolver returns canonical, shared {@code WildcardPermission} instances for each
+     * distinct permission string, {@code false} if it returns a new instance on every call.  The default is
+     * {@code true}.
+     *
+     * @return {@code true} if this resolver returns canonical, shared {@code WildcardPermission} instances for each
+     *         distinct permission string, {@code false} if it returns a new instance on every call.
+     * @since 1.3
+     */
+    public boolean isCanonicalizationEnabled() {
+        return canonicalizationEnabled;
+    }
+
+    /**
+     * Sets whether or not this resolver returns canonical, shared {@code WildcardPermission} instances for each
+     * distinct permission string.  The default is {@code true}.
+     *
+     * @param canonicalizationEnabled whether or not this resolver returns canonical, shared
+     *                                {@code WildcardPermission} instances for each distinct permission string.
+     * @since 1.3
+     */
+    public void setCanonicalizationEnabled(boolean canonicalizationEnabled) {
+        this.canonicalizationEnabled = canonicalizationEnabled;
+    }
+
+    /**
+     * Returns a {@link WildcardPermission WildcardPermission} instance constructed based on the specified
+     * <tt>permissionString</tt>.  If {@link #isCanonicalizationEnabled() canonicalizationEnabled}, the returned
+     * instance may be shared with other callers that resolve the same string.
      *
      * @param permissionString the permission string to convert to a {@link Permission Permission} instance.
-     * @return a new {@link WildcardPermission WildcardPermission} instance constructed based on the specified
+     * @return a {@link WildcardPermission WildcardPermission} instance constructed based on the specified
      *         <tt>permissionString</tt>
      */
     public Permission resolvePermission(String permissionString) {
-        return new WildcardPermission(permissionString);
+        if (!isCanonicalizationEnabled() || permissionString == null) {
+            return new WildcardPermission(permissionString);
+        }
+        WildcardPermission permission = CANONICAL_PERMISSIONS.get(permissionString);
+        if (permission == null) {
+            permission = new WildcardPermission(permissionString);
+            if (CANONICAL_PERMISSIONS.size() >= MAX_CANONICAL_PERMISSIONS) {
+                CANONICAL_PERMISSIONS.clear();
+            }
+            WildcardPermission existing = CANONICAL_PERMISSIONS.putIfAbsent(permissionString, permission);
+            if (existing != null) {
+                permission = existing;
+            }
+        }
+        return permission;
     }
 }
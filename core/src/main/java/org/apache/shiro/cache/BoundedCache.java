@@ -0,0 +1,376 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A memory-only {@link Cache Cache} implementation with predictable, size- and time-bounded eviction.
+ * <p/>
+ * <h3>Size bound</h3>
+ * If {@code maxEntries} is greater than zero, the cache will not hold more than that many entries: when a
+ * {@link #put put} would exceed the limit, entries are evicted using the <em>CLOCK</em> (&quot;second chance&quot;)
+ * approximation of least-recently-used eviction.  Entries are considered in insertion order; an entry that has been
+ * read since it was last considered is given a second chance (moved to the back of the line) instead of being evicted.
+ * <h3>Time bounds</h3>
+ * If {@code timeToLive} is greater than zero, entries expire that many milliseconds after they were put in the cache.
+ * If {@code timeToIdle} is greater than zero, entries expire if they have not been read or put for that many
+ * milliseconds.  Expired entries are never returned and are purged lazily, when accessed or encountered during
+ * eviction.
+ * <h3>Concurrency</h3>
+ * Reads ({@link #get get}) do not acquire any lock: they consult a {@code ConcurrentHashMap} and record the access
+ * on the entry itself.  Writes ({@link #put put}, {@link #remove remove}, {@link #clear clear}) acquire a short-held
+ * lock to maintain eviction order.
+ * <h3>Statistics</h3>
+ * Hit, miss, eviction and expiration counts are maintained and available via the corresponding getters, which may be
+ * used to tune the size and time bounds.
+ *
+ * @see BoundedCacheManager
+ * @since 1.3
+ */
+public class BoundedCache<K, V> implements Cache<K, V> {
+
+    /**
+     * The name of this cache.
+     */
+    private final String name;
+
+    private final int maxEntries;
+    private final long timeToLive;
+    private final long timeToIdle;
+
+    /**
+     * Backing instance used for all lookups.
+     */
+    private final ConcurrentMap<K, Entry<K, V>> map;
+
+    /**
+     * Mirror of the backing map in CLOCK order, only accessed while holding the {@code writeLock}.
+     */
+    private final LinkedHashMap<K, Entry<K, V>> clock;
+    private final Lock writeLock;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong expirationCount = new AtomicLong();
+
+    /**
+     * Creates a new cache with the specified bounds.
+     *
+     * @param name       the name of the cache
+     * @param maxEntries the maximum number of entries to retain, or zero (or less) for no size bound.
+     * @param timeToLive the number of milliseconds after which an entry expires once put in the cache, or zero
+     *                   (or less) for no time-to-live bound.
+     * @param timeToIdle the number of milliseconds after which an entry expires if it has not been accessed, or zero
+     *                   (or less) for no time-to-idle bound.
+     */
+    public BoundedCache(String name, int maxEntries, long timeToLive, long timeToIdle) {
+        if (name == null) {
+            throw new IllegalArgumentException("Cache name cannot be null.");
+        }
+        this.name = name;
+        this.maxEntries = Math.max(maxEntries, 0);
+        this.timeToLive = Math.max(timeToLive, 0);
+        this.timeToIdle = Math.max(timeToIdle, 0);
+        this.map = new ConcurrentHashMap<K, Entry<K, V>>();
+        this.clock = new LinkedHashMap<K, Entry<K, V>>();
+        this.writeLock = new ReentrantLock();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getTimeToLive() {
+        return timeToLive;
+    }
+
+    public long getTimeToIdle() {
+        return timeToIdle;
+    }
+
+    /**
+     * Returns the number of {@link #get get} calls that returned a cached value.
+     *
+     * @return the number of {@link #get get} calls that returned a cached value.
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns the number of {@link #get get} calls that did not find a cached value (including expired ones).
+     *
+     * @return the number of {@link #get get} calls that did not find a cached value.
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Returns the number of entries evicted to stay within {@code maxEntries}.
+     *
+     * @return the number of entries evicted to stay within {@code maxEntries}.
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Returns the number of entries purged because they exceeded {@code timeToLive} or {@code timeToIdle}.
+     *
+     * @return the number of entries purged because they exceeded {@code timeToLive} or {@code timeToIdle}.
+     */
+    public long getExpirationCount() {
+        return expirationCount.get();
+    }
+
+    private boolean isTimeBounded() {
+        return timeToLive > 0 || timeToIdle > 0;
+    }
+
+    /**
+     * Returns the current time in milliseconds, used to determine entry expiration.  Exists primarily to be
+     * overridden in tests.
+     *
+     * @return the current time in milliseconds.
+     */
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    private boolean isExpired(Entry<K, V> entry, long now) {
+        return (timeToLive > 0 && now - entry.created >= timeToLive) ||
+                (timeToIdle > 0 && now - entry.lastAccessed >= timeToIdle);
+    }
+
+    public V get(K key) throws CacheException {
+        Entry<K, V> entry = map.get(key);
+        if (entry == null) {
+            missCount.incrementAndGet();
+            return null;
+        }
+        if (isTimeBounded()) {
+            long now = currentTimeMillis();
+            if (isExpired(entry, now)) {
+                expire(entry);
+                missCount.incrementAndGet();
+                return null;
+            }
+            if (timeToIdle > 0 && entry.lastAccessed != now) {
+                entry.lastAccessed = now;
+            }
+        }
+        if (!entry.referenced) {
+            entry.referenced = true;
+        }
+        hitCount.incrementAndGet();
+        return entry.value;
+    }
+
+    public V put(K key, V value) throws CacheException {
+        long now = isTimeBounded() ? currentTimeMillis() : 0;
+        Entry<K, V> entry = new Entry<K, V>(key, value, now);
+        Entry<K, V> previous;
+        writeLock.lock();
+        try {
+            previous = map.put(key, entry);
+            if (previous != null) {
+                //re-insert so the replacement moves to the back of the clock:
+                clock.remove(key);
+            }
+            clock.put(key, entry);
+            evictIfNecessary(entry, now);
+        } finally {
+            writeLock.unlock();
+        }
+        return previous != null && !isExpired(previous, now) ? previous.value : null;
+    }
+
+    /**
+     * Purges expired entries at the front of the clock and then evicts entries until the size bound is met.
+     * Must be called while holding the {@code writeLock}.
+     *
+     * @param added the entry that was just added, which is never evicted.
+     * @param now   the current time in milliseconds, only used if the cache is time bounded.
+     */
+    private void evictIfNecessary(Entry<K, V> added, long now) {
+        if (isTimeBounded()) {
+            Iterator<Entry<K, V>> i = clock.values().iterator();
+            while (i.hasNext()) {
+                Entry<K, V> entry = i.next();
+                if (!isExpired(entry, now)) {
+                    break;
+                }
+                i.remove();
+                map.remove(entry.key, entry);
+                expirationCount.incrementAndGet();
+            }
+        }
+        if (maxEntries <= 0) {
+            return;
+        }
+        while (clock.size() > maxEntries) {
+            Iterator<Entry<K, V>> i = clock.values().iterator();
+            Entry<K, V> entry = i.next();
+            i.remove();
+            if (entry == added || entry.referenced) {
+                //second chance - move to the back of the clock:
+                entry.referenced = false;
+                clock.put(entry.key, entry);
+            } else {
+                map.remove(entry.key, entry);
+                evictionCount.incrementAndGet();
+            }
+        }
+    }
+
+    private void expire(Entry<K, V> entry) {
+        writeLock.lock();
+        try {
+            if (map.remove(entry.key, entry)) {
+                clock.remove(entry.key);
+                expirationCount.incrementAndGet();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public V remove(K key) throws CacheException {
+        Entry<K, V> previous;
+        writeLock.lock();
+        try {
+            previous = map.remove(key);
+            if (previous != null) {
+                clock.remove(key);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        if (previous == null || (isTimeBounded() && isExpired(previous, currentTimeMillis()))) {
+            return null;
+        }
+        return previous.value;
+    }
+
+    public void clear() throws CacheException {
+        writeLock.lock();
+        try {
+            map.clear();
+            clock.clear();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Returns a snapshot of the unexpired entries currently in the cache.
+     *
+     * @return a snapshot of the unexpired entries currently in the cache.
+     */
+    private List<Entry<K, V>> liveEntries() {
+        Collection<Entry<K, V>> entries = map.values();
+        List<Entry<K, V>> live = new ArrayList<Entry<K, V>>(entries.size());
+        boolean timeBounded = isTimeBounded();
+        long now = timeBounded ? currentTimeMillis() : 0;
+        for (Entry<K, V> entry : entries) {
+            if (!timeBounded || !isExpired(entry, now)) {
+                live.add(entry);
+            }
+        }
+        return live;
+    }
+
+    public int size() {
+        if (!isTimeBounded()) {
+            return map.size();
+        }
+        return liveEntries().size();
+    }
+
+    public Set<K> keys() {
+        List<Entry<K, V>> entries = liveEntries();
+        if (entries.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<K> keys = new HashSet<K>(entries.size() * 4 / 3 + 1);
+        for (Entry<K, V> entry : entries) {
+            keys.add(entry.key);
+        }
+        return Collections.unmodifiableSet(keys);
+    }
+
+    public Collection<V> values() {
+        List<Entry<K, V>> entries = liveEntries();
+        if (entries.isEmpty()) {
+            return Collections.emptySet();
+        }
+        List<V> values = new ArrayList<V>(entries.size());
+        for (Entry<K, V> entry : entries) {
+            values.add(entry.value);
+        }
+        return Collections.unmodifiableList(values);
+    }
+
+    public String toString() {
+        return new StringBuilder("BoundedCache '")
+                .append(name).append("' (")
+                .append(map.size())
+                .append(" entries, ")
+                .append(getHitCount()).append(" hits, ")
+                .append(getMissCount()).append(" misses, ")
+                .append(getEvictionCount()).append(" evictions, ")
+                .append(getExpirationCount()).append(" expirations)")
+                .toString();
+    }
+
+    private static final class Entry<K, V> {
+
+        private final K key;
+        private final V value;
+        private final long created;
+        private volatile long lastAccessed;
+        private volatile boolean referenced;
+
+        private Entry(K key, V value, long created) {
+            this.key = key;
+            this.value = value;
+            this.created = created;
+            this.lastAccessed = created;
+        }
+    }
+}
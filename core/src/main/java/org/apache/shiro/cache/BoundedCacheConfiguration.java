@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.cache;
+
+/**
+ * Per-cache settings for caches created by a {@link BoundedCacheManager BoundedCacheManager}.  Any property left
+ * {@code null} (the default) inherits the manager's corresponding default value.
+ * <p/>
+ * For example, in {@code shiro.ini}:
+ * <pre>
+ * sessionCacheConfig = org.apache.shiro.cache.BoundedCacheConfiguration
+ * sessionCacheConfig.maxEntries = 0
+ * sessionCacheConfig.timeToIdle = 3600000
+ *
+ * cacheManager = org.apache.shiro.cache.BoundedCacheManager
+ * cacheManager.maxEntries = 5000
+ * cacheManager.timeToLive = 600000
+ * cacheManager.cacheConfigurations = shiro-activeSessionCache:$sessionCacheConfig
+ * </pre>
+ *
+ * @since 1.3
+ */
+public class BoundedCacheConfiguration {
+
+    private Integer maxEntries;
+    private Long timeToLive;
+    private Long timeToIdle;
+
+    public BoundedCacheConfiguration() {
+    }
+
+    /**
+     * Returns the maximum number of entries the cache may hold (zero for no limit), or {@code null} to inherit the
+     * manager's default.
+     *
+     * @return the maximum number of entries the cache may hold (zero for no limit), or {@code null} to inherit the
+     *         manager's default.
+     */
+    public Integer getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(Integer maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns the number of milliseconds after which an entry expires once put in the cache (zero for no limit),
+     * or {@code null} to inherit the manager's default.
+     *
+     * @return the number of milliseconds after which an entry expires once put in the cache (zero for no limit),
+     *         or {@code null} to inherit the manager's default.
+     */
+    public Long getTimeToLive() {
+        return timeToLive;
+    }
+
+    public void setTimeToLive(Long timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * Returns the number of milliseconds after which an entry expires if it has not been accessed (zero for no limit),
+     * or {@code null} to inherit the manager's default.
+     *
+     * @return the number of milliseconds after which an entry expires if it has not been accessed (zero for no limit),
+     *         or {@code null} to inherit the manager's default.
+     */
+    public Long getTimeToIdle() {
+        return timeToIdle;
+    }
+
+    public void setTimeToIdle(Long timeToIdle) {
+        this.timeToIdle = timeToIdle;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.cache;
+
+import org.apache.shiro.session.mgt.eis.CachingSessionDAO;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Memory-only {@link CacheManager CacheManager} implementation that produces {@link BoundedCache BoundedCache}s with
+ * predictable size- and time-bounded eviction, lock-free reads and hit/miss/eviction statistics.
+ * <p/>
+ * Unlike the {@link MemoryConstrainedCacheManager MemoryConstrainedCacheManager}, whose caches are emptied by the
+ * garbage collector at unpredictable times and serialize all reads on a lock, caches produced by this manager only
+ * evict entries when they exceed their configured {@link #setMaxEntries(int) maxEntries},
+ * {@link #setTimeToLive(long) timeToLive} or {@link #setTimeToIdle(long) timeToIdle}.  These defaults apply to every
+ * cache and may be overridden for individual caches by name via
+ * {@link #setCacheConfigurations(java.util.Map) cacheConfigurations}.
+ * <h3>Session caches</h3>
+ * When used by an {@link org.apache.shiro.session.mgt.eis.EnterpriseCacheSessionDAO EnterpriseCacheSessionDAO}, the
+ * {@link CachingSessionDAO#ACTIVE_SESSION_CACHE_NAME active sessions cache} is the only record of a session, so
+ * evicting a session from it is equivalent to logging the user out.  The manager's default bounds therefore do not
+ * apply to the cache with that name, which is unbounded unless it is configured explicitly via
+ * {@link #setCacheConfigurations(java.util.Map) cacheConfigurations}.  A DAO configured with a different
+ * {@link CachingSessionDAO#setActiveSessionsCacheName(String) activeSessionsCacheName} should be given an unbounded
+ * configuration for that name the same way.
+ *
+ * @see BoundedCacheConfiguration
+ * @since 1.3
+ */
+public class BoundedCacheManager extends AbstractCacheManager {
+
+    /**
+     * The default maximum number of entries per cache, equal to {@code 10000}.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    private int maxEntries = DEFAULT_MAX_ENTRIES;
+    private long timeToLive;
+    private long timeToIdle;
+    private Map<String, BoundedCacheConfiguration> cacheConfigurations =
+            new LinkedHashMap<String, BoundedCacheConfiguration>();
+
+    public BoundedCacheManager() {
+    }
+
+    /**
+     * Returns the default maximum number of entries per cache, or zero for no limit.  Defaults to
+     * {@link #DEFAULT_MAX_ENTRIES}.
+     *
+     * @return the default maximum number of entries per cache, or zero for no limit.
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns the default number of milliseconds after which an entry expires once put in a cache, or zero
+     * (the default) for no limit.
+     *
+     * @return the default number of milliseconds after which an entry expires once put in a cache, or zero for no
+     *         limit.
+     */
+    public long getTimeToLive() {
+        return timeToLive;
+    }
+
+    public void setTimeToLive(long timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * Returns the default number of milliseconds after which an entry expires if it has not been accessed, or zero
+     * (the default) for no limit.
+     *
+     * @return the default number of milliseconds after which an entry expires if it has not been accessed, or zero
+     *         for no limit.
+     */
+    public long getTimeToIdle() {
+        return timeToIdle;
+    }
+
+    public void setTimeToIdle(long timeToIdle) {
+        this.timeToIdle = timeToIdle;
+    }
+
+    /**
+     * Returns the per-cache settings keyed by cache name, which override this manager's defaults for caches of that
+     * name.  Settings only apply to caches created after they have been set.
+     *
+     * @return the per-cache settings keyed by cache name.
+     */
+    public Map<String, BoundedCacheConfiguration> getCacheConfigurations() {
+        return cacheConfigurations;
+    }
+
+    public void setCacheConfigurations(Map<String, BoundedCacheConfiguration> cacheConfigurations) {
+        this.cacheConfigurations = cacheConfigurations;
+    }
+
+    /**
+     * Returns a new {@link BoundedCache BoundedCache} using this manager's defaults, overridden by any
+     * {@link #getCacheConfigurations() cacheConfiguration} for the specified name.  The
+     * {@link CachingSessionDAO#ACTIVE_SESSION_CACHE_NAME active sessions cache} is unbounded unless explicitly
+     * configured.
+     *
+     * @param name the name of the cache
+     * @return a new {@link BoundedCache BoundedCache}.
+     */
+    @Override
+    protected Cache createCache(String name) {
+        int maxEntries = getMaxEntries();
+        long timeToLive = getTimeToLive();
+        long timeToIdle = getTimeToIdle();
+
+        Map<String, BoundedCacheConfiguration> configs = getCacheConfigurations();
+        BoundedCacheConfiguration config = configs != null ? configs.get(name) : null;
+        if (config == null && CachingSessionDAO.ACTIVE_SESSION_CACHE_NAME.equals(name)) {
+            //evicting an active session would log its user out:
+            maxEntries = 0;
+            timeToLive = 0;
+            timeToIdle = 0;
+        }
+        if (config != null) {
+            if (config.getMaxEntries() != null) {
+                maxEntries = config.getMaxEntries();
+            }
+            if (config.getTimeToLive() != null) {
+                timeToLive = config.getTimeToLive();
+            }
+            if (config.getTimeToIdle() != null) {
+                timeToIdle = config.getTimeToIdle();
+            }
+        }
+        return new BoundedCache<Object, Object>(name, maxEntries, timeToLive, timeToIdle);
+    }
+}
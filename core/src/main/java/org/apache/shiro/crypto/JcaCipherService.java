@@ -30,8 +30,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.security.Key;
+import java.security.MessageDigest;
 import java.security.SecureRandom;
 import java.security.spec.AlgorithmParameterSpec;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Abstract {@code CipherService} implementation utilizing Java's JCA APIs.
@@ -63,6 +69,15 @@ import java.security.spec.AlgorithmParameterSpec;
  * vectors are always specified as a byte array, so ensure that if you set this property, that the value is a multiple
  * of {@code 8} to ensure that the IV can be correctly represented as a byte array (the
  * {@link #setInitializationVectorSize(int) setInitializationVectorSize} mutator method enforces this).
+ * <h2>Cipher Instance Pooling</h2>
+ * Acquiring a JDK {@code Cipher} via {@link javax.crypto.Cipher#getInstance(String) Cipher.getInstance} performs a
+ * provider lookup and constructs new objects on every call, which is significant for small, frequent operations such
+ * as decrypting a rememberMe cookie on every request.  This implementation therefore retains up to
+ * {@link #setMaxPooledCiphers(int) maxPooledCiphers} idle {@code Cipher} instances per transformation string and
+ * re-initializes a pooled instance for each operation instead of acquiring a new one.  The JDK {@code Key} created for
+ * the most recently used key bytes is retained as well.  A {@code Cipher} is only ever used by one operation at a
+ * time, and is only returned to the pool after that operation completes successfully.  Pooling may be disabled by
+ * setting {@code maxPooledCiphers} to zero.
  *
  * @since 1.0
  */
@@ -90,6 +105,13 @@ public abstract class JcaCipherService implements CipherService {
      */
     private static final String RANDOM_NUM_GENERATOR_ALGORITHM_NAME = "SHA1PRNG";
 
+    /**
+     * Default maximum number of idle {@code Cipher} instances retained per transformation string.
+     *
+     * @since 1.3
+     */
+    public static final int DEFAULT_MAX_POOLED_CIPHERS = 16;
+
     /**
      * The name of the cipher algorithm to use for all encryption, decryption, and key operations
      */
@@ -111,6 +133,18 @@ public abstract class JcaCipherService implements CipherService {
 
     private SecureRandom secureRandom;
 
+    private int maxPooledCiphers;
+
+    /**
+     * Idle {@code Cipher} instances, keyed by transformation string.
+     */
+    private final ConcurrentMap<String, CipherPool> cipherPools = new ConcurrentHashMap<String, CipherPool>();
+
+    /**
+     * The JDK {@code Key} for the most recently used key bytes.
+     */
+    private volatile CachedKey cachedKey;
+
     /**
      * Creates a new {@code JcaCipherService} instance which will use the specified cipher {@code algorithmName}
      * for all encryption, decryption, and key operations.  Also, the following defaults are set:
@@ -118,6 +152,7 @@ public abstract class JcaCipherService implements CipherService {
      * <li>{@link #setKeySize keySize} = 128 bits</li>
      * <li>{@link #setInitializationVectorSize(int) initializationVectorSize} = 128 bits</li>
      * <li>{@link #setStreamingBufferSize(int) streamingBufferSize} = 512 bytes</li>
+     * <li>{@link #setMaxPooledCiphers(int) maxPooledCiphers} = 16</li>
      * </ul>
      *
      * @param algorithmName the name of the cipher algorithm to use for all encryption, decryption, and key operations
@@ -131,6 +166,7 @@ public abstract class JcaCipherService implements CipherService {
         this.initializationVectorSize = DEFAULT_KEY_SIZE; //default to same size as the key size (a common algorithm practice)
         this.streamingBufferSize = DEFAULT_STREAMING_BUFFER_SIZE;
         this.generateInitializationVectors = true;
+        this.maxPooledCiphers = DEFAULT_MAX_POOLED_CIPHERS;
     }
 
     /**
@@ -249,6 +285,33 @@ public abstract class JcaCipherService implements CipherService {
         this.secureRandom = secureRandom;
     }
 
+    /**
+     * Returns the maximum number of idle JDK {@code Cipher} instances retained per transformation string for reuse by
+     * subsequent operations.  Zero (or less) disables pooling.  The default is {@code 16}.
+     *
+     * @return the maximum number of idle JDK {@code Cipher} instances retained per transformation string.
+     * @since 1.3
+     */
+    public int getMaxPooledCiphers() {
+        return maxPooledCiphers;
+    }
+
+    /**
+     * Sets the maximum number of idle JDK {@code Cipher} instances retained per transformation string for reuse by
+     * subsequent operations.  Zero (or less) disables pooling, in which case a new {@code Cipher} is acquired for
+     * every operation.  The default is {@code 16}.
+     *
+     * @param maxPooledCiphers the maximum number of idle JDK {@code Cipher} instances retained per transformation
+     *                         string.
+     * @since 1.3
+     */
+    public void setMaxPooledCiphers(int maxPooledCiphers) {
+        this.maxPooledCiphers = maxPooledCiphers;
+        if (maxPooledCiphers <= 0) {
+            this.cipherPools.clear();
+        }
+    }
+
     protected static SecureRandom getDefaultSecureRandom() {
         try {
             return java.security.SecureRandom.getInstance(RANDOM_NUM_GENERATOR_ALGORITHM_NAME);
@@ -396,14 +459,12 @@ public abstract class JcaCipherService implements CipherService {
      * Cipher's {@code transformationString} for the {@code Cipher}.{@link javax.crypto.Cipher#getInstance getInstance}
      * call is obtaind via the {@link #getTransformationString(boolean) getTransformationString} method.
      *
-     * @param streaming {@code true} if the cipher instance will be used as a stream cipher, {@code false} if it will be
-     *                  used as a block cipher.
+     * @param transformationString the transformation string to acquire the {@code Cipher} for.
      * @return a new JDK {@code Cipher} instance.
      * @throws CryptoException if a new Cipher instance cannot be constructed based on the
      *                         {@link #getTransformationString(boolean) getTransformationString} value.
      */
-    private javax.crypto.Cipher newCipherInstance(boolean streaming) throws CryptoException {
-        String transformationString = getTransformationString(streaming);
+    private javax.crypto.Cipher newCipherInstance(String transformationString) throws CryptoException {
         try {
             return javax.crypto.Cipher.getInstance(transformationString);
         } catch (Exception e) {
@@ -418,7 +479,7 @@ public abstract class JcaCipherService implements CipherService {
     /**
      * Functions as follows:
      * <ol>
-     * <li>Creates a {@link #newCipherInstance(boolean) new JDK cipher instance}</li>
+     * <li>Acquires a pooled or {@link #newCipherInstance(String) new JDK cipher instance}</li>
      * <li>Converts the specified key bytes into an {@link #getAlgorithmName() algorithm}-compatible JDK
      * {@link Key key} instance</li>
      * <li>{@link #init(javax.crypto.Cipher, int, java.security.Key, AlgorithmParameterSpec, SecureRandom) Initializes}
@@ -441,8 +502,11 @@ public abstract class JcaCipherService implements CipherService {
         if (key == null || key.length == 0) {
             throw new IllegalArgumentException("key argument cannot be null or empty.");
         }
-        javax.crypto.Cipher cipher = initNewCipher(mode, key, iv, false);
-        return crypt(cipher, bytes);
+        String transformationString = getTransformationString(false);
+        javax.crypto.Cipher cipher = initCipher(transformationString, mode, key, iv);
+        byte[] crypted = crypt(cipher, bytes);
+        releaseCipher(transformationString, cipher);
+        return crypted;
     }
 
     /**
@@ -568,7 +632,8 @@ public abstract class JcaCipherService implements CipherService {
             throw new NullPointerException("OutputStream argument cannot be null.");
         }
 
-        javax.crypto.Cipher cipher = initNewCipher(cryptMode, keyBytes, iv, true);
+        String transformationString = getTransformationString(true);
+        javax.crypto.Cipher cipher = initCipher(transformationString, cryptMode, keyBytes, iv);
 
         CipherInputStream cis = new CipherInputStream(in, cipher);
 
@@ -583,20 +648,112 @@ public abstract class JcaCipherService implements CipherService {
         } catch (IOException e) {
             throw new CryptoException(e);
         }
+        //the stream has been fully read, so the cipher has been finalized and may be reused:
+        releaseCipher(transformationString, cipher);
     }
 
-    private javax.crypto.Cipher initNewCipher(int jcaCipherMode, byte[] key, byte[] iv, boolean streaming)
+    /**
+     * Returns a JDK {@code Cipher} for the specified transformation, initialized with the specified mode, key and
+     * initialization vector.  A pooled instance is used if one is available, otherwise a new instance is acquired.
+     */
+    private javax.crypto.Cipher initCipher(String transformationString, int jcaCipherMode, byte[] key, byte[] iv)
             throws CryptoException {
 
-        javax.crypto.Cipher cipher = newCipherInstance(streaming);
-        java.security.Key jdkKey = new SecretKeySpec(key, getAlgorithmName());
+        java.security.Key jdkKey = toKey(key);
         IvParameterSpec ivSpec = null;
         if (iv != null && iv.length > 0) {
             ivSpec = new IvParameterSpec(iv);
         }
+        SecureRandom random = getSecureRandom();
 
-        init(cipher, jcaCipherMode, jdkKey, ivSpec, getSecureRandom());
-
+        javax.crypto.Cipher cipher = borrowCipher(transformationString);
+        if (cipher != null) {
+            try {
+                init(cipher, jcaCipherMode, jdkKey, ivSpec, random);
+                return cipher;
+            } catch (CryptoException e) {
+                //some providers refuse to re-initialize an instance with certain parameters (e.g. AES/GCM with a
+                //previously used key and IV) - fall back to a new instance, which reports any genuine problem:
+                log.trace("Unable to re-initialize pooled cipher instance.  Acquiring a new instance.", e);
+            }
+        }
+        cipher = newCipherInstance(transformationString);
+        init(cipher, jcaCipherMode, jdkKey, ivSpec, random);
         return cipher;
     }
+
+    /**
+     * Returns the JDK {@code Key} for the specified key bytes, reusing the instance created for the most recently
+     * used key bytes if they are equal.
+     */
+    private java.security.Key toKey(byte[] key) {
+        CachedKey cached = this.cachedKey;
+        if (cached != null && MessageDigest.isEqual(cached.bytes, key)) {
+            return cached.key;
+        }
+        byte[] bytes = key.clone();
+        SecretKeySpec jdkKey = new SecretKeySpec(bytes, getAlgorithmName());
+        this.cachedKey = new CachedKey(bytes, jdkKey);
+        return jdkKey;
+    }
+
+    private javax.crypto.Cipher borrowCipher(String transformationString) {
+        if (this.maxPooledCiphers <= 0) {
+            return null;
+        }
+        CipherPool pool = this.cipherPools.get(transformationString);
+        return pool != null ? pool.poll() : null;
+    }
+
+    private void releaseCipher(String transformationString, javax.crypto.Cipher cipher) {
+        int max = this.maxPooledCiphers;
+        if (max <= 0) {
+            return;
+        }
+        CipherPool pool = this.cipherPools.get(transformationString);
+        if (pool == null) {
+            pool = new CipherPool();
+            CipherPool existing = this.cipherPools.putIfAbsent(transformationString, pool);
+            if (existing != null) {
+                pool = existing;
+            }
+        }
+        pool.offer(cipher, max);
+    }
+
+    /**
+     * A bounded, lock-free pool of idle {@code Cipher} instances for a single transformation string.
+     */
+    private static final class CipherPool {
+
+        private final Queue<javax.crypto.Cipher> idle = new ConcurrentLinkedQueue<javax.crypto.Cipher>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        private javax.crypto.Cipher poll() {
+            javax.crypto.Cipher cipher = idle.poll();
+            if (cipher != null) {
+                size.decrementAndGet();
+            }
+            return cipher;
+        }
+
+        private void offer(javax.crypto.Cipher cipher, int max) {
+            if (size.incrementAndGet() > max) {
+                size.decrementAndGet();
+                return;
+            }
+            idle.offer(cipher);
+        }
+    }
+
+    private static final class CachedKey {
+
+        private final byte[] bytes;
+        private final java.security.Key key;
+
+        private CachedKey(byte[] bytes, java.security.Key key) {
+            this.bytes = bytes;
+            this.key = key;
+        }
+    }
 }
@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.crypto.hash;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * A {@link HashService} that can also compute hashes asynchronously, typically so expensive (e.g. highly iterated)
+ * hashing can be performed on a separate, bounded set of threads rather than on the calling (e.g. request) thread.
+ *
+ * @since 1.3
+ */
+public interface AsyncHashService extends HashService {
+
+    /**
+     * Asynchronously computes a hash based on the given request, returning a {@code Future} that will provide the
+     * same result {@link #computeHash(HashRequest) computeHash} would return.  If the computation fails, the
+     * exception thrown will be the cause of the {@code ExecutionException} thrown by {@code Future.get()}.
+     *
+     * @param request the request to process
+     * @return a {@code Future} providing the hashed data.
+     * @throws RejectedExecutionException if the request cannot be accepted at this time, for example because too many
+     *                                    requests are already pending.
+     */
+    Future<Hash> computeHashAsync(HashRequest request) throws RejectedExecutionException;
+}
@@ -31,6 +31,11 @@ import org.apache.shiro.util.ByteSource;
  * understood by the JDK
  * {@link java.security.MessageDigest#getInstance(String) MessageDigest.getInstance(String algorithmName)} method
  * will work.  The default is {@code SHA-512}.
+ * <p/>
+ * The key derivation functions PBKDF2 (e.g. {@code PBKDF2WithHmacSHA256}, see {@link Pbkdf2Hash}) and the memory-hard
+ * {@code scrypt} (see {@link ScryptHash}) are also supported.  These are much better suited to password hashing than
+ * iterated {@code MessageDigest} hashes.  For these algorithms the {@link #setHashIterations(int) hashIterations} are
+ * the PBKDF2 iteration count and the scrypt cost parameter {@code N} (a power of two) respectively.
  * <h2>Random Salts</h2>
  * When a salt is not specified in a request, this implementation generates secure random salts via its
  * {@link #setRandomNumberGenerator(org.apache.shiro.crypto.RandomNumberGenerator) randomNumberGenerator} property.
@@ -160,7 +165,7 @@ public class DefaultHashService implements ConfigurableHashService {
         ByteSource privateSalt = getPrivateSalt();
         ByteSource salt = combine(privateSalt, publicSalt);
 
-        Hash computed = new SimpleHash(algorithmName, source, salt, iterations);
+        Hash computed = createHash(algorithmName, source, salt, iterations);
 
         SimpleHash result = new SimpleHash(algorithmName);
         result.setBytes(computed.getBytes());
@@ -171,6 +176,29 @@ public class DefaultHashService implements ConfigurableHashService {
         return result;
     }
 
+    /**
+     * Computes the hash of the specified source with the complete (combined) salt.  This implementation returns a
+     * {@link Pbkdf2Hash} for {@link Pbkdf2Hash#isPbkdf2(String) PBKDF2} algorithm names, a {@link ScryptHash} for
+     * the {@link ScryptHash#ALGORITHM_NAME scrypt} algorithm name and a {@link SimpleHash} for any other
+     * ({@code MessageDigest}) algorithm name.
+     *
+     * @param algorithmName the name of the hash algorithm
+     * @param source        the source to hash
+     * @param salt          the complete salt, or {@code null} if no salt is used
+     * @param iterations    the number of hash iterations (or algorithm-specific cost)
+     * @return the computed hash
+     * @since 1.3
+     */
+    protected Hash createHash(String algorithmName, ByteSource source, ByteSource salt, int iterations) {
+        if (Pbkdf2Hash.isPbkdf2(algorithmName)) {
+            return new Pbkdf2Hash(algorithmName, source, salt, iterations);
+        }
+        if (ScryptHash.ALGORITHM_NAME.equalsIgnoreCase(algorithmName)) {
+            return new ScryptHash(source, salt, iterations);
+        }
+        return new SimpleHash(algorithmName, source, salt, iterations);
+    }
+
     protected String getAlgorithmName(HashRequest request) {
         String name = request.getAlgorithmName();
         if (name == null) {
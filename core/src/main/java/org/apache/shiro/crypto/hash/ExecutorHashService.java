@@ -0,0 +1,380 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.crypto.hash;
+
+import org.apache.shiro.crypto.CryptoException;
+import org.apache.shiro.util.Destroyable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An {@link AsyncHashService} that computes hashes with a wrapped {@link #setHashService(HashService) hashService} on
+ * a bounded pool of threads, so the CPU spent on (deliberately expensive) password hashing can be capped separately
+ * from request handling.
+ * <p/>
+ * At most {@link #setMaxThreads(int) maxThreads} hashes are computed concurrently, and at most
+ * {@link #setMaxQueuedRequests(int) maxQueuedRequests} further requests wait for a free thread.  Any request beyond
+ * that is rejected immediately with a {@link RejectedExecutionException} rather than queued, so a login storm fails
+ * fast instead of tying up every request thread.
+ * <p/>
+ * The synchronous {@link #computeHash(HashRequest) computeHash} method submits the request to the same pool and waits
+ * for the result, so existing callers such as the
+ * {@link org.apache.shiro.authc.credential.DefaultPasswordService DefaultPasswordService} respect the same limits
+ * without any change.  For example, in {@code shiro.ini}:
+ * <pre>
+ * hashService = org.apache.shiro.crypto.hash.DefaultHashService
+ * hashService.hashIterations = 500000
+ * hashService.generatePublicSalt = true
+ * boundedHashService = org.apache.shiro.crypto.hash.ExecutorHashService
+ * boundedHashService.hashService = $hashService
+ * boundedHashService.maxThreads = 4
+ * passwordService = org.apache.shiro.authc.credential.DefaultPasswordService
+ * passwordService.hashService = $boundedHashService
+ * </pre>
+ * Unless an {@link #setExecutor(Executor) executor} is configured, a pool of daemon threads is created on first use
+ * and shut down when this instance is {@link #destroy() destroyed}.
+ *
+ * @since 1.3
+ */
+public class ExecutorHashService implements AsyncHashService, Destroyable {
+
+    /**
+     * The default maximum number of requests waiting for a free hashing thread.
+     */
+    public static final int DEFAULT_MAX_QUEUED_REQUESTS = 100;
+
+    private static final Logger log = LoggerFactory.getLogger(ExecutorHashService.class);
+
+    private HashService hashService;
+    private Executor executor;
+    private ThreadPoolExecutor internalExecutor;
+    private int maxThreads;
+    private int maxQueuedRequests;
+
+    /**
+     * The number of accepted requests that have not yet completed.
+     */
+    private final AtomicInteger pendingRequests = new AtomicInteger();
+
+    public ExecutorHashService() {
+        this(new DefaultHashService());
+    }
+
+    public ExecutorHashService(HashService hashService) {
+        this.hashService = hashService;
+        this.maxThreads = Runtime.getRuntime().availableProcessors();
+        this.maxQueuedRequests = DEFAULT_MAX_QUEUED_REQUESTS;
+    }
+
+    /**
+     * Returns the {@code HashService} that actually computes the hashes.  Unless configured otherwise, this is a
+     * {@link DefaultHashService} with default settings.
+     *
+     * @return the {@code HashService} that actually computes the hashes.
+     */
+    public HashService getHashService() {
+        return hashService;
+    }
+
+    /**
+     * Sets the {@code HashService} that actually computes the hashes.
+     *
+     * @param hashService the {@code HashService} that actually computes the hashes.
+     */
+    public void setHashService(HashService hashService) {
+        this.hashService = hashService;
+    }
+
+    /**
+     * Returns the {@code Executor} that runs hash computations, or {@code null} if an internal pool of
+     * {@link #getMaxThreads() maxThreads} daemon threads is used.
+     *
+     * @return the {@code Executor} that runs hash computations, or {@code null} if an internal pool is used.
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Sets the {@code Executor} that runs hash computations.  The executor's lifecycle is not managed by this
+     * instance.  Admission control still applies: requests are rejected once {@code maxThreads + maxQueuedRequests}
+     * requests are pending, so {@code maxThreads} should reflect the executor's actual number of threads.
+     *
+     * @param executor the {@code Executor} that runs hash computations, or {@code null} to use an internal pool.
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the maximum number of hashes computed concurrently.  The default is the number of available processors.
+     *
+     * @return the maximum number of hashes computed concurrently.
+     */
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    /**
+     * Sets the maximum number of hashes computed concurrently.  The default is the number of available processors.
+     *
+     * @param maxThreads the maximum number of hashes computed concurrently.
+     * @throws IllegalArgumentException if {@code maxThreads} is less than one.
+     */
+    public void setMaxThreads(int maxThreads) {
+        if (maxThreads < 1) {
+            throw new IllegalArgumentException("maxThreads must be greater than zero.");
+        }
+        synchronized (this) {
+            ThreadPoolExecutor pool = this.internalExecutor;
+            if (pool != null) {
+                //keep corePoolSize <= maximumPoolSize at every step:
+                if (maxThreads > pool.getMaximumPoolSize()) {
+                    pool.setMaximumPoolSize(maxThreads);
+                    pool.setCorePoolSize(maxThreads);
+                } else {
+                    pool.setCorePoolSize(maxThreads);
+                    pool.setMaximumPoolSize(maxThreads);
+                }
+            }
+            this.maxThreads = maxThreads;
+        }
+    }
+
+    /**
+     * Returns the maximum number of requests that may wait for a free hashing thread before further requests are
+     * rejected.  The default is {@link #DEFAULT_MAX_QUEUED_REQUESTS}.
+     *
+     * @return the maximum number of requests that may wait for a free hashing thread.
+     */
+    public int getMaxQueuedRequests() {
+        return maxQueuedRequests;
+    }
+
+    /**
+     * Sets the maximum number of requests that may wait for a free hashing thread before further requests are
+     * rejected.  Zero rejects any request that cannot start immediately.  The default is
+     * {@link #DEFAULT_MAX_QUEUED_REQUESTS}.
+     *
+     * @param maxQueuedRequests the maximum number of requests that may wait for a free hashing thread.
+     * @throws IllegalArgumentException if {@code maxQueuedRequests} is negative.
+     */
+    public void setMaxQueuedRequests(int maxQueuedRequests) {
+        if (maxQueuedRequests < 0) {
+            throw new IllegalArgumentException("maxQueuedRequests cannot be negative.");
+        }
+        this.maxQueuedRequests = maxQueuedRequests;
+    }
+
+    /**
+     * Returns the number of accepted requests that have not yet completed, that is, requests being computed or waiting
+     * for a free hashing thread.  A cancelled request remains pending until its computation has actually stopped or it
+     * has been removed from the queue.
+     *
+     * @return the number of accepted requests that have not yet completed.
+     */
+    public int getPendingRequestCount() {
+        return pendingRequests.get();
+    }
+
+    public Future<Hash> computeHashAsync(HashRequest request) throws RejectedExecutionException {
+        return submit(request, getHashService());
+    }
+
+    private HashTask submit(final HashRequest request, final HashService hashService) {
+        if (hashService == null) {
+            throw new IllegalStateException("hashService property must be set.");
+        }
+        acquire();
+        HashTask task = new HashTask(new Callable<Hash>() {
+            public Hash call() throws Exception {
+                return hashService.computeHash(request);
+            }
+        });
+        try {
+            task.executor = getRequiredExecutor();
+            task.executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.release();
+            throw e;
+        }
+        return task;
+    }
+
+    /**
+     * Computes the hash on the hashing pool, waiting for the result.
+     *
+     * @param request the request to process
+     * @return the hashed data
+     * @throws RejectedExecutionException if too many requests are already pending.
+     * @throws CryptoException            if the calling thread is interrupted while waiting for the result.
+     */
+    public Hash computeHash(HashRequest request) {
+        return computeHash(request, getHashService());
+    }
+
+    /**
+     * Computes the hash with the specified {@code HashService} instead of the configured
+     * {@link #getHashService() hashService}, on the same hashing pool and subject to the same limits, waiting for the
+     * result.  This allows callers that occasionally need a differently configured service (e.g. one that does not
+     * salt, to verify legacy hashes) to stay within the CPU budget of this service.
+     *
+     * @param request     the request to process
+     * @param hashService the {@code HashService} that computes this request's hash
+     * @return the hashed data
+     * @throws RejectedExecutionException if too many requests are already pending.
+     * @throws CryptoException            if the calling thread is interrupted while waiting for the result.
+     */
+    public Hash computeHash(HashRequest request, HashService hashService) {
+        HashTask task = submit(request, hashService);
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            task.cancelAndDequeue();
+            Thread.currentThread().interrupt();
+            throw new CryptoException("Interrupted while waiting for the hash computation to complete.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new CryptoException("Unable to compute hash.", cause);
+        }
+    }
+
+    private void acquire() {
+        int limit = this.maxThreads + this.maxQueuedRequests;
+        for (; ; ) {
+            int pending = pendingRequests.get();
+            if (pending >= limit) {
+                throw new RejectedExecutionException("Unable to accept hash request: " + pending +
+                        " requests are already pending (maxThreads + maxQueuedRequests = " + limit + ").");
+            }
+            if (pendingRequests.compareAndSet(pending, pending + 1)) {
+                return;
+            }
+        }
+    }
+
+    private Executor getRequiredExecutor() {
+        Executor executor = getExecutor();
+        if (executor != null) {
+            return executor;
+        }
+        synchronized (this) {
+            if (this.internalExecutor == null) {
+                this.internalExecutor = createExecutor(this.maxThreads);
+            }
+            return this.internalExecutor;
+        }
+    }
+
+    /**
+     * Creates the internal pool used when no {@link #setExecutor(Executor) executor} is configured.  Its queue is
+     * unbounded because admission is controlled before requests are submitted.
+     *
+     * @param threads the number of hashing threads
+     * @return the internal pool
+     */
+    protected ThreadPoolExecutor createExecutor(int threads) {
+        log.debug("Creating hashing pool with {} threads.", threads);
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "shiro-hashing-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Shuts down the internal hashing pool, if one was created.  A configured {@link #setExecutor(Executor) executor}
+     * is left untouched.
+     */
+    public void destroy() {
+        ThreadPoolExecutor pool;
+        synchronized (this) {
+            pool = this.internalExecutor;
+            this.internalExecutor = null;
+        }
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * A hash computation that holds one of the {@link #getPendingRequestCount() pending request} slots until it has
+     * actually finished running (even if it was cancelled while running), or until it has been removed from the
+     * internal pool's queue before it started.
+     */
+    private final class HashTask extends FutureTask<Hash> {
+
+        private final AtomicBoolean pending = new AtomicBoolean(true);
+        private Executor executor;
+
+        private HashTask(Callable<Hash> callable) {
+            super(callable);
+        }
+
+        @Override
+        public void run() {
+            try {
+                super.run();
+            } finally {
+                release();
+            }
+        }
+
+        /**
+         * Cancels the computation and, if it has not started yet, removes it from the internal pool's queue so that
+         * its slot is released immediately rather than once a hashing thread gets to it.
+         */
+        private void cancelAndDequeue() {
+            cancel(true);
+            if (executor instanceof ThreadPoolExecutor && ((ThreadPoolExecutor) executor).remove(this)) {
+                release();
+            }
+        }
+
+        private void release() {
+            if (pending.compareAndSet(true, false)) {
+                pendingRequests.decrementAndGet();
+            }
+        }
+    }
+}
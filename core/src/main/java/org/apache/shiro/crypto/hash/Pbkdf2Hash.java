@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.crypto.hash;
+
+import org.apache.shiro.crypto.UnknownAlgorithmException;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A {@code Hash} computed with the PBKDF2 key derivation function (<a href="http://tools.ietf.org/html/rfc2898">RFC
+ * 2898</a>), using the hash {@link #getIterations() iterations} as the PBKDF2 iteration count.  The algorithm name
+ * follows the JCA {@code SecretKeyFactory} naming scheme, {@code PBKDF2WithHmac<digest>}, for example
+ * {@code PBKDF2WithHmacSHA1}, {@code PBKDF2WithHmacSHA256} or {@code PBKDF2WithHmacSHA512}, and requires the
+ * corresponding {@code Hmac<digest>} {@link Mac} on the current JVM.  The derived key is as long as the HMAC output.
+ * <p/>
+ * The function is computed directly over the source bytes rather than via {@code SecretKeyFactory}, whose
+ * {@code PBEKeySpec} only accepts {@code char[]} passwords: any source (not just text) is hashed exactly, with the
+ * same result a {@code SecretKeyFactory} produces for UTF-8 encoded text.
+ *
+ * @since 1.3
+ */
+public class Pbkdf2Hash extends SimpleHash {
+
+    /**
+     * The prefix shared by all PBKDF2 algorithm names, {@code PBKDF2WithHmac}.
+     */
+    public static final String ALGORITHM_NAME_PREFIX = "PBKDF2WithHmac";
+
+    /**
+     * The recommended PBKDF2 algorithm name, {@code PBKDF2WithHmacSHA256}.
+     */
+    public static final String DEFAULT_ALGORITHM_NAME = ALGORITHM_NAME_PREFIX + "SHA256";
+
+    public Pbkdf2Hash(String algorithmName) {
+        super(algorithmName);
+    }
+
+    public Pbkdf2Hash(String algorithmName, Object source, Object salt, int hashIterations) {
+        super(algorithmName, source, salt, hashIterations);
+    }
+
+    /**
+     * Returns {@code true} if the specified algorithm name is a PBKDF2 algorithm name, that is, starts with
+     * {@link #ALGORITHM_NAME_PREFIX} (ignoring case) followed by a digest name.
+     *
+     * @param algorithmName the algorithm name to check
+     * @return {@code true} if the specified algorithm name is a PBKDF2 algorithm name, {@code false} otherwise.
+     */
+    public static boolean isPbkdf2(String algorithmName) {
+        return algorithmName != null && algorithmName.length() > ALGORITHM_NAME_PREFIX.length() &&
+                algorithmName.regionMatches(true, 0, ALGORITHM_NAME_PREFIX, 0, ALGORITHM_NAME_PREFIX.length());
+    }
+
+    @Override
+    protected byte[] hash(byte[] bytes, byte[] salt, int hashIterations) throws UnknownAlgorithmException {
+        String algorithmName = getAlgorithmName();
+        if (!isPbkdf2(algorithmName)) {
+            throw new UnknownAlgorithmException("'" + algorithmName + "' is not a PBKDF2 algorithm name.");
+        }
+        Mac mac = newHmac("Hmac" + algorithmName.substring(ALGORITHM_NAME_PREFIX.length()), bytes);
+        return pbkdf2(mac, salt, Math.max(1, hashIterations), mac.getMacLength());
+    }
+
+    /**
+     * Returns a new HMAC instance keyed with the specified password.
+     */
+    static Mac newHmac(String macAlgorithmName, byte[] password) throws UnknownAlgorithmException {
+        Mac mac;
+        try {
+            mac = Mac.getInstance(macAlgorithmName);
+        } catch (NoSuchAlgorithmException e) {
+            String msg = "No native '" + macAlgorithmName + "' Mac instance available on the current JVM.";
+            throw new UnknownAlgorithmException(msg, e);
+        }
+        //SecretKeySpec rejects empty keys.  HMAC zero-pads short keys, so a single zero byte is the same key:
+        byte[] key = password != null && password.length > 0 ? password : new byte[1];
+        try {
+            mac.init(new SecretKeySpec(key, macAlgorithmName));
+        } catch (InvalidKeyException e) {
+            throw new IllegalArgumentException("Unable to initialize " + macAlgorithmName + " with the source bytes.", e);
+        }
+        return mac;
+    }
+
+    /**
+     * Computes {@code PBKDF2(password, salt, iterations, keyLength)} with a {@code Mac} already initialized with the
+     * password.  Each iteration is computed in place, without allocation.
+     */
+    static byte[] pbkdf2(Mac mac, byte[] salt, int iterations, int keyLength) {
+        int macLength = mac.getMacLength();
+        byte[] derived = new byte[keyLength];
+        byte[] u = new byte[macLength];
+        byte[] t = new byte[macLength];
+        try {
+            for (int block = 1, offset = 0; offset < keyLength; block++, offset += macLength) {
+                if (salt != null) {
+                    mac.update(salt);
+                }
+                mac.update((byte) (block >>> 24));
+                mac.update((byte) (block >>> 16));
+                mac.update((byte) (block >>> 8));
+                mac.update((byte) block);
+                mac.doFinal(u, 0);
+                System.arraycopy(u, 0, t, 0, macLength);
+                for (int i = 1; i < iterations; i++) {
+                    mac.update(u);
+                    mac.doFinal(u, 0);
+                    for (int j = 0; j < macLength; j++) {
+                        t[j] ^= u[j];
+                    }
+                }
+                System.arraycopy(t, 0, derived, offset, Math.min(macLength, keyLength - offset));
+            }
+        } catch (ShortBufferException e) {
+            //cannot happen: the buffer is exactly the mac length
+            throw new IllegalStateException("Unable to compute PBKDF2 block with " + mac.getAlgorithm(), e);
+        }
+        return derived;
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.crypto.hash;
+
+import org.apache.shiro.crypto.UnknownAlgorithmException;
+
+import javax.crypto.Mac;
+
+/**
+ * A {@code Hash} computed with the memory-hard scrypt key derivation function
+ * (<a href="http://tools.ietf.org/html/rfc7914">RFC 7914</a>), implemented in pure Java.
+ * <p/>
+ * The hash {@link #getIterations() iterations} are the scrypt CPU/memory cost parameter {@code N}, which must be a
+ * power of two greater than one.  The block size {@code r} is {@link #BLOCK_SIZE 8} and the parallelization
+ * parameter {@code p} is {@link #PARALLELIZATION 1}, so computing a hash requires {@code 1024 * N} bytes of memory
+ * (16 MB for the commonly recommended {@code N = 16384}).  The derived key is {@link #KEY_LENGTH 32} bytes long.
+ * <p/>
+ * Because the cost is the iteration count, scrypt hashes are stored and parsed by the
+ * {@link org.apache.shiro.crypto.hash.format.Shiro1CryptFormat Shiro1CryptFormat} like any other hash, for example
+ * {@code $shiro1$scrypt$16384$<salt>$<digest>}.
+ *
+ * @since 1.3
+ */
+public class ScryptHash extends SimpleHash {
+
+    public static final String ALGORITHM_NAME = "scrypt";
+
+    /**
+     * The scrypt block size parameter {@code r}.
+     */
+    public static final int BLOCK_SIZE = 8;
+
+    /**
+     * The scrypt parallelization parameter {@code p}.
+     */
+    public static final int PARALLELIZATION = 1;
+
+    /**
+     * The length in bytes of the derived key.
+     */
+    public static final int KEY_LENGTH = 32;
+
+    private static final String HMAC_ALGORITHM_NAME = "HmacSHA256";
+
+    public ScryptHash() {
+        super(ALGORITHM_NAME);
+    }
+
+    public ScryptHash(Object source, Object salt, int cost) {
+        super(ALGORITHM_NAME, source, salt, cost);
+    }
+
+    @Override
+    protected byte[] hash(byte[] bytes, byte[] salt, int hashIterations) throws UnknownAlgorithmException {
+        return scrypt(bytes, salt != null ? salt : new byte[0], hashIterations, BLOCK_SIZE, PARALLELIZATION, KEY_LENGTH);
+    }
+
+    /**
+     * Computes {@code scrypt(password, salt, N, r, p, keyLength)} as specified by RFC 7914.
+     *
+     * @throws IllegalArgumentException if {@code N} is not a power of two greater than one, or the parameters
+     *                                  require more than 2 GB of memory.
+     */
+    static byte[] scrypt(byte[] password, byte[] salt, int n, int r, int p, int keyLength) {
+        if (n < 2 || (n & (n - 1)) != 0) {
+            throw new IllegalArgumentException("scrypt cost (hash iterations) must be a power of two greater than " +
+                    "one, but was " + n + ".");
+        }
+        if (r < 1 || p < 1 || r > Integer.MAX_VALUE / 128 / p || n > Integer.MAX_VALUE / 128 / r) {
+            throw new IllegalArgumentException("scrypt parameters N=" + n + ", r=" + r + ", p=" + p +
+                    " are out of range.");
+        }
+        Mac mac = Pbkdf2Hash.newHmac(HMAC_ALGORITHM_NAME, password);
+        int blockLength = 128 * r;
+        byte[] b = Pbkdf2Hash.pbkdf2(mac, salt, 1, p * blockLength);
+
+        int words = 32 * r;
+        int[] x = new int[words];
+        int[] y = new int[words];
+        int[] v = new int[words * n];
+        int[] scratch = new int[16];
+        for (int i = 0; i < p; i++) {
+            roMix(b, i * blockLength, r, n, x, y, v, scratch);
+        }
+        return Pbkdf2Hash.pbkdf2(mac, b, 1, keyLength);
+    }
+
+    private static void roMix(byte[] b, int offset, int r, int n, int[] x, int[] y, int[] v, int[] scratch) {
+        int words = x.length;
+        for (int i = 0; i < words; i++) {
+            int k = offset + i * 4;
+            x[i] = (b[k] & 0xff) | (b[k + 1] & 0xff) << 8 | (b[k + 2] & 0xff) << 16 | (b[k + 3] & 0xff) << 24;
+        }
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(x, 0, v, i * words, words);
+            blockMix(x, y, r, scratch);
+        }
+        int last = (2 * r - 1) * 16;
+        for (int i = 0; i < n; i++) {
+            int j = x[last] & (n - 1);
+            int base = j * words;
+            for (int k = 0; k < words; k++) {
+                x[k] ^= v[base + k];
+            }
+            blockMix(x, y, r, scratch);
+        }
+        for (int i = 0; i < words; i++) {
+            int k = offset + i * 4;
+            int w = x[i];
+            b[k] = (byte) w;
+            b[k + 1] = (byte) (w >>> 8);
+            b[k + 2] = (byte) (w >>> 16);
+            b[k + 3] = (byte) (w >>> 24);
+        }
+    }
+
+    private static void blockMix(int[] b, int[] y, int r, int[] x) {
+        System.arraycopy(b, (2 * r - 1) * 16, x, 0, 16);
+        for (int i = 0; i < 2 * r; i++) {
+            int base = i * 16;
+            for (int k = 0; k < 16; k++) {
+                x[k] ^= b[base + k];
+            }
+            salsa208(x);
+            System.arraycopy(x, 0, y, base, 16);
+        }
+        //even blocks first, then odd blocks:
+        for (int i = 0; i < r; i++) {
+            System.arraycopy(y, (2 * i) * 16, b, i * 16, 16);
+            System.arraycopy(y, (2 * i + 1) * 16, b, (r + i) * 16, 16);
+        }
+    }
+
+    private static void salsa208(int[] b) {
+        int x0 = b[0], x1 = b[1], x2 = b[2], x3 = b[3], x4 = b[4], x5 = b[5], x6 = b[6], x7 = b[7];
+        int x8 = b[8], x9 = b[9], x10 = b[10], x11 = b[11], x12 = b[12], x13 = b[13], x14 = b[14], x15 = b[15];
+        for (int i = 0; i < 8; i += 2) {
+            //columns:
+            x4 ^= Integer.rotateLeft(x0 + x12, 7);
+            x8 ^= Integer.rotateLeft(x4 + x0, 9);
+            x12 ^= Integer.rotateLeft(x8 + x4, 13);
+            x0 ^= Integer.rotateLeft(x12 + x8, 18);
+            x9 ^= Integer.rotateLeft(x5 + x1, 7);
+            x13 ^= Integer.rotateLeft(x9 + x5, 9);
+            x1 ^= Integer.rotateLeft(x13 + x9, 13);
+            x5 ^= Integer.rotateLeft(x1 + x13, 18);
+            x14 ^= Integer.rotateLeft(x10 + x6, 7);
+            x2 ^= Integer.rotateLeft(x14 + x10, 9);
+            x6 ^= Integer.rotateLeft(x2 + x14, 13);
+            x10 ^= Integer.rotateLeft(x6 + x2, 18);
+            x3 ^= Integer.rotateLeft(x15 + x11, 7);
+            x7 ^= Integer.rotateLeft(x3 + x15, 9);
+            x11 ^= Integer.rotateLeft(x7 + x3, 13);
+            x15 ^= Integer.rotateLeft(x11 + x7, 18);
+            //rows:
+            x1 ^= Integer.rotateLeft(x0 + x3, 7);
+            x2 ^= Integer.rotateLeft(x1 + x0, 9);
+            x3 ^= Integer.rotateLeft(x2 + x1, 13);
+            x0 ^= Integer.rotateLeft(x3 + x2, 18);
+            x6 ^= Integer.rotateLeft(x5 + x4, 7);
+            x7 ^= Integer.rotateLeft(x6 + x5, 9);
+            x4 ^= Integer.rotateLeft(x7 + x6, 13);
+            x5 ^= Integer.rotateLeft(x4 + x7, 18);
+            x11 ^= Integer.rotateLeft(x10 + x9, 7);
+            x8 ^= Integer.rotateLeft(x11 + x10, 9);
+            x9 ^= Integer.rotateLeft(x8 + x11, 13);
+            x10 ^= Integer.rotateLeft(x9 + x8, 18);
+            x12 ^= Integer.rotateLeft(x15 + x14, 7);
+            x13 ^= Integer.rotateLeft(x12 + x15, 9);
+            x14 ^= Integer.rotateLeft(x13 + x12, 13);
+            x15 ^= Integer.rotateLeft(x14 + x13, 18);
+        }
+        b[0] += x0; b[1] += x1; b[2] += x2; b[3] += x3; b[4] += x4; b[5] += x5; b[6] += x6; b[7] += x7;
+        b[8] += x8; b[9] += x9; b[10] += x10; b[11] += x11; b[12] += x12; b[13] += x13; b[14] += x14; b[15] += x15;
+    }
+}
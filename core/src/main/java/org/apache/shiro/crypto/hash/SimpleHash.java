@@ -25,9 +25,14 @@ import org.apache.shiro.crypto.UnknownAlgorithmException;
 import org.apache.shiro.util.ByteSource;
 import org.apache.shiro.util.StringUtils;
 
+import java.security.DigestException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * A {@code Hash} implementation that allows any {@link java.security.MessageDigest MessageDigest} algorithm name to
@@ -37,6 +42,10 @@ import java.util.Arrays;
  * <p/>
  * As of Shiro 1.1, this class effectively replaces the (now-deprecated) {@link AbstractHash} class.  It subclasses
  * {@code AbstractHash} only to retain backwards-compatibility.
+ * <p/>
+ * As of Shiro 1.3, {@code MessageDigest} instances are pooled per algorithm and reused across hash computations
+ * (unless a subclass overrides {@link #getDigest(String) getDigest}), and hash iterations are computed in place in a
+ * single buffer, so a highly iterated hash does not allocate per iteration.
  *
  * @since 1.1
  */
@@ -44,6 +53,23 @@ public class SimpleHash extends AbstractHash {
 
     private static final int DEFAULT_ITERATIONS = 1;
 
+    /**
+     * The maximum number of idle {@code MessageDigest} instances pooled per algorithm.
+     */
+    private static final int MAX_POOLED_DIGESTS = 16;
+
+    /**
+     * Idle {@code MessageDigest} instances, keyed by algorithm name.
+     */
+    private static final ConcurrentMap<String, Queue<MessageDigest>> DIGEST_POOLS =
+            new ConcurrentHashMap<String, Queue<MessageDigest>>();
+
+    /**
+     * Whether or not a {@code SimpleHash} (sub)class overrides {@link #getDigest(String) getDigest}, keyed by class.
+     */
+    private static final ConcurrentMap<Class<?>, Boolean> GET_DIGEST_OVERRIDDEN =
+            new ConcurrentHashMap<Class<?>, Boolean>();
+
     /**
      * The {@link java.security.MessageDigest MessageDigest} algorithm name to use when performing the hash.
      */
@@ -340,14 +366,45 @@ public class SimpleHash extends AbstractHash {
      * @throws UnknownAlgorithmException if the {@link #getAlgorithmName() algorithmName} is not available.
      */
     protected byte[] hash(byte[] bytes, byte[] salt, int hashIterations) throws UnknownAlgorithmException {
-        MessageDigest digest = getDigest(getAlgorithmName());
+        String algorithmName = getAlgorithmName();
+        //only instances created by this class are pooled, never ones a subclass's getDigest override returns:
+        boolean pooled = !isGetDigestOverridden(getClass());
+        MessageDigest digest = pooled ? acquireDigest(algorithmName) : getDigest(algorithmName);
+        digest.reset();
         if (salt != null) {
-            digest.reset();
             digest.update(salt);
         }
         byte[] hashed = digest.digest(bytes);
         int iterations = hashIterations - DEFAULT_ITERATIONS; //already hashed once above
         //iterate remaining number:
+        if (iterations > 0) {
+            hashed = iterate(digest, hashed, iterations);
+        }
+        if (pooled) {
+            releaseDigest(algorithmName, digest);
+        }
+        return hashed;
+    }
+
+    /**
+     * Re-hashes {@code hashed} the specified number of times.  Each iteration is written back into the same array,
+     * unless the digest does not support that, in which case a new array is allocated per iteration.
+     */
+    private static byte[] iterate(MessageDigest digest, byte[] hashed, int iterations) {
+        int length = hashed.length;
+        if (digest.getDigestLength() == length) {
+            try {
+                for (int i = 0; i < iterations; i++) {
+                    //the input is consumed by update before the output is written, and digest(...) resets the digest:
+                    digest.update(hashed, 0, length);
+                    digest.digest(hashed, 0, length);
+                }
+                return hashed;
+            } catch (DigestException e) {
+                //cannot happen: the buffer is exactly the digest length
+                throw new IllegalStateException("Unable to compute in-place digest with " + digest, e);
+            }
+        }
         for (int i = 0; i < iterations; i++) {
             digest.reset();
             hashed = digest.digest(hashed);
@@ -355,6 +412,52 @@ public class SimpleHash extends AbstractHash {
         return hashed;
     }
 
+    private static boolean isGetDigestOverridden(Class<?> clazz) {
+        Boolean overridden = GET_DIGEST_OVERRIDDEN.get(clazz);
+        if (overridden == null) {
+            overridden = Boolean.FALSE;
+            for (Class<?> c = clazz; c != SimpleHash.class; c = c.getSuperclass()) {
+                try {
+                    c.getDeclaredMethod("getDigest", String.class);
+                    overridden = Boolean.TRUE;
+                    break;
+                } catch (NoSuchMethodException ignored) {
+                }
+            }
+            GET_DIGEST_OVERRIDDEN.put(clazz, overridden);
+        }
+        return overridden;
+    }
+
+    /**
+     * Returns an idle pooled digest for the specified algorithm, or a new one created by this class's
+     * {@link #getDigest(String) getDigest} implementation if none is available.
+     */
+    private MessageDigest acquireDigest(String algorithmName) {
+        Queue<MessageDigest> pool = DIGEST_POOLS.get(algorithmName);
+        MessageDigest pooled = pool != null ? pool.poll() : null;
+        return pooled != null ? pooled : getDigest(algorithmName);
+    }
+
+    /**
+     * Returns a digest obtained from {@link #acquireDigest(String) acquireDigest} to the pool for later reuse.
+     */
+    private static void releaseDigest(String algorithmName, MessageDigest digest) {
+        Queue<MessageDigest> pool = DIGEST_POOLS.get(algorithmName);
+        if (pool == null) {
+            Queue<MessageDigest> created = new ConcurrentLinkedQueue<MessageDigest>();
+            pool = DIGEST_POOLS.putIfAbsent(algorithmName, created);
+            if (pool == null) {
+                pool = created;
+            }
+        }
+        //size() traverses the queue, but the pool is small:
+        if (pool.size() < MAX_POOLED_DIGESTS) {
+            digest.reset();
+            pool.offer(digest);
+        }
+    }
+
     public boolean isEmpty() {
         return this.bytes == null || this.bytes.length == 0;
     }
@@ -57,13 +57,16 @@ import org.apache.shiro.util.StringUtils;
  *         <td>{@code algorithmName}</td>
  *         <td>The name of the hash algorithm used to perform the hash.  This is an algorithm name understood by
  *         {@code MessageDigest}.{@link java.security.MessageDigest#getInstance(String) getInstance}, for example
- *         {@code MD5}, {@code SHA-256}, {@code SHA-256}, etc.</td>
+ *         {@code MD5}, {@code SHA-256}, {@code SHA-256}, etc, or a key derivation function name supported by the
+ *         {@link org.apache.shiro.crypto.hash.DefaultHashService DefaultHashService}, for example
+ *         {@code PBKDF2WithHmacSHA256} or {@code scrypt}.</td>
  *         <td>true</td>
  *     </tr>
  *     <tr>
  *         <td>3</td>
  *         <td>{@code iterationCount}</td>
- *         <td>The number of hash iterations performed.</td>
+ *         <td>The number of hash iterations performed (the PBKDF2 iteration count, or the scrypt cost
+ *         parameter {@code N}).</td>
  *         <td>true (1 <= N <= Integer.MAX_VALUE)</td>
  *     </tr>
  *     <tr>
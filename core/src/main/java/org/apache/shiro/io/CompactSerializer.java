@@ -0,0 +1,497 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.io;
+
+import org.apache.shiro.session.mgt.SimpleSession;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serializer implementation that uses a compact, versioned binary format for Shiro's built-in types, most notably
+ * {@link SimplePrincipalCollection SimplePrincipalCollection} (as stored in rememberMe cookies) and
+ * {@link SimpleSession SimpleSession} (as stored by session DAOs that persist sessions as bytes).
+ * <p/>
+ * Unlike the {@link DefaultSerializer DefaultSerializer}, which relies on JVM serialization and therefore writes
+ * class descriptors for every object graph, this implementation writes only a one byte type tag followed by the
+ * value's state, using variable-length encodings for numbers and lengths.  The following types are written natively:
+ * <ul>
+ * <li>{@code null}, {@code String}, {@code Integer}, {@code Long}, {@code Boolean}, {@code java.util.Date} and
+ * {@code byte[]}</li>
+ * <li>{@code SimplePrincipalCollection} (realm names and principals, in iteration order)</li>
+ * <li>{@code SimpleSession} (all persistent state, including attributes)</li>
+ * <li>any type for which a {@link TypeCodec TypeCodec} has been {@link #addCodec(TypeCodec) registered}, such as
+ * application principal classes</li>
+ * </ul>
+ * Any other {@code Serializable} value (for example, an arbitrary session attribute) is written using JVM
+ * serialization, unless {@link #setJavaSerializationEnabled(boolean) javaSerializationEnabled} is {@code false}, in
+ * which case serializing it fails.
+ * <h3>Compatibility</h3>
+ * Serialized data starts with a format marker and version, so the format may evolve.  Data produced by JVM
+ * serialization (e.g. by a {@code DefaultSerializer}) is recognized by {@link #deserialize(byte[]) deserialize} and
+ * read using JVM serialization if {@code javaSerializationEnabled}, which allows switching an existing deployment to
+ * this serializer without invalidating previously serialized data (such as existing rememberMe cookies).
+ *
+ * @param <T> The type of the object being serialized and deserialized.
+ * @since 1.3
+ */
+public class CompactSerializer<T> implements Serializer<T> {
+
+    /**
+     * The first byte of all data written by this serializer.  JVM serialization data always starts with
+     * {@code 0xAC}, so the two are easily distinguished.
+     */
+    private static final int FORMAT_MARKER = 0x53;
+
+    /**
+     * The version of the format written by this serializer.
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * The maximum nesting depth of values (e.g. principal collections within session attributes) accepted when
+     * deserializing.
+     */
+    private static final int MAX_DEPTH = 16;
+
+    private static final int NULL = 0;
+    private static final int STRING = 1;
+    private static final int INTEGER = 2;
+    private static final int LONG = 3;
+    private static final int TRUE = 4;
+    private static final int FALSE = 5;
+    private static final int DATE = 6;
+    private static final int BYTES = 7;
+    private static final int PRINCIPALS = 8;
+    private static final int SESSION = 9;
+    private static final int CODEC = 10;
+    private static final int JAVA = 11;
+
+    //SimpleSession field presence flags:
+    private static final int START_TIMESTAMP = 1;
+    private static final int STOP_TIMESTAMP = 1 << 1;
+    private static final int LAST_ACCESS_TIME = 1 << 2;
+    private static final int EXPIRED = 1 << 3;
+    private static final int HOST = 1 << 4;
+    private static final int ATTRIBUTES = 1 << 5;
+
+    private final Map<Class<?>, TypeCodec<?>> codecsByType = new ConcurrentHashMap<Class<?>, TypeCodec<?>>();
+    private final Map<String, TypeCodec<?>> codecsByName = new ConcurrentHashMap<String, TypeCodec<?>>();
+
+    private final DefaultSerializer<Object> javaSerializer = new DefaultSerializer<Object>();
+
+    private boolean javaSerializationEnabled = true;
+
+    /**
+     * Returns {@code true} if values without a native encoding or registered codec are written using JVM
+     * serialization, and JVM serialization data is accepted when deserializing, {@code false} otherwise.  The default
+     * is {@code true}.
+     *
+     * @return {@code true} if JVM serialization is used for values without a native encoding or registered codec,
+     *         {@code false} otherwise.
+     */
+    public boolean isJavaSerializationEnabled() {
+        return javaSerializationEnabled;
+    }
+
+    /**
+     * Sets whether or not values without a native encoding or registered codec are written using JVM serialization,
+     * and JVM serialization data is accepted when deserializing.  Disabling this guarantees that only the types known
+     * to this serializer are ever instantiated during deserialization.  The default is {@code true}.
+     *
+     * @param javaSerializationEnabled whether or not JVM serialization is used for values without a native encoding
+     *                                 or registered codec.
+     */
+    public void setJavaSerializationEnabled(boolean javaSerializationEnabled) {
+        this.javaSerializationEnabled = javaSerializationEnabled;
+    }
+
+    /**
+     * Registers the specified codec, replacing any codec previously registered for the same type.
+     *
+     * @param codec the codec to register
+     */
+    public void addCodec(TypeCodec<?> codec) {
+        if (codec == null || codec.getType() == null) {
+            throw new IllegalArgumentException("codec argument and its type cannot be null.");
+        }
+        this.codecsByType.put(codec.getType(), codec);
+        this.codecsByName.put(codec.getType().getName(), codec);
+    }
+
+    /**
+     * Registers all of the specified codecs, as if by calling {@link #addCodec(TypeCodec) addCodec} for each, for
+     * convenient configuration.
+     *
+     * @param codecs the codecs to register
+     */
+    public void setCodecs(Collection<TypeCodec<?>> codecs) {
+        if (codecs != null) {
+            for (TypeCodec<?> codec : codecs) {
+                addCodec(codec);
+            }
+        }
+    }
+
+    /**
+     * Returns the registered codecs.
+     *
+     * @return the registered codecs.
+     */
+    public Collection<TypeCodec<?>> getCodecs() {
+        return this.codecsByType.values();
+    }
+
+    /**
+     * Serializes the specified object using the compact binary format described in the class-level JavaDoc.
+     *
+     * @param o the Object to convert into a byte[] array.
+     * @return the bytes representing the serialized object.
+     * @throws SerializationException if the object, or any value it contains, cannot be serialized.
+     */
+    public byte[] serialize(T o) throws SerializationException {
+        if (o == null) {
+            String msg = "argument cannot be null.";
+            throw new IllegalArgumentException(msg);
+        }
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(baos);
+        try {
+            out.writeByte(FORMAT_MARKER);
+            out.writeByte(FORMAT_VERSION);
+            writeValue(o, out);
+            out.flush();
+        } catch (IOException e) {
+            throw new SerializationException("Unable to serialize object [" + o + "].", e);
+        }
+        return baos.toByteArray();
+    }
+
+    /**
+     * Deserializes data previously written by {@link #serialize(Object) serialize} or, if
+     * {@link #isJavaSerializationEnabled() javaSerializationEnabled}, by JVM serialization.
+     *
+     * @param serialized the raw data resulting from a previous {@link #serialize(Object) serialize} call.
+     * @return the deserialized/reconstituted object based on the given byte array
+     * @throws SerializationException if the data is not valid or cannot be deserialized.
+     */
+    public T deserialize(byte[] serialized) throws SerializationException {
+        if (serialized == null) {
+            String msg = "argument cannot be null.";
+            throw new IllegalArgumentException(msg);
+        }
+        if (serialized.length > 1 && (serialized[0] & 0xFF) == 0xAC && (serialized[1] & 0xFF) == 0xED) {
+            //JVM serialization stream magic:
+            if (!isJavaSerializationEnabled()) {
+                throw new SerializationException("Unable to deserialize JVM serialization data: " +
+                        "javaSerializationEnabled is false.");
+            }
+            @SuppressWarnings({"unchecked"})
+            T deserialized = (T) javaSerializer.deserialize(serialized);
+            return deserialized;
+        }
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(serialized));
+            if (in.readUnsignedByte() != FORMAT_MARKER) {
+                throw new SerializationException("Unrecognized serialized data format.");
+            }
+            int version = in.readUnsignedByte();
+            if (version != FORMAT_VERSION) {
+                throw new SerializationException("Unsupported serialized data format version " + version + ".");
+            }
+            Object value = readValue(in, 0);
+            if (in.available() != 0) {
+                throw new SerializationException("Unexpected trailing data after serialized value.");
+            }
+            @SuppressWarnings({"unchecked"})
+            T deserialized = (T) value;
+            return deserialized;
+        } catch (SerializationException e) {
+            throw e;
+        } catch (Exception e) {
+            String msg = "Unable to deserialze argument byte array.";
+            throw new SerializationException(msg, e);
+        }
+    }
+
+    @SuppressWarnings({"unchecked"})
+    private void writeValue(Object value, DataOutputStream out) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+            return;
+        }
+        Class<?> type = value.getClass();
+        if (type == String.class) {
+            out.writeByte(STRING);
+            writeString((String) value, out);
+        } else if (type == Integer.class) {
+            out.writeByte(INTEGER);
+            writeVarLong(zigZag((Integer) value), out);
+        } else if (type == Long.class) {
+            out.writeByte(LONG);
+            writeVarLong(zigZag((Long) value), out);
+        } else if (type == Boolean.class) {
+            out.writeByte((Boolean) value ? TRUE : FALSE);
+        } else if (type == Date.class) {
+            out.writeByte(DATE);
+            writeVarLong(zigZag(((Date) value).getTime()), out);
+        } else if (type == byte[].class) {
+            out.writeByte(BYTES);
+            byte[] bytes = (byte[]) value;
+            writeVarLong(bytes.length, out);
+            out.write(bytes);
+        } else if (type == SimplePrincipalCollection.class) {
+            out.writeByte(PRINCIPALS);
+            writePrincipals((SimplePrincipalCollection) value, out);
+        } else if (type == SimpleSession.class) {
+            out.writeByte(SESSION);
+            writeSession((SimpleSession) value, out);
+        } else {
+            TypeCodec<Object> codec = (TypeCodec<Object>) this.codecsByType.get(type);
+            if (codec != null) {
+                out.writeByte(CODEC);
+                writeString(type.getName(), out);
+                codec.write(value, out);
+            } else if (isJavaSerializationEnabled() && value instanceof Serializable) {
+                out.writeByte(JAVA);
+                byte[] bytes = javaSerializer.serialize(value);
+                writeVarLong(bytes.length, out);
+                out.write(bytes);
+            } else {
+                throw new SerializationException("Unable to serialize value of type [" + type.getName() + "]: " +
+                        "no TypeCodec is registered for the type and JVM serialization is disabled or the type " +
+                        "does not implement java.io.Serializable.");
+            }
+        }
+    }
+
+    private Object readValue(DataInputStream in, int depth) throws IOException {
+        if (depth > MAX_DEPTH) {
+            throw new SerializationException("Serialized data exceeds the maximum nesting depth of " + MAX_DEPTH + ".");
+        }
+        int tag = in.readUnsignedByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(in);
+            case INTEGER:
+                return (int) unZigZag(readVarLong(in));
+            case LONG:
+                return unZigZag(readVarLong(in));
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case DATE:
+                return new Date(unZigZag(readVarLong(in)));
+            case BYTES:
+                return readBytes(in);
+            case PRINCIPALS:
+                return readPrincipals(in, depth);
+            case SESSION:
+                return readSession(in, depth);
+            case CODEC:
+                String typeName = readString(in);
+                TypeCodec<?> codec = this.codecsByName.get(typeName);
+                if (codec == null) {
+                    throw new SerializationException("No TypeCodec is registered for type [" + typeName + "].");
+                }
+                return codec.read(in);
+            case JAVA:
+                if (!isJavaSerializationEnabled()) {
+                    throw new SerializationException("Unable to deserialize JVM serialization data: " +
+                            "javaSerializationEnabled is false.");
+                }
+                return javaSerializer.deserialize(readBytes(in));
+            default:
+                throw new SerializationException("Unrecognized value type tag " + tag + ".");
+        }
+    }
+
+    private void writePrincipals(SimplePrincipalCollection principals, DataOutputStream out) throws IOException {
+        Set<String> realmNames = principals.getRealmNames();
+        if (realmNames == null) {
+            writeVarLong(0, out);
+            return;
+        }
+        writeVarLong(realmNames.size(), out);
+        for (String realmName : realmNames) {
+            Collection realmPrincipals = principals.fromRealm(realmName);
+            writeString(realmName, out);
+            writeVarLong(realmPrincipals.size(), out);
+            for (Object principal : realmPrincipals) {
+                writeValue(principal, out);
+            }
+        }
+    }
+
+    private SimplePrincipalCollection readPrincipals(DataInputStream in, int depth) throws IOException {
+        SimplePrincipalCollection principals = new SimplePrincipalCollection();
+        int realmCount = readLength(in);
+        for (int i = 0; i < realmCount; i++) {
+            String realmName = readString(in);
+            int count = readLength(in);
+            for (int j = 0; j < count; j++) {
+                principals.add(readValue(in, depth + 1), realmName);
+            }
+        }
+        return principals;
+    }
+
+    private void writeSession(SimpleSession session, DataOutputStream out) throws IOException {
+        Map<Object, Object> attributes = session.getAttributes();
+        int flags = 0;
+        if (session.getStartTimestamp() != null) {
+            flags |= START_TIMESTAMP;
+        }
+        if (session.getStopTimestamp() != null) {
+            flags |= STOP_TIMESTAMP;
+        }
+        if (session.getLastAccessTime() != null) {
+            flags |= LAST_ACCESS_TIME;
+        }
+        if (session.isExpired()) {
+            flags |= EXPIRED;
+        }
+        if (session.getHost() != null) {
+            flags |= HOST;
+        }
+        if (attributes != null && !attributes.isEmpty()) {
+            flags |= ATTRIBUTES;
+        }
+        out.writeByte(flags);
+        writeValue(session.getId(), out);
+        if ((flags & START_TIMESTAMP) != 0) {
+            writeVarLong(zigZag(session.getStartTimestamp().getTime()), out);
+        }
+        if ((flags & STOP_TIMESTAMP) != 0) {
+            writeVarLong(zigZag(session.getStopTimestamp().getTime()), out);
+        }
+        if ((flags & LAST_ACCESS_TIME) != 0) {
+            writeVarLong(zigZag(session.getLastAccessTime().getTime()), out);
+        }
+        writeVarLong(zigZag(session.getTimeout()), out);
+        if ((flags & HOST) != 0) {
+            writeString(session.getHost(), out);
+        }
+        if ((flags & ATTRIBUTES) != 0) {
+            writeVarLong(attributes.size(), out);
+            for (Map.Entry<Object, Object> entry : attributes.entrySet()) {
+                writeValue(entry.getKey(), out);
+                writeValue(entry.getValue(), out);
+            }
+        }
+    }
+
+    private SimpleSession readSession(DataInputStream in, int depth) throws IOException {
+        int flags = in.readUnsignedByte();
+        SimpleSession session = new SimpleSession();
+        Object id = readValue(in, depth + 1);
+        if (id != null && !(id instanceof Serializable)) {
+            throw new SerializationException("Session id is not Serializable.");
+        }
+        session.setId((Serializable) id);
+        session.setStartTimestamp((flags & START_TIMESTAMP) != 0 ? new Date(unZigZag(readVarLong(in))) : null);
+        session.setStopTimestamp((flags & STOP_TIMESTAMP) != 0 ? new Date(unZigZag(readVarLong(in))) : null);
+        session.setLastAccessTime((flags & LAST_ACCESS_TIME) != 0 ? new Date(unZigZag(readVarLong(in))) : null);
+        session.setTimeout(unZigZag(readVarLong(in)));
+        session.setExpired((flags & EXPIRED) != 0);
+        session.setHost((flags & HOST) != 0 ? readString(in) : null);
+        if ((flags & ATTRIBUTES) != 0) {
+            int size = readLength(in);
+            Map<Object, Object> attributes = new LinkedHashMap<Object, Object>();
+            for (int i = 0; i < size; i++) {
+                Object key = readValue(in, depth + 1);
+                attributes.put(key, readValue(in, depth + 1));
+            }
+            session.setAttributes(attributes);
+        }
+        //a deserialized session has not been changed since it was stored:
+        session.clearChanges();
+        return session;
+    }
+
+    private static void writeString(String s, DataOutputStream out) throws IOException {
+        byte[] bytes = s.getBytes("UTF-8");
+        writeVarLong(bytes.length, out);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return new String(readBytes(in), "UTF-8");
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[readLength(in)];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * Reads a length or count, rejecting values that cannot possibly be satisfied by the remaining data so that
+     * corrupt or malicious data cannot cause excessive allocation.
+     */
+    private static int readLength(DataInputStream in) throws IOException {
+        long length = readVarLong(in);
+        if (length < 0 || length > in.available()) {
+            throw new SerializationException("Invalid length " + length + " in serialized data.");
+        }
+        return (int) length;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(long value, DataOutputStream out) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new SerializationException("Malformed variable-length number in serialized data.");
+    }
+}
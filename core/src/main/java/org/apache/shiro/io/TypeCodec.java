@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.io;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A {@code TypeCodec} writes and reads instances of a single application type (for example, a custom principal class)
+ * in a compact binary form on behalf of a {@link CompactSerializer CompactSerializer}.
+ * <p/>
+ * Instances are identified in the serialized form by the fully qualified name of the codec's
+ * {@link #getType() type}, so the same codec must be registered wherever the data is deserialized.  Implementations
+ * must read exactly the data they wrote and should be stateless.
+ *
+ * @param <T> the type written and read by this codec.
+ * @see CompactSerializer#addCodec(TypeCodec)
+ * @since 1.3
+ */
+public interface TypeCodec<T> {
+
+    /**
+     * Returns the type written and read by this codec.  Only instances of exactly this class are written by this
+     * codec; subclasses require their own codec.
+     *
+     * @return the type written and read by this codec.
+     */
+    Class<T> getType();
+
+    /**
+     * Writes the state of the specified (non-null) instance to the specified output.
+     *
+     * @param value the instance to write
+     * @param out   the output to write to
+     * @throws IOException if the instance cannot be written
+     */
+    void write(T value, DataOutput out) throws IOException;
+
+    /**
+     * Reads an instance previously written by {@link #write(Object, DataOutput) write} from the specified input.
+     *
+     * @param in the input to read from
+     * @return the instance read from the input
+     * @throws IOException if an instance cannot be read
+     */
+    T read(DataInput in) throws IOException;
+}
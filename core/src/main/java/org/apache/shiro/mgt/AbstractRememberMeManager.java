@@ -22,9 +22,11 @@ import org.apache.shiro.authc.AuthenticationException;
 import org.apache.shiro.authc.AuthenticationInfo;
 import org.apache.shiro.authc.AuthenticationToken;
 import org.apache.shiro.authc.RememberMeAuthenticationToken;
+import org.apache.shiro.cache.BoundedCache;
 import org.apache.shiro.codec.Base64;
 import org.apache.shiro.crypto.AesCipherService;
 import org.apache.shiro.crypto.CipherService;
+import org.apache.shiro.crypto.hash.Sha256Hash;
 import org.apache.shiro.io.DefaultSerializer;
 import org.apache.shiro.io.Serializer;
 import org.apache.shiro.subject.PrincipalCollection;
@@ -58,6 +60,18 @@ import org.slf4j.LoggerFactory;
  * guaranteeing that no third party can decrypt your data.  You can generate your own key by calling the
  * {@code CipherService}'s {@link org.apache.shiro.crypto.AesCipherService#generateNewKey() generateNewKey} method
  * and using that result as the {@link #setCipherKey cipherKey} configuration attribute.
+ * <h2>Remembered principals cache</h2>
+ * Decrypting and deserializing a remembered identity is comparatively expensive, and happens on every request from a
+ * client that is remembered but does not have a session (for example, API clients that do not retain session
+ * cookies).  If the {@link #setPrincipalsCacheSize(int) principalsCacheSize} is greater than zero, the principals
+ * reconstituted from a remembered identity are cached, keyed by a SHA-256 digest of the remembered (encrypted) bytes,
+ * for at most {@link #setPrincipalsCacheTimeToLive(long) principalsCacheTimeToLive} milliseconds.  Subsequent requests
+ * presenting the same remembered identity are then resolved with a single digest and lookup.
+ * <p/>
+ * Cached entries are removed by digest when subclasses {@link #forgetIdentity(Subject) forget} a remembered identity
+ * whose bytes they know by calling {@link #forgetCachedPrincipals(byte[])} (as the web module's
+ * {@code CookieRememberMeManager} does when it removes the rememberMe cookie, e.g. on logout), and the cache is cleared
+ * whenever the serializer, cipher service or cipher keys are changed.  The cache is disabled by default.
  *
  * @since 0.9
  */
@@ -79,6 +93,13 @@ public abstract class AbstractRememberMeManager implements RememberMeManager {
      */
     private static final byte[] DEFAULT_CIPHER_KEY_BYTES = Base64.decode("kPH+bIxk5D2deZiIxcaaaA==");
 
+    /**
+     * The default number of milliseconds remembered principals are cached for (5 minutes).
+     *
+     * @since 1.3
+     */
+    public static final long DEFAULT_PRINCIPALS_CACHE_TIME_TO_LIVE = 5 * 60 * 1000;
+
     /**
      * Serializer to use for converting PrincipalCollection instances to/from byte arrays
      */
@@ -99,6 +120,21 @@ public abstract class AbstractRememberMeManager implements RememberMeManager {
      */
     private byte[] decryptionCipherKey;
 
+    /**
+     * The maximum number of cached remembered principals, zero (or less) if caching is disabled.
+     */
+    private int principalsCacheSize;
+
+    /**
+     * The number of milliseconds remembered principals are cached for.
+     */
+    private long principalsCacheTimeToLive = DEFAULT_PRINCIPALS_CACHE_TIME_TO_LIVE;
+
+    /**
+     * Remembered principals keyed by the digest of their remembered bytes, or {@code null} if caching is disabled.
+     */
+    private volatile BoundedCache<String, PrincipalCollection> principalsCache;
+
     /**
      * Default constructor that initializes a {@link DefaultSerializer} as the {@link #getSerializer() serializer} and
      * an {@link AesCipherService} as the {@link #getCipherService() cipherService}.
@@ -127,13 +163,16 @@ public abstract class AbstractRememberMeManager implements RememberMeManager {
      * Sets the {@code Serializer} used to serialize and deserialize {@link PrincipalCollection} instances for
      * persistent remember me storage.
      * <p/>
-     * Unless overridden by this method, the default instance is a {@link DefaultSerializer}.
+     * Unless overridden by this method, the default instance is a {@link DefaultSerializer}.  A
+     * {@link org.apache.shiro.io.CompactSerializer CompactSerializer} produces considerably smaller cookies and can
+     * read identities previously remembered using a {@code DefaultSerializer}.
      *
      * @param serializer the {@code Serializer} used to serialize and deserialize {@link PrincipalCollection} instances
      *                   for persistent remember me storage.
      */
     public void setSerializer(Serializer<PrincipalCollection> serializer) {
         this.serializer = serializer;
+        clearPrincipalsCache();
     }
 
     /**
@@ -170,6 +209,7 @@ public abstract class AbstractRememberMeManager implements RememberMeManager {
      */
     public void setCipherService(CipherService cipherService) {
         this.cipherService = cipherService;
+        clearPrincipalsCache();
     }
 
     /**
@@ -190,6 +230,7 @@ public abstract class AbstractRememberMeManager implements RememberMeManager {
      */
     public void setEncryptionCipherKey(byte[] encryptionCipherKey) {
         this.encryptionCipherKey = encryptionCipherKey;
+        clearPrincipalsCache();
     }
 
     /**
@@ -210,6 +251,7 @@ public abstract class AbstractRememberMeManager implements RememberMeManager {
      */
     public void setDecryptionCipherKey(byte[] decryptionCipherKey) {
         this.decryptionCipherKey = decryptionCipherKey;
+        clearPrincipalsCache();
     }
 
     /**
@@ -251,6 +293,106 @@ public abstract class AbstractRememberMeManager implements RememberMeManager {
         setDecryptionCipherKey(cipherKey);
     }
 
+    /**
+     * Returns the maximum number of principals reconstituted from remembered identities that are cached, or zero
+     * (or less) if the cache is disabled.  The default is zero.
+     *
+     * @return the maximum number of cached remembered principals, or zero (or less) if the cache is disabled.
+     * @see #setPrincipalsCacheSize(int)
+     * @since 1.3
+     */
+    public int getPrincipalsCacheSize() {
+        return principalsCacheSize;
+    }
+
+    /**
+     * Sets the maximum number of principals reconstituted from remembered identities that are cached.  Zero (or less)
+     * disables the cache.  The default is zero.
+     * <p/>
+     * <b>N.B.</b> while caching is enabled, the same {@code PrincipalCollection} instance is returned for every request
+     * presenting the same remembered identity, and {@link #convertBytesToPrincipals(byte[], SubjectContext)
+     * convertBytesToPrincipals} is not called for cached identities.  See the class-level JavaDoc for more information.
+     *
+     * @param principalsCacheSize the maximum number of cached remembered principals, or zero (or less) to disable the
+     *                            cache.
+     * @since 1.3
+     */
+    public void setPrincipalsCacheSize(int principalsCacheSize) {
+        this.principalsCacheSize = principalsCacheSize;
+        rebuildPrincipalsCache();
+    }
+
+    /**
+     * Returns the number of milliseconds principals reconstituted from a remembered identity are cached for.  The
+     * default is {@link #DEFAULT_PRINCIPALS_CACHE_TIME_TO_LIVE} (5 minutes).
+     *
+     * @return the number of milliseconds principals reconstituted from a remembered identity are cached for.
+     * @since 1.3
+     */
+    public long getPrincipalsCacheTimeToLive() {
+        return principalsCacheTimeToLive;
+    }
+
+    /**
+     * Sets the number of milliseconds principals reconstituted from a remembered identity are cached for.  Zero (or
+     * less) caches them until evicted to stay within the {@link #setPrincipalsCacheSize(int) principalsCacheSize}.
+     * The default is {@link #DEFAULT_PRINCIPALS_CACHE_TIME_TO_LIVE} (5 minutes).
+     *
+     * @param principalsCacheTimeToLive the number of milliseconds principals reconstituted from a remembered identity
+     *                                  are cached for.
+     * @since 1.3
+     */
+    public void setPrincipalsCacheTimeToLive(long principalsCacheTimeToLive) {
+        this.principalsCacheTimeToLive = principalsCacheTimeToLive;
+        rebuildPrincipalsCache();
+    }
+
+    private void rebuildPrincipalsCache() {
+        if (this.principalsCacheSize > 0) {
+            this.principalsCache = new BoundedCache<String, PrincipalCollection>(
+                    getClass().getName() + ".principalsCache", this.principalsCacheSize,
+                    this.principalsCacheTimeToLive, 0);
+        } else {
+            this.principalsCache = null;
+        }
+    }
+
+    /**
+     * Returns {@code true} if principals reconstituted from remembered identities are cached, {@code false} otherwise.
+     *
+     * @return {@code true} if principals reconstituted from remembered identities are cached, {@code false} otherwise.
+     * @since 1.3
+     */
+    protected boolean isPrincipalsCacheEnabled() {
+        return this.principalsCache != null;
+    }
+
+    private void clearPrincipalsCache() {
+        BoundedCache<String, PrincipalCollection> cache = this.principalsCache;
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    private static String digest(byte[] serializedIdentity) {
+        return new Sha256Hash(serializedIdentity).toBase64();
+    }
+
+    /**
+     * Removes the principals cached for the specified remembered identity bytes, if any.  Subclasses should call this
+     * method when they forget a remembered identity whose bytes they know.
+     *
+     * @param serializedIdentity the remembered identity bytes, as returned by
+     *                           {@link #getRememberedSerializedIdentity(SubjectContext)}.
+     * @since 1.3
+     */
+    protected void forgetCachedPrincipals(byte[] serializedIdentity) {
+        BoundedCache<String, PrincipalCollection> cache = this.principalsCache;
+        if (cache != null && serializedIdentity != null && serializedIdentity.length > 0) {
+            cache.remove(digest(serializedIdentity));
+        }
+    }
+
     /**
      * Forgets (removes) any remembered identity data for the specified {@link Subject} instance.
      *
@@ -393,7 +535,18 @@ public abstract class AbstractRememberMeManager implements RememberMeManager {
             byte[] bytes = getRememberedSerializedIdentity(subjectContext);
             //SHIRO-138 - only call convertBytesToPrincipals if bytes exist:
             if (bytes != null && bytes.length > 0) {
-                principals = convertBytesToPrincipals(bytes, subjectContext);
+                BoundedCache<String, PrincipalCollection> cache = this.principalsCache;
+                String digest = null;
+                if (cache != null) {
+                    digest = digest(bytes);
+                    principals = cache.get(digest);
+                }
+                if (principals == null) {
+                    principals = convertBytesToPrincipals(bytes, subjectContext);
+                    if (cache != null && principals != null && !principals.isEmpty()) {
+                        cache.put(digest, principals);
+                    }
+                }
             }
         } catch (RuntimeException re) {
             principals = onRememberedPrincipalFailure(re, subjectContext);
@@ -19,10 +19,14 @@
 package org.apache.shiro.mgt;
 
 import org.apache.shiro.authz.AuthorizationException;
+import org.apache.shiro.authz.AuthorizationSnapshot;
+import org.apache.shiro.authz.AuthorizationSnapshotFactory;
 import org.apache.shiro.authz.Authorizer;
+import org.apache.shiro.authz.DelegatingAuthorizationSnapshot;
 import org.apache.shiro.authz.ModularRealmAuthorizer;
 import org.apache.shiro.authz.Permission;
 import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.util.ClassUtils;
 import org.apache.shiro.util.LifecycleUtils;
 
 import java.util.Collection;
@@ -44,13 +48,20 @@ import java.util.List;
  *
  * @since 0.9
  */
-public abstract class AuthorizingSecurityManager extends AuthenticatingSecurityManager {
+public abstract class AuthorizingSecurityManager extends AuthenticatingSecurityManager
+        implements AuthorizationSnapshotFactory {
 
     /**
      * The wrapped instance to which all of this <tt>SecurityManager</tt> authorization calls are delegated.
      */
     private Authorizer authorizer;
 
+    /**
+     * Whether this <tt>SecurityManager</tt>'s class overrides one of the public checks answered by an
+     * {@link #createAuthorizationSnapshot(PrincipalCollection) authorization snapshot}.
+     */
+    private final boolean authorizationChecksOverridden = overridesAuthorizationChecks(getClass());
+
     /**
      * Default no-arg constructor that initializes an internal default
      * {@link org.apache.shiro.authz.ModularRealmAuthorizer ModularRealmAuthorizer}.
@@ -109,6 +120,37 @@ public abstract class AuthorizingSecurityManager extends AuthenticatingSecurityM
         super.destroy();
     }
 
+    /**
+     * Returns the wrapped {@link #getAuthorizer() authorizer}'s snapshot if it is an
+     * {@link AuthorizationSnapshotFactory AuthorizationSnapshotFactory}, or a
+     * {@link DelegatingAuthorizationSnapshot DelegatingAuthorizationSnapshot} calling the wrapped authorizer directly
+     * otherwise.
+     * <p/>
+     * If this <tt>SecurityManager</tt>'s class overrides {@link #isPermitted(PrincipalCollection, String)},
+     * {@link #isPermitted(PrincipalCollection, Permission)} or {@link #hasRole(PrincipalCollection, String)}, the
+     * returned snapshot instead delegates every check to those methods so that the overridden behavior is retained.
+     *
+     * @param principals the application-specific subject/user identifier.
+     * @return a new snapshot for the Subject identified by the specified {@code principals}.
+     * @since 1.3
+     */
+    public AuthorizationSnapshot createAuthorizationSnapshot(PrincipalCollection principals) {
+        if (this.authorizationChecksOverridden) {
+            return new DelegatingAuthorizationSnapshot(this, principals);
+        }
+        if (this.authorizer instanceof AuthorizationSnapshotFactory) {
+            return ((AuthorizationSnapshotFactory) this.authorizer).createAuthorizationSnapshot(principals);
+        }
+        return new DelegatingAuthorizationSnapshot(this.authorizer, principals);
+    }
+
+    private static boolean overridesAuthorizationChecks(Class<?> clazz) {
+        Class<?> base = AuthorizingSecurityManager.class;
+        return ClassUtils.isOverridden(clazz, base, "isPermitted", PrincipalCollection.class, String.class) ||
+                ClassUtils.isOverridden(clazz, base, "isPermitted", PrincipalCollection.class, Permission.class) ||
+                ClassUtils.isOverridden(clazz, base, "hasRole", PrincipalCollection.class, String.class);
+    }
+
     public boolean isPermitted(PrincipalCollection principals, String permissionString) {
         return this.authorizer.isPermitted(principals, permissionString);
     }
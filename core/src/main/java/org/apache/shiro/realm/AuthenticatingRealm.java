@@ -22,14 +22,21 @@ import org.apache.shiro.authc.*;
 import org.apache.shiro.authc.credential.AllowAllCredentialsMatcher;
 import org.apache.shiro.authc.credential.CredentialsMatcher;
 import org.apache.shiro.authc.credential.SimpleCredentialsMatcher;
+import org.apache.shiro.cache.BoundedCache;
 import org.apache.shiro.cache.Cache;
 import org.apache.shiro.cache.CacheManager;
+import org.apache.shiro.codec.CodecSupport;
 import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.util.ByteSource;
 import org.apache.shiro.util.CollectionUtils;
 import org.apache.shiro.util.Initializable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
 import java.util.concurrent.atomic.AtomicInteger;
 
 
@@ -105,6 +112,26 @@ import java.util.concurrent.atomic.AtomicInteger;
  * (highly recommended for authentication data), ensure that the return values from those two methods are identical in
  * the subclass implementation.
  *
+ * <h2>Verified Credentials Caching</h2>
+ * Authentication caching avoids repeated data source lookups, but the submitted credentials are still verified by the
+ * {@link #getCredentialsMatcher() credentialsMatcher} on every authentication attempt.  With a strong password hashing
+ * configuration (e.g. many hash iterations) this is deliberately expensive, which is a significant cost for clients
+ * that submit the same credentials on every request (e.g. HTTP Basic authentication for REST APIs).
+ * <p/>
+ * If the {@link #setVerifiedCredentialsCacheSize(int) verifiedCredentialsCacheSize} is greater than zero, a successful
+ * credentials match is remembered for {@link #setVerifiedCredentialsCacheTimeToLive(long) verifiedCredentialsCacheTimeToLive}
+ * milliseconds, keyed by the {@link #getAuthenticationCacheKey(org.apache.shiro.authc.AuthenticationToken) authentication cache key}.
+ * Only a keyed digest (HMAC-SHA256 with a random, per-realm, in-memory secret) of the submitted and the stored
+ * credentials is retained.  A subsequent attempt for the same account is accepted without consulting the
+ * {@code credentialsMatcher} only if both the submitted and the stored credentials are identical to the verified
+ * ones, so a changed password is never matched against a stale entry.  Failed attempts are never cached.  Entries are
+ * removed by {@link #clearCachedAuthenticationInfo(org.apache.shiro.subject.PrincipalCollection)
+ * clearCachedAuthenticationInfo}, and all entries are discarded when the {@code credentialsMatcher} is changed.
+ * <p/>
+ * Only credentials that are {@code byte[]}, {@code char[]}, {@code String} or {@link ByteSource} instances are cached.
+ * Note that {@link #assertCredentialsMatch(org.apache.shiro.authc.AuthenticationToken, org.apache.shiro.authc.AuthenticationInfo)
+ * assertCredentialsMatch} is not called for attempts accepted from this cache.  This feature is disabled by default.
+ *
  * @since 0.2
  */
 public abstract class AuthenticatingRealm extends CachingRealm implements Initializable {
@@ -122,6 +149,15 @@ public abstract class AuthenticatingRealm extends CachingRealm implements Initia
      */
     private static final String DEFAULT_AUTHORIZATION_CACHE_SUFFIX = ".authenticationCache";
 
+    /**
+     * The default number of milliseconds a successful credentials match is remembered (1 minute).
+     *
+     * @since 1.3
+     */
+    public static final long DEFAULT_VERIFIED_CREDENTIALS_CACHE_TIME_TO_LIVE = 60 * 1000;
+
+    private static final String VERIFIED_CREDENTIALS_MAC_ALGORITHM = "HmacSHA256";
+
     /**
      * Credentials matcher used to determine if the provided credentials match the credentials stored in the data store.
      */
@@ -133,6 +169,19 @@ public abstract class AuthenticatingRealm extends CachingRealm implements Initia
     private boolean authenticationCachingEnabled;
     private String authenticationCacheName;
 
+    private int verifiedCredentialsCacheSize;
+    private long verifiedCredentialsCacheTimeToLive = DEFAULT_VERIFIED_CREDENTIALS_CACHE_TIME_TO_LIVE;
+
+    /**
+     * Keyed digests of verified credentials, keyed by authentication cache key, or {@code null} if disabled.
+     */
+    private volatile BoundedCache<Object, byte[]> verifiedCredentialsCache;
+
+    /**
+     * The secret used to compute verified credentials digests, generated when the cache is enabled.
+     */
+    private volatile SecretKeySpec verifiedCredentialsSecret;
+
     /**
      * The class that this realm supports for authentication tokens.  This is used by the
      * default implementation of the {@link Realm#supports(org.apache.shiro.authc.AuthenticationToken)} method to
@@ -206,6 +255,10 @@ public abstract class AuthenticatingRealm extends CachingRealm implements Initia
      */
     public void setCredentialsMatcher(CredentialsMatcher credentialsMatcher) {
         this.credentialsMatcher = credentialsMatcher;
+        BoundedCache<Object, byte[]> cache = this.verifiedCredentialsCache;
+        if (cache != null) {
+            cache.clear();
+        }
     }
 
     /**
@@ -337,6 +390,75 @@ public abstract class AuthenticatingRealm extends CachingRealm implements Initia
         }
     }
 
+    /**
+     * Returns the maximum number of accounts for which a successful credentials match is remembered, or zero (or
+     * less) if verified credentials caching is disabled.  The default is zero.
+     *
+     * @return the maximum number of accounts for which a successful credentials match is remembered.
+     * @see #setVerifiedCredentialsCacheSize(int)
+     * @since 1.3
+     */
+    public int getVerifiedCredentialsCacheSize() {
+        return verifiedCredentialsCacheSize;
+    }
+
+    /**
+     * Sets the maximum number of accounts for which a successful credentials match is remembered.  Zero (or less)
+     * disables verified credentials caching.  The default is zero.
+     * <p/>
+     * <b>WARNING:</b> see the <em>Verified Credentials Caching</em> section of the class-level JavaDoc before enabling.
+     *
+     * @param verifiedCredentialsCacheSize the maximum number of accounts for which a successful credentials match is
+     *                                     remembered, or zero (or less) to disable verified credentials caching.
+     * @since 1.3
+     */
+    public void setVerifiedCredentialsCacheSize(int verifiedCredentialsCacheSize) {
+        this.verifiedCredentialsCacheSize = verifiedCredentialsCacheSize;
+        rebuildVerifiedCredentialsCache();
+    }
+
+    /**
+     * Returns the number of milliseconds a successful credentials match is remembered.  The default is
+     * {@link #DEFAULT_VERIFIED_CREDENTIALS_CACHE_TIME_TO_LIVE} (1 minute).
+     *
+     * @return the number of milliseconds a successful credentials match is remembered.
+     * @since 1.3
+     */
+    public long getVerifiedCredentialsCacheTimeToLive() {
+        return verifiedCredentialsCacheTimeToLive;
+    }
+
+    /**
+     * Sets the number of milliseconds a successful credentials match is remembered.  This should be kept short.  The
+     * default is {@link #DEFAULT_VERIFIED_CREDENTIALS_CACHE_TIME_TO_LIVE} (1 minute).
+     *
+     * @param verifiedCredentialsCacheTimeToLive the number of milliseconds a successful credentials match is
+     *                                           remembered.
+     * @since 1.3
+     */
+    public void setVerifiedCredentialsCacheTimeToLive(long verifiedCredentialsCacheTimeToLive) {
+        this.verifiedCredentialsCacheTimeToLive = verifiedCredentialsCacheTimeToLive;
+        rebuildVerifiedCredentialsCache();
+    }
+
+    private void rebuildVerifiedCredentialsCache() {
+        if (this.verifiedCredentialsCacheSize > 0) {
+            if (this.verifiedCredentialsSecret == null) {
+                byte[] secret = new byte[32];
+                new SecureRandom().nextBytes(secret);
+                this.verifiedCredentialsSecret = new SecretKeySpec(secret, VERIFIED_CREDENTIALS_MAC_ALGORITHM);
+            }
+            String name = getAuthenticationCacheName();
+            if (name == null) {
+                name = getClass().getName();
+            }
+            this.verifiedCredentialsCache = new BoundedCache<Object, byte[]>(name + ".verifiedCredentials",
+                    this.verifiedCredentialsCacheSize, this.verifiedCredentialsCacheTimeToLive, 0);
+        } else {
+            this.verifiedCredentialsCache = null;
+        }
+    }
+
     public void setName(String name) {
         super.setName(name);
         String authcCacheName = this.authenticationCacheName;
@@ -575,7 +697,18 @@ public abstract class AuthenticatingRealm extends CachingRealm implements Initia
         }
 
         if (info != null) {
-            assertCredentialsMatch(token, info);
+            BoundedCache<Object, byte[]> verified = this.verifiedCredentialsCache;
+            byte[] digest = verified != null ? getVerifiedCredentialsDigest(token, info) : null;
+            Object key = digest != null ? getAuthenticationCacheKey(token) : null;
+            byte[] cached = key != null ? verified.get(key) : null;
+            if (cached != null && MessageDigest.isEqual(cached, digest)) {
+                log.trace("Submitted credentials for account [{}] were recently verified.", key);
+            } else {
+                assertCredentialsMatch(token, info);
+                if (key != null) {
+                    verified.put(key, digest);
+                }
+            }
         } else {
             log.debug("No AuthenticationInfo found for submitted AuthenticationToken [{}].  Returning null.", token);
         }
@@ -583,6 +716,44 @@ public abstract class AuthenticatingRealm extends CachingRealm implements Initia
         return info;
     }
 
+    /**
+     * Returns the keyed digest of the token's submitted credentials and the info's stored credentials used to
+     * recognize recently verified credentials, or {@code null} if either cannot be converted to bytes.
+     */
+    private byte[] getVerifiedCredentialsDigest(AuthenticationToken token, AuthenticationInfo info) {
+        byte[] submitted = token != null ? credentialsToBytes(token.getCredentials()) : null;
+        byte[] stored = credentialsToBytes(info.getCredentials());
+        if (submitted == null || stored == null) {
+            return null;
+        }
+        try {
+            Mac mac = Mac.getInstance(VERIFIED_CREDENTIALS_MAC_ALGORITHM);
+            mac.init(this.verifiedCredentialsSecret);
+            //length-prefix the submitted credentials so the boundary between the two is unambiguous:
+            int length = submitted.length;
+            mac.update(new byte[]{(byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length});
+            mac.update(submitted);
+            mac.update(stored);
+            return mac.doFinal();
+        } catch (Exception e) {
+            log.debug("Unable to compute verified credentials digest.  Credentials will not be cached.", e);
+            return null;
+        }
+    }
+
+    private static byte[] credentialsToBytes(Object credentials) {
+        if (credentials instanceof byte[]) {
+            return (byte[]) credentials;
+        } else if (credentials instanceof char[]) {
+            return CodecSupport.toBytes((char[]) credentials);
+        } else if (credentials instanceof String) {
+            return CodecSupport.toBytes((String) credentials);
+        } else if (credentials instanceof ByteSource) {
+            return ((ByteSource) credentials).getBytes();
+        }
+        return null;
+    }
+
     /**
      * Asserts that the submitted {@code AuthenticationToken}'s credentials match the stored account
      * {@code AuthenticationInfo}'s credentials, and if not, throws an {@link AuthenticationException}.
@@ -684,6 +855,10 @@ public abstract class AuthenticatingRealm extends CachingRealm implements Initia
                 Object key = getAuthenticationCacheKey(principals);
                 cache.remove(key);
             }
+            BoundedCache<Object, byte[]> verified = this.verifiedCredentialsCache;
+            if (verified != null) {
+                verified.remove(getAuthenticationCacheKey(principals));
+            }
         }
     }
 
@@ -24,12 +24,18 @@ import org.apache.shiro.authz.permission.*;
 import org.apache.shiro.cache.Cache;
 import org.apache.shiro.cache.CacheManager;
 import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.util.ClassUtils;
 import org.apache.shiro.util.CollectionUtils;
 import org.apache.shiro.util.Initializable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 
@@ -48,12 +54,23 @@ import java.util.concurrent.atomic.AtomicInteger;
  * over how the Role and Permission checks occur for your specific data source.  However, using AuthorizationInfo
  * (and its default implementation {@link org.apache.shiro.authz.SimpleAuthorizationInfo SimpleAuthorizationInfo}) is sufficient in the large
  * majority of Realm cases.
+ * <h3>Role Permission Caching</h3>
+ * The permissions of a role are the same for every account that has the role.  If
+ * {@link #setRolePermissionCachingEnabled(boolean) rolePermissionCachingEnabled} is {@code true} and a
+ * {@link #setCacheManager(org.apache.shiro.cache.CacheManager) cacheManager} is configured (or a
+ * {@link #setRolePermissionCache(org.apache.shiro.cache.Cache) rolePermissionCache} is set explicitly), the
+ * {@code Permission}s of each role, as returned by
+ * {@link #doGetRolePermissions(java.util.Collection) doGetRolePermissions}, are cached by role name and shared by
+ * all accounts with that role: only the roles that are not in the cache yet are looked up, and the
+ * {@code Permission} instances are resolved once per role rather than once per account.  When the permissions of a
+ * role change, call {@link #clearCachedRolePermissions(String) clearCachedRolePermissions}.
  *
  * @see org.apache.shiro.authz.SimpleAuthorizationInfo
  * @since 0.2
  */
 public abstract class AuthorizingRealm extends AuthenticatingRealm
-        implements Authorizer, Initializable, PermissionResolverAware, RolePermissionResolverAware {
+        implements Authorizer, AuthorizationSnapshotFactory, Initializable, PermissionResolverAware,
+        RolePermissionResolverAware {
 
     //TODO - complete JavaDoc
 
@@ -67,6 +84,11 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
      */
     private static final String DEFAULT_AUTHORIZATION_CACHE_SUFFIX = ".authorizationCache";
 
+    /**
+     * The default suffix appended to the realm name for caching the permissions of roles.
+     */
+    private static final String DEFAULT_ROLE_PERMISSION_CACHE_SUFFIX = ".rolePermissionCache";
+
     private static final AtomicInteger INSTANCE_COUNT = new AtomicInteger();
 
     /*-------------------------------------------
@@ -79,6 +101,26 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
     private Cache<Object, AuthorizationInfo> authorizationCache;
     private String authorizationCacheName;
 
+    private boolean permissionIndexingEnabled;
+
+    /**
+     * Permission indexes compiled from cached {@code AuthorizationInfo} instances, keyed by instance identity.
+     */
+    private final PermissionIndexes permissionIndexes = new PermissionIndexes();
+
+    /**
+     * Whether this realm's class overrides one of the public checks answered by an
+     * {@link #createAuthorizationSnapshot(PrincipalCollection) authorization snapshot}.
+     */
+    private final boolean authorizationChecksOverridden;
+
+    /**
+     * The cache used by this realm to store the permissions of roles, shared by all Subjects with the role.
+     */
+    private boolean rolePermissionCachingEnabled;
+    private Cache<String, Collection<Permission>> rolePermissionCache;
+    private String rolePermissionCacheName;
+
     private PermissionResolver permissionResolver;
 
     private RolePermissionResolver permissionRoleResolver;
@@ -105,12 +147,17 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
         if (matcher != null) setCredentialsMatcher(matcher);
 
         this.authorizationCachingEnabled = true;
+        this.permissionIndexingEnabled = true;
+        this.rolePermissionCachingEnabled = false;
         this.permissionResolver = new WildcardPermissionResolver();
+        this.authorizationChecksOverridden = overridesAuthorizationChecks(getClass());
 
         int instanceNumber = INSTANCE_COUNT.getAndIncrement();
         this.authorizationCacheName = getClass().getName() + DEFAULT_AUTHORIZATION_CACHE_SUFFIX;
+        this.rolePermissionCacheName = getClass().getName() + DEFAULT_ROLE_PERMISSION_CACHE_SUFFIX;
         if (instanceNumber > 0) {
             this.authorizationCacheName = this.authorizationCacheName + "." + instanceNumber;
+            this.rolePermissionCacheName = this.rolePermissionCacheName + "." + instanceNumber;
         }
     }
 
@@ -126,6 +173,10 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
             //based on the application-unique Realm name:
             this.authorizationCacheName = name + DEFAULT_AUTHORIZATION_CACHE_SUFFIX;
         }
+        String rolePermissionCacheName = this.rolePermissionCacheName;
+        if (rolePermissionCacheName != null && rolePermissionCacheName.startsWith(getClass().getName())) {
+            this.rolePermissionCacheName = name + DEFAULT_ROLE_PERMISSION_CACHE_SUFFIX;
+        }
     }
 
     public void setAuthorizationCache(Cache<Object, AuthorizationInfo> authorizationCache) {
@@ -173,6 +224,125 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
         }
     }
 
+    /**
+     * Returns {@code true} if {@code AuthorizationInfo} instances placed in the authorization cache should be
+     * accompanied by a {@link PermissionIndex PermissionIndex} compiled from all of their permissions, {@code false}
+     * otherwise.
+     * <p/>
+     * The index is compiled on the first permission check against a cached instance and is held separately from it,
+     * referenced only weakly by the instance's identity, so the cache keeps the subclass's own
+     * {@code AuthorizationInfo} instances.  Caches that return a new (e.g. deserialized) copy on every lookup
+     * gain nothing from the index and should be used with indexing disabled.
+     * <p/>
+     * When enabled, permission checks against a cached {@code AuthorizationInfo} are answered by the compiled index
+     * in time proportional to the number of parts in the checked permission instead of the number of permissions
+     * granted to the account, which matters for accounts with large numbers of permissions.  Note that the
+     * index includes the permissions resolved by any configured
+     * {@link #setRolePermissionResolver(org.apache.shiro.authz.permission.RolePermissionResolver) rolePermissionResolver},
+     * so those are resolved once per cache entry instead of once per check.
+     * <p/>
+     * This setting has no effect if authorization caching is disabled.  The default value is {@code true}.
+     *
+     * @return {@code true} if cached {@code AuthorizationInfo} instances should carry a compiled permission index,
+     *         {@code false} otherwise.
+     * @since 1.3
+     */
+    public boolean isPermissionIndexingEnabled() {
+        return permissionIndexingEnabled;
+    }
+
+    /**
+     * Sets whether or not {@code AuthorizationInfo} instances placed in the authorization cache should be
+     * accompanied by a {@link PermissionIndex PermissionIndex} compiled from all of their permissions.  See
+     * {@link #isPermissionIndexingEnabled()} for more.
+     * <p/>
+     * The default value is {@code true}.
+     *
+     * @param permissionIndexingEnabled whether or not cached {@code AuthorizationInfo} instances should carry a
+     *                                  compiled permission index.
+     * @since 1.3
+     */
+    public void setPermissionIndexingEnabled(boolean permissionIndexingEnabled) {
+        this.permissionIndexingEnabled = permissionIndexingEnabled;
+    }
+
+    /**
+     * Returns {@code true} if the permissions of roles should be cached by role name and shared by all accounts with
+     * the role if a {@link CacheManager} has been
+     * {@link #setCacheManager(org.apache.shiro.cache.CacheManager) configured}, {@code false} otherwise.
+     * <p/>
+     * The default value is {@code false}.
+     *
+     * @return {@code true} if role permission caching should be utilized, {@code false} otherwise.
+     * @since 1.3
+     */
+    public boolean isRolePermissionCachingEnabled() {
+        return isCachingEnabled() && rolePermissionCachingEnabled;
+    }
+
+    /**
+     * Sets whether or not the permissions of roles should be cached by role name and shared by all accounts with
+     * the role if a {@link CacheManager} has been
+     * {@link #setCacheManager(org.apache.shiro.cache.CacheManager) configured}.
+     * <p/>
+     * The default value is {@code false}.
+     *
+     * @param rolePermissionCachingEnabled the value to set
+     * @since 1.3
+     */
+    public void setRolePermissionCachingEnabled(boolean rolePermissionCachingEnabled) {
+        this.rolePermissionCachingEnabled = rolePermissionCachingEnabled;
+        if (rolePermissionCachingEnabled) {
+            setCachingEnabled(true);
+            //trigger obtaining the role permission cache if possible
+            getAvailableRolePermissionCache();
+        }
+    }
+
+    /**
+     * Returns the cache of role permissions keyed by role name, or {@code null} if it has not been set or created
+     * yet.
+     *
+     * @return the cache of role permissions keyed by role name.
+     * @since 1.3
+     */
+    public Cache<String, Collection<Permission>> getRolePermissionCache() {
+        return rolePermissionCache;
+    }
+
+    /**
+     * Sets the cache of role permissions keyed by role name.  If not set, it is created from the
+     * {@link #setCacheManager(org.apache.shiro.cache.CacheManager) cacheManager} as needed when
+     * {@link #isRolePermissionCachingEnabled() rolePermissionCachingEnabled} is {@code true}.
+     *
+     * @param rolePermissionCache the cache of role permissions keyed by role name.
+     * @since 1.3
+     */
+    public void setRolePermissionCache(Cache<String, Collection<Permission>> rolePermissionCache) {
+        this.rolePermissionCache = rolePermissionCache;
+    }
+
+    /**
+     * Returns the name of the cache created from the {@code cacheManager} for role permissions.  Unless set
+     * explicitly, it is the realm name followed by {@code .rolePermissionCache}.
+     *
+     * @return the name of the role permission cache.
+     * @since 1.3
+     */
+    public String getRolePermissionCacheName() {
+        return rolePermissionCacheName;
+    }
+
+    /**
+     * Sets the name of the cache created from the {@code cacheManager} for role permissions.
+     *
+     * @param rolePermissionCacheName the name of the role permission cache.
+     * @since 1.3
+     */
+    public void setRolePermissionCacheName(String rolePermissionCacheName) {
+        this.rolePermissionCacheName = rolePermissionCacheName;
+    }
+
     public PermissionResolver getPermissionResolver() {
         return permissionResolver;
     }
@@ -216,14 +386,16 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
      */
     protected void onInit() {
         super.onInit();
-        //trigger obtaining the authorization cache if possible
+        //trigger obtaining the authorization and role permission caches if possible
         getAvailableAuthorizationCache();
+        getAvailableRolePermissionCache();
     }
 
     protected void afterCacheManagerSet() {
         super.afterCacheManagerSet();
-        //trigger obtaining the authorization cache if possible
+        //trigger obtaining the authorization and role permission caches if possible
         getAvailableAuthorizationCache();
+        getAvailableRolePermissionCache();
     }
 
     private Cache<Object, AuthorizationInfo> getAuthorizationCacheLazy() {
@@ -262,6 +434,32 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
         return cache;
     }
 
+    /**
+     * Returns the cache of role permissions if one has been set, or creates it from the
+     * {@link #setCacheManager(org.apache.shiro.cache.CacheManager) cacheManager} if
+     * {@link #isRolePermissionCachingEnabled() rolePermissionCachingEnabled} is {@code true}.  Returns {@code null}
+     * if role permissions are not cached.
+     *
+     * @return the cache of role permissions, or {@code null} if role permissions are not cached.
+     * @since 1.3
+     */
+    protected Cache<String, Collection<Permission>> getAvailableRolePermissionCache() {
+        Cache<String, Collection<Permission>> cache = getRolePermissionCache();
+        if (cache == null && isRolePermissionCachingEnabled()) {
+            CacheManager cacheManager = getCacheManager();
+            if (cacheManager != null) {
+                String cacheName = getRolePermissionCacheName();
+                if (log.isDebugEnabled()) {
+                    log.debug("CacheManager [" + cacheManager + "] has been configured.  Building " +
+                            "role permission cache named [" + cacheName + "]");
+                }
+                cache = cacheManager.getCache(cacheName);
+                this.rolePermissionCache = cache;
+            }
+        }
+        return cache;
+    }
+
     /**
      * Returns an account's authorization-specific information for the specified {@code principals},
      * or {@code null} if no account could be found.  The resulting {@code AuthorizationInfo} object is used
@@ -293,6 +491,10 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
      * info will be looked up from the underlying data store via the
      * {@link #doGetAuthorizationInfo(org.apache.shiro.subject.PrincipalCollection)} method, which must be implemented
      * by subclasses.
+     * <p/>
+     * If {@link #isPermissionIndexingEnabled() permissionIndexingEnabled} is {@code true} (the default), a compiled
+     * index of the cached instance's permissions is kept alongside it; the instance itself is cached and returned
+     * unchanged.
      * <h4>Changed Data</h4>
      * If caching is enabled and if any authorization data for an account is changed at
      * runtime, such as adding or removing roles and/or permissions, the subclass implementation should clear the
@@ -346,12 +548,36 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
                 }
                 Object key = getAuthorizationCacheKey(principals);
                 cache.put(key, info);
+                //the subclass may return a long-lived instance (e.g. a SimpleAccount) that was indexed when it was
+                //cached before and has changed since, so compile its index anew:
+                this.permissionIndexes.remove(info);
             }
         }
 
         return info;
     }
 
+    /**
+     * Returns the {@link PermissionIndex PermissionIndex} compiled from all of the specified info's string, object
+     * and role-resolved permissions, compiling it on first use.  Returns {@code null} if
+     * {@link #isPermissionIndexingEnabled() permissionIndexingEnabled} is {@code false} or authorization info is not
+     * cached, since an index is only worth compiling for instances that are reused.
+     *
+     * @param info the {@code AuthorizationInfo} whose permissions are to be indexed
+     * @return the index compiled from the specified info's permissions, or {@code null} if not indexed.
+     */
+    private PermissionIndex getPermissionIndex(AuthorizationInfo info) {
+        if (info == null || !isPermissionIndexingEnabled() || getAvailableAuthorizationCache() == null) {
+            return null;
+        }
+        PermissionIndex index = this.permissionIndexes.get(info);
+        if (index == null) {
+            index = new PermissionIndex(getPermissions(info));
+            this.permissionIndexes.put(info, index);
+        }
+        return index;
+    }
+
     protected Object getAuthorizationCacheKey(PrincipalCollection principals) {
         return principals;
     }
@@ -371,6 +597,9 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
      * If you wish to clear out all associated cached data (and not just authorization data), use the
      * {@link #clearCache(org.apache.shiro.subject.PrincipalCollection)} method instead (which will in turn call this
      * method by default).
+     * <p/>
+     * The {@link #isPermissionIndexingEnabled() permission index} compiled from the cached AuthorizationInfo is
+     * removed along with it, so an instance the subclass changed and returns again is indexed anew.
      *
      * @param principals the principals of the account for which to clear the cached AuthorizationInfo.
      */
@@ -383,7 +612,55 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
         //cache instance will be non-null if caching is enabled:
         if (cache != null) {
             Object key = getAuthorizationCacheKey(principals);
-            cache.remove(key);
+            AuthorizationInfo info = cache.remove(key);
+            if (info != null) {
+                this.permissionIndexes.remove(info);
+            }
+        }
+    }
+
+    /**
+     * Clears out the cached permissions of the specified role, so they are looked up again via
+     * {@link #doGetRolePermissions(java.util.Collection) doGetRolePermissions} the next time they are needed.
+     * <p/>
+     * Because cached {@code AuthorizationInfo} instances may include a
+     * {@link #isPermissionIndexingEnabled() permission index} compiled from the permissions of their roles, and the
+     * accounts that have the role are not known, this also clears the entire authorization cache.
+     *
+     * @param roleName the name of the role whose cached permissions are to be cleared.
+     * @since 1.3
+     */
+    public void clearCachedRolePermissions(String roleName) {
+        if (roleName == null) {
+            return;
+        }
+        Cache<String, Collection<Permission>> cache = getAvailableRolePermissionCache();
+        if (cache != null) {
+            cache.remove(roleName);
+        }
+        clearAuthorizationCache();
+        this.permissionIndexes.clear();
+    }
+
+    /**
+     * Clears out the cached permissions of all roles, as well as the entire authorization cache (see
+     * {@link #clearCachedRolePermissions(String)}).
+     *
+     * @since 1.3
+     */
+    public void clearAllCachedRolePermissions() {
+        Cache<String, Collection<Permission>> cache = getAvailableRolePermissionCache();
+        if (cache != null) {
+            cache.clear();
+        }
+        clearAuthorizationCache();
+        this.permissionIndexes.clear();
+    }
+
+    private void clearAuthorizationCache() {
+        Cache<Object, AuthorizationInfo> cache = getAvailableAuthorizationCache();
+        if (cache != null) {
+            cache.clear();
         }
     }
 
@@ -438,16 +715,68 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
     }
 
     private Collection<Permission> resolveRolePermissions(Collection<String> roleNames) {
-        Collection<Permission> perms = Collections.emptySet();
-        RolePermissionResolver resolver = getRolePermissionResolver();
-        if (resolver != null && !CollectionUtils.isEmpty(roleNames)) {
-            perms = new LinkedHashSet<Permission>(roleNames.size());
+        if (CollectionUtils.isEmpty(roleNames)) {
+            return Collections.emptySet();
+        }
+        Collection<Permission> perms = new LinkedHashSet<Permission>();
+        Cache<String, Collection<Permission>> cache = getAvailableRolePermissionCache();
+        Collection<String> uncached = roleNames;
+        if (cache != null) {
+            uncached = new ArrayList<String>();
             for (String roleName : roleNames) {
-                Collection<Permission> resolved = resolver.resolvePermissionsInRole(roleName);
-                if (!CollectionUtils.isEmpty(resolved)) {
-                    perms.addAll(resolved);
+                Collection<Permission> cached = cache.get(roleName);
+                if (cached == null) {
+                    uncached.add(roleName);
+                } else {
+                    perms.addAll(cached);
                 }
             }
+            if (uncached.isEmpty()) {
+                return perms;
+            }
+        }
+
+        Map<String, Collection<Permission>> resolved = doGetRolePermissions(uncached);
+        for (String roleName : uncached) {
+            Collection<Permission> rolePerms = resolved != null ? resolved.get(roleName) : null;
+            if (!CollectionUtils.isEmpty(rolePerms)) {
+                perms.addAll(rolePerms);
+            }
+            if (cache != null) {
+                //roles without permissions are cached too, so they are not looked up again:
+                cache.put(roleName, CollectionUtils.isEmpty(rolePerms) ? Collections.<Permission>emptySet() :
+                        Collections.unmodifiableSet(new LinkedHashSet<Permission>(rolePerms)));
+            }
+        }
+        return perms;
+    }
+
+    /**
+     * Returns the {@code Permission}s of each of the specified roles, keyed by role name.  Roles without
+     * permissions may be omitted from the returned map.
+     * <p/>
+     * This is called for the roles of an account's {@code AuthorizationInfo} that are not in the
+     * {@link #getAvailableRolePermissionCache() role permission cache} (or for all of them if role permissions are not
+     * cached), and the results are cached if role permission caching is enabled.  This implementation uses the
+     * configured {@link #setRolePermissionResolver(org.apache.shiro.authz.permission.RolePermissionResolver)
+     * rolePermissionResolver}, if any.  Subclasses that look up role permissions in their data store can override this
+     * method to look up the permissions of several roles at once.
+     *
+     * @param roleNames the names of the roles whose permissions are to be returned
+     * @return the permissions of the specified roles keyed by role name, never {@code null}.
+     * @since 1.3
+     */
+    protected Map<String, Collection<Permission>> doGetRolePermissions(Collection<String> roleNames) {
+        RolePermissionResolver resolver = getRolePermissionResolver();
+        if (resolver == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, Collection<Permission>> perms = new LinkedHashMap<String, Collection<Permission>>(roleNames.size());
+        for (String roleName : roleNames) {
+            Collection<Permission> resolved = resolver.resolvePermissionsInRole(roleName);
+            if (!CollectionUtils.isEmpty(resolved)) {
+                perms.put(roleName, resolved);
+            }
         }
         return perms;
     }
@@ -463,6 +792,10 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
     }
 
     private boolean isPermitted(Permission permission, AuthorizationInfo info) {
+        PermissionIndex index = getPermissionIndex(info);
+        if (index != null) {
+            return index.implies(permission);
+        }
         Collection<Permission> perms = getPermissions(info);
         if (perms != null && !perms.isEmpty()) {
             for (Permission perm : perms) {
@@ -645,6 +978,76 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
         }
     }
 
+    /**
+     * Returns a snapshot that evaluates all of its checks against the {@code AuthorizationInfo} acquired from a
+     * single call to {@link #getAuthorizationInfo(org.apache.shiro.subject.PrincipalCollection) getAuthorizationInfo}.
+     * If no compiled permission index is kept for that info (e.g. because authorization caching is disabled)
+     * and {@link #isPermissionIndexingEnabled() permissionIndexingEnabled} is {@code true}, one is compiled for the
+     * life of the snapshot.
+     * <p/>
+     * If this realm's class overrides {@link #isPermitted(PrincipalCollection, String)},
+     * {@link #isPermitted(PrincipalCollection, Permission)} or {@link #hasRole(PrincipalCollection, String)}, the
+     * returned snapshot instead delegates every check to those methods so that the overridden behavior is retained.
+     *
+     * @param principals the principals of the account for which to create the snapshot
+     * @return a snapshot of the specified account's authorization data.
+     * @since 1.3
+     */
+    public AuthorizationSnapshot createAuthorizationSnapshot(PrincipalCollection principals) {
+        if (this.authorizationChecksOverridden) {
+            return new DelegatingAuthorizationSnapshot(this, principals);
+        }
+        AuthorizationInfo info = getAuthorizationInfo(principals);
+        PermissionIndex index = getPermissionIndex(info);
+        if (index == null && info != null && isPermissionIndexingEnabled()) {
+            index = new PermissionIndex(getPermissions(info));
+        }
+        return new AuthorizationInfoSnapshot(principals, info, index);
+    }
+
+    private static boolean overridesAuthorizationChecks(Class<?> clazz) {
+        Class<?> base = AuthorizingRealm.class;
+        return ClassUtils.isOverridden(clazz, base, "isPermitted", PrincipalCollection.class, String.class) ||
+                ClassUtils.isOverridden(clazz, base, "isPermitted", PrincipalCollection.class, Permission.class) ||
+                ClassUtils.isOverridden(clazz, base, "hasRole", PrincipalCollection.class, String.class);
+    }
+
+    /**
+     * Snapshot backed by a single {@code AuthorizationInfo} instance acquired by this realm.
+     */
+    private final class AuthorizationInfoSnapshot implements AuthorizationSnapshot {
+
+        private final PrincipalCollection principals;
+        private final AuthorizationInfo info;
+        private final PermissionIndex index;
+
+        private AuthorizationInfoSnapshot(PrincipalCollection principals, AuthorizationInfo info, PermissionIndex index) {
+            this.principals = principals;
+            this.info = info;
+            this.index = index;
+        }
+
+        public PrincipalCollection getPrincipals() {
+            return this.principals;
+        }
+
+        public boolean isPermitted(String permission) {
+            Permission p = getPermissionResolver().resolvePermission(permission);
+            return isPermitted(p);
+        }
+
+        public boolean isPermitted(Permission permission) {
+            if (this.index != null) {
+                return this.index.implies(permission);
+            }
+            return AuthorizingRealm.this.isPermitted(permission, this.info);
+        }
+
+        public boolean hasRole(String roleIdentifier) {
+            return AuthorizingRealm.this.hasRole(roleIdentifier, this.info);
+        }
+    }
+
     /**
      * Calls {@code super.doClearCache} to ensure any cached authentication data is removed and then calls
      * {@link #clearCachedAuthorizationInfo(org.apache.shiro.subject.PrincipalCollection)} to remove any cached
@@ -660,4 +1063,64 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
         super.doClearCache(principals);
         clearCachedAuthorizationInfo(principals);
     }
+
+    /**
+     * Permission indexes keyed by the identity of the {@code AuthorizationInfo} they were compiled from.  Entries are
+     * removed when their instance is cleared from (or cached anew in) the authorization cache; keys are weakly
+     * referenced so an entry also goes away once its instance is no longer in use.  Lookups do not lock.
+     */
+    private static final class PermissionIndexes {
+
+        private final ConcurrentMap<InfoKey, PermissionIndex> indexes = new ConcurrentHashMap<InfoKey, PermissionIndex>();
+        private final ReferenceQueue<AuthorizationInfo> queue = new ReferenceQueue<AuthorizationInfo>();
+
+        private PermissionIndex get(AuthorizationInfo info) {
+            return this.indexes.get(new InfoKey(info, null));
+        }
+
+        private void put(AuthorizationInfo info, PermissionIndex index) {
+            purge();
+            this.indexes.put(new InfoKey(info, this.queue), index);
+        }
+
+        private void remove(AuthorizationInfo info) {
+            this.indexes.remove(new InfoKey(info, null));
+        }
+
+        private void clear() {
+            this.indexes.clear();
+        }
+
+        private void purge() {
+            Reference<? extends AuthorizationInfo> ref;
+            while ((ref = this.queue.poll()) != null) {
+                this.indexes.remove(ref);
+            }
+        }
+    }
+
+    private static final class InfoKey extends WeakReference<AuthorizationInfo> {
+
+        private final int hash;
+
+        private InfoKey(AuthorizationInfo info, ReferenceQueue<AuthorizationInfo> queue) {
+            super(info, queue);
+            this.hash = System.identityHashCode(info);
+        }
+
+        public int hashCode() {
+            return this.hash;
+        }
+
+        public boolean equals(Object o) {
+            if (o == this) {
+                return true;
+            }
+            if (!(o instanceof InfoKey)) {
+                return false;
+            }
+            AuthorizationInfo info = get();
+            return info != null && info == ((InfoKey) o).get();
+        }
+    }
 }
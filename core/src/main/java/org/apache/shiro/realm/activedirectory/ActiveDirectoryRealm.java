@@ -24,6 +24,7 @@ import org.apache.shiro.authc.SimpleAuthenticationInfo;
 import org.apache.shiro.authc.UsernamePasswordToken;
 import org.apache.shiro.authz.AuthorizationInfo;
 import org.apache.shiro.authz.SimpleAuthorizationInfo;
+import org.apache.shiro.cache.BoundedCache;
 import org.apache.shiro.realm.Realm;
 import org.apache.shiro.realm.ldap.AbstractLdapRealm;
 import org.apache.shiro.realm.ldap.LdapContextFactory;
@@ -38,7 +39,11 @@ import javax.naming.directory.Attribute;
 import javax.naming.directory.Attributes;
 import javax.naming.directory.SearchControls;
 import javax.naming.directory.SearchResult;
+import javax.naming.ldap.Control;
 import javax.naming.ldap.LdapContext;
+import javax.naming.ldap.PagedResultsControl;
+import javax.naming.ldap.PagedResultsResponseControl;
+import java.io.IOException;
 import java.util.*;
 
 
@@ -47,6 +52,21 @@ import java.util.*;
  * server to determine the roles for a particular user.  This implementation
  * queries for the user's groups and then maps the group names to roles using the
  * {@link #groupRolesMap}.
+ * <p/>
+ * <h3>Group resolution</h3>
+ * By default a user's groups are the values of the {@code memberOf} attribute of the user's entry, which only
+ * lists the groups the user is a <em>direct</em> member of.  When {@link #setNestedGroupsEnabled(boolean)
+ * nestedGroupsEnabled} is {@code true}, the realm instead issues a single group search using Active Directory's
+ * {@code LDAP_MATCHING_RULE_IN_CHAIN} operator, which returns every group the user is a member of directly or
+ * through any number of nested groups.  That search uses the LDAP paged results control (see
+ * {@link #setPageSize(int) pageSize}) so that users in thousands of groups are retrieved in bounded pages instead of
+ * one huge response.
+ * <p/>
+ * The role names a group maps to are cached per group DN for
+ * {@link #setGroupRolesCacheTimeout(long) groupRolesCacheTimeout} milliseconds, so that repeated authorization
+ * lookups for users in the same groups do not re-resolve the same mappings.  At most
+ * {@link #setGroupRolesCacheSize(int) groupRolesCacheSize} groups are cached; expired entries are purged as they are
+ * encountered.
  *
  * @since 0.1
  */
@@ -62,6 +82,42 @@ public class ActiveDirectoryRealm extends AbstractLdapRealm {
 
     private static final String ROLE_NAMES_DELIMETER = ",";
 
+    /**
+     * The OID of Active Directory's {@code LDAP_MATCHING_RULE_IN_CHAIN} matching rule, which walks the ancestry
+     * of an object to the root (i.e. resolves nested group membership) on the server.
+     *
+     * @since 1.3
+     */
+    public static final String MATCHING_RULE_IN_CHAIN_OID = "1.2.840.113556.1.4.1941";
+
+    /**
+     * The default number of results per page requested by paged group searches, {@code 500}.
+     *
+     * @since 1.3
+     */
+    public static final int DEFAULT_PAGE_SIZE = 500;
+
+    /**
+     * The default time, in milliseconds, a resolved group to role names mapping is cached, {@code 10} minutes.
+     *
+     * @since 1.3
+     */
+    public static final long DEFAULT_GROUP_ROLES_CACHE_TIMEOUT = 10 * 60 * 1000;
+
+    /**
+     * The default maximum number of groups whose role names are cached, {@code 1000}.
+     *
+     * @since 1.3
+     */
+    public static final int DEFAULT_GROUP_ROLES_CACHE_SIZE = 1000;
+
+    private static final String USER_SEARCH_FILTER = "(&(objectClass=*)(userPrincipalName={0}))";
+
+    private static final String NESTED_GROUPS_SEARCH_FILTER =
+            "(&(objectClass=group)(member:" + MATCHING_RULE_IN_CHAIN_OID + ":={0}))";
+
+    private static final String[] NO_ATTRIBUTES = new String[0];
+
     /*--------------------------------------------
     |    I N S T A N C E   V A R I A B L E S    |
     ============================================*/
@@ -73,12 +129,143 @@ public class ActiveDirectoryRealm extends AbstractLdapRealm {
      */
     private Map<String, String> groupRolesMap;
 
+    private boolean nestedGroupsEnabled = false;
+
+    private int pageSize = DEFAULT_PAGE_SIZE;
+
+    private long groupRolesCacheTimeout = DEFAULT_GROUP_ROLES_CACHE_TIMEOUT;
+
+    private int groupRolesCacheSize = DEFAULT_GROUP_ROLES_CACHE_SIZE;
+
+    /**
+     * Group DN to resolved role names, each entry expiring {@link #groupRolesCacheTimeout} milliseconds after it
+     * was resolved, or {@code null} if caching is disabled.
+     */
+    private volatile BoundedCache<String, Set<String>> groupRolesCache = createGroupRolesCache();
+
     /*--------------------------------------------
     |         C O N S T R U C T O R S           |
     ============================================*/
 
     public void setGroupRolesMap(Map<String, String> groupRolesMap) {
         this.groupRolesMap = groupRolesMap;
+        clearGroupRolesCache();
+    }
+
+    /**
+     * Returns {@code true} if a user's groups are resolved transitively (including groups the user is a member of
+     * only through other groups) using a single {@code LDAP_MATCHING_RULE_IN_CHAIN} search, {@code false} if only
+     * the user's direct {@code memberOf} groups are used.  The default is {@code false}.
+     *
+     * @return {@code true} if nested groups are resolved, {@code false} otherwise.
+     * @since 1.3
+     */
+    public boolean isNestedGroupsEnabled() {
+        return nestedGroupsEnabled;
+    }
+
+    /**
+     * Sets whether a user's groups are resolved transitively (including groups the user is a member of only
+     * through other groups) using a single {@code LDAP_MATCHING_RULE_IN_CHAIN} search, or if only the user's direct
+     * {@code memberOf} groups are used.  The default is {@code false}.
+     *
+     * @param nestedGroupsEnabled whether or not nested groups are resolved.
+     * @since 1.3
+     */
+    public void setNestedGroupsEnabled(boolean nestedGroupsEnabled) {
+        this.nestedGroupsEnabled = nestedGroupsEnabled;
+    }
+
+    /**
+     * Returns the number of results per page requested when searching for a user's groups.  A value of {@code 0}
+     * or less disables paging.  The default is {@link #DEFAULT_PAGE_SIZE}.
+     *
+     * @return the number of results per page requested when searching for a user's groups.
+     * @since 1.3
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Sets the number of results per page requested when searching for a user's groups.  A value of {@code 0}
+     * or less disables paging.  The default is {@link #DEFAULT_PAGE_SIZE}.
+     * <p/>
+     * The paged results control is sent as non-critical, so servers that do not support it simply return the
+     * complete result.
+     *
+     * @param pageSize the number of results per page requested when searching for a user's groups.
+     * @since 1.3
+     */
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Returns the time, in milliseconds, the role names a group maps to are cached.  A value of {@code 0} or less
+     * disables caching.  The default is {@link #DEFAULT_GROUP_ROLES_CACHE_TIMEOUT}.
+     *
+     * @return the time, in milliseconds, the role names a group maps to are cached.
+     * @since 1.3
+     */
+    public long getGroupRolesCacheTimeout() {
+        return groupRolesCacheTimeout;
+    }
+
+    /**
+     * Sets the time, in milliseconds, the role names a group maps to are cached.  A value of {@code 0} or less
+     * disables caching.  The default is {@link #DEFAULT_GROUP_ROLES_CACHE_TIMEOUT}.
+     *
+     * @param groupRolesCacheTimeout the time, in milliseconds, the role names a group maps to are cached.
+     * @since 1.3
+     */
+    public void setGroupRolesCacheTimeout(long groupRolesCacheTimeout) {
+        this.groupRolesCacheTimeout = groupRolesCacheTimeout;
+        this.groupRolesCache = createGroupRolesCache();
+    }
+
+    /**
+     * Returns the maximum number of groups whose role names are cached.  A value of {@code 0} or less does not bound
+     * the number of cached groups.  The default is {@link #DEFAULT_GROUP_ROLES_CACHE_SIZE}.
+     *
+     * @return the maximum number of groups whose role names are cached.
+     * @since 1.3
+     */
+    public int getGroupRolesCacheSize() {
+        return groupRolesCacheSize;
+    }
+
+    /**
+     * Sets the maximum number of groups whose role names are cached.  A value of {@code 0} or less does not bound
+     * the number of cached groups.  The default is {@link #DEFAULT_GROUP_ROLES_CACHE_SIZE}.
+     *
+     * @param groupRolesCacheSize the maximum number of groups whose role names are cached.
+     * @since 1.3
+     */
+    public void setGroupRolesCacheSize(int groupRolesCacheSize) {
+        this.groupRolesCacheSize = groupRolesCacheSize;
+        this.groupRolesCache = createGroupRolesCache();
+    }
+
+    private BoundedCache<String, Set<String>> createGroupRolesCache() {
+        if (groupRolesCacheTimeout <= 0) {
+            return null;
+        }
+        return new BoundedCache<String, Set<String>>(getClass().getName() + ".groupRolesCache",
+                groupRolesCacheSize, groupRolesCacheTimeout, 0);
+    }
+
+    /**
+     * Removes all cached group to role names mappings, forcing them to be resolved again on next use.  Call this
+     * method when the mappings have changed, for example when a subclass derives them from directory data.
+     *
+     * @since 1.3
+     */
+    public void clearGroupRolesCache() {
+        BoundedCache<String, Set<String>> cache = this.groupRolesCache;
+        if (cache != null) {
+            cache.clear();
+        }
     }
 
     /*--------------------------------------------
@@ -155,12 +342,26 @@ public class ActiveDirectoryRealm extends AbstractLdapRealm {
         return new SimpleAuthorizationInfo(roleNames);
     }
 
-    private Set<String> getRoleNamesForUser(String username, LdapContext ldapContext) throws NamingException {
+    /**
+     * Returns the role names for the user with the specified username, resolved from the groups the user is a
+     * member of.
+     *
+     * @param username    the username of the user whose role names are returned.
+     * @param ldapContext the (system) LDAP context used to search the directory.
+     * @return the role names for the user.
+     * @throws NamingException if an error occurs when searching the LDAP server.
+     * @since 1.3
+     */
+    protected Set<String> getRoleNamesForUser(String username, LdapContext ldapContext) throws NamingException {
         Set<String> roleNames;
         roleNames = new LinkedHashSet<String>();
 
         SearchControls searchCtls = new SearchControls();
         searchCtls.setSearchScope(SearchControls.SUBTREE_SCOPE);
+        if (nestedGroupsEnabled) {
+            //only the entry's DN is needed to search for its groups:
+            searchCtls.setReturningAttributes(NO_ATTRIBUTES);
+        }
 
         String userPrincipalName = username;
         if (principalSuffix != null) {
@@ -168,45 +369,142 @@ public class ActiveDirectoryRealm extends AbstractLdapRealm {
         }
 
         //SHIRO-115 - prevent potential code injection:
-        String searchFilter = "(&(objectClass=*)(userPrincipalName={0}))";
         Object[] searchArguments = new Object[]{userPrincipalName};
 
-        NamingEnumeration answer = ldapContext.search(searchBase, searchFilter, searchArguments, searchCtls);
+        NamingEnumeration answer = ldapContext.search(searchBase, USER_SEARCH_FILTER, searchArguments, searchCtls);
 
-        while (answer.hasMoreElements()) {
-            SearchResult sr = (SearchResult) answer.next();
+        try {
+            while (answer.hasMoreElements()) {
+                SearchResult sr = (SearchResult) answer.next();
 
-            if (log.isDebugEnabled()) {
-                log.debug("Retrieving group names for user [" + sr.getName() + "]");
-            }
+                if (log.isDebugEnabled()) {
+                    log.debug("Retrieving group names for user [" + sr.getName() + "]");
+                }
 
-            Attributes attrs = sr.getAttributes();
+                if (nestedGroupsEnabled) {
+                    Collection<String> groupNames = getNestedGroupNames(sr.getNameInNamespace(), ldapContext);
 
-            if (attrs != null) {
-                NamingEnumeration ae = attrs.getAll();
-                while (ae.hasMore()) {
-                    Attribute attr = (Attribute) ae.next();
+                    if (log.isDebugEnabled()) {
+                        log.debug("Groups (including nested groups) found for user [" + username + "]: " + groupNames);
+                    }
 
-                    if (attr.getID().equals("memberOf")) {
+                    roleNames.addAll(getRoleNamesForGroups(groupNames));
+                    continue;
+                }
 
-                        Collection<String> groupNames = LdapUtils.getAllAttributeValues(attr);
+                Attributes attrs = sr.getAttributes();
 
-                        if (log.isDebugEnabled()) {
-                            log.debug("Groups found for user [" + username + "]: " + groupNames);
-                        }
+                if (attrs != null) {
+                    NamingEnumeration ae = attrs.getAll();
+                    while (ae.hasMore()) {
+                        Attribute attr = (Attribute) ae.next();
+
+                        if (attr.getID().equals("memberOf")) {
+
+                            Collection<String> groupNames = LdapUtils.getAllAttributeValues(attr);
+
+                            if (log.isDebugEnabled()) {
+                                log.debug("Groups found for user [" + username + "]: " + groupNames);
+                            }
 
-                        Collection<String> rolesForGroups = getRoleNamesForGroups(groupNames);
-                        roleNames.addAll(rolesForGroups);
+                            Collection<String> rolesForGroups = getRoleNamesForGroups(groupNames);
+                            roleNames.addAll(rolesForGroups);
+                        }
                     }
                 }
             }
+        } finally {
+            LdapUtils.closeEnumeration(answer);
         }
         return roleNames;
     }
 
+    /**
+     * Returns the DNs of all groups the entry with the specified DN is a member of, directly or through any
+     * number of nested groups, using a single {@code LDAP_MATCHING_RULE_IN_CHAIN} search under the
+     * {@link #setSearchBase(String) searchBase}.  Results are retrieved in pages of {@link #getPageSize() pageSize}
+     * entries.
+     *
+     * @param userDn      the DN of the user entry.
+     * @param ldapContext the (system) LDAP context used to search the directory.
+     * @return the DNs of all groups the user is a direct or nested member of.
+     * @throws NamingException if an error occurs when searching the LDAP server.
+     * @since 1.3
+     */
+    protected Collection<String> getNestedGroupNames(String userDn, LdapContext ldapContext) throws NamingException {
+        SearchControls searchCtls = new SearchControls();
+        searchCtls.setSearchScope(SearchControls.SUBTREE_SCOPE);
+        searchCtls.setReturningAttributes(NO_ATTRIBUTES);
+
+        Object[] searchArguments = new Object[]{userDn};
+        List<String> groupNames = new ArrayList<String>();
+
+        boolean paged = pageSize > 0;
+        //controls already set on the (possibly pooled) context are sent along and restored afterwards:
+        Control[] previousControls = paged ? ldapContext.getRequestControls() : null;
+        byte[] cookie = null;
+        try {
+            do {
+                if (paged) {
+                    ldapContext.setRequestControls(withPagedResultsControl(previousControls, cookie));
+                }
+                NamingEnumeration<SearchResult> answer =
+                        ldapContext.search(searchBase, NESTED_GROUPS_SEARCH_FILTER, searchArguments, searchCtls);
+                try {
+                    while (answer.hasMore()) {
+                        groupNames.add(answer.next().getNameInNamespace());
+                    }
+                } finally {
+                    LdapUtils.closeEnumeration(answer);
+                }
+                cookie = paged ? getPagedResultsCookie(ldapContext.getResponseControls()) : null;
+            } while (cookie != null && cookie.length > 0);
+        } finally {
+            if (paged) {
+                ldapContext.setRequestControls(previousControls);
+            }
+        }
+        return groupNames;
+    }
+
+    private Control[] withPagedResultsControl(Control[] controls, byte[] cookie) throws NamingException {
+        List<Control> result = new ArrayList<Control>();
+        if (controls != null) {
+            for (Control control : controls) {
+                if (!PagedResultsControl.OID.equals(control.getID())) {
+                    result.add(control);
+                }
+            }
+        }
+        result.add(createPagedResultsControl(cookie));
+        return result.toArray(new Control[result.size()]);
+    }
+
+    private PagedResultsControl createPagedResultsControl(byte[] cookie) throws NamingException {
+        try {
+            return new PagedResultsControl(pageSize, cookie, Control.NONCRITICAL);
+        } catch (IOException e) {
+            NamingException ne = new NamingException("Unable to encode the paged results control.");
+            ne.setRootCause(e);
+            throw ne;
+        }
+    }
+
+    private static byte[] getPagedResultsCookie(Control[] responseControls) {
+        if (responseControls != null) {
+            for (Control control : responseControls) {
+                if (control instanceof PagedResultsResponseControl) {
+                    return ((PagedResultsResponseControl) control).getCookie();
+                }
+            }
+        }
+        return null;
+    }
+
     /**
      * This method is called by the default implementation to translate Active Directory group names
-     * to role names.  This implementation uses the {@link #groupRolesMap} to map group names to role names.
+     * to role names.  This implementation uses {@link #getRoleNamesForGroup(String)} to map each group name to
+     * role names.
      *
      * @param groupNames the group names that apply to the current user.
      * @return a collection of roles that are implied by the given role names.
@@ -214,23 +512,60 @@ public class ActiveDirectoryRealm extends AbstractLdapRealm {
     protected Collection<String> getRoleNamesForGroups(Collection<String> groupNames) {
         Set<String> roleNames = new HashSet<String>(groupNames.size());
 
-        if (groupRolesMap != null) {
-            for (String groupName : groupNames) {
-                String strRoleNames = groupRolesMap.get(groupName);
-                if (strRoleNames != null) {
-                    for (String roleName : strRoleNames.split(ROLE_NAMES_DELIMETER)) {
-
-                        if (log.isDebugEnabled()) {
-                            log.debug("User is member of group [" + groupName + "] so adding role [" + roleName + "]");
-                        }
-
-                        roleNames.add(roleName);
+        for (String groupName : groupNames) {
+            for (String roleName : getRoleNamesForGroup(groupName)) {
 
-                    }
+                if (log.isDebugEnabled()) {
+                    log.debug("User is member of group [" + groupName + "] so adding role [" + roleName + "]");
                 }
+
+                roleNames.add(roleName);
             }
         }
         return roleNames;
     }
 
+    /**
+     * Returns the role names the specified group maps to, served from the group roles cache if a mapping
+     * resolved less than {@link #getGroupRolesCacheTimeout() groupRolesCacheTimeout} milliseconds ago exists,
+     * otherwise resolved via {@link #resolveRoleNamesForGroup(String)} and cached.
+     *
+     * @param groupName the fully qualified group name (DN).
+     * @return the role names the group maps to, never {@code null}.
+     * @since 1.3
+     */
+    protected Set<String> getRoleNamesForGroup(String groupName) {
+        BoundedCache<String, Set<String>> cache = this.groupRolesCache;
+        if (cache == null) {
+            return resolveRoleNamesForGroup(groupName);
+        }
+        Set<String> roleNames = cache.get(groupName);
+        if (roleNames == null) {
+            roleNames = resolveRoleNamesForGroup(groupName);
+            cache.put(groupName, roleNames);
+        }
+        return roleNames;
+    }
+
+    /**
+     * Resolves the role names the specified group maps to.  This implementation uses the {@link #groupRolesMap},
+     * splitting the mapped value on commas.  Subclasses can override this method to resolve roles in a more
+     * complex way; results are cached by {@link #getRoleNamesForGroup(String)}.
+     *
+     * @param groupName the fully qualified group name (DN).
+     * @return the role names the group maps to, never {@code null}.
+     * @since 1.3
+     */
+    protected Set<String> resolveRoleNamesForGroup(String groupName) {
+        String strRoleNames = groupRolesMap != null ? groupRolesMap.get(groupName) : null;
+        if (strRoleNames == null) {
+            return Collections.emptySet();
+        }
+        Set<String> roleNames = new LinkedHashSet<String>();
+        for (String roleName : strRoleNames.split(ROLE_NAMES_DELIMETER)) {
+            roleNames.add(roleName);
+        }
+        return Collections.unmodifiableSet(roleNames);
+    }
+
 }
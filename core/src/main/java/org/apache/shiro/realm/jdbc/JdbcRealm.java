@@ -21,10 +21,12 @@ package org.apache.shiro.realm.jdbc;
 import org.apache.shiro.authc.*;
 import org.apache.shiro.authz.AuthorizationException;
 import org.apache.shiro.authz.AuthorizationInfo;
+import org.apache.shiro.authz.Permission;
 import org.apache.shiro.authz.SimpleAuthorizationInfo;
 import org.apache.shiro.config.ConfigurationException;
 import org.apache.shiro.realm.AuthorizingRealm;
 import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.authz.permission.PermissionResolver;
 import org.apache.shiro.util.ByteSource;
 import org.apache.shiro.util.JdbcUtils;
 import org.slf4j.Logger;
@@ -35,8 +37,12 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 
@@ -51,6 +57,22 @@ import java.util.Set;
  * {@link #getRoleNamesForUser(java.sql.Connection,String)}, and/or {@link #getPermissions(java.sql.Connection,String,java.util.Collection)}
  * <p/>
  * This realm supports caching by extending from {@link org.apache.shiro.realm.AuthorizingRealm}.
+ * <p/>
+ * When {@link #setPermissionsLookupEnabled(boolean) permissions lookup} is enabled, the
+ * {@link #setPermissionsLookupStyle(PermissionsLookupStyle) permissions lookup style} determines how many queries are
+ * needed to authorize a user: by default, the permissions of each role are queried separately, which costs one query
+ * for the roles plus one query per role.  The {@link PermissionsLookupStyle#BATCHED BATCHED} style queries the
+ * permissions of up to {@link #setPermissionsBatchSize(int) permissionsBatchSize} roles at a time with an
+ * {@code IN (...)} query, and the {@link PermissionsLookupStyle#JOINED JOINED} style retrieves the roles and their
+ * permissions together with a single join query.
+ * <p/>
+ * If {@link #setRolePermissionCachingEnabled(boolean) role permission caching} is also enabled (and a
+ * {@code CacheManager} is configured), authorization only queries a user's roles: the permissions of each role are
+ * queried the first time the role is encountered and then shared by all users with that role.  They are queried
+ * with the {@link #setBatchedPermissionsQuery(String) batchedPermissionsQuery} if the permissions lookup style is
+ * {@link PermissionsLookupStyle#BATCHED BATCHED}, and one role at a time with the
+ * {@link #setPermissionsQuery(String) permissionsQuery} otherwise.  Call
+ * {@link #clearCachedRolePermissions(String) clearCachedRolePermissions} when the permissions of a role change.
  *
  * @since 0.2
  */
@@ -81,6 +103,41 @@ public class JdbcRealm extends AuthorizingRealm {
      */
     protected static final String DEFAULT_PERMISSIONS_QUERY = "select permission from roles_permissions where role_name = ?";
 
+    /**
+     * The default query used to retrieve the permissions that apply to a batch of roles when the
+     * {@link #permissionsLookupStyle} is {@link PermissionsLookupStyle#BATCHED BATCHED}.  The
+     * {@link #ROLE_NAMES_PLACEHOLDER} is replaced by one {@code ?} parameter per role name in the batch.
+     *
+     * @since 1.3
+     */
+    protected static final String DEFAULT_BATCHED_PERMISSIONS_QUERY =
+            "select permission, role_name from roles_permissions where role_name in ({0})";
+
+    /**
+     * The default query used to retrieve the roles that apply to a user together with their permissions when the
+     * {@link #permissionsLookupStyle} is {@link PermissionsLookupStyle#JOINED JOINED}.
+     *
+     * @since 1.3
+     */
+    protected static final String DEFAULT_USER_ROLES_PERMISSIONS_QUERY =
+            "select ur.role_name, rp.permission from user_roles ur " +
+                    "left outer join roles_permissions rp on ur.role_name = rp.role_name where ur.username = ?";
+
+    /**
+     * The placeholder in the {@link #setBatchedPermissionsQuery(String) batchedPermissionsQuery} that is replaced
+     * by the role name parameters.
+     *
+     * @since 1.3
+     */
+    protected static final String ROLE_NAMES_PLACEHOLDER = "{0}";
+
+    /**
+     * The default maximum number of role names in a single batched permissions query.
+     *
+     * @since 1.3
+     */
+    public static final int DEFAULT_PERMISSIONS_BATCH_SIZE = 50;
+
     private static final Logger log = LoggerFactory.getLogger(JdbcRealm.class);
     
     /**
@@ -93,6 +150,19 @@ public class JdbcRealm extends AuthorizingRealm {
      */
     public enum SaltStyle {NO_SALT, CRYPT, COLUMN, EXTERNAL};
 
+    /**
+     * Permissions lookup configuration, used when {@link #permissionsLookupEnabled} is {@code true}. <ul>
+     *   <li>PER_ROLE - the {@link #setPermissionsQuery(String) permissionsQuery} is executed once per role
+     *       (the default).</li>
+     *   <li>BATCHED - the {@link #setBatchedPermissionsQuery(String) batchedPermissionsQuery} is executed once per
+     *       {@link #setPermissionsBatchSize(int) permissionsBatchSize} roles.</li>
+     *   <li>JOINED - roles and permissions are retrieved together by executing the
+     *       {@link #setUserRolesPermissionsQuery(String) userRolesPermissionsQuery} once.</li></ul>
+     *
+     * @since 1.3
+     */
+    public enum PermissionsLookupStyle {PER_ROLE, BATCHED, JOINED}
+
     /*--------------------------------------------
     |    I N S T A N C E   V A R I A B L E S    |
     ============================================*/
@@ -105,6 +175,14 @@ public class JdbcRealm extends AuthorizingRealm {
     protected String permissionsQuery = DEFAULT_PERMISSIONS_QUERY;
 
     protected boolean permissionsLookupEnabled = false;
+
+    protected PermissionsLookupStyle permissionsLookupStyle = PermissionsLookupStyle.PER_ROLE;
+
+    protected String batchedPermissionsQuery = DEFAULT_BATCHED_PERMISSIONS_QUERY;
+
+    protected int permissionsBatchSize = DEFAULT_PERMISSIONS_BATCH_SIZE;
+
+    protected String userRolesPermissionsQuery = DEFAULT_USER_ROLES_PERMISSIONS_QUERY;
     
     protected SaltStyle saltStyle = SaltStyle.NO_SALT;
 
@@ -183,6 +261,75 @@ public class JdbcRealm extends AuthorizingRealm {
         this.permissionsLookupEnabled = permissionsLookupEnabled;
     }
     
+    /**
+     * Sets how permissions are retrieved when {@link #setPermissionsLookupEnabled(boolean) permissions lookup} is
+     * enabled.  The default is {@link PermissionsLookupStyle#PER_ROLE PER_ROLE}, which executes the
+     * {@link #setPermissionsQuery(String) permissionsQuery} once per role.  See {@link PermissionsLookupStyle}.
+     *
+     * @param permissionsLookupStyle the permissions lookup style.
+     * @since 1.3
+     */
+    public void setPermissionsLookupStyle(PermissionsLookupStyle permissionsLookupStyle) {
+        if (permissionsLookupStyle == null) {
+            throw new IllegalArgumentException("permissionsLookupStyle argument cannot be null.");
+        }
+        this.permissionsLookupStyle = permissionsLookupStyle;
+    }
+
+    /**
+     * Overrides the default query used to retrieve the permissions of a batch of roles when the
+     * {@link #setPermissionsLookupStyle(PermissionsLookupStyle) permissions lookup style} is
+     * {@link PermissionsLookupStyle#BATCHED BATCHED}.  The query must contain the {@link #ROLE_NAMES_PLACEHOLDER},
+     * which is replaced by {@link #setPermissionsBatchSize(int) permissionsBatchSize} comma-separated {@code ?}
+     * parameters, and return a row per permission with the permission string as the first column.  If
+     * {@link #setRolePermissionCachingEnabled(boolean) role permission caching} is enabled, the second column must be
+     * the name of the role the permission belongs to.  If a batch has
+     * fewer roles, the last role name is repeated for the remaining parameters, so the same statement can be used
+     * for every batch.
+     *
+     * @param batchedPermissionsQuery the query to use for retrieving the permissions of a batch of roles.
+     * @see #DEFAULT_BATCHED_PERMISSIONS_QUERY
+     * @since 1.3
+     */
+    public void setBatchedPermissionsQuery(String batchedPermissionsQuery) {
+        if (batchedPermissionsQuery == null || !batchedPermissionsQuery.contains(ROLE_NAMES_PLACEHOLDER)) {
+            throw new IllegalArgumentException("batchedPermissionsQuery must contain the " +
+                    ROLE_NAMES_PLACEHOLDER + " placeholder.");
+        }
+        this.batchedPermissionsQuery = batchedPermissionsQuery;
+    }
+
+    /**
+     * Sets the maximum number of role names in a single batched permissions query, used when the
+     * {@link #setPermissionsLookupStyle(PermissionsLookupStyle) permissions lookup style} is
+     * {@link PermissionsLookupStyle#BATCHED BATCHED}.  The default is {@link #DEFAULT_PERMISSIONS_BATCH_SIZE}.
+     *
+     * @param permissionsBatchSize the maximum number of role names per batched permissions query.
+     * @since 1.3
+     */
+    public void setPermissionsBatchSize(int permissionsBatchSize) {
+        if (permissionsBatchSize < 1) {
+            throw new IllegalArgumentException("permissionsBatchSize must be greater than zero.");
+        }
+        this.permissionsBatchSize = permissionsBatchSize;
+    }
+
+    /**
+     * Overrides the default query used to retrieve a user's roles together with their permissions when the
+     * {@link #setPermissionsLookupStyle(PermissionsLookupStyle) permissions lookup style} is
+     * {@link PermissionsLookupStyle#JOINED JOINED}.  The query must take the user's username as a single parameter
+     * and return a row per role and permission with the role name as the first column and the permission as the
+     * second column.  The permission may be {@code null} for a role without permissions (as returned by an outer
+     * join).  The {@link #setUserRolesQuery(String) userRolesQuery} is not used in this case.
+     *
+     * @param userRolesPermissionsQuery the query to use for retrieving a user's roles and permissions.
+     * @see #DEFAULT_USER_ROLES_PERMISSIONS_QUERY
+     * @since 1.3
+     */
+    public void setUserRolesPermissionsQuery(String userRolesPermissionsQuery) {
+        this.userRolesPermissionsQuery = userRolesPermissionsQuery;
+    }
+
     /**
      * Sets the salt style.  See {@link #saltStyle}.
      * 
@@ -330,9 +477,18 @@ public class JdbcRealm extends AuthorizingRealm {
             conn = dataSource.getConnection();
 
             // Retrieve roles and permissions from database
-            roleNames = getRoleNamesForUser(conn, username);
-            if (permissionsLookupEnabled) {
-                permissions = getPermissions(conn, username, roleNames);
+            if (permissionsLookupEnabled && getAvailableRolePermissionCache() != null) {
+                // Permissions are looked up per role by doGetRolePermissions and shared between users
+                roleNames = getRoleNamesForUser(conn, username);
+            } else if (permissionsLookupEnabled && permissionsLookupStyle == PermissionsLookupStyle.JOINED) {
+                roleNames = new LinkedHashSet<String>();
+                permissions = new LinkedHashSet<String>();
+                getRoleNamesAndPermissionsForUser(conn, username, roleNames, permissions);
+            } else {
+                roleNames = getRoleNamesForUser(conn, username);
+                if (permissionsLookupEnabled) {
+                    permissions = getPermissions(conn, username, roleNames);
+                }
             }
 
         } catch (SQLException e) {
@@ -385,7 +541,133 @@ public class JdbcRealm extends AuthorizingRealm {
         return roleNames;
     }
 
+    /**
+     * Retrieves a user's role names and their permissions with a single execution of the
+     * {@link #setUserRolesPermissionsQuery(String) userRolesPermissionsQuery}, used when the
+     * {@link #setPermissionsLookupStyle(PermissionsLookupStyle) permissions lookup style} is
+     * {@link PermissionsLookupStyle#JOINED JOINED}.
+     *
+     * @param conn        the connection to use
+     * @param username    the user whose roles and permissions are to be retrieved
+     * @param roleNames   the set to add the user's role names to
+     * @param permissions the set to add the permissions of the user's roles to
+     * @throws SQLException if the query fails
+     * @since 1.3
+     */
+    protected void getRoleNamesAndPermissionsForUser(Connection conn, String username, Set<String> roleNames,
+                                                     Set<String> permissions) throws SQLException {
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            ps = conn.prepareStatement(userRolesPermissionsQuery);
+            ps.setString(1, username);
+
+            // Execute query
+            rs = ps.executeQuery();
+
+            // Loop over results - one row per role and permission
+            while (rs.next()) {
+                String roleName = rs.getString(1);
+                if (roleName == null) {
+                    if (log.isWarnEnabled()) {
+                        log.warn("Null role name found while retrieving role names for user [" + username + "]");
+                    }
+                    continue;
+                }
+                roleNames.add(roleName);
+
+                String permissionString = rs.getString(2);
+                if (permissionString != null) {
+                    permissions.add(permissionString);
+                }
+            }
+        } finally {
+            JdbcUtils.closeResultSet(rs);
+            JdbcUtils.closeStatement(ps);
+        }
+    }
+
+    /**
+     * Retrieves the permissions of the specified roles according to the
+     * {@link #setPermissionsLookupStyle(PermissionsLookupStyle) permissions lookup style}: one execution of the
+     * {@link #setPermissionsQuery(String) permissionsQuery} per role, or one execution of the
+     * {@link #setBatchedPermissionsQuery(String) batchedPermissionsQuery} per
+     * {@link #setPermissionsBatchSize(int) permissionsBatchSize} roles.  Either way, the statement is prepared
+     * once and executed repeatedly.
+     *
+     * @param conn      the connection to use
+     * @param username  the user whose roles these are
+     * @param roleNames the role names whose permissions are to be retrieved
+     * @return the permissions of the specified roles.
+     * @throws SQLException if a query fails
+     */
     protected Set<String> getPermissions(Connection conn, String username, Collection<String> roleNames) throws SQLException {
+        if (permissionsLookupStyle == PermissionsLookupStyle.BATCHED) {
+            return getPermissionsBatched(conn, roleNames, null);
+        }
+        return getPermissionsPerRole(conn, roleNames, null);
+    }
+
+    /**
+     * Queries the permissions of the specified roles if {@link #setPermissionsLookupEnabled(boolean) permissions lookup}
+     * and {@link #setRolePermissionCachingEnabled(boolean) role permission caching} are enabled, so they can be cached
+     * and shared by all users with these roles.  Otherwise, the permissions of roles are part of the
+     * {@code AuthorizationInfo} returned by {@link #doGetAuthorizationInfo(PrincipalCollection)}, and only the
+     * permissions resolved by a configured {@code RolePermissionResolver} are returned.
+     *
+     * @param roleNames the names of the roles whose permissions are to be returned
+     * @return the permissions of the specified roles keyed by role name.
+     * @since 1.3
+     */
+    @Override
+    protected Map<String, Collection<Permission>> doGetRolePermissions(Collection<String> roleNames) {
+        Map<String, Collection<Permission>> resolved = super.doGetRolePermissions(roleNames);
+        if (!permissionsLookupEnabled || getAvailableRolePermissionCache() == null) {
+            return resolved;
+        }
+
+        Map<String, Set<String>> rolePermissions = new LinkedHashMap<String, Set<String>>();
+        Connection conn = null;
+        try {
+            conn = dataSource.getConnection();
+            if (permissionsLookupStyle == PermissionsLookupStyle.BATCHED) {
+                getPermissionsBatched(conn, roleNames, rolePermissions);
+            } else {
+                getPermissionsPerRole(conn, roleNames, rolePermissions);
+            }
+        } catch (SQLException e) {
+            final String message = "There was a SQL error while retrieving the permissions of roles " + roleNames;
+            if (log.isErrorEnabled()) {
+                log.error(message, e);
+            }
+
+            // Rethrow any SQL errors as an authorization exception
+            throw new AuthorizationException(message, e);
+        } finally {
+            JdbcUtils.closeConnection(conn);
+        }
+
+        Map<String, Collection<Permission>> perms = new LinkedHashMap<String, Collection<Permission>>(resolved);
+        PermissionResolver resolver = getPermissionResolver();
+        for (Map.Entry<String, Set<String>> entry : rolePermissions.entrySet()) {
+            Collection<Permission> rolePerms = new LinkedHashSet<Permission>();
+            if (perms.containsKey(entry.getKey())) {
+                rolePerms.addAll(perms.get(entry.getKey()));
+            }
+            for (String permissionString : entry.getValue()) {
+                rolePerms.add(resolver.resolvePermission(permissionString));
+            }
+            perms.put(entry.getKey(), rolePerms);
+        }
+        return perms;
+    }
+
+    /**
+     * Executes the permissions query once per role, adding the permissions to the returned set and, if
+     * {@code rolePermissions} is not {@code null}, to the set of their role.
+     */
+    private Set<String> getPermissionsPerRole(Connection conn, Collection<String> roleNames,
+                                              Map<String, Set<String>> rolePermissions) throws SQLException {
         PreparedStatement ps = null;
         Set<String> permissions = new LinkedHashSet<String>();
         try {
@@ -407,6 +689,9 @@ public class JdbcRealm extends AuthorizingRealm {
 
                         // Add the permission to the set of permissions
                         permissions.add(permissionString);
+                        if (rolePermissions != null && permissionString != null) {
+                            addRolePermission(rolePermissions, roleName, permissionString);
+                        }
                     }
                 } finally {
                     JdbcUtils.closeResultSet(rs);
@@ -420,6 +705,69 @@ public class JdbcRealm extends AuthorizingRealm {
         return permissions;
     }
     
+    private static void addRolePermission(Map<String, Set<String>> rolePermissions, String roleName,
+                                          String permissionString) {
+        Set<String> permissions = rolePermissions.get(roleName);
+        if (permissions == null) {
+            permissions = new LinkedHashSet<String>();
+            rolePermissions.put(roleName, permissions);
+        }
+        permissions.add(permissionString);
+    }
+
+    /**
+     * Executes the batched permissions query once per batch of roles, adding the permissions to the returned set and,
+     * if {@code rolePermissions} is not {@code null}, to the set of the role named by the second column.
+     */
+    private Set<String> getPermissionsBatched(Connection conn, Collection<String> roleNames,
+                                              Map<String, Set<String>> rolePermissions) throws SQLException {
+        Set<String> permissions = new LinkedHashSet<String>();
+        if (roleNames.isEmpty()) {
+            return permissions;
+        }
+        List<String> roles = new ArrayList<String>(roleNames);
+        int batchSize = Math.min(permissionsBatchSize, roles.size());
+        PreparedStatement ps = null;
+        try {
+            ps = conn.prepareStatement(createBatchedPermissionsQuery(batchSize));
+            for (int start = 0; start < roles.size(); start += batchSize) {
+                int end = Math.min(start + batchSize, roles.size());
+                for (int i = 0; i < batchSize; i++) {
+                    // Repeat the last role name of a partial batch so the statement can be reused
+                    ps.setString(i + 1, roles.get(Math.min(start + i, end - 1)));
+                }
+
+                ResultSet rs = null;
+                try {
+                    rs = ps.executeQuery();
+                    while (rs.next()) {
+                        String permissionString = rs.getString(1);
+                        permissions.add(permissionString);
+                        if (rolePermissions != null && permissionString != null) {
+                            addRolePermission(rolePermissions, rs.getString(2), permissionString);
+                        }
+                    }
+                } finally {
+                    JdbcUtils.closeResultSet(rs);
+                }
+            }
+        } finally {
+            JdbcUtils.closeStatement(ps);
+        }
+        return permissions;
+    }
+
+    private String createBatchedPermissionsQuery(int batchSize) {
+        StringBuilder parameters = new StringBuilder(batchSize * 3);
+        for (int i = 0; i < batchSize; i++) {
+            if (i > 0) {
+                parameters.append(", ");
+            }
+            parameters.append('?');
+        }
+        return batchedPermissionsQuery.replace(ROLE_NAMES_PLACEHOLDER, parameters);
+    }
+
     protected String getSaltForUser(String username) {
         return username;
     }
@@ -72,6 +72,10 @@ import java.util.Map;
  * ldapRealm.contextFactory.authenticationMechanism = DIGEST-MD5
  * ldapRealm.contextFactory.environment[some.other.obscure.jndi.key] = some value
  * </pre>
+ * <p/>
+ * This factory opens a new connection for every end-user authentication attempt, and only pools
+ * {@link #getSystemLdapContext() system} connections via the Sun/Oracle provider's connection pool.  See
+ * {@link PoolingLdapContextFactory} for a factory that pools and health-checks all connections.
  *
  * @since 1.1
  */
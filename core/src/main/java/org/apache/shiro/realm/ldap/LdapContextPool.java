@@ -0,0 +1,379 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.realm.ldap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.naming.AuthenticationException;
+import javax.naming.CommunicationException;
+import javax.naming.NamingException;
+import javax.naming.ServiceUnavailableException;
+import javax.naming.ldap.LdapContext;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of {@link LdapContext} connections used by a {@link PoolingLdapContextFactory}.  Borrowed contexts are
+ * returned to the pool when they are {@link LdapContext#close() closed}.
+ * <p/>
+ * Idle contexts are kept in the order they were returned, and the most recently returned one is borrowed first, so
+ * contexts that are not needed during quiet periods grow old and are evicted.
+ *
+ * @since 1.3
+ */
+final class LdapContextPool {
+
+    private static final Logger log = LoggerFactory.getLogger(LdapContextPool.class);
+
+    private final String name;
+    private final PoolingLdapContextFactory factory;
+    private final boolean reauthenticating;
+    private final int maxActive;
+    private final Semaphore permits;
+
+    /**
+     * The idle contexts, oldest first.
+     */
+    private final LinkedList<IdleContext> idle = new LinkedList<IdleContext>();
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong destroyed = new AtomicLong();
+    private final AtomicLong borrowed = new AtomicLong();
+    private final AtomicLong exhausted = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+
+    private volatile boolean closed;
+
+    /**
+     * Creates a new pool.
+     *
+     * @param name             the name of the pool, used in log and exception messages
+     * @param factory          the factory creating, validating and re-authenticating the pooled contexts
+     * @param reauthenticating {@code true} if idle contexts are re-authenticated with the borrower's principal and
+     *                         credentials before they are borrowed, {@code false} if all contexts of the pool are
+     *                         bound with the same principal
+     */
+    LdapContextPool(String name, PoolingLdapContextFactory factory, boolean reauthenticating) {
+        this.name = name;
+        this.factory = factory;
+        this.reauthenticating = reauthenticating;
+        this.maxActive = factory.getMaxActive();
+        this.permits = new Semaphore(this.maxActive, true);
+    }
+
+    /**
+     * Borrows a context bound with the specified principal and credentials, creating one if no idle context is
+     * available.
+     *
+     * @param principal   the principal the context is to be bound with
+     * @param credentials the credentials the context is to be bound with
+     * @return a context which is returned to the pool when closed.
+     * @throws NamingException if a context cannot be created or re-authenticated, or if the pool is exhausted.
+     */
+    LdapContext borrow(Object principal, Object credentials) throws NamingException {
+        if (closed) {
+            throw new IllegalStateException("The " + name + " LDAP context pool has been destroyed.");
+        }
+        acquirePermit();
+        boolean success = false;
+        try {
+            LdapContext ctx = borrowIdle(principal, credentials);
+            if (ctx == null) {
+                ctx = factory.createPooledContext(principal, credentials);
+                created.incrementAndGet();
+            }
+            active.incrementAndGet();
+            borrowed.incrementAndGet();
+            success = true;
+            return (LdapContext) Proxy.newProxyInstance(LdapContextPool.class.getClassLoader(),
+                    new Class[]{LdapContext.class}, new PooledContextHandler(ctx));
+        } finally {
+            if (!success) {
+                permits.release();
+            }
+        }
+    }
+
+    private void acquirePermit() throws NamingException {
+        long maxWait = factory.getMaxWait();
+        boolean acquired;
+        try {
+            acquired = maxWait < 0 ? acquireUninterruptibly() : permits.tryAcquire(maxWait, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            exhausted.incrementAndGet();
+            throw new ServiceUnavailableException("The " + name + " LDAP context pool is exhausted: all " +
+                    maxActive + " contexts are in use.");
+        }
+    }
+
+    private boolean acquireUninterruptibly() {
+        permits.acquireUninterruptibly();
+        return true;
+    }
+
+    private LdapContext borrowIdle(Object principal, Object credentials) throws NamingException {
+        IdleContext entry;
+        while ((entry = pollNewest()) != null) {
+            if (isExpired(entry, System.currentTimeMillis())) {
+                destroy(entry.ctx);
+                continue;
+            }
+            if (reauthenticating) {
+                try {
+                    factory.reauthenticate(entry.ctx, principal, credentials);
+                } catch (AuthenticationException e) {
+                    //the credentials are wrong - the connection is fine, but its state is unknown:
+                    destroy(entry.ctx);
+                    throw e;
+                } catch (NamingException e) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Unable to re-authenticate a pooled LDAP context - discarding it.", e);
+                    }
+                    validationFailures.incrementAndGet();
+                    destroy(entry.ctx);
+                    continue;
+                }
+            } else if (factory.isTestOnBorrow() && !factory.validate(entry.ctx)) {
+                validationFailures.incrementAndGet();
+                destroy(entry.ctx);
+                continue;
+            }
+            return entry.ctx;
+        }
+        return null;
+    }
+
+    private IdleContext pollNewest() {
+        synchronized (idle) {
+            return idle.isEmpty() ? null : idle.removeLast();
+        }
+    }
+
+    private boolean isExpired(IdleContext entry, long now) {
+        long maxIdleTime = factory.getMaxIdleTime();
+        return maxIdleTime > 0 && now - entry.idleSince > maxIdleTime;
+    }
+
+    private void release(LdapContext ctx, boolean broken) {
+        active.decrementAndGet();
+        try {
+            if (broken || closed) {
+                destroy(ctx);
+                return;
+            }
+            if (reauthenticating) {
+                try {
+                    factory.passivate(ctx);
+                } catch (NamingException e) {
+                    destroy(ctx);
+                    return;
+                }
+            }
+            boolean pooled = false;
+            synchronized (idle) {
+                if (idle.size() < maxActive) {
+                    idle.addLast(new IdleContext(ctx, System.currentTimeMillis()));
+                    pooled = true;
+                }
+            }
+            if (!pooled) {
+                destroy(ctx);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void destroy(LdapContext ctx) {
+        destroyed.incrementAndGet();
+        LdapUtils.closeContext(ctx);
+    }
+
+    /**
+     * Closes idle contexts that have been idle for longer than the factory's
+     * {@link PoolingLdapContextFactory#getMaxIdleTime() maxIdleTime} (while keeping
+     * {@link PoolingLdapContextFactory#getMinIdle() minIdle} contexts), validates the remaining idle contexts if
+     * {@link PoolingLdapContextFactory#isTestWhileIdle() testWhileIdle} is enabled, and then creates new contexts until
+     * there are {@code minIdle} idle contexts.
+     */
+    void evict() {
+        List<IdleContext> snapshot;
+        synchronized (idle) {
+            snapshot = new ArrayList<IdleContext>(idle);
+        }
+        int minIdle = factory.getMinIdle();
+        long now = System.currentTimeMillis();
+        List<IdleContext> kept = new ArrayList<IdleContext>(snapshot.size());
+        for (IdleContext entry : snapshot) {
+            int remaining;
+            synchronized (idle) {
+                if (!idle.remove(entry)) {
+                    //borrowed in the meantime
+                    continue;
+                }
+                remaining = idle.size() + kept.size();
+            }
+            if (isExpired(entry, now) && remaining >= minIdle) {
+                destroy(entry.ctx);
+            } else if (factory.isTestWhileIdle() && !factory.validate(entry.ctx)) {
+                validationFailures.incrementAndGet();
+                destroy(entry.ctx);
+            } else {
+                kept.add(entry);
+            }
+        }
+        if (!kept.isEmpty()) {
+            synchronized (idle) {
+                //the kept contexts are older than any returned in the meantime:
+                idle.addAll(0, kept);
+            }
+        }
+        ensureMinIdle(minIdle);
+    }
+
+    private void ensureMinIdle(int minIdle) {
+        while (!closed && getIdleCount() < minIdle && getIdleCount() + active.get() < maxActive) {
+            LdapContext ctx;
+            try {
+                ctx = factory.createPooledContext(factory.getSystemUsername(), factory.getSystemPassword());
+            } catch (NamingException e) {
+                log.warn("Unable to create an idle context for the " + name + " LDAP context pool.", e);
+                return;
+            }
+            created.incrementAndGet();
+            if (reauthenticating) {
+                try {
+                    factory.passivate(ctx);
+                } catch (NamingException e) {
+                    destroy(ctx);
+                    return;
+                }
+            }
+            synchronized (idle) {
+                idle.addLast(new IdleContext(ctx, System.currentTimeMillis()));
+            }
+        }
+    }
+
+    /**
+     * Closes all idle contexts.  Contexts that are still borrowed are closed when they are returned.
+     */
+    void close() {
+        closed = true;
+        List<IdleContext> contexts;
+        synchronized (idle) {
+            contexts = new ArrayList<IdleContext>(idle);
+            idle.clear();
+        }
+        for (IdleContext entry : contexts) {
+            destroy(entry.ctx);
+        }
+    }
+
+    int getIdleCount() {
+        synchronized (idle) {
+            return idle.size();
+        }
+    }
+
+    PoolingLdapContextFactory.PoolMetrics getMetrics() {
+        return new PoolingLdapContextFactory.PoolMetrics(active.get(), getIdleCount(), created.get(),
+                destroyed.get(), borrowed.get(), exhausted.get(), validationFailures.get());
+    }
+
+    private static final class IdleContext {
+
+        private final LdapContext ctx;
+        private final long idleSince;
+
+        private IdleContext(LdapContext ctx, long idleSince) {
+            this.ctx = ctx;
+            this.idleSince = idleSince;
+        }
+    }
+
+    /**
+     * Delegates to a pooled context, returning it to the pool instead of closing it.  A context whose use failed with
+     * a {@code CommunicationException} or {@code ServiceUnavailableException} is considered broken and is closed when
+     * it is returned.
+     */
+    private final class PooledContextHandler implements InvocationHandler {
+
+        private final LdapContext ctx;
+        private boolean returned;
+        private volatile boolean broken;
+
+        private PooledContextHandler(LdapContext ctx) {
+            this.ctx = ctx;
+        }
+
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String methodName = method.getName();
+            if ("close".equals(methodName) && method.getParameterTypes().length == 0) {
+                boolean release;
+                synchronized (this) {
+                    release = !returned;
+                    returned = true;
+                }
+                if (release) {
+                    release(ctx, broken);
+                }
+                return null;
+            }
+            if (method.getDeclaringClass() == Object.class) {
+                if ("equals".equals(methodName)) {
+                    return proxy == args[0];
+                }
+                if ("hashCode".equals(methodName)) {
+                    return System.identityHashCode(proxy);
+                }
+                return "Pooled " + ctx;
+            }
+            synchronized (this) {
+                if (returned) {
+                    throw new NamingException("The pooled LDAP context has already been closed.");
+                }
+            }
+            try {
+                return method.invoke(ctx, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof CommunicationException || cause instanceof ServiceUnavailableException) {
+                    broken = true;
+                }
+                throw cause;
+            }
+        }
+    }
+}
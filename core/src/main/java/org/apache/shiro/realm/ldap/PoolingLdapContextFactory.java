@@ -0,0 +1,706 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.realm.ldap;
+
+import org.apache.shiro.util.Destroyable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.naming.Context;
+import javax.naming.NamingEnumeration;
+import javax.naming.NamingException;
+import javax.naming.directory.SearchControls;
+import javax.naming.ldap.LdapContext;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link JndiLdapContextFactory} that pools the {@link LdapContext} connections it returns, instead of relying on
+ * the Sun/Oracle JNDI provider's connection pool for {@link #getSystemLdapContext() system} contexts only.  Closing
+ * a returned context returns its connection to the pool.
+ * <h2>Pools</h2>
+ * Two pools are maintained:
+ * <ul>
+ * <li>The <b>system</b> pool, for contexts bound with the {@link #getSystemUsername() systemUsername} and
+ * {@link #getSystemPassword() systemPassword}, as used for authorization queries.</li>
+ * <li>The <b>authentication</b> pool, for contexts bound with any other principal and credentials, as used to
+ * authenticate end-users.  Instead of opening a new connection per authentication attempt, an idle connection is
+ * re-authenticated (re-bound) with the new principal and credentials.  If the bind fails, the connection is closed
+ * and the {@link javax.naming.AuthenticationException AuthenticationException} is thrown as usual.  Credentials are
+ * removed from a connection's environment when it is returned to the pool.</li>
+ * </ul>
+ * Each pool holds at most {@link #setMaxActive(int) maxActive} connections.  When all of them are in use, a caller
+ * waits up to {@link #setMaxWait(long) maxWait} milliseconds for one to be returned, after which a
+ * {@link javax.naming.ServiceUnavailableException ServiceUnavailableException} is thrown.
+ * <h2>Health Checking</h2>
+ * Connections that have been idle for longer than {@link #setMaxIdleTime(long) maxIdleTime} are closed rather than
+ * reused, since LDAP servers and firewalls usually drop idle connections.  Every
+ * {@link #setTimeBetweenEvictionRuns(long) timeBetweenEvictionRuns} milliseconds, a background thread closes such
+ * connections, {@link #setTestWhileIdle(boolean) validates} the remaining idle connections, and opens new ones until
+ * each pool has {@link #setMinIdle(int) minIdle} idle connections.  A connection is validated with an object-scope
+ * search of the {@link #setValidationSearchBase(String) validationSearchBase} (the Root DSE by default) that returns
+ * no attributes.  Connections can also be {@link #setTestOnBorrow(boolean) validated} each time they are borrowed
+ * from the system pool (connections borrowed from the authentication pool are verified by re-binding them).  A
+ * connection whose use fails with a {@link javax.naming.CommunicationException CommunicationException} is closed
+ * when it is returned.
+ * <h2>Configuration</h2>
+ * <pre>
+ * [main]
+ * contextFactory = org.apache.shiro.realm.ldap.PoolingLdapContextFactory
+ * contextFactory.url = ldap://localhost:389
+ * contextFactory.systemUsername = cn=shiro,ou=system
+ * contextFactory.systemPassword = secret
+ * contextFactory.maxActive = 16
+ * contextFactory.minIdle = 2
+ *
+ * ldapRealm = org.apache.shiro.realm.ldap.JndiLdapRealm
+ * ldapRealm.contextFactory = $contextFactory
+ * </pre>
+ * Pooling can be disabled with {@link #setPoolingEnabled(boolean) poolingEnabled}, in which case a new connection is
+ * opened for every context as in the parent class (without the JNDI provider's connection pool).  The
+ * {@link #getSystemPoolMetrics() system} and {@link #getAuthenticationPoolMetrics() authentication} pool metrics
+ * can be used to monitor and size the pools.  {@link #destroy() Destroying} the factory closes the idle connections
+ * and stops the background thread.
+ *
+ * @since 1.3
+ */
+public class PoolingLdapContextFactory extends JndiLdapContextFactory implements Destroyable {
+
+    /**
+     * The default maximum number of connections per pool.
+     */
+    public static final int DEFAULT_MAX_ACTIVE = 8;
+
+    /**
+     * The default maximum time, in milliseconds, to wait for a connection when all connections of a pool are in use.
+     */
+    public static final long DEFAULT_MAX_WAIT = 5000;
+
+    /**
+     * The default maximum time, in milliseconds, a connection may be idle before it is closed: 5 minutes.
+     */
+    public static final long DEFAULT_MAX_IDLE_TIME = 5 * 60 * 1000;
+
+    /**
+     * The default time, in milliseconds, between runs of the background eviction thread: 1 minute.
+     */
+    public static final long DEFAULT_TIME_BETWEEN_EVICTION_RUNS = 60 * 1000;
+
+    /**
+     * The default filter of the validation search.
+     */
+    public static final String DEFAULT_VALIDATION_SEARCH_FILTER = "(objectClass=*)";
+
+    /**
+     * The default time limit, in milliseconds, of the validation search.
+     */
+    public static final int DEFAULT_VALIDATION_TIMEOUT = 5000;
+
+    /**
+     * The LDAP attribute list that requests no attributes (RFC 4511, section 4.5.1.8).
+     */
+    private static final String[] NO_ATTRIBUTES = {"1.1"};
+
+    private static final Logger log = LoggerFactory.getLogger(PoolingLdapContextFactory.class);
+
+    private int maxActive = DEFAULT_MAX_ACTIVE;
+    private int minIdle = 0;
+    private long maxWait = DEFAULT_MAX_WAIT;
+    private long maxIdleTime = DEFAULT_MAX_IDLE_TIME;
+    private long timeBetweenEvictionRuns = DEFAULT_TIME_BETWEEN_EVICTION_RUNS;
+    private boolean testOnBorrow = false;
+    private boolean testWhileIdle = true;
+    private String validationSearchBase = "";
+    private String validationSearchFilter = DEFAULT_VALIDATION_SEARCH_FILTER;
+    private int validationTimeout = DEFAULT_VALIDATION_TIMEOUT;
+
+    private LdapContextPool systemPool;
+    private LdapContextPool authenticationPool;
+    private ScheduledExecutorService evictor;
+    private boolean destroyed;
+
+    public PoolingLdapContextFactory() {
+        super();
+    }
+
+    /*-------------------------------------------
+     |  A C C E S S O R S / M O D I F I E R S   |
+     ===========================================*/
+
+    /**
+     * Returns the maximum number of connections of each pool, whether in use or idle.  The default is
+     * {@link #DEFAULT_MAX_ACTIVE}.
+     *
+     * @return the maximum number of connections of each pool.
+     */
+    public int getMaxActive() {
+        return maxActive;
+    }
+
+    /**
+     * Sets the maximum number of connections of each pool, whether in use or idle.  The default is
+     * {@link #DEFAULT_MAX_ACTIVE}.  This must be set before the first context is acquired.
+     *
+     * @param maxActive the maximum number of connections of each pool.
+     */
+    public void setMaxActive(int maxActive) {
+        if (maxActive < 1) {
+            throw new IllegalArgumentException("maxActive must be greater than zero.");
+        }
+        this.maxActive = maxActive;
+    }
+
+    /**
+     * Returns the number of idle connections the background eviction thread maintains in each pool.  The default
+     * is {@code 0}.
+     *
+     * @return the number of idle connections maintained in each pool.
+     */
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    /**
+     * Sets the number of idle connections the background eviction thread maintains in each pool, so that bursts of
+     * requests do not have to wait for new connections.  The default is {@code 0}.
+     *
+     * @param minIdle the number of idle connections maintained in each pool.
+     */
+    public void setMinIdle(int minIdle) {
+        if (minIdle < 0) {
+            throw new IllegalArgumentException("minIdle cannot be negative.");
+        }
+        this.minIdle = minIdle;
+    }
+
+    /**
+     * Returns the maximum time, in milliseconds, to wait for a connection when all connections of a pool are in use,
+     * or a negative value to wait indefinitely.  The default is {@link #DEFAULT_MAX_WAIT}.
+     *
+     * @return the maximum time to wait for a connection, in milliseconds.
+     */
+    public long getMaxWait() {
+        return maxWait;
+    }
+
+    /**
+     * Sets the maximum time, in milliseconds, to wait for a connection when all connections of a pool are in use,
+     * or a negative value to wait indefinitely.  The default is {@link #DEFAULT_MAX_WAIT}.
+     *
+     * @param maxWait the maximum time to wait for a connection, in milliseconds.
+     */
+    public void setMaxWait(long maxWait) {
+        this.maxWait = maxWait;
+    }
+
+    /**
+     * Returns the maximum time, in milliseconds, a connection may be idle before it is closed rather than reused, or
+     * zero or less if idle connections never expire.  The default is {@link #DEFAULT_MAX_IDLE_TIME}.
+     *
+     * @return the maximum idle time of a connection, in milliseconds.
+     */
+    public long getMaxIdleTime() {
+        return maxIdleTime;
+    }
+
+    /**
+     * Sets the maximum time, in milliseconds, a connection may be idle before it is closed rather than reused, or
+     * zero or less if idle connections never expire.  This should be shorter than the idle timeout of the LDAP server
+     * and of any firewall in between.  The default is {@link #DEFAULT_MAX_IDLE_TIME}.
+     *
+     * @param maxIdleTime the maximum idle time of a connection, in milliseconds.
+     */
+    public void setMaxIdleTime(long maxIdleTime) {
+        this.maxIdleTime = maxIdleTime;
+    }
+
+    /**
+     * Returns the time, in milliseconds, between runs of the background eviction thread, or zero or less if there is
+     * no background eviction thread.  The default is {@link #DEFAULT_TIME_BETWEEN_EVICTION_RUNS}.
+     *
+     * @return the time between eviction runs, in milliseconds.
+     */
+    public long getTimeBetweenEvictionRuns() {
+        return timeBetweenEvictionRuns;
+    }
+
+    /**
+     * Sets the time, in milliseconds, between runs of the background eviction thread, or zero or less to disable the
+     * background eviction thread (expired connections are then only closed when they would otherwise be borrowed, and
+     * {@link #setMinIdle(int) minIdle} is not maintained).  The default is
+     * {@link #DEFAULT_TIME_BETWEEN_EVICTION_RUNS}.  This must be set before the first context is acquired.
+     *
+     * @param timeBetweenEvictionRuns the time between eviction runs, in milliseconds.
+     */
+    public void setTimeBetweenEvictionRuns(long timeBetweenEvictionRuns) {
+        this.timeBetweenEvictionRuns = timeBetweenEvictionRuns;
+    }
+
+    /**
+     * Returns whether or not idle connections of the system pool are validated before they are borrowed.  The
+     * default is {@code false}.
+     *
+     * @return whether or not idle system connections are validated before they are borrowed.
+     */
+    public boolean isTestOnBorrow() {
+        return testOnBorrow;
+    }
+
+    /**
+     * Sets whether or not idle connections of the system pool are validated before they are borrowed, which costs a
+     * round trip to the LDAP server per borrowed connection.  The default is {@code false}.
+     *
+     * @param testOnBorrow whether or not idle system connections are validated before they are borrowed.
+     */
+    public void setTestOnBorrow(boolean testOnBorrow) {
+        this.testOnBorrow = testOnBorrow;
+    }
+
+    /**
+     * Returns whether or not the background eviction thread validates idle connections.  The default is
+     * {@code true}.
+     *
+     * @return whether or not idle connections are validated by the background eviction thread.
+     */
+    public boolean isTestWhileIdle() {
+        return testWhileIdle;
+    }
+
+    /**
+     * Sets whether or not the background eviction thread validates idle connections.  The default is {@code true}.
+     *
+     * @param testWhileIdle whether or not idle connections are validated by the background eviction thread.
+     */
+    public void setTestWhileIdle(boolean testWhileIdle) {
+        this.testWhileIdle = testWhileIdle;
+    }
+
+    /**
+     * Returns the name of the entry searched to validate a connection.  The default is the empty name, which is the
+     * Root DSE.
+     *
+     * @return the name of the entry searched to validate a connection.
+     */
+    public String getValidationSearchBase() {
+        return validationSearchBase;
+    }
+
+    /**
+     * Sets the name of the entry searched to validate a connection.  The default is the empty name, which is the
+     * Root DSE.  The entry must be readable by the system user and by end-users.
+     *
+     * @param validationSearchBase the name of the entry searched to validate a connection.
+     */
+    public void setValidationSearchBase(String validationSearchBase) {
+        this.validationSearchBase = validationSearchBase != null ? validationSearchBase : "";
+    }
+
+    /**
+     * Returns the filter of the search used to validate a connection.  The default is
+     * {@link #DEFAULT_VALIDATION_SEARCH_FILTER}.
+     *
+     * @return the filter of the search used to validate a connection.
+     */
+    public String getValidationSearchFilter() {
+        return validationSearchFilter;
+    }
+
+    /**
+     * Sets the filter of the search used to validate a connection.  The default is
+     * {@link #DEFAULT_VALIDATION_SEARCH_FILTER}.
+     *
+     * @param validationSearchFilter the filter of the search used to validate a connection.
+     */
+    public void setValidationSearchFilter(String validationSearchFilter) {
+        this.validationSearchFilter = validationSearchFilter;
+    }
+
+    /**
+     * Returns the time limit, in milliseconds, of the search used to validate a connection.  The default is
+     * {@link #DEFAULT_VALIDATION_TIMEOUT}.
+     *
+     * @return the time limit of the validation search, in milliseconds.
+     */
+    public int getValidationTimeout() {
+        return validationTimeout;
+    }
+
+    /**
+     * Sets the time limit, in milliseconds, of the search used to validate a connection.  The default is
+     * {@link #DEFAULT_VALIDATION_TIMEOUT}.
+     *
+     * @param validationTimeout the time limit of the validation search, in milliseconds.
+     */
+    public void setValidationTimeout(int validationTimeout) {
+        this.validationTimeout = validationTimeout;
+    }
+
+    /**
+     * Returns a snapshot of the metrics of the system pool.
+     *
+     * @return a snapshot of the metrics of the system pool.
+     */
+    public PoolMetrics getSystemPoolMetrics() {
+        return getMetrics(getSystemPoolIfCreated());
+    }
+
+    /**
+     * Returns a snapshot of the metrics of the authentication pool.
+     *
+     * @return a snapshot of the metrics of the authentication pool.
+     */
+    public PoolMetrics getAuthenticationPoolMetrics() {
+        return getMetrics(getAuthenticationPoolIfCreated());
+    }
+
+    private static PoolMetrics getMetrics(LdapContextPool pool) {
+        return pool != null ? pool.getMetrics() : new PoolMetrics(0, 0, 0, 0, 0, 0, 0);
+    }
+
+    /*--------------------------------------------
+    |               M E T H O D S               |
+    ============================================*/
+
+    /**
+     * Returns {@code false}: the JNDI provider's connection pool is never used, as connections are pooled by this
+     * factory instead.
+     *
+     * @param principal the principal under which the connection will be made
+     * @return {@code false}
+     */
+    @Override
+    protected boolean isPoolingConnections(Object principal) {
+        return false;
+    }
+
+    /**
+     * Borrows a context bound with the specified principal and credentials from the system pool if they are the
+     * {@link #getSystemUsername() systemUsername} and {@link #getSystemPassword() systemPassword}, or from the
+     * authentication pool otherwise.  If {@link #isPoolingEnabled() pooling} is disabled, a new connection is opened.
+     *
+     * @param principal   the principal to use when acquiring a connection to the LDAP directory
+     * @param credentials the credentials (password, X.509 certificate, etc) to use when acquiring a connection to the
+     *                    LDAP directory
+     * @return the acquired {@code LdapContext}, which is returned to the pool when it is closed.
+     * @throws NamingException if unable to acquire a connection.
+     */
+    @Override
+    public LdapContext getLdapContext(Object principal, Object credentials) throws NamingException,
+            IllegalStateException {
+        if (!isPoolingEnabled()) {
+            return super.getLdapContext(principal, credentials);
+        }
+        if (getUrl() == null) {
+            throw new IllegalStateException("An LDAP URL must be specified of the form ldap://<hostname>:<port>");
+        }
+        LdapContextPool pool = isSystemAccount(principal, credentials) ? getSystemPool() : getAuthenticationPool();
+        return pool.borrow(principal, credentials);
+    }
+
+    /**
+     * Returns {@code true} only if both the principal and the credentials are those of the system account, so that a
+     * pooled system connection is never handed out for a bind that was not verified.
+     */
+    private boolean isSystemAccount(Object principal, Object credentials) {
+        return equals(principal, getSystemUsername()) && equals(credentials, getSystemPassword());
+    }
+
+    private static boolean equals(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private synchronized LdapContextPool getSystemPool() {
+        if (systemPool == null) {
+            systemPool = new LdapContextPool("system", this, false);
+            startEvictor();
+        }
+        return systemPool;
+    }
+
+    private synchronized LdapContextPool getAuthenticationPool() {
+        if (authenticationPool == null) {
+            authenticationPool = new LdapContextPool("authentication", this, true);
+            startEvictor();
+        }
+        return authenticationPool;
+    }
+
+    private synchronized LdapContextPool getSystemPoolIfCreated() {
+        return systemPool;
+    }
+
+    private synchronized LdapContextPool getAuthenticationPoolIfCreated() {
+        return authenticationPool;
+    }
+
+    private void startEvictor() {
+        if (destroyed) {
+            throw new IllegalStateException("This PoolingLdapContextFactory has been destroyed.");
+        }
+        if (evictor != null || timeBetweenEvictionRuns <= 0) {
+            return;
+        }
+        evictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "shiro-ldap-pool-evictor");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        evictor.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                try {
+                    evict();
+                } catch (RuntimeException e) {
+                    log.warn("Unable to evict idle LDAP connections.", e);
+                }
+            }
+        }, timeBetweenEvictionRuns, timeBetweenEvictionRuns, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Closes expired idle connections, validates the remaining ones if {@link #isTestWhileIdle() testWhileIdle} is
+     * enabled, and opens new connections until each pool has {@link #getMinIdle() minIdle} idle connections.  This is
+     * called periodically by the background eviction thread.
+     */
+    public void evict() {
+        LdapContextPool system = getSystemPoolIfCreated();
+        if (system != null) {
+            system.evict();
+        }
+        LdapContextPool authentication = getAuthenticationPoolIfCreated();
+        if (authentication != null) {
+            authentication.evict();
+        }
+    }
+
+    /**
+     * Creates a new connection for a pool, bound with the specified principal and credentials.
+     *
+     * @param principal   the principal to bind with
+     * @param credentials the credentials to bind with
+     * @return a new connection.
+     * @throws NamingException if the connection cannot be created.
+     */
+    LdapContext createPooledContext(Object principal, Object credentials) throws NamingException {
+        return super.getLdapContext(principal, credentials);
+    }
+
+    /**
+     * Re-binds an idle connection with the specified principal and credentials.
+     *
+     * @param ctx         the connection to re-bind
+     * @param principal   the principal to bind with
+     * @param credentials the credentials to bind with
+     * @throws NamingException if the bind fails.
+     */
+    void reauthenticate(LdapContext ctx, Object principal, Object credentials) throws NamingException {
+        String authenticationMechanism = getAuthenticationMechanism();
+        if (authenticationMechanism == null) {
+            authenticationMechanism = principal != null || credentials != null ?
+                    SIMPLE_AUTHENTICATION_MECHANISM_NAME : "none";
+        }
+        ctx.addToEnvironment(Context.SECURITY_AUTHENTICATION, authenticationMechanism);
+        if (principal != null) {
+            ctx.addToEnvironment(Context.SECURITY_PRINCIPAL, principal);
+        } else {
+            ctx.removeFromEnvironment(Context.SECURITY_PRINCIPAL);
+        }
+        if (credentials != null) {
+            ctx.addToEnvironment(Context.SECURITY_CREDENTIALS, credentials);
+        } else {
+            ctx.removeFromEnvironment(Context.SECURITY_CREDENTIALS);
+        }
+        //the Sun/Oracle provider re-binds over the existing LDAPv3 connection:
+        ctx.reconnect(null);
+    }
+
+    /**
+     * Removes the credentials from the environment of a connection returned to the authentication pool.
+     *
+     * @param ctx the returned connection
+     * @throws NamingException if the environment cannot be changed.
+     */
+    void passivate(LdapContext ctx) throws NamingException {
+        ctx.removeFromEnvironment(Context.SECURITY_CREDENTIALS);
+    }
+
+    /**
+     * Returns {@code true} if the validation search succeeds on the specified connection, {@code false} otherwise.
+     *
+     * @param ctx the connection to validate
+     * @return {@code true} if the connection is usable, {@code false} otherwise.
+     */
+    boolean validate(LdapContext ctx) {
+        SearchControls controls = new SearchControls(SearchControls.OBJECT_SCOPE, 1, getValidationTimeout(),
+                NO_ATTRIBUTES, false, false);
+        NamingEnumeration<?> results = null;
+        try {
+            results = ctx.search(getValidationSearchBase(), getValidationSearchFilter(), controls);
+            while (results.hasMore()) {
+                results.next();
+            }
+            return true;
+        } catch (NamingException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Validation of a pooled LDAP connection failed.", e);
+            }
+            return false;
+        } catch (RuntimeException e) {
+            log.debug("Validation of a pooled LDAP connection failed.", e);
+            return false;
+        } finally {
+            if (results != null) {
+                try {
+                    results.close();
+                } catch (NamingException e) {
+                    //ignore - the validation result is already known
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops the background eviction thread and closes all idle connections.  Connections that are in use are closed
+     * when they are returned.
+     */
+    public void destroy() {
+        ScheduledExecutorService evictor;
+        LdapContextPool system;
+        LdapContextPool authentication;
+        synchronized (this) {
+            destroyed = true;
+            evictor = this.evictor;
+            this.evictor = null;
+            system = this.systemPool;
+            authentication = this.authenticationPool;
+        }
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+        if (system != null) {
+            system.close();
+        }
+        if (authentication != null) {
+            authentication.close();
+        }
+    }
+
+    /**
+     * A snapshot of the metrics of one of the pools of a {@code PoolingLdapContextFactory}.
+     *
+     * @since 1.3
+     */
+    public static final class PoolMetrics {
+
+        private final int activeCount;
+        private final int idleCount;
+        private final long createdCount;
+        private final long destroyedCount;
+        private final long borrowedCount;
+        private final long exhaustedCount;
+        private final long validationFailureCount;
+
+        PoolMetrics(int activeCount, int idleCount, long createdCount, long destroyedCount, long borrowedCount,
+                    long exhaustedCount, long validationFailureCount) {
+            this.activeCount = activeCount;
+            this.idleCount = idleCount;
+            this.createdCount = createdCount;
+            this.destroyedCount = destroyedCount;
+            this.borrowedCount = borrowedCount;
+            this.exhaustedCount = exhaustedCount;
+            this.validationFailureCount = validationFailureCount;
+        }
+
+        /**
+         * Returns the number of connections currently in use.
+         *
+         * @return the number of connections currently in use.
+         */
+        public int getActiveCount() {
+            return activeCount;
+        }
+
+        /**
+         * Returns the number of idle connections.
+         *
+         * @return the number of idle connections.
+         */
+        public int getIdleCount() {
+            return idleCount;
+        }
+
+        /**
+         * Returns the total number of connections opened by the pool.
+         *
+         * @return the total number of connections opened.
+         */
+        public long getCreatedCount() {
+            return createdCount;
+        }
+
+        /**
+         * Returns the total number of connections closed by the pool, because they expired, failed validation or
+         * re-authentication, broke, or the pool was destroyed.
+         *
+         * @return the total number of connections closed.
+         */
+        public long getDestroyedCount() {
+            return destroyedCount;
+        }
+
+        /**
+         * Returns the total number of connections borrowed from the pool.
+         *
+         * @return the total number of connections borrowed.
+         */
+        public long getBorrowedCount() {
+            return borrowedCount;
+        }
+
+        /**
+         * Returns the number of times no connection became available within the
+         * {@link PoolingLdapContextFactory#getMaxWait() maxWait} time.
+         *
+         * @return the number of times the pool was exhausted.
+         */
+        public long getExhaustedCount() {
+            return exhaustedCount;
+        }
+
+        /**
+         * Returns the number of idle connections that failed validation or could not be re-authenticated for
+         * reasons other than invalid credentials.
+         *
+         * @return the number of validation failures.
+         */
+        public long getValidationFailureCount() {
+            return validationFailureCount;
+        }
+
+        @Override
+        public String toString() {
+            return "active=" + activeCount + ", idle=" + idleCount + ", created=" + createdCount +
+                    ", destroyed=" + destroyedCount + ", borrowed=" + borrowedCount + ", exhausted=" +
+                    exhaustedCount + ", validationFailures=" + validationFailureCount;
+        }
+    }
+}
@@ -40,6 +40,10 @@ import java.util.*;
  * <p/>
  * User and user-to-role definitions are specified via the {@link #setUserDefinitions} method and
  * Role-to-permission definitions are specified via the {@link #setRoleDefinitions} method.
+ * <p/>
+ * The permissions of a role are resolved once, when the role definitions are processed, and are shared by all
+ * accounts with that role: an account only holds its role names, and the permissions of its roles are looked up by
+ * {@link #doGetRolePermissions(java.util.Collection) doGetRolePermissions} during authorization checks.
  *
  * @since 0.9
  */
@@ -193,12 +197,8 @@ public class TextConfigurationRealm extends SimpleAccountRealm {
             if (passwordAndRolesArray.length > 1) {
                 for (int i = 1; i < passwordAndRolesArray.length; i++) {
                     String rolename = passwordAndRolesArray[i];
+                    //the role's permissions are shared rather than copied - see doGetRolePermissions:
                     account.addRole(rolename);
-
-                    SimpleRole role = getRole(rolename);
-                    if (role != null) {
-                        account.addObjectPermissions(role.getPermissions());
-                    }
                 }
             } else {
                 account.setRoles(null);
@@ -206,6 +206,41 @@ public class TextConfigurationRealm extends SimpleAccountRealm {
         }
     }
 
+    /**
+     * Returns the permissions of the specified roles as defined by the
+     * {@link #setRoleDefinitions(String) role definitions}, in addition to those resolved by a configured
+     * {@code RolePermissionResolver}.  The returned {@code Permission} instances are those of the realm's
+     * {@link SimpleRole SimpleRole}s, so they are shared by all accounts with the role.
+     *
+     * @param roleNames the names of the roles whose permissions are to be returned
+     * @return the permissions of the specified roles keyed by role name.
+     * @since 1.3
+     */
+    @Override
+    protected Map<String, Collection<Permission>> doGetRolePermissions(Collection<String> roleNames) {
+        Map<String, Collection<Permission>> resolved = super.doGetRolePermissions(roleNames);
+        Map<String, Collection<Permission>> perms = null;
+        for (String roleName : roleNames) {
+            SimpleRole role = getRole(roleName);
+            Set<Permission> rolePerms = role != null ? role.getPermissions() : null;
+            if (rolePerms == null || rolePerms.isEmpty()) {
+                continue;
+            }
+            if (perms == null) {
+                perms = new LinkedHashMap<String, Collection<Permission>>(resolved);
+            }
+            Collection<Permission> other = perms.get(roleName);
+            if (other != null) {
+                Set<Permission> combined = new LinkedHashSet<Permission>(rolePerms);
+                combined.addAll(other);
+                perms.put(roleName, combined);
+            } else {
+                perms.put(roleName, rolePerms);
+            }
+        }
+        return perms != null ? perms : resolved;
+    }
+
     protected static Set<String> toLines(String s) {
         LinkedHashSet<String> set = new LinkedHashSet<String>();
         Scanner scanner = new Scanner(s);
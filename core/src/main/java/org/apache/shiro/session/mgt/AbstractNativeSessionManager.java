@@ -186,8 +186,23 @@ public abstract class AbstractNativeSessionManager extends AbstractSessionManage
 
     public void touch(SessionKey key) throws InvalidSessionException {
         Session s = lookupRequiredSession(key);
+        Date previousLastAccessTime = s.getLastAccessTime();
         s.touch();
-        onChange(s);
+        onTouch(s, previousLastAccessTime);
+    }
+
+    /**
+     * Template method that allows subclasses to react to a session being {@link #touch(SessionKey) touched}.  Touches
+     * are by far the most frequent session change (usually one per request), so subclasses may wish to persist them
+     * differently than other changes.  The default implementation merely calls {@link #onChange(Session) onChange}.
+     *
+     * @param session                the session that was touched
+     * @param previousLastAccessTime the session's {@link Session#getLastAccessTime() lastAccessTime} before it was
+     *                               touched
+     * @since 1.3
+     */
+    protected void onTouch(Session session, Date previousLastAccessTime) {
+        onChange(session);
     }
 
     public String getHost(SessionKey key) {
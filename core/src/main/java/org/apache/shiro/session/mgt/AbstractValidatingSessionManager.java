@@ -28,7 +28,19 @@ import org.apache.shiro.util.LifecycleUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
@@ -49,6 +61,14 @@ public abstract class AbstractValidatingSessionManager extends AbstractNativeSes
      */
     public static final long DEFAULT_SESSION_VALIDATION_INTERVAL = MILLIS_PER_HOUR;
 
+    /**
+     * The default number of sessions validated by a single worker thread at a time (1000) when
+     * {@link #setSessionValidationThreads(int) validating sessions in parallel}.
+     *
+     * @since 1.3
+     */
+    public static final int DEFAULT_SESSION_VALIDATION_BATCH_SIZE = 1000;
+
     protected boolean sessionValidationSchedulerEnabled;
 
     /**
@@ -58,6 +78,29 @@ public abstract class AbstractValidatingSessionManager extends AbstractNativeSes
 
     protected long sessionValidationInterval;
 
+    private SessionExpiryIndex sessionExpiryIndex;
+
+    private int sessionValidationThreads = 1;
+    private int sessionValidationBatchSize = DEFAULT_SESSION_VALIDATION_BATCH_SIZE;
+    private int maxSessionInvalidationsPerSecond;
+
+    /**
+     * Worker threads used to validate sessions in parallel, created on first use and shut down in {@link #destroy()}.
+     */
+    private ThreadPoolExecutor sessionValidationExecutor;
+
+    /**
+     * Whether or not a full validation run has populated the {@code sessionExpiryIndex} with all active sessions.
+     */
+    private volatile boolean sessionExpiryIndexPopulated;
+
+    //statistics of validateSessions() runs:
+    private volatile long validationCount;
+    private volatile long lastValidationDuration;
+    private volatile int lastValidationSessionCount;
+    private volatile int lastValidationInvalidCount;
+    private volatile long totalValidationInvalidCount;
+
     public AbstractValidatingSessionManager() {
         this.sessionValidationSchedulerEnabled = true;
         this.sessionValidationInterval = DEFAULT_SESSION_VALIDATION_INTERVAL;
@@ -109,6 +152,226 @@ public abstract class AbstractValidatingSessionManager extends AbstractNativeSes
         return sessionValidationInterval;
     }
 
+    /**
+     * Returns the number of threads used to validate sessions during {@link #validateSessions()}.  The default is
+     * {@code 1}, meaning sessions are validated sequentially by the thread calling {@code validateSessions()}.
+     *
+     * @return the number of threads used to validate sessions during {@link #validateSessions()}.
+     * @since 1.3
+     */
+    public int getSessionValidationThreads() {
+        return sessionValidationThreads;
+    }
+
+    /**
+     * Sets the number of threads used to validate sessions during {@link #validateSessions()}.  If greater than
+     * {@code 1}, the sessions to validate are partitioned into batches of
+     * {@link #setSessionValidationBatchSize(int) sessionValidationBatchSize} sessions that are validated in parallel by
+     * a pool of this many worker threads, created on first use and shut down when this manager is
+     * {@link #destroy() destroyed}.  This requires the {@code SessionDAO} (and any session listeners) to be
+     * thread-safe, which they already must be to serve concurrent requests.
+     *
+     * @param sessionValidationThreads the number of threads used to validate sessions during
+     *                                 {@link #validateSessions()}.
+     * @since 1.3
+     */
+    public void setSessionValidationThreads(int sessionValidationThreads) {
+        if (sessionValidationThreads < 1) {
+            throw new IllegalArgumentException("sessionValidationThreads must be at least 1.");
+        }
+        synchronized (this) {
+            ThreadPoolExecutor pool = this.sessionValidationExecutor;
+            if (pool != null) {
+                //keep corePoolSize <= maximumPoolSize at every step:
+                if (sessionValidationThreads > pool.getMaximumPoolSize()) {
+                    pool.setMaximumPoolSize(sessionValidationThreads);
+                    pool.setCorePoolSize(sessionValidationThreads);
+                } else {
+                    pool.setCorePoolSize(sessionValidationThreads);
+                    pool.setMaximumPoolSize(sessionValidationThreads);
+                }
+            }
+            this.sessionValidationThreads = sessionValidationThreads;
+        }
+    }
+
+    /**
+     * Returns the number of sessions validated by a single worker thread at a time when
+     * {@link #setSessionValidationThreads(int) validating sessions in parallel}.  Defaults to
+     * {@link #DEFAULT_SESSION_VALIDATION_BATCH_SIZE}.
+     *
+     * @return the number of sessions validated by a single worker thread at a time.
+     * @since 1.3
+     */
+    public int getSessionValidationBatchSize() {
+        return sessionValidationBatchSize;
+    }
+
+    /**
+     * Sets the number of sessions validated by a single worker thread at a time when
+     * {@link #setSessionValidationThreads(int) validating sessions in parallel}.
+     *
+     * @param sessionValidationBatchSize the number of sessions validated by a single worker thread at a time.
+     * @since 1.3
+     */
+    public void setSessionValidationBatchSize(int sessionValidationBatchSize) {
+        if (sessionValidationBatchSize < 1) {
+            throw new IllegalArgumentException("sessionValidationBatchSize must be at least 1.");
+        }
+        this.sessionValidationBatchSize = sessionValidationBatchSize;
+    }
+
+    /**
+     * Returns the maximum number of sessions {@link #validateSessions()} will invalidate per second across all
+     * validation threads, or zero (the default) for no limit.
+     *
+     * @return the maximum number of sessions {@link #validateSessions()} will invalidate per second, or zero for no
+     *         limit.
+     * @since 1.3
+     */
+    public int getMaxSessionInvalidationsPerSecond() {
+        return maxSessionInvalidationsPerSecond;
+    }
+
+    /**
+     * Sets the maximum number of sessions {@link #validateSessions()} will invalidate per second across all
+     * validation threads, or zero for no limit.  Each invalidated session results in a {@code SessionDAO} update and
+     * (usually) delete, so this bounds the load a validation run that finds many expired sessions (e.g. after a
+     * traffic peak or downtime) places on the session store.  Sessions invalidated when accessed by a request are
+     * never throttled.
+     *
+     * @param maxSessionInvalidationsPerSecond
+     *         the maximum number of sessions {@link #validateSessions()} will invalidate per second, or zero for no
+     *         limit.
+     * @since 1.3
+     */
+    public void setMaxSessionInvalidationsPerSecond(int maxSessionInvalidationsPerSecond) {
+        this.maxSessionInvalidationsPerSecond = Math.max(maxSessionInvalidationsPerSecond, 0);
+    }
+
+    /**
+     * Returns the index used to find sessions that can have expired during {@link #validateSessions()}, or
+     * {@code null} (the default) if every active session is validated on every run.
+     *
+     * @return the index used to find sessions that can have expired during {@link #validateSessions()}, or
+     *         {@code null} if every active session is validated on every run.
+     * @since 1.3
+     */
+    public SessionExpiryIndex getSessionExpiryIndex() {
+        return sessionExpiryIndex;
+    }
+
+    /**
+     * Sets the index used to find sessions that can have expired during {@link #validateSessions()}.
+     * <p/>
+     * Without an index, every validation run retrieves and validates every {@link #getActiveSessions() active session},
+     * which can take a long time with a large number of sessions.  With an index, sessions are indexed by their
+     * projected expiry time whenever they are accessed or changed via this manager, the first validation run still
+     * visits every active session (to index sessions this manager has not seen yet, e.g. after a restart), and
+     * subsequent runs only visit the sessions projected to have expired.
+     * <p/>
+     * Because of this, sessions that are neither accessed via this manager nor active when it first validates
+     * sessions (e.g. sessions created by another node in a cluster and only ever accessed there) are only expired by
+     * the manager that does see them.  In other words, the index only tracks the sessions this node has touched: if the
+     * {@code SessionDAO} is shared by several nodes (e.g. a clustered or otherwise distributed session store) and
+     * sessions can be created or accessed on nodes that never validate them, do not configure an index and keep
+     * validating every active session instead.
+     * <p/>
+     * A session that can not be validated during an indexed run (for example because the session store is temporarily
+     * unavailable), or that is not reached because the run is interrupted, is put back into the index so that the next
+     * run validates it again.
+     *
+     * @param sessionExpiryIndex the index used to find sessions that can have expired during validation, or
+     *                           {@code null} to validate every active session on every run.
+     * @since 1.3
+     */
+    public void setSessionExpiryIndex(SessionExpiryIndex sessionExpiryIndex) {
+        this.sessionExpiryIndex = sessionExpiryIndex;
+        this.sessionExpiryIndexPopulated = false;
+    }
+
+    /**
+     * Indexes the specified session under its projected expiry time if a
+     * {@link #setSessionExpiryIndex(SessionExpiryIndex) sessionExpiryIndex} is configured, or removes it from the index
+     * if it is no longer valid or never expires.  Subclasses must call this whenever a session's last access time or
+     * timeout changes, or the session is stopped.
+     *
+     * @param session the session to (re-)index.
+     * @since 1.3
+     */
+    protected void updateSessionExpiryIndex(Session session) {
+        SessionExpiryIndex index = getSessionExpiryIndex();
+        if (index == null || session == null) {
+            return;
+        }
+        Serializable sessionId = session.getId();
+        if (sessionId == null) {
+            return;
+        }
+        if (session instanceof ValidatingSession && !((ValidatingSession) session).isValid()) {
+            index.remove(sessionId);
+            return;
+        }
+        long timeout = getTimeout(session);
+        if (timeout < 0 || session.getLastAccessTime() == null) {
+            index.remove(sessionId);
+            return;
+        }
+        index.put(sessionId, session.getLastAccessTime().getTime() + timeout);
+    }
+
+    /**
+     * Returns the number of times {@link #validateSessions()} has run.
+     *
+     * @return the number of times {@link #validateSessions()} has run.
+     * @since 1.3
+     */
+    public long getValidationCount() {
+        return validationCount;
+    }
+
+    /**
+     * Returns the duration, in milliseconds, of the last {@link #validateSessions()} run.
+     *
+     * @return the duration, in milliseconds, of the last {@link #validateSessions()} run.
+     * @since 1.3
+     */
+    public long getLastValidationDuration() {
+        return lastValidationDuration;
+    }
+
+    /**
+     * Returns the number of sessions visited by the last {@link #validateSessions()} run.
+     *
+     * @return the number of sessions visited by the last {@link #validateSessions()} run.
+     * @since 1.3
+     */
+    public int getLastValidationSessionCount() {
+        return lastValidationSessionCount;
+    }
+
+    /**
+     * Returns the number of sessions found to be invalid (and therefore stopped) by the last
+     * {@link #validateSessions()} run.
+     *
+     * @return the number of sessions found to be invalid by the last {@link #validateSessions()} run.
+     * @since 1.3
+     */
+    public int getLastValidationInvalidCount() {
+        return lastValidationInvalidCount;
+    }
+
+    /**
+     * Returns the total number of sessions found to be invalid (and therefore stopped) by all
+     * {@link #validateSessions()} runs.
+     *
+     * @return the total number of sessions found to be invalid by all {@link #validateSessions()} runs.
+     * @since 1.3
+     */
+    public long getTotalValidationInvalidCount() {
+        return totalValidationInvalidCount;
+    }
+
     @Override
     protected final Session doGetSession(final SessionKey key) throws InvalidSessionException {
         enableSessionValidationIfNecessary();
@@ -118,6 +381,7 @@ public abstract class AbstractValidatingSessionManager extends AbstractNativeSes
         Session s = retrieveSession(key);
         if (s != null) {
             validate(s, key);
+            updateSessionExpiryIndex(s);
         }
         return s;
     }
@@ -255,41 +519,90 @@ public abstract class AbstractValidatingSessionManager extends AbstractNativeSes
 
     public void destroy() {
         disableSessionValidation();
+        ThreadPoolExecutor pool;
+        synchronized (this) {
+            pool = this.sessionValidationExecutor;
+            this.sessionValidationExecutor = null;
+        }
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    private synchronized ThreadPoolExecutor getRequiredSessionValidationExecutor() {
+        if (this.sessionValidationExecutor == null) {
+            this.sessionValidationExecutor = createSessionValidationExecutor(this.sessionValidationThreads);
+        }
+        return this.sessionValidationExecutor;
+    }
+
+    /**
+     * Creates the pool of worker threads used to {@link #setSessionValidationThreads(int) validate sessions in
+     * parallel}.  It is created on first use and {@link ThreadPoolExecutor#shutdown() shut down} in
+     * {@link #destroy()}.
+     *
+     * @param threads the number of worker threads
+     * @return the pool of worker threads used to validate sessions in parallel
+     * @since 1.3
+     */
+    protected ThreadPoolExecutor createSessionValidationExecutor(int threads) {
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "shiro-session-validation-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
     }
 
     /**
      * @see ValidatingSessionManager#validateSessions()
      */
     public void validateSessions() {
+        long start = System.currentTimeMillis();
+        SessionExpiryIndex index = getSessionExpiryIndex();
+        boolean indexed = index != null && this.sessionExpiryIndexPopulated;
+
         if (log.isInfoEnabled()) {
-            log.info("Validating all active sessions...");
+            log.info(indexed ? "Validating sessions projected to have expired..." : "Validating all active sessions...");
         }
 
-        int invalidCount = 0;
+        //either session ids (if indexed) or sessions:
+        Collection<?> work;
+        if (indexed) {
+            work = index.removeDue(start);
+        } else {
+            Collection<Session> activeSessions = getActiveSessions();
+            work = activeSessions != null ? activeSessions : new ArrayList<Session>(0);
+        }
 
-        Collection<Session> activeSessions = getActiveSessions();
+        ValidationRun run = new ValidationRun(index, indexed, start, getMaxSessionInvalidationsPerSecond());
+        int threads = getSessionValidationThreads();
+        int batchSize = getSessionValidationBatchSize();
+        if (threads > 1 && work.size() > batchSize) {
+            validateInParallel(run, work, batchSize);
+        } else {
+            run.validate(work);
+        }
 
-        if (activeSessions != null && !activeSessions.isEmpty()) {
-            for (Session s : activeSessions) {
-                try {
-                    //simulate a lookup key to satisfy the method signature.
-                    //this could probably stand to be cleaned up in future versions:
-                    SessionKey key = new DefaultSessionKey(s.getId());
-                    validate(s, key);
-                } catch (InvalidSessionException e) {
-                    if (log.isDebugEnabled()) {
-                        boolean expired = (e instanceof ExpiredSessionException);
-                        String msg = "Invalidated session with id [" + s.getId() + "]" +
-                                (expired ? " (expired)" : " (stopped)");
-                        log.debug(msg);
-                    }
-                    invalidCount++;
-                }
-            }
+        if (!indexed && index != null) {
+            this.sessionExpiryIndexPopulated = true;
         }
 
+        int sessionCount = run.sessionCount.get();
+        int invalidCount = run.invalidCount.get();
+        long duration = System.currentTimeMillis() - start;
+        this.validationCount++;
+        this.lastValidationDuration = duration;
+        this.lastValidationSessionCount = sessionCount;
+        this.lastValidationInvalidCount = invalidCount;
+        this.totalValidationInvalidCount += invalidCount;
+
         if (log.isInfoEnabled()) {
-            String msg = "Finished session validation.";
+            String msg = "Finished session validation of [" + sessionCount + "] sessions in " + duration + " ms.";
             if (invalidCount > 0) {
                 msg += "  [" + invalidCount + "] sessions were stopped.";
             } else {
@@ -299,5 +612,235 @@ public abstract class AbstractValidatingSessionManager extends AbstractNativeSes
         }
     }
 
+    /**
+     * Partitions the work into batches and validates them using the
+     * {@link #createSessionValidationExecutor(int) session validation pool}.  The sessions of a batch that fails, or
+     * that is cancelled before it starts because the calling thread is interrupted, are requeued so that the next run
+     * validates them.
+     *
+     * @param run       the validation run the batches belong to, which counts the validated sessions and requeues
+     *                  the ones that were not validated
+     * @param work      the sessions or session ids to validate
+     * @param batchSize the maximum number of sessions per batch
+     */
+    private void validateInParallel(ValidationRun run, Collection<?> work, int batchSize) {
+        List<Object> all = new ArrayList<Object>(work);
+        ThreadPoolExecutor executor = getRequiredSessionValidationExecutor();
+        List<ValidationBatch> batches = new ArrayList<ValidationBatch>();
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (int i = 0; i < all.size(); i += batchSize) {
+            ValidationBatch batch = new ValidationBatch(run, all.subList(i, Math.min(i + batchSize, all.size())));
+            try {
+                futures.add(executor.submit(batch));
+                batches.add(batch);
+            } catch (RejectedExecutionException e) {
+                //the pool is shutting down:
+                batch.run();
+            }
+        }
+        int i = 0;
+        try {
+            for (; i < futures.size(); i++) {
+                try {
+                    futures.get(i).get();
+                } catch (ExecutionException e) {
+                    log.warn("Unable to validate a batch of sessions.  They will be validated again by the next run.",
+                            e.getCause());
+                    run.requeue(batches.get(i).work);
+                }
+            }
+        } catch (InterruptedException e) {
+            log.debug("Interrupted while validating sessions in parallel.  Stopping validation.");
+            for (; i < futures.size(); i++) {
+                //a running batch requeues the sessions it does not reach once interrupted:
+                if (futures.get(i).cancel(true) && !batches.get(i).started) {
+                    run.requeue(batches.get(i).work);
+                }
+            }
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A batch of sessions validated by a single worker thread as part of a {@link ValidationRun}.
+     */
+    private static final class ValidationBatch implements Runnable {
+
+        private final ValidationRun run;
+        private final Collection<?> work;
+        private volatile boolean started;
+
+        private ValidationBatch(ValidationRun run, Collection<?> work) {
+            this.run = run;
+            this.work = work;
+        }
+
+        public void run() {
+            this.started = true;
+            run.validate(work);
+        }
+    }
+
+    /**
+     * Validates the specified session as part of {@link #validateSessions()}, re-indexing it if it is still valid.
+     *
+     * @param s   the session to validate
+     * @param key the key identifying the session
+     * @return {@code true} if the session is still valid, {@code false} if it was found to be invalid.
+     */
+    private boolean validateActiveSession(Session s, SessionKey key) {
+        try {
+            validate(s, key);
+            updateSessionExpiryIndex(s);
+            return true;
+        } catch (InvalidSessionException e) {
+            if (log.isDebugEnabled()) {
+                boolean expired = (e instanceof ExpiredSessionException);
+                String msg = "Invalidated session with id [" + s.getId() + "]" +
+                        (expired ? " (expired)" : " (stopped)");
+                log.debug(msg);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The state of a single {@link #validateSessions()} run, shared by all threads participating in it.
+     */
+    private final class ValidationRun {
+
+        private final SessionExpiryIndex index;
+        private final boolean indexed;
+        /**
+         * The projected expiry time under which sessions that could not be validated are re-indexed.
+         */
+        private final long requeueTime;
+        private final AtomicInteger sessionCount = new AtomicInteger();
+        private final AtomicInteger invalidCount = new AtomicInteger();
+
+        /**
+         * Minimum number of nanoseconds between invalidations, or zero for no limit.
+         */
+        private final long invalidationInterval;
+        private long nextInvalidationTime;
+
+        private ValidationRun(SessionExpiryIndex index, boolean indexed, long requeueTime,
+                              int maxInvalidationsPerSecond) {
+            this.index = index;
+            this.indexed = indexed;
+            this.requeueTime = requeueTime;
+            this.invalidationInterval = maxInvalidationsPerSecond > 0 ? 1000000000L / maxInvalidationsPerSecond : 0;
+            this.nextInvalidationTime = System.nanoTime();
+        }
+
+        /**
+         * Validates the specified sessions, or the sessions identified by the specified ids if this run is
+         * {@code indexed}.  Sessions that can not be validated, or are not reached because the calling thread is
+         * interrupted, are {@link #requeue(Object) requeued}.
+         *
+         * @param work the sessions or session ids to validate
+         */
+        private void validate(Collection<?> work) {
+            Iterator<?> iterator = work.iterator();
+            while (iterator.hasNext()) {
+                Object item = iterator.next();
+                if (Thread.currentThread().isInterrupted()) {
+                    requeue(item);
+                    while (iterator.hasNext()) {
+                        requeue(iterator.next());
+                    }
+                    return;
+                }
+                try {
+                    validate(item);
+                } catch (RuntimeException e) {
+                    log.warn("Unable to validate session [" + item + "].  It will be validated again by the next run.", e);
+                    requeue(item);
+                }
+            }
+        }
+
+        /**
+         * Validates a single session, or the session identified by the specified id if this run is {@code indexed}.
+         *
+         * @param item the session or session id to validate
+         */
+        private void validate(Object item) {
+            Session s;
+            SessionKey key;
+            if (indexed) {
+                key = new DefaultSessionKey((Serializable) item);
+                try {
+                    s = retrieveSession(key);
+                } catch (UnknownSessionException e) {
+                    log.trace("Indexed session with id [{}] no longer exists.", item);
+                    return;
+                }
+                if (s == null) {
+                    return;
+                }
+            } else {
+                s = (Session) item;
+                //simulate a lookup key to satisfy the method signature.
+                //this could probably stand to be cleaned up in future versions:
+                key = new DefaultSessionKey(s.getId());
+            }
+            sessionCount.incrementAndGet();
+            if (!validateActiveSession(s, key)) {
+                invalidCount.incrementAndGet();
+                throttle();
+            }
+        }
+
+        /**
+         * {@link #requeue(Object) Requeues} each of the specified sessions or session ids.
+         *
+         * @param work the sessions or session ids that were not validated
+         */
+        private void requeue(Collection<?> work) {
+            for (Object item : work) {
+                requeue(item);
+            }
+        }
+
+        /**
+         * Puts the specified session or session id (back) into the index, if there is one, so that the next run
+         * validates it.
+         *
+         * @param item the session or session id that was not validated
+         */
+        private void requeue(Object item) {
+            if (index == null) {
+                return;
+            }
+            Serializable sessionId = indexed ? (Serializable) item : ((Session) item).getId();
+            if (sessionId != null) {
+                index.put(sessionId, requeueTime);
+            }
+        }
+
+        /**
+         * Blocks the calling thread as necessary to keep invalidations within the configured rate.
+         */
+        private void throttle() {
+            if (invalidationInterval <= 0) {
+                return;
+            }
+            long wait;
+            synchronized (this) {
+                long now = System.nanoTime();
+                wait = nextInvalidationTime - now;
+                nextInvalidationTime = Math.max(nextInvalidationTime, now) + invalidationInterval;
+            }
+            if (wait > 0) {
+                try {
+                    Thread.sleep(wait / 1000000L, (int) (wait % 1000000L));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
     protected abstract Collection<Session> getActiveSessions();
 }
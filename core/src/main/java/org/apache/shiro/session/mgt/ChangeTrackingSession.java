@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.session.mgt;
+
+import org.apache.shiro.session.Session;
+
+/**
+ * A {@code ChangeTrackingSession} is a {@code Session} that records which of its fields and attributes have changed
+ * since it was last persisted, allowing a {@link org.apache.shiro.session.mgt.eis.SessionDAO SessionDAO} to write
+ * only what has changed instead of the entire session.
+ * <p/>
+ * Changes are recorded when the session's mutator methods are called.  Changes made to an attribute value object
+ * <em>in place</em> (for example, adding an element to a collection stored as an attribute) can not be detected; the
+ * attribute must be set again via {@link #setAttribute(Object, Object) setAttribute} for the change to be recorded.
+ *
+ * @see org.apache.shiro.session.mgt.eis.CachingSessionDAO#doUpdate(Session, SessionChanges)
+ * @since 1.3
+ */
+public interface ChangeTrackingSession extends Session {
+
+    /**
+     * Returns {@code true} if any field or attribute has changed since the session was last
+     * {@link #clearChanges() persisted}, {@code false} otherwise.
+     *
+     * @return {@code true} if any field or attribute has changed since the session was last persisted, {@code false}
+     *         otherwise.
+     */
+    boolean isDirty();
+
+    /**
+     * Returns an immutable snapshot of the changes made since the session was last {@link #clearChanges() persisted}.
+     *
+     * @return an immutable snapshot of the changes made since the session was last persisted.
+     */
+    SessionChanges getChanges();
+
+    /**
+     * Discards all recorded changes, typically called by a {@code SessionDAO} once the session has been persisted.
+     */
+    void clearChanges();
+
+    /**
+     * Atomically returns a snapshot of the changes made since the session was last persisted and discards them, so
+     * that a change recorded concurrently is either part of the returned snapshot or remains recorded for the next
+     * write - it is never lost between a {@link #getChanges()} and a subsequent {@link #clearChanges()} call.
+     *
+     * @return an immutable snapshot of the changes made since the session was last persisted.
+     */
+    SessionChanges drainChanges();
+}
@@ -22,6 +22,7 @@ import org.apache.shiro.cache.CacheManager;
 import org.apache.shiro.cache.CacheManagerAware;
 import org.apache.shiro.session.Session;
 import org.apache.shiro.session.UnknownSessionException;
+import org.apache.shiro.session.mgt.eis.CachingSessionDAO;
 import org.apache.shiro.session.mgt.eis.MemorySessionDAO;
 import org.apache.shiro.session.mgt.eis.SessionDAO;
 import org.slf4j.Logger;
@@ -31,10 +32,35 @@ import java.io.Serializable;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Default business-tier implementation of a {@link ValidatingSessionManager}.  All session CRUD operations are
  * delegated to an internal {@link SessionDAO}.
+ * <h3>Coalescing session touches</h3>
+ * By default every {@link #touch(SessionKey) touch} (typically one per request) results in a
+ * {@link SessionDAO#update(Session) SessionDAO.update} call.  For {@code SessionDAO}s backed by a remote data store
+ * this can be the dominant cost of session management.  If a
+ * {@link #setLastAccessTimeGranularity(long) lastAccessTimeGranularity} is configured, a touch is only persisted once
+ * the session's last access time has moved by at least that many milliseconds since it was last persisted; more
+ * recent touches are remembered by this manager and:
+ * <ul>
+ * <li>applied to {@link SimpleSession SimpleSession}s as they are retrieved from the {@code SessionDAO}, so session
+ * expiration as determined by this manager is unaffected, and</li>
+ * <li>flushed to the {@code SessionDAO} in a batch whenever {@link #validateSessions() validateSessions} runs, when
+ * any other change to the session is persisted, and when this manager is {@link #destroy() destroyed}.</li>
+ * </ul>
+ * Other processes reading the same data store (e.g. other cluster nodes) may therefore see a last access time that is
+ * up to {@code lastAccessTimeGranularity} old (or older, until the next flush), so the granularity should be
+ * small compared to the session timeout.
+ * <p/>
+ * A flush persists nothing but the last access time if the {@code SessionDAO} is a {@link CachingSessionDAO}
+ * implementing {@link CachingSessionDAO#updateLastAccessTime(Session) delta updates}, so it never overwrites changes
+ * made to the session (possibly on another node) after the session was read for the flush.  Other
+ * {@code SessionDAO}s are passed the entire session, which is only safe if they return the live session instance
+ * (as the {@link MemorySessionDAO} does) rather than a copy.
  *
  * @since 0.1
  */
@@ -52,7 +78,15 @@ public class DefaultSessionManager extends AbstractValidatingSessionManager impl
 
     private boolean deleteInvalidSessions;
 
+    private long lastAccessTimeGranularity;
+
+    /**
+     * Touches that have not yet been persisted, keyed by session id.
+     */
+    private final ConcurrentMap<Serializable, PendingTouch> pendingTouches;
+
     public DefaultSessionManager() {
+        this.pendingTouches = new ConcurrentHashMap<Serializable, PendingTouch>();
         this.deleteInvalidSessions = true;
         this.sessionFactory = new SimpleSessionFactory();
         this.sessionDAO = new MemorySessionDAO();
@@ -128,6 +162,32 @@ public class DefaultSessionManager extends AbstractValidatingSessionManager impl
         this.deleteInvalidSessions = deleteInvalidSessions;
     }
 
+    /**
+     * Returns the number of milliseconds a session's last access time must have moved since it was last persisted
+     * before a {@link #touch(SessionKey) touch} is persisted via the {@code SessionDAO}, or zero (the default) if
+     * every touch is persisted immediately.  See the class-level JavaDoc for details.
+     *
+     * @return the number of milliseconds a session's last access time must have moved since it was last persisted
+     *         before a touch is persisted, or zero if every touch is persisted immediately.
+     * @since 1.3
+     */
+    public long getLastAccessTimeGranularity() {
+        return lastAccessTimeGranularity;
+    }
+
+    /**
+     * Sets the number of milliseconds a session's last access time must have moved since it was last persisted
+     * before a {@link #touch(SessionKey) touch} is persisted via the {@code SessionDAO}.  Zero (the default) or less
+     * persists every touch immediately.  See the class-level JavaDoc for details.
+     *
+     * @param lastAccessTimeGranularity the number of milliseconds a session's last access time must have moved since
+     *                                  it was last persisted before a touch is persisted.
+     * @since 1.3
+     */
+    public void setLastAccessTimeGranularity(long lastAccessTimeGranularity) {
+        this.lastAccessTimeGranularity = lastAccessTimeGranularity;
+    }
+
     public void setCacheManager(CacheManager cacheManager) {
         this.cacheManager = cacheManager;
         applyCacheManagerToSessionDAO();
@@ -209,7 +269,130 @@ public class DefaultSessionManager extends AbstractValidatingSessionManager impl
     }
 
     protected void onChange(Session session) {
+        //the full session state, including its latest access time, is about to be persisted:
+        pendingTouches.remove(session.getId());
         sessionDAO.update(session);
+        updateSessionExpiryIndex(session);
+    }
+
+    /**
+     * Persists the touch via {@link #onChange(Session) onChange} unless a
+     * {@link #setLastAccessTimeGranularity(long) lastAccessTimeGranularity} is configured and the session's last
+     * access time has moved less than that since it was last persisted, in which case the touch is remembered and
+     * persisted later.
+     *
+     * @param session                the session that was touched
+     * @param previousLastAccessTime the session's last access time before it was touched
+     * @since 1.3
+     */
+    @Override
+    protected void onTouch(Session session, Date previousLastAccessTime) {
+        long granularity = getLastAccessTimeGranularity();
+        Serializable sessionId = session.getId();
+        Date lastAccessTime = session.getLastAccessTime();
+        if (granularity <= 0 || !(session instanceof SimpleSession) || sessionId == null || lastAccessTime == null) {
+            onChange(session);
+            return;
+        }
+        PendingTouch pending = pendingTouches.get(sessionId);
+        Date persisted = pending != null ? pending.persisted : previousLastAccessTime;
+        if (persisted == null || lastAccessTime.getTime() - persisted.getTime() >= granularity) {
+            onChange(session);
+        } else {
+            if (pending != null) {
+                pending.lastAccessTime = lastAccessTime;
+            } else {
+                pendingTouches.put(sessionId, new PendingTouch(persisted, lastAccessTime));
+            }
+            updateSessionExpiryIndex(session);
+        }
+    }
+
+    /**
+     * Applies any touch that has not yet been persisted to the specified session, if it is a {@code SimpleSession}
+     * with an older last access time.
+     *
+     * @param session the session retrieved from the {@code SessionDAO}
+     */
+    private void applyPendingTouch(Session session) {
+        PendingTouch pending = pendingTouches.get(session.getId());
+        if (pending != null && session instanceof SimpleSession) {
+            SimpleSession ss = (SimpleSession) session;
+            Date lastAccessTime = pending.lastAccessTime;
+            if (ss.getLastAccessTime() == null || ss.getLastAccessTime().before(lastAccessTime)) {
+                ss.setLastAccessTime(lastAccessTime);
+            }
+        }
+    }
+
+    /**
+     * Persists all touches that have been coalesced because of a configured
+     * {@link #setLastAccessTimeGranularity(long) lastAccessTimeGranularity}.  This is called automatically before
+     * {@link #validateSessions() validating sessions} and when this manager is {@link #destroy() destroyed}, but may
+     * also be called at any time, for example from a scheduled job, to bound how stale persisted last access times
+     * can be.
+     *
+     * @return the number of sessions updated.
+     * @since 1.3
+     */
+    public int flushPendingTouches() {
+        int flushed = 0;
+        for (Map.Entry<Serializable, PendingTouch> entry : pendingTouches.entrySet()) {
+            Serializable sessionId = entry.getKey();
+            if (!pendingTouches.remove(sessionId, entry.getValue())) {
+                //touched or persisted concurrently - leave it to that thread
+                continue;
+            }
+            Session session;
+            try {
+                session = retrieveSessionFromDataSource(sessionId);
+            } catch (UnknownSessionException e) {
+                continue;
+            }
+            if (session instanceof SimpleSession) {
+                SimpleSession ss = (SimpleSession) session;
+                Date lastAccessTime = entry.getValue().lastAccessTime;
+                //a live session instance can be touched concurrently by a request thread:
+                synchronized (ss) {
+                    if (ss.getLastAccessTime() != null && !ss.getLastAccessTime().before(lastAccessTime)) {
+                        continue;
+                    }
+                    ss.setLastAccessTime(lastAccessTime);
+                }
+                persistLastAccessTime(ss);
+                flushed++;
+            }
+        }
+        if (flushed > 0) {
+            log.debug("Persisted {} coalesced session touches.", flushed);
+        }
+        return flushed;
+    }
+
+    /**
+     * Persists the last access time of a session whose touch was coalesced, only writing the last access time if the
+     * {@code SessionDAO} supports it.
+     *
+     * @param session the session whose last access time will be persisted.
+     */
+    private void persistLastAccessTime(Session session) {
+        if (sessionDAO instanceof CachingSessionDAO) {
+            ((CachingSessionDAO) sessionDAO).updateLastAccessTime(session);
+        } else {
+            sessionDAO.update(session);
+        }
+    }
+
+    @Override
+    public void validateSessions() {
+        flushPendingTouches();
+        super.validateSessions();
+    }
+
+    @Override
+    public void destroy() {
+        super.destroy();
+        flushPendingTouches();
     }
 
     protected Session retrieveSession(SessionKey sessionKey) throws UnknownSessionException {
@@ -225,6 +408,7 @@ public class DefaultSessionManager extends AbstractValidatingSessionManager impl
             String msg = "Could not find session with ID [" + sessionId + "]";
             throw new UnknownSessionException(msg);
         }
+        applyPendingTouch(s);
         return s;
     }
 
@@ -237,6 +421,11 @@ public class DefaultSessionManager extends AbstractValidatingSessionManager impl
     }
 
     protected void delete(Session session) {
+        pendingTouches.remove(session.getId());
+        SessionExpiryIndex index = getSessionExpiryIndex();
+        if (index != null && session.getId() != null) {
+            index.remove(session.getId());
+        }
         sessionDAO.delete(session);
     }
 
@@ -245,4 +434,21 @@ public class DefaultSessionManager extends AbstractValidatingSessionManager impl
         return active != null ? active : Collections.<Session>emptySet();
     }
 
+    /**
+     * A touch that has not yet been persisted.
+     */
+    private static final class PendingTouch {
+
+        /**
+         * The session's last access time as last persisted.
+         */
+        private final Date persisted;
+        private volatile Date lastAccessTime;
+
+        private PendingTouch(Date persisted, Date lastAccessTime) {
+            this.persisted = persisted;
+            this.lastAccessTime = lastAccessTime;
+        }
+    }
+
 }
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.session.mgt;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable snapshot of the changes made to a {@link ChangeTrackingSession ChangeTrackingSession} since it was
+ * last persisted.
+ * <p/>
+ * A {@code SessionDAO} may use this to write only the changed {@link #getChangedFields() fields} and
+ * {@link #getChangedAttributes() attributes}.  If {@link #isAttributesReplaced() attributesReplaced} is {@code true},
+ * the session's entire attribute map was replaced and all attributes must be written.
+ *
+ * @since 1.3
+ */
+public final class SessionChanges {
+
+    /**
+     * The session fields whose changes are tracked individually.
+     */
+    public enum Field {
+        START_TIMESTAMP, STOP_TIMESTAMP, LAST_ACCESS_TIME, TIMEOUT, EXPIRED, HOST
+    }
+
+    private final Set<Field> changedFields;
+    private final boolean attributesReplaced;
+    private final Map<Object, Object> changedAttributes;
+    private final Set<Object> removedAttributeKeys;
+
+    /**
+     * Creates a new instance.  The arguments are not copied and must not be modified afterwards.
+     *
+     * @param changedFields        the fields that have changed
+     * @param attributesReplaced   whether or not the entire attribute map was replaced
+     * @param changedAttributes    the attributes that were set, keyed by attribute key, with their current values
+     * @param removedAttributeKeys the keys of the attributes that were removed
+     */
+    public SessionChanges(Set<Field> changedFields, boolean attributesReplaced,
+                          Map<Object, Object> changedAttributes, Set<Object> removedAttributeKeys) {
+        this.changedFields = changedFields != null ?
+                Collections.unmodifiableSet(changedFields) : Collections.unmodifiableSet(EnumSet.noneOf(Field.class));
+        this.attributesReplaced = attributesReplaced;
+        this.changedAttributes = changedAttributes != null ?
+                Collections.unmodifiableMap(changedAttributes) : Collections.<Object, Object>emptyMap();
+        this.removedAttributeKeys = removedAttributeKeys != null ?
+                Collections.unmodifiableSet(removedAttributeKeys) : Collections.emptySet();
+    }
+
+    /**
+     * Returns the session fields that have changed.
+     *
+     * @return the session fields that have changed.
+     */
+    public Set<Field> getChangedFields() {
+        return changedFields;
+    }
+
+    /**
+     * Returns {@code true} if the specified field has changed, {@code false} otherwise.
+     *
+     * @param field the field to check
+     * @return {@code true} if the specified field has changed, {@code false} otherwise.
+     */
+    public boolean isChanged(Field field) {
+        return changedFields.contains(field);
+    }
+
+    /**
+     * Returns {@code true} if the session's entire attribute map was replaced, in which case all attributes must be
+     * written and {@link #getChangedAttributes() changedAttributes} and
+     * {@link #getRemovedAttributeKeys() removedAttributeKeys} are insufficient.
+     *
+     * @return {@code true} if the session's entire attribute map was replaced, {@code false} otherwise.
+     */
+    public boolean isAttributesReplaced() {
+        return attributesReplaced;
+    }
+
+    /**
+     * Returns the attributes that were set, keyed by attribute key, with their current values.
+     *
+     * @return the attributes that were set, keyed by attribute key, with their current values.
+     */
+    public Map<Object, Object> getChangedAttributes() {
+        return changedAttributes;
+    }
+
+    /**
+     * Returns the keys of the attributes that were removed.
+     *
+     * @return the keys of the attributes that were removed.
+     */
+    public Set<Object> getRemovedAttributeKeys() {
+        return removedAttributeKeys;
+    }
+
+    /**
+     * Returns {@code true} if no field or attribute has changed, {@code false} otherwise.
+     *
+     * @return {@code true} if no field or attribute has changed, {@code false} otherwise.
+     */
+    public boolean isEmpty() {
+        return changedFields.isEmpty() && !attributesReplaced &&
+                changedAttributes.isEmpty() && removedAttributeKeys.isEmpty();
+    }
+
+    /**
+     * Returns {@code true} if the only change is to the session's last access time, as is the case for a session that
+     * has merely been {@link org.apache.shiro.session.Session#touch() touched}, {@code false} otherwise.
+     *
+     * @return {@code true} if the only change is to the session's last access time, {@code false} otherwise.
+     */
+    public boolean isLastAccessTimeOnly() {
+        return changedFields.size() == 1 && changedFields.contains(Field.LAST_ACCESS_TIME) && !attributesReplaced &&
+                changedAttributes.isEmpty() && removedAttributeKeys.isEmpty();
+    }
+
+    public String toString() {
+        return "SessionChanges[fields=" + changedFields + ", attributesReplaced=" + attributesReplaced +
+                ", changedAttributes=" + changedAttributes.keySet() + ", removedAttributes=" + removedAttributeKeys +
+                "]";
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.session.mgt;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An index of session ids by the time at which each session is projected to expire, allowing an
+ * {@link AbstractValidatingSessionManager AbstractValidatingSessionManager} to
+ * {@link AbstractValidatingSessionManager#validateSessions() validate} only the sessions that can actually have
+ * expired instead of every active session.
+ * <p/>
+ * Projected expiry times are grouped into buckets of {@link #setBucketDuration(long) bucketDuration} milliseconds.
+ * Re-indexing a session whose projected expiry time stays in the same bucket (e.g. a session touched repeatedly within
+ * a minute, with the default bucket duration) is a single lock-free map lookup; only moving a session to a different
+ * bucket acquires a short-held lock.
+ * <p/>
+ * The index is advisory: a session returned by {@link #removeDue(long) removeDue} has merely been projected to have
+ * expired and must still be validated, and is expected to be re-indexed if it turns out to still be valid (for
+ * example, because it was accessed on another node in a cluster).
+ *
+ * @see AbstractValidatingSessionManager#setSessionExpiryIndex(SessionExpiryIndex)
+ * @since 1.3
+ */
+public class SessionExpiryIndex {
+
+    /**
+     * The default bucket duration, equal to one minute.
+     */
+    public static final long DEFAULT_BUCKET_DURATION = 60 * 1000;
+
+    private long bucketDuration = DEFAULT_BUCKET_DURATION;
+
+    private final ConcurrentMap<Serializable, Long> bucketsBySessionId;
+    /**
+     * Session ids keyed by bucket, only accessed while holding the {@code lock}.
+     */
+    private final TreeMap<Long, Set<Serializable>> buckets;
+    private final Lock lock;
+
+    public SessionExpiryIndex() {
+        this.bucketsBySessionId = new ConcurrentHashMap<Serializable, Long>();
+        this.buckets = new TreeMap<Long, Set<Serializable>>();
+        this.lock = new ReentrantLock();
+    }
+
+    /**
+     * Returns the width, in milliseconds, of the buckets projected expiry times are grouped into.  Defaults to
+     * {@link #DEFAULT_BUCKET_DURATION}.
+     *
+     * @return the width, in milliseconds, of the buckets projected expiry times are grouped into.
+     */
+    public long getBucketDuration() {
+        return bucketDuration;
+    }
+
+    /**
+     * Sets the width, in milliseconds, of the buckets projected expiry times are grouped into.  Larger buckets make
+     * re-indexing frequently accessed sessions cheaper, at the cost of a validation run visiting sessions that expire
+     * up to one bucket later than necessary.  This should only be set before the index is used.
+     *
+     * @param bucketDuration the width, in milliseconds, of the buckets projected expiry times are grouped into.
+     */
+    public void setBucketDuration(long bucketDuration) {
+        if (bucketDuration <= 0) {
+            throw new IllegalArgumentException("bucketDuration must be greater than zero.");
+        }
+        this.bucketDuration = bucketDuration;
+    }
+
+    private long getBucket(long time) {
+        return time / this.bucketDuration;
+    }
+
+    /**
+     * Indexes (or re-indexes) the specified session under its projected expiry time.
+     *
+     * @param sessionId  the id of the session to index
+     * @param expiryTime the time, in milliseconds since the epoch, at which the session is projected to expire.
+     */
+    public void put(Serializable sessionId, long expiryTime) {
+        Long bucket = getBucket(expiryTime);
+        if (bucket.equals(this.bucketsBySessionId.get(sessionId))) {
+            //already indexed in the right bucket:
+            return;
+        }
+        lock.lock();
+        try {
+            Long previous = this.bucketsBySessionId.put(sessionId, bucket);
+            if (previous != null) {
+                removeFromBucket(previous, sessionId);
+            }
+            Set<Serializable> ids = this.buckets.get(bucket);
+            if (ids == null) {
+                ids = new HashSet<Serializable>();
+                this.buckets.put(bucket, ids);
+            }
+            ids.add(sessionId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void removeFromBucket(Long bucket, Serializable sessionId) {
+        Set<Serializable> ids = this.buckets.get(bucket);
+        if (ids != null) {
+            ids.remove(sessionId);
+            if (ids.isEmpty()) {
+                this.buckets.remove(bucket);
+            }
+        }
+    }
+
+    /**
+     * Removes the specified session from the index, if present.
+     *
+     * @param sessionId the id of the session to remove.
+     */
+    public void remove(Serializable sessionId) {
+        if (!this.bucketsBySessionId.containsKey(sessionId)) {
+            return;
+        }
+        lock.lock();
+        try {
+            Long bucket = this.bucketsBySessionId.remove(sessionId);
+            if (bucket != null) {
+                removeFromBucket(bucket, sessionId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes and returns the ids of all sessions projected to expire at or before the specified time (rounded up to
+     * the end of its bucket).
+     *
+     * @param now the current time in milliseconds since the epoch
+     * @return the ids of all sessions projected to expire at or before the specified time, never {@code null}.
+     */
+    public Collection<Serializable> removeDue(long now) {
+        lock.lock();
+        try {
+            SortedMap<Long, Set<Serializable>> due = this.buckets.headMap(getBucket(now) + 1);
+            if (due.isEmpty()) {
+                return Collections.emptyList();
+            }
+            List<Serializable> sessionIds = new ArrayList<Serializable>();
+            for (Map.Entry<Long, Set<Serializable>> entry : due.entrySet()) {
+                for (Serializable sessionId : entry.getValue()) {
+                    this.bucketsBySessionId.remove(sessionId, entry.getKey());
+                    sessionIds.add(sessionId);
+                }
+            }
+            due.clear();
+            return sessionIds;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of indexed sessions.
+     *
+     * @return the number of indexed sessions.
+     */
+    public int size() {
+        return this.bucketsBySessionId.size();
+    }
+
+    /**
+     * Removes all sessions from the index.
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            this.bucketsBySessionId.clear();
+            this.buckets.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -36,10 +36,13 @@ import java.util.*;
 /**
  * Simple {@link org.apache.shiro.session.Session} JavaBeans-compatible POJO implementation, intended to be used on the
  * business/server tier.
+ * <p/>
+ * As of 1.3, instances are also {@link ChangeTrackingSession ChangeTrackingSession}s: each mutator records the changed
+ * field or attribute so a {@code SessionDAO} may persist only what changed.  Recorded changes are not serialized.
  *
  * @since 0.1
  */
-public class SimpleSession implements ValidatingSession, Serializable {
+public class SimpleSession implements ValidatingSession, ChangeTrackingSession, Serializable {
 
     // Serialization reminder:
     // You _MUST_ change this number if you introduce a change to this class
@@ -92,6 +95,10 @@ public class SimpleSession implements ValidatingSession, Serializable {
     private transient String host;
     private transient Map<Object, Object> attributes;
 
+    //change tracking state - intentionally not serialized:
+    private transient int dirtyFields; //uses the serialization bitmask constants above
+    private transient Set<Object> changedAttributeKeys;
+
     public SimpleSession() {
         this.timeout = DefaultSessionManager.DEFAULT_GLOBAL_SESSION_TIMEOUT; //TODO - remove concrete reference to DefaultSessionManager
         this.startTimestamp = new Date();
@@ -117,6 +124,7 @@ public class SimpleSession implements ValidatingSession, Serializable {
 
     public void setStartTimestamp(Date startTimestamp) {
         this.startTimestamp = startTimestamp;
+        markDirty(START_TIMESTAMP_BIT_MASK);
     }
 
     /**
@@ -142,6 +150,7 @@ public class SimpleSession implements ValidatingSession, Serializable {
 
     public void setStopTimestamp(Date stopTimestamp) {
         this.stopTimestamp = stopTimestamp;
+        markDirty(STOP_TIMESTAMP_BIT_MASK);
     }
 
     public Date getLastAccessTime() {
@@ -150,6 +159,7 @@ public class SimpleSession implements ValidatingSession, Serializable {
 
     public void setLastAccessTime(Date lastAccessTime) {
         this.lastAccessTime = lastAccessTime;
+        markDirty(LAST_ACCESS_TIME_BIT_MASK);
     }
 
     /**
@@ -164,6 +174,7 @@ public class SimpleSession implements ValidatingSession, Serializable {
 
     public void setExpired(boolean expired) {
         this.expired = expired;
+        markDirty(EXPIRED_BIT_MASK);
     }
 
     public long getTimeout() {
@@ -172,6 +183,7 @@ public class SimpleSession implements ValidatingSession, Serializable {
 
     public void setTimeout(long timeout) {
         this.timeout = timeout;
+        markDirty(TIMEOUT_BIT_MASK);
     }
 
     public String getHost() {
@@ -180,6 +192,7 @@ public class SimpleSession implements ValidatingSession, Serializable {
 
     public void setHost(String host) {
         this.host = host;
+        markDirty(HOST_BIT_MASK);
     }
 
     public Map<Object, Object> getAttributes() {
@@ -188,15 +201,20 @@ public class SimpleSession implements ValidatingSession, Serializable {
 
     public void setAttributes(Map<Object, Object> attributes) {
         this.attributes = attributes;
+        markDirty(ATTRIBUTES_BIT_MASK);
     }
 
-    public void touch() {
+    //synchronized so that a flush of coalesced touches, which compares and sets the last access time while holding
+    //this session's monitor, never moves it backwards (see DefaultSessionManager#flushPendingTouches):
+    public synchronized void touch() {
         this.lastAccessTime = new Date();
+        markDirty(LAST_ACCESS_TIME_BIT_MASK);
     }
 
     public void stop() {
         if (this.stopTimestamp == null) {
             this.stopTimestamp = new Date();
+            markDirty(STOP_TIMESTAMP_BIT_MASK);
         }
     }
 
@@ -207,6 +225,7 @@ public class SimpleSession implements ValidatingSession, Serializable {
     protected void expire() {
         stop();
         this.expired = true;
+        markDirty(EXPIRED_BIT_MASK);
     }
 
     /**
@@ -297,7 +316,14 @@ public class SimpleSession implements ValidatingSession, Serializable {
         Map<Object, Object> attributes = getAttributes();
         if (attributes == null) {
             attributes = new HashMap<Object, Object>();
-            setAttributes(attributes);
+            synchronized (this) {
+                boolean replaced = (dirtyFields & ATTRIBUTES_BIT_MASK) != 0;
+                setAttributes(attributes);
+                if (!replaced) {
+                    //lazily creating the (empty) map is not a change that needs to be persisted:
+                    dirtyFields &= ~ATTRIBUTES_BIT_MASK;
+                }
+            }
         }
         return attributes;
     }
@@ -322,7 +348,10 @@ public class SimpleSession implements ValidatingSession, Serializable {
         if (value == null) {
             removeAttribute(key);
         } else {
-            getAttributesLazy().put(key, value);
+            synchronized (this) {
+                getAttributesLazy().put(key, value);
+                attributeChanged(key);
+            }
         }
     }
 
@@ -331,8 +360,101 @@ public class SimpleSession implements ValidatingSession, Serializable {
         if (attributes == null) {
             return null;
         } else {
-            return attributes.remove(key);
+            synchronized (this) {
+                Object removed = attributes.remove(key);
+                if (removed != null) {
+                    attributeChanged(key);
+                }
+                return removed;
+            }
+        }
+    }
+
+    /*
+     * Change tracking state is guarded by this session's monitor so that a concurrent drainChanges() never observes
+     * (or discards) a partially recorded change.
+     */
+    private synchronized void markDirty(int mask) {
+        this.dirtyFields |= mask;
+    }
+
+    private synchronized void attributeChanged(Object key) {
+        if (this.changedAttributeKeys == null) {
+            this.changedAttributeKeys = new LinkedHashSet<Object>();
+        }
+        this.changedAttributeKeys.add(key);
+    }
+
+    /**
+     * @since 1.3
+     */
+    public synchronized boolean isDirty() {
+        return this.dirtyFields != 0 || !CollectionUtils.isEmpty(this.changedAttributeKeys);
+    }
+
+    /**
+     * @since 1.3
+     */
+    public synchronized SessionChanges getChanges() {
+        Set<SessionChanges.Field> fields = EnumSet.noneOf(SessionChanges.Field.class);
+        int dirty = this.dirtyFields;
+        if ((dirty & START_TIMESTAMP_BIT_MASK) != 0) {
+            fields.add(SessionChanges.Field.START_TIMESTAMP);
+        }
+        if ((dirty & STOP_TIMESTAMP_BIT_MASK) != 0) {
+            fields.add(SessionChanges.Field.STOP_TIMESTAMP);
+        }
+        if ((dirty & LAST_ACCESS_TIME_BIT_MASK) != 0) {
+            fields.add(SessionChanges.Field.LAST_ACCESS_TIME);
+        }
+        if ((dirty & TIMEOUT_BIT_MASK) != 0) {
+            fields.add(SessionChanges.Field.TIMEOUT);
+        }
+        if ((dirty & EXPIRED_BIT_MASK) != 0) {
+            fields.add(SessionChanges.Field.EXPIRED);
+        }
+        if ((dirty & HOST_BIT_MASK) != 0) {
+            fields.add(SessionChanges.Field.HOST);
+        }
+        boolean attributesReplaced = (dirty & ATTRIBUTES_BIT_MASK) != 0;
+
+        Map<Object, Object> changed = null;
+        Set<Object> removed = null;
+        if (!attributesReplaced && !CollectionUtils.isEmpty(this.changedAttributeKeys)) {
+            Map<Object, Object> attributes = getAttributes();
+            for (Object key : this.changedAttributeKeys) {
+                Object value = attributes != null ? attributes.get(key) : null;
+                if (value != null) {
+                    if (changed == null) {
+                        changed = new LinkedHashMap<Object, Object>();
+                    }
+                    changed.put(key, value);
+                } else {
+                    if (removed == null) {
+                        removed = new LinkedHashSet<Object>();
+                    }
+                    removed.add(key);
+                }
+            }
         }
+        return new SessionChanges(fields, attributesReplaced, changed, removed);
+    }
+
+    /**
+     * @since 1.3
+     */
+    public synchronized void clearChanges() {
+        this.dirtyFields = 0;
+        this.changedAttributeKeys = null;
+    }
+
+    /**
+     * @since 1.3
+     */
+    public synchronized SessionChanges drainChanges() {
+        SessionChanges changes = getChanges();
+        clearChanges();
+        return changes;
     }
 
     /**
@@ -23,11 +23,14 @@ import org.apache.shiro.cache.CacheManager;
 import org.apache.shiro.cache.CacheManagerAware;
 import org.apache.shiro.session.Session;
 import org.apache.shiro.session.UnknownSessionException;
+import org.apache.shiro.session.mgt.ChangeTrackingSession;
+import org.apache.shiro.session.mgt.SessionChanges;
 import org.apache.shiro.session.mgt.ValidatingSession;
 
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumSet;
 
 /**
  * An CachingSessionDAO is a SessionDAO that provides a transparent caching layer between the components that
@@ -52,6 +55,12 @@ public abstract class CachingSessionDAO extends AbstractSessionDAO implements Ca
      */
     public static final String ACTIVE_SESSION_CACHE_NAME = "shiro-activeSessionCache";
 
+    /**
+     * The changes passed to {@link #doUpdate(Session, SessionChanges)} by {@link #updateLastAccessTime(Session)}.
+     */
+    private static final SessionChanges LAST_ACCESS_TIME_CHANGE =
+            new SessionChanges(EnumSet.of(SessionChanges.Field.LAST_ACCESS_TIME), false, null, null);
+
     /**
      * The CacheManager to use to acquire the Session cache.
      */
@@ -182,6 +191,7 @@ public abstract class CachingSessionDAO extends AbstractSessionDAO implements Ca
      */
     public Serializable create(Session session) {
         Serializable sessionId = super.create(session);
+        clearChanges(session);
         cache(session, sessionId);
         return sessionId;
     }
@@ -259,22 +269,43 @@ public abstract class CachingSessionDAO extends AbstractSessionDAO implements Ca
         Session s = getCachedSession(sessionId);
         if (s == null) {
             s = super.readSession(sessionId);
+            //freshly read from the EIS, so nothing has changed yet:
+            clearChanges(s);
         }
         return s;
     }
 
+    /**
+     * Discards the changes recorded by the session if it is a {@link ChangeTrackingSession}, called once the
+     * session's state is known to match the EIS.
+     *
+     * @param session the session whose state matches the EIS.
+     * @since 1.3
+     */
+    protected void clearChanges(Session session) {
+        if (session instanceof ChangeTrackingSession) {
+            ((ChangeTrackingSession) session).clearChanges();
+        }
+    }
+
     /**
      * Updates the state of the given session to the EIS by first delegating to
-     * {@link #doUpdate(org.apache.shiro.session.Session)}.  If the session is a {@link ValidatingSession}, it will
-     * be added to the cache only if it is {@link ValidatingSession#isValid()} and if invalid, will be removed from the
-     * cache.  If it is not a {@code ValidatingSession} instance, it will be added to the cache in any event.
+     * {@link #doUpdate(org.apache.shiro.session.Session)}, or, if the session is a {@link ChangeTrackingSession},
+     * to {@link #doUpdate(Session, SessionChanges)} with the changes made since it was last persisted.  If the session
+     * is a {@link ValidatingSession}, it will be added to the cache only if it is {@link ValidatingSession#isValid()}
+     * and if invalid, will be removed from the cache.  If it is not a {@code ValidatingSession} instance, it will be
+     * added to the cache in any event.
      *
      * @param session the session object to update in the EIS.
      * @throws UnknownSessionException if no existing EIS session record exists with the
      *                                 identifier of {@link Session#getId() session.getId()}
      */
     public void update(Session session) throws UnknownSessionException {
-        doUpdate(session);
+        if (session instanceof ChangeTrackingSession) {
+            doUpdate(session, ((ChangeTrackingSession) session).drainChanges());
+        } else {
+            doUpdate(session);
+        }
         if (session instanceof ValidatingSession) {
             if (((ValidatingSession) session).isValid()) {
                 cache(session, session.getId());
@@ -286,6 +317,25 @@ public abstract class CachingSessionDAO extends AbstractSessionDAO implements Ca
         }
     }
 
+    /**
+     * Persists only the given session's {@link Session#getLastAccessTime() last access time} to the EIS by calling
+     * {@link #doUpdate(Session, SessionChanges)} with changes that contain nothing but the last access time.  Any other
+     * changes the session has recorded are left in place for the next {@link #update(Session) update}.
+     * <p/>
+     * This allows a last access time to be persisted from a copy of the session read some time earlier (as a
+     * {@code SessionManager} coalescing touches does) without overwriting changes other threads or nodes have made to
+     * the session's state since, provided the subclass implements {@code doUpdate(Session, SessionChanges)} to write
+     * only the changes.
+     *
+     * @param session the session whose last access time will be propagated to the EIS.
+     * @throws UnknownSessionException if no existing EIS session record exists with the
+     *                                 identifier of {@link Session#getId() session.getId()}
+     * @since 1.3
+     */
+    public void updateLastAccessTime(Session session) throws UnknownSessionException {
+        doUpdate(session, LAST_ACCESS_TIME_CHANGE);
+    }
+
     /**
      * Subclass implementation hook to actually persist the {@code Session}'s state to the underlying EIS.
      *
@@ -293,6 +343,26 @@ public abstract class CachingSessionDAO extends AbstractSessionDAO implements Ca
      */
     protected abstract void doUpdate(Session session);
 
+    /**
+     * Subclass implementation hook to persist only the specified changes to a {@link ChangeTrackingSession}'s state
+     * to the underlying EIS, for example by updating only the last access time column for a session that was merely
+     * {@link Session#touch() touched} or only the rows of changed attributes.
+     * <p/>
+     * The {@code changes} reflect the changes made since the session was last created, read or updated via this DAO.
+     * Because changes made to attribute values in place can not be detected (see {@link ChangeTrackingSession}),
+     * implementations should only rely on them if the application always re-sets modified attributes.
+     * <p/>
+     * This default implementation ignores the changes and calls {@link #doUpdate(Session) doUpdate(session)} to
+     * persist the entire session.
+     *
+     * @param session the session object whose state will be propagated to the EIS.
+     * @param changes the changes made to the session since it was last persisted.
+     * @since 1.3
+     */
+    protected void doUpdate(Session session, SessionChanges changes) {
+        doUpdate(session);
+    }
+
     /**
      * Removes the specified session from any cache and then permanently deletes the session from the EIS by
      * delegating to {@link #doDelete}.
@@ -22,6 +22,9 @@ import org.apache.shiro.authc.AuthenticationException;
 import org.apache.shiro.authc.AuthenticationToken;
 import org.apache.shiro.authc.HostAuthenticationToken;
 import org.apache.shiro.authz.AuthorizationException;
+import org.apache.shiro.authz.AuthorizationSnapshot;
+import org.apache.shiro.authz.AuthorizationSnapshotFactory;
+import org.apache.shiro.authz.DelegatingAuthorizationSnapshot;
 import org.apache.shiro.authz.Permission;
 import org.apache.shiro.authz.UnauthenticatedException;
 import org.apache.shiro.mgt.SecurityManager;
@@ -34,6 +37,7 @@ import org.apache.shiro.session.mgt.SessionContext;
 import org.apache.shiro.subject.ExecutionException;
 import org.apache.shiro.subject.PrincipalCollection;
 import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ClassUtils;
 import org.apache.shiro.util.CollectionUtils;
 import org.apache.shiro.util.StringUtils;
 import org.slf4j.Logger;
@@ -42,6 +46,8 @@ import org.slf4j.LoggerFactory;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
@@ -75,6 +81,13 @@ public class DelegatingSubject implements Subject {
     private static final String RUN_AS_PRINCIPALS_SESSION_KEY =
             DelegatingSubject.class.getName() + ".RUN_AS_PRINCIPALS_SESSION_KEY";
 
+    /**
+     * Whether or not a {@code DelegatingSubject} (sub)class overrides one of the public checks answered by an
+     * {@link #getAuthorizationSnapshot() authorization snapshot}, keyed by class.
+     */
+    private static final ConcurrentMap<Class<?>, Boolean> AUTHORIZATION_CHECKS_OVERRIDDEN =
+            new ConcurrentHashMap<Class<?>, Boolean>();
+
     protected PrincipalCollection principals;
     protected boolean authenticated;
     protected String host;
@@ -251,6 +264,72 @@ public class DelegatingSubject implements Subject {
         securityManager.checkRoles(getPrincipals(), roles);
     }
 
+    /**
+     * Returns a new {@link AuthorizationSnapshot AuthorizationSnapshot} for this Subject's current identity, created
+     * by the {@code SecurityManager} if it implements {@link AuthorizationSnapshotFactory}, otherwise one that
+     * delegates each check to the {@code SecurityManager}.  If this Subject is anonymous, the returned snapshot
+     * denies all checks.
+     * <p/>
+     * If this Subject's class overrides {@link #isPermitted(String)}, {@link #isPermitted(Permission)} or
+     * {@link #hasRole(String)}, the returned snapshot instead delegates every check to those methods so that the
+     * overridden behavior is retained.
+     *
+     * @return a new {@code AuthorizationSnapshot} for this Subject's current identity.
+     * @see org.apache.shiro.authz.AuthorizationSnapshotUtils#getAuthorizationSnapshot(org.apache.shiro.subject.Subject)
+     * @since 1.3
+     */
+    public AuthorizationSnapshot getAuthorizationSnapshot() {
+        PrincipalCollection principals = hasPrincipals() ? getPrincipals() : null;
+        if (overridesAuthorizationChecks(getClass())) {
+            return new SubjectAuthorizationSnapshot(this, principals);
+        }
+        if (principals != null && securityManager instanceof AuthorizationSnapshotFactory) {
+            return ((AuthorizationSnapshotFactory) securityManager).createAuthorizationSnapshot(principals);
+        }
+        return new DelegatingAuthorizationSnapshot(securityManager, principals);
+    }
+
+    private static boolean overridesAuthorizationChecks(Class<?> clazz) {
+        Boolean overridden = AUTHORIZATION_CHECKS_OVERRIDDEN.get(clazz);
+        if (overridden == null) {
+            overridden = ClassUtils.isOverridden(clazz, DelegatingSubject.class, "isPermitted", String.class) ||
+                    ClassUtils.isOverridden(clazz, DelegatingSubject.class, "isPermitted", Permission.class) ||
+                    ClassUtils.isOverridden(clazz, DelegatingSubject.class, "hasRole", String.class);
+            AUTHORIZATION_CHECKS_OVERRIDDEN.put(clazz, overridden);
+        }
+        return overridden;
+    }
+
+    /**
+     * Snapshot that delegates every check to a Subject whose class overrides the Subject's own checks.
+     */
+    private static final class SubjectAuthorizationSnapshot implements AuthorizationSnapshot {
+
+        private final Subject subject;
+        private final PrincipalCollection principals;
+
+        private SubjectAuthorizationSnapshot(Subject subject, PrincipalCollection principals) {
+            this.subject = subject;
+            this.principals = principals;
+        }
+
+        public PrincipalCollection getPrincipals() {
+            return this.principals;
+        }
+
+        public boolean isPermitted(String permission) {
+            return this.subject.isPermitted(permission);
+        }
+
+        public boolean isPermitted(Permission permission) {
+            return this.subject.isPermitted(permission);
+        }
+
+        public boolean hasRole(String roleIdentifier) {
+            return this.subject.hasRole(roleIdentifier);
+        }
+    }
+
     public void login(AuthenticationToken token) throws AuthenticationException {
         clearRunAsIdentitiesInternal();
         Subject subject = securityManager.login(this, token);
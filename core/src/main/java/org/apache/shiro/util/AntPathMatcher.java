@@ -77,6 +77,16 @@ public class AntPathMatcher implements PatternMatcher {
         this.pathSeparator = (pathSeparator != null ? pathSeparator : DEFAULT_PATH_SEPARATOR);
     }
 
+    /**
+     * Returns the path separator used for pattern parsing.  Default is "/", as in Ant.
+     *
+     * @return the path separator used for pattern parsing.
+     * @since 1.3
+     */
+    public String getPathSeparator() {
+        return pathSeparator;
+    }
+
 
     public boolean isPattern(String path) {
         return (path.indexOf('*') != -1 || path.indexOf('?') != -1);
@@ -242,7 +252,7 @@ public class AntPathMatcher implements PatternMatcher {
      * @return <code>true</code> if the string matches against the
      *         pattern, or <code>false</code> otherwise.
      */
-    private boolean matchStrings(String pattern, String str) {
+    static boolean matchStrings(String pattern, String str) {
         char[] patArr = pattern.toCharArray();
         char[] strArr = str.toCharArray();
         int patIdxStart = 0;
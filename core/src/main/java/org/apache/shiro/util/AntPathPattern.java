@@ -0,0 +1,315 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.util;
+
+/**
+ * An immutable, pre-compiled {@link AntPathMatcher Ant-style} path pattern.
+ * <p/>
+ * The pattern is tokenized once, when it is compiled.  {@link #matches(String) Matching} a path walks the path's
+ * characters in place: it neither tokenizes the path nor allocates any objects, and returns exactly the same result as
+ * <code>new AntPathMatcher().{@link AntPathMatcher#matches(String, String) matches}(pattern, path)</code> (with the
+ * same {@link AntPathMatcher#setPathSeparator(String) path separator}).
+ *
+ * @see CompiledAntPathMatcher
+ * @since 1.3
+ */
+public final class AntPathPattern {
+
+    private static final String DOUBLE_WILDCARD = "**";
+
+    private final String pattern;
+    private final String pathSeparator;
+    private final boolean leadingSeparator;
+    private final boolean trailingSeparator;
+    private final boolean hasDoubleWildcard;
+
+    private final String[] segments;
+    /**
+     * Per segment: {@code null} if the segment is a literal, otherwise its characters for wildcard matching.
+     */
+    private final char[][] wildcardSegments;
+    private final boolean[] doubleWildcards;
+
+    /**
+     * Compiles the specified pattern, using the {@link AntPathMatcher#DEFAULT_PATH_SEPARATOR default path separator}.
+     *
+     * @param pattern the pattern to compile
+     */
+    public AntPathPattern(String pattern) {
+        this(pattern, AntPathMatcher.DEFAULT_PATH_SEPARATOR);
+    }
+
+    /**
+     * Compiles the specified pattern.
+     *
+     * @param pattern       the pattern to compile
+     * @param pathSeparator the path separator, as configured on an equivalent {@link AntPathMatcher}.
+     */
+    public AntPathPattern(String pattern, String pathSeparator) {
+        if (pattern == null) {
+            throw new IllegalArgumentException("pattern argument cannot be null.");
+        }
+        this.pattern = pattern;
+        this.pathSeparator = pathSeparator != null ? pathSeparator : AntPathMatcher.DEFAULT_PATH_SEPARATOR;
+        this.leadingSeparator = pattern.startsWith(this.pathSeparator);
+        this.trailingSeparator = pattern.endsWith(this.pathSeparator);
+        this.segments = StringUtils.tokenizeToStringArray(pattern, this.pathSeparator);
+        this.wildcardSegments = new char[segments.length][];
+        this.doubleWildcards = new boolean[segments.length];
+        boolean hasDoubleWildcard = false;
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if (DOUBLE_WILDCARD.equals(segment)) {
+                doubleWildcards[i] = true;
+                hasDoubleWildcard = true;
+            } else if (segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0) {
+                wildcardSegments[i] = segment.toCharArray();
+            }
+        }
+        this.hasDoubleWildcard = hasDoubleWildcard;
+    }
+
+    /**
+     * Returns the pattern string this instance was compiled from.
+     *
+     * @return the pattern string this instance was compiled from.
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Returns the path separator this instance was compiled with.
+     *
+     * @return the path separator this instance was compiled with.
+     */
+    public String getPathSeparator() {
+        return pathSeparator;
+    }
+
+    /**
+     * Returns {@code true} if the specified path matches this pattern, {@code false} otherwise.
+     *
+     * @param path the path to match
+     * @return {@code true} if the specified path matches this pattern, {@code false} otherwise.
+     */
+    public boolean matches(String path) {
+        if (path == null || path.startsWith(this.pathSeparator) != this.leadingSeparator) {
+            return false;
+        }
+        return matches(path, path.endsWith(this.pathSeparator), 0, 0);
+    }
+
+    private boolean matches(String path, boolean pathTrailingSeparator, int segment, int position) {
+        int start = nextSegmentStart(path, position);
+        if (segment == this.segments.length) {
+            if (start >= 0) {
+                //path not exhausted, but pattern is:
+                return false;
+            }
+            //both exhausted:
+            return this.hasDoubleWildcard || this.trailingSeparator == pathTrailingSeparator;
+        }
+        if (this.doubleWildcards[segment]) {
+            //'**' matches zero or more segments:
+            int next = position;
+            while (true) {
+                if (matches(path, pathTrailingSeparator, segment + 1, next)) {
+                    return true;
+                }
+                int s = nextSegmentStart(path, next);
+                if (s < 0) {
+                    return false;
+                }
+                next = segmentEnd(path, s);
+            }
+        }
+        if (start < 0) {
+            //path exhausted, but pattern is not.  AntPathMatcher matches a single trailing '*' against a trailing
+            //separator, e.g. "/a/*" matches "/a/":
+            return !this.hasDoubleWildcard && segment == this.segments.length - 1 && pathTrailingSeparator &&
+                    "*".equals(this.segments[segment]);
+        }
+        int end = segmentEnd(path, start);
+        if (!matchesSegment(segment, path, start, end)) {
+            return false;
+        }
+        return matches(path, pathTrailingSeparator, segment + 1, end);
+    }
+
+    private boolean isSeparator(char c) {
+        return this.pathSeparator.indexOf(c) >= 0;
+    }
+
+    /**
+     * Returns the index of the first character of the next non-blank segment at or after {@code position}, ignoring
+     * leading whitespace, or {@code -1} if there are no further segments.
+     */
+    private int nextSegmentStart(String path, int position) {
+        int length = path.length();
+        int i = position;
+        while (i < length) {
+            char c = path.charAt(i);
+            if (isSeparator(c) || c <= ' ') {
+                //separators and whitespace between separators are skipped, as by tokenizeToStringArray:
+                i++;
+            } else {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index after the last non-whitespace character of the segment starting at {@code start}.
+     */
+    private int segmentEnd(String path, int start) {
+        int length = path.length();
+        int end = start;
+        while (end < length && !isSeparator(path.charAt(end))) {
+            end++;
+        }
+        while (end > start && path.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    private boolean matchesSegment(int segment, String path, int start, int end) {
+        char[] wildcard = this.wildcardSegments[segment];
+        if (wildcard == null) {
+            String literal = this.segments[segment];
+            return literal.length() == end - start && path.regionMatches(start, literal, 0, literal.length());
+        }
+        return matchStrings(wildcard, path, start, end);
+    }
+
+    /**
+     * Equivalent to {@code AntPathMatcher.matchStrings(new String(pattern), path.substring(start, end))} without
+     * allocating.
+     */
+    private static boolean matchStrings(char[] patArr, String str, int start, int end) {
+        int patIdxStart = 0;
+        int patIdxEnd = patArr.length - 1;
+        int strIdxStart = start;
+        int strIdxEnd = end - 1;
+        char ch;
+
+        boolean containsStar = false;
+        for (char c : patArr) {
+            if (c == '*') {
+                containsStar = true;
+                break;
+            }
+        }
+
+        if (!containsStar) {
+            if (patIdxEnd != strIdxEnd - strIdxStart) {
+                return false;
+            }
+            for (int i = 0; i <= patIdxEnd; i++) {
+                ch = patArr[i];
+                if (ch != '?' && ch != str.charAt(strIdxStart + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        if (patIdxEnd == 0) {
+            return true; // Pattern contains only '*', which matches anything
+        }
+
+        // Process characters before first star
+        while ((ch = patArr[patIdxStart]) != '*' && strIdxStart <= strIdxEnd) {
+            if (ch != '?' && ch != str.charAt(strIdxStart)) {
+                return false;
+            }
+            patIdxStart++;
+            strIdxStart++;
+        }
+        if (strIdxStart > strIdxEnd) {
+            return onlyStars(patArr, patIdxStart, patIdxEnd);
+        }
+
+        // Process characters after last star
+        while ((ch = patArr[patIdxEnd]) != '*' && strIdxStart <= strIdxEnd) {
+            if (ch != '?' && ch != str.charAt(strIdxEnd)) {
+                return false;
+            }
+            patIdxEnd--;
+            strIdxEnd--;
+        }
+        if (strIdxStart > strIdxEnd) {
+            return onlyStars(patArr, patIdxStart, patIdxEnd);
+        }
+
+        // process pattern between stars. patIdxStart and patIdxEnd always point to a '*'.
+        while (patIdxStart != patIdxEnd && strIdxStart <= strIdxEnd) {
+            int patIdxTmp = -1;
+            for (int i = patIdxStart + 1; i <= patIdxEnd; i++) {
+                if (patArr[i] == '*') {
+                    patIdxTmp = i;
+                    break;
+                }
+            }
+            if (patIdxTmp == patIdxStart + 1) {
+                // Two stars next to each other, skip the first one.
+                patIdxStart++;
+                continue;
+            }
+            int patLength = (patIdxTmp - patIdxStart - 1);
+            int strLength = (strIdxEnd - strIdxStart + 1);
+            int foundIdx = -1;
+            strLoop:
+            for (int i = 0; i <= strLength - patLength; i++) {
+                for (int j = 0; j < patLength; j++) {
+                    ch = patArr[patIdxStart + j + 1];
+                    if (ch != '?' && ch != str.charAt(strIdxStart + i + j)) {
+                        continue strLoop;
+                    }
+                }
+                foundIdx = strIdxStart + i;
+                break;
+            }
+
+            if (foundIdx == -1) {
+                return false;
+            }
+
+            patIdxStart = patIdxTmp;
+            strIdxStart = foundIdx + patLength;
+        }
+
+        return onlyStars(patArr, patIdxStart, patIdxEnd);
+    }
+
+    private static boolean onlyStars(char[] patArr, int from, int to) {
+        for (int i = from; i <= to; i++) {
+            if (patArr[i] != '*') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String toString() {
+        return this.pattern;
+    }
+}
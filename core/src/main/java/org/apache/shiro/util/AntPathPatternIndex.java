@@ -0,0 +1,330 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable, pre-compiled index of an ordered list of {@link AntPathMatcher Ant-style} path patterns that finds
+ * the <em>first</em> pattern matching a given path without matching the path against each pattern in turn.
+ * <p/>
+ * The patterns are tokenized once, when the index is created, into a trie with one level per path segment.  Each
+ * level branches on literal segments via a hash lookup and has separate branches for segments containing {@code *}
+ * or {@code ?} wildcards and for {@code **} segments.  Finding a match tokenizes the path once and walks the trie,
+ * pruning any branch that can only lead to patterns later in the list than the best match found so far, so the
+ * cost is roughly proportional to the number of path segments rather than the number of patterns.
+ * <p/>
+ * {@link #match(String) match(path)} returns exactly the same pattern as iterating the patterns in order and
+ * returning the first one for which
+ * <code>new AntPathMatcher().{@link AntPathMatcher#matches(String, String) matches}(pattern, path)</code> (with the same
+ * {@link AntPathMatcher#setPathSeparator(String) path separator}) returns {@code true}.
+ *
+ * @since 1.3
+ */
+public final class AntPathPatternIndex {
+
+    private static final String DOUBLE_WILDCARD = "**";
+    private static final String SINGLE_WILDCARD = "*";
+
+    private final String pathSeparator;
+    private final List<String> patterns;
+    /**
+     * Trie for patterns starting with the path separator.
+     */
+    private final Node rooted;
+    /**
+     * Trie for patterns not starting with the path separator.
+     */
+    private final Node relative;
+
+    /**
+     * Compiles the specified patterns, using the {@link AntPathMatcher#DEFAULT_PATH_SEPARATOR default path separator}.
+     *
+     * @param patterns the patterns to index, in order of precedence.
+     */
+    public AntPathPatternIndex(Collection<String> patterns) {
+        this(patterns, AntPathMatcher.DEFAULT_PATH_SEPARATOR);
+    }
+
+    /**
+     * Compiles the specified patterns.
+     *
+     * @param patterns      the patterns to index, in order of precedence.
+     * @param pathSeparator the path separator, as configured on an equivalent {@link AntPathMatcher}.
+     */
+    public AntPathPatternIndex(Collection<String> patterns, String pathSeparator) {
+        this.pathSeparator = pathSeparator != null ? pathSeparator : AntPathMatcher.DEFAULT_PATH_SEPARATOR;
+        List<String> list = new ArrayList<String>(patterns != null ? patterns.size() : 0);
+        Node rooted = new Node();
+        Node relative = new Node();
+        if (patterns != null) {
+            for (String pattern : patterns) {
+                int index = list.size();
+                list.add(pattern);
+                if (pattern == null) {
+                    //never matches
+                    continue;
+                }
+                Node root = pattern.startsWith(this.pathSeparator) ? rooted : relative;
+                String[] segments = StringUtils.tokenizeToStringArray(pattern, this.pathSeparator);
+                boolean hasDoubleWildcard = false;
+                for (String segment : segments) {
+                    if (DOUBLE_WILDCARD.equals(segment)) {
+                        hasDoubleWildcard = true;
+                        break;
+                    }
+                }
+                root.insert(segments, 0, index, hasDoubleWildcard, pattern.endsWith(this.pathSeparator));
+            }
+        }
+        rooted.complete();
+        relative.complete();
+        this.patterns = Collections.unmodifiableList(list);
+        this.rooted = rooted;
+        this.relative = relative;
+    }
+
+    /**
+     * Returns the indexed patterns, in order of precedence.
+     *
+     * @return the indexed patterns, in order of precedence.
+     */
+    public List<String> getPatterns() {
+        return patterns;
+    }
+
+    /**
+     * Returns the first pattern that matches the specified path, or {@code null} if none match.
+     *
+     * @param path the path to match
+     * @return the first pattern that matches the specified path, or {@code null} if none match.
+     */
+    public String match(String path) {
+        int index = indexOf(path);
+        return index >= 0 ? this.patterns.get(index) : null;
+    }
+
+    /**
+     * Returns the position of the first pattern that matches the specified path, or {@code -1} if none match.
+     *
+     * @param path the path to match
+     * @return the position of the first pattern that matches the specified path, or {@code -1} if none match.
+     */
+    public int indexOf(String path) {
+        if (path == null) {
+            return -1;
+        }
+        Node root = path.startsWith(this.pathSeparator) ? this.rooted : this.relative;
+        if (root.minIndex == Integer.MAX_VALUE) {
+            return -1;
+        }
+        Match match = new Match(tokenize(path), path.endsWith(this.pathSeparator));
+        root.match(match, 0);
+        return match.best != Integer.MAX_VALUE ? match.best : -1;
+    }
+
+    /**
+     * Equivalent to {@code StringUtils.tokenizeToStringArray(path, pathSeparator)}, but avoids the intermediate
+     * {@code StringTokenizer} and collection.
+     *
+     * @param path the path to tokenize
+     * @return the trimmed, non-empty segments of the path.
+     */
+    private String[] tokenize(String path) {
+        String[] segments = new String[8];
+        int count = 0;
+        int length = path.length();
+        int start = 0;
+        while (start <= length) {
+            int end = start;
+            while (end < length && this.pathSeparator.indexOf(path.charAt(end)) < 0) {
+                end++;
+            }
+            if (end > start) {
+                String segment = path.substring(start, end).trim();
+                if (segment.length() > 0) {
+                    if (count == segments.length) {
+                        String[] grown = new String[count * 2];
+                        System.arraycopy(segments, 0, grown, 0, count);
+                        segments = grown;
+                    }
+                    segments[count++] = segment;
+                }
+            }
+            start = end + 1;
+        }
+        if (count == segments.length) {
+            return segments;
+        }
+        String[] result = new String[count];
+        System.arraycopy(segments, 0, result, 0, count);
+        return result;
+    }
+
+    /**
+     * The state of a single match operation.
+     */
+    private static final class Match {
+
+        private final String[] segments;
+        private final boolean trailingSeparator;
+        private int best = Integer.MAX_VALUE;
+
+        private Match(String[] segments, boolean trailingSeparator) {
+            this.segments = segments;
+            this.trailingSeparator = trailingSeparator;
+        }
+    }
+
+    /**
+     * A single level in the compiled trie.  Nodes are only mutated while the owning index is being constructed and
+     * are safely published via its final fields.
+     */
+    private static final class Node {
+
+        private Map<String, Node> literals;
+        private List<String> globs;
+        private List<Node> globNodes;
+        private Node doubleWildcard;
+
+        //lowest index of the patterns ending at this node, by kind:
+        private int endWithDoubleWildcard = Integer.MAX_VALUE;
+        private int endWithSeparator = Integer.MAX_VALUE;
+        private int endWithoutSeparator = Integer.MAX_VALUE;
+        /**
+         * Lowest index of the patterns without '**' ending at this node's '*' child, which AntPathMatcher also matches
+         * against a path one segment shorter that ends with the separator (e.g. "/a/*" matches "/a/").
+         */
+        private int singleWildcardChildEnd = Integer.MAX_VALUE;
+        /**
+         * Lowest index of all patterns in this node's subtree.
+         */
+        private int minIndex = Integer.MAX_VALUE;
+
+        private void insert(String[] segments, int i, int index, boolean hasDoubleWildcard, boolean trailingSeparator) {
+            this.minIndex = Math.min(this.minIndex, index);
+            if (i == segments.length) {
+                if (hasDoubleWildcard) {
+                    this.endWithDoubleWildcard = Math.min(this.endWithDoubleWildcard, index);
+                } else if (trailingSeparator) {
+                    this.endWithSeparator = Math.min(this.endWithSeparator, index);
+                } else {
+                    this.endWithoutSeparator = Math.min(this.endWithoutSeparator, index);
+                }
+                return;
+            }
+            String segment = segments[i];
+            Node child;
+            if (DOUBLE_WILDCARD.equals(segment)) {
+                if (this.doubleWildcard == null) {
+                    this.doubleWildcard = new Node();
+                }
+                child = this.doubleWildcard;
+            } else if (segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0) {
+                if (this.globs == null) {
+                    this.globs = new ArrayList<String>();
+                    this.globNodes = new ArrayList<Node>();
+                }
+                int existing = this.globs.indexOf(segment);
+                if (existing >= 0) {
+                    child = this.globNodes.get(existing);
+                } else {
+                    child = new Node();
+                    this.globs.add(segment);
+                    this.globNodes.add(child);
+                }
+            } else {
+                if (this.literals == null) {
+                    this.literals = new HashMap<String, Node>();
+                }
+                child = this.literals.get(segment);
+                if (child == null) {
+                    child = new Node();
+                    this.literals.put(segment, child);
+                }
+            }
+            child.insert(segments, i + 1, index, hasDoubleWildcard, trailingSeparator);
+            if (!hasDoubleWildcard && i == segments.length - 1 && SINGLE_WILDCARD.equals(segment)) {
+                this.singleWildcardChildEnd = Math.min(this.singleWildcardChildEnd, index);
+            }
+        }
+
+        private void complete() {
+            if (this.literals == null) {
+                this.literals = Collections.emptyMap();
+            } else {
+                for (Node child : this.literals.values()) {
+                    child.complete();
+                }
+            }
+            if (this.globNodes != null) {
+                for (Node child : this.globNodes) {
+                    child.complete();
+                }
+            }
+            if (this.doubleWildcard != null) {
+                this.doubleWildcard.complete();
+            }
+        }
+
+        private void match(Match match, int i) {
+            if (this.minIndex >= match.best) {
+                //nothing in this subtree can beat the best match found so far
+                return;
+            }
+            String[] segments = match.segments;
+            if (i == segments.length) {
+                int best = Math.min(match.best, this.endWithDoubleWildcard);
+                if (match.trailingSeparator) {
+                    best = Math.min(best, Math.min(this.endWithSeparator, this.singleWildcardChildEnd));
+                } else {
+                    best = Math.min(best, this.endWithoutSeparator);
+                }
+                match.best = best;
+                if (this.doubleWildcard != null) {
+                    //'**' matches zero segments:
+                    this.doubleWildcard.match(match, i);
+                }
+                return;
+            }
+            String segment = segments[i];
+            Node child = this.literals.get(segment);
+            if (child != null) {
+                child.match(match, i + 1);
+            }
+            if (this.globs != null) {
+                for (int g = 0; g < this.globs.size(); g++) {
+                    if (AntPathMatcher.matchStrings(this.globs.get(g), segment)) {
+                        this.globNodes.get(g).match(match, i + 1);
+                    }
+                }
+            }
+            if (this.doubleWildcard != null) {
+                for (int j = i; j <= segments.length; j++) {
+                    this.doubleWildcard.match(match, j);
+                }
+            }
+        }
+    }
+}
@@ -207,6 +207,30 @@ public class ClassUtils {
         }
     }
 
+    /**
+     * Returns {@code true} if the specified class (or one of its superclasses below {@code baseClass}) overrides the
+     * public method declared by {@code baseClass} with the given name and parameter types, {@code false} otherwise.
+     * <p/>
+     * This allows a base class to detect whether it may bypass one of its public methods for a faster equivalent
+     * without skipping behavior a subclass has added to that method.
+     *
+     * @param clazz          the class to check, {@code baseClass} or one of its subclasses.
+     * @param baseClass      the class declaring the (original) method.
+     * @param methodName     the name of the public method.
+     * @param parameterTypes the method's parameter types.
+     * @return {@code true} if {@code clazz} overrides the method, {@code false} otherwise.
+     * @since 1.3
+     */
+    public static boolean isOverridden(Class<?> clazz, Class<?> baseClass, String methodName,
+                                       Class<?>... parameterTypes) {
+        try {
+            return clazz.getMethod(methodName, parameterTypes).getDeclaringClass() != baseClass;
+        } catch (NoSuchMethodException e) {
+            //not a public method of clazz - assume the worst:
+            return true;
+        }
+    }
+
     /**
      * @since 1.0
      */
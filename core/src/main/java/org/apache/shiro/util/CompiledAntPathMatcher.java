@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An {@link AntPathMatcher AntPathMatcher} that {@link AntPathPattern compiles} each pattern once and retains the
+ * compiled form in a bounded cache, so that repeatedly {@link #matches(String, String) matching} paths against the same
+ * patterns (e.g. the configured paths of a web filter) neither re-tokenizes the pattern nor allocates.
+ * <p/>
+ * Matching semantics are identical to those of the {@code AntPathMatcher} parent class.  Only
+ * {@link #matches(String, String) matches} and {@link #match(String, String) match} use compiled patterns;
+ * {@link #matchStart(String, String) matchStart} is evaluated by the parent class as usual.
+ * <p/>
+ * The cache holds at most {@link #getMaxCachedPatterns() maxCachedPatterns} compiled patterns.  Applications normally
+ * match against a small, fixed set of configured patterns; if more distinct patterns than that are matched, the cache
+ * is cleared and repopulated on demand, so memory use stays bounded.
+ *
+ * @since 1.3
+ */
+public class CompiledAntPathMatcher extends AntPathMatcher {
+
+    /**
+     * The default maximum number of compiled patterns retained by each instance.
+     */
+    public static final int DEFAULT_MAX_CACHED_PATTERNS = 1024;
+
+    private final ConcurrentMap<String, AntPathPattern> compiledPatterns =
+            new ConcurrentHashMap<String, AntPathPattern>();
+
+    private int maxCachedPatterns = DEFAULT_MAX_CACHED_PATTERNS;
+
+    /**
+     * Returns the maximum number of compiled patterns retained by this instance.  The default is
+     * {@link #DEFAULT_MAX_CACHED_PATTERNS}.
+     *
+     * @return the maximum number of compiled patterns retained by this instance.
+     */
+    public int getMaxCachedPatterns() {
+        return maxCachedPatterns;
+    }
+
+    /**
+     * Sets the maximum number of compiled patterns retained by this instance.  A value of zero (or less) disables
+     * caching, in which case each call compiles the pattern anew.  The default is
+     * {@link #DEFAULT_MAX_CACHED_PATTERNS}.
+     *
+     * @param maxCachedPatterns the maximum number of compiled patterns retained by this instance.
+     */
+    public void setMaxCachedPatterns(int maxCachedPatterns) {
+        this.maxCachedPatterns = maxCachedPatterns;
+        if (maxCachedPatterns <= 0 || this.compiledPatterns.size() > maxCachedPatterns) {
+            this.compiledPatterns.clear();
+        }
+    }
+
+    /**
+     * Sets the path separator and discards any patterns compiled with the previous separator.
+     *
+     * @param pathSeparator the path separator to use for pattern parsing.
+     */
+    @Override
+    public void setPathSeparator(String pathSeparator) {
+        super.setPathSeparator(pathSeparator);
+        this.compiledPatterns.clear();
+    }
+
+    /**
+     * Returns the compiled form of the specified pattern, compiling and caching it if necessary.
+     *
+     * @param pattern the pattern to compile
+     * @return the compiled form of the specified pattern.
+     */
+    public AntPathPattern compile(String pattern) {
+        AntPathPattern compiled = this.compiledPatterns.get(pattern);
+        String pathSeparator = getPathSeparator();
+        if (compiled == null || !compiled.getPathSeparator().equals(pathSeparator)) {
+            compiled = new AntPathPattern(pattern, pathSeparator);
+            int max = this.maxCachedPatterns;
+            if (max > 0) {
+                if (this.compiledPatterns.size() >= max) {
+                    this.compiledPatterns.clear();
+                }
+                this.compiledPatterns.put(pattern, compiled);
+            }
+        }
+        return compiled;
+    }
+
+    /**
+     * Returns the number of compiled patterns currently cached by this instance.
+     *
+     * @return the number of compiled patterns currently cached by this instance.
+     */
+    public int getCachedPatternCount() {
+        return this.compiledPatterns.size();
+    }
+
+    @Override
+    public boolean match(String pattern, String path) {
+        if (pattern == null || path == null) {
+            return super.match(pattern, path);
+        }
+        return compile(pattern).matches(path);
+    }
+}
@@ -23,6 +23,9 @@ import org.apache.shiro.crypto.hash.format.HashFormatFactory
 import org.apache.shiro.crypto.hash.format.HexFormat
 import org.apache.shiro.crypto.hash.format.Shiro1CryptFormat
 import org.apache.shiro.crypto.hash.*
+
+import java.util.concurrent.Executor
+
 import static org.easymock.EasyMock.*
 
 /**
@@ -140,4 +143,43 @@ class DefaultPasswordServiceTest extends GroovyTestCase {
         assertTrue service.passwordsMatch("12345", formatted)
     }
 
+    void testUnsaltedHashUsesConfiguredExecutor() {
+        def salting = new DefaultHashService(generatePublicSalt: true)
+        def executions = 0
+        def executor = [execute: { Runnable r ->
+            executions++
+            r.run()
+        }] as Executor
+        def hashService = new ExecutorHashService(salting)
+        hashService.executor = executor
+        def service = new DefaultPasswordService(hashService: hashService)
+
+        def legacy = new Sha256Hash("12345", null, 1)
+        assertTrue service.passwordsMatch("12345", legacy)
+        assertFalse service.passwordsMatch("1234", legacy)
+        assertEquals 2, executions
+        assertEquals 0, hashService.pendingRequestCount
+    }
+
+    void testKeyDerivationAlgorithms() {
+        def service = new DefaultPasswordService()
+        def sha256 = service.encryptPassword("12345")
+
+        service.hashService.hashAlgorithmName = Pbkdf2Hash.DEFAULT_ALGORITHM_NAME
+        service.hashService.hashIterations = 1000
+        def pbkdf2 = service.encryptPassword("12345")
+        assertTrue pbkdf2.startsWith('$shiro1$PBKDF2WithHmacSHA256$1000$')
+
+        service.hashService.hashAlgorithmName = ScryptHash.ALGORITHM_NAME
+        service.hashService.hashIterations = 1024
+        def scrypt = service.encryptPassword("12345")
+        assertTrue scrypt.startsWith('$shiro1$scrypt$1024$')
+
+        //previously saved passwords still match after the algorithm changes:
+        for (String saved : [sha256, pbkdf2, scrypt]) {
+            assertTrue service.passwordsMatch("12345", saved)
+            assertFalse service.passwordsMatch("1234", saved)
+        }
+    }
+
 }
@@ -20,7 +20,13 @@ package org.apache.shiro.authc.credential
 
 import org.apache.shiro.authc.AuthenticationInfo
 import org.apache.shiro.authc.AuthenticationToken
+import org.apache.shiro.authc.SimpleAuthenticationInfo
+import org.apache.shiro.authc.UsernamePasswordToken
+import org.apache.shiro.crypto.hash.Hash
+import org.apache.shiro.crypto.hash.Md5Hash
+import org.apache.shiro.crypto.hash.Sha1Hash
 import org.apache.shiro.crypto.hash.Sha256Hash
+import org.apache.shiro.crypto.hash.format.Shiro1CryptFormat
 
 import static org.easymock.EasyMock.*
 
@@ -170,4 +176,68 @@ class PasswordMatcherTest extends GroovyTestCase {
 
     }
 
+
+    private static PasswordMatcher createUpgradingMatcher(List upgrades) {
+        def service = new DefaultPasswordService()
+        service.hashService.hashIterations = 1000
+        def matcher = new PasswordMatcher(passwordService: service)
+        matcher.passwordUpgradeHandler = { AuthenticationInfo info, Object credentials ->
+            upgrades << credentials
+        } as PasswordUpgradeHandler
+        return matcher
+    }
+
+    void testLegacyFormattedPasswordIsUpgraded() {
+        def upgrades = []
+        def matcher = createUpgradingMatcher(upgrades)
+        def legacy = new Shiro1CryptFormat().format(new Md5Hash("secret"))
+        def info = new SimpleAuthenticationInfo("jsmith", legacy, "realm")
+
+        assertFalse matcher.doCredentialsMatch(new UsernamePasswordToken("jsmith", "wrong"), info)
+        assertTrue upgrades.isEmpty()
+
+        assertTrue matcher.doCredentialsMatch(new UsernamePasswordToken("jsmith", "secret"), info)
+        assertEquals 1, upgrades.size()
+        String upgraded = upgrades[0]
+        assertTrue upgraded.startsWith('$shiro1$SHA-256$1000$')
+
+        //the upgraded password matches and is current:
+        upgrades.clear()
+        info = new SimpleAuthenticationInfo("jsmith", upgraded, "realm")
+        assertTrue matcher.doCredentialsMatch(new UsernamePasswordToken("jsmith", "secret"), info)
+        assertTrue upgrades.isEmpty()
+    }
+
+    void testLegacyHashIsUpgraded() {
+        def upgrades = []
+        def matcher = createUpgradingMatcher(upgrades)
+        def info = new SimpleAuthenticationInfo("jsmith", new Sha1Hash("secret"), "realm")
+
+        assertTrue matcher.doCredentialsMatch(new UsernamePasswordToken("jsmith", "secret"), info)
+        assertEquals 1, upgrades.size()
+        Hash upgraded = upgrades[0]
+        assertEquals 'SHA-256', upgraded.algorithmName
+        assertEquals 1000, upgraded.iterations
+        assertFalse upgraded.salt.isEmpty()
+        assertTrue matcher.passwordService.passwordsMatch("secret", upgraded)
+    }
+
+    void testFailingUpgradeHandlerDoesNotPreventLogin() {
+        def matcher = createUpgradingMatcher([])
+        matcher.passwordUpgradeHandler = { AuthenticationInfo info, Object credentials ->
+            throw new IllegalStateException("read-only data store")
+        } as PasswordUpgradeHandler
+        def info = new SimpleAuthenticationInfo("jsmith", new Sha1Hash("secret"), "realm")
+        assertTrue matcher.doCredentialsMatch(new UsernamePasswordToken("jsmith", "secret"), info)
+    }
+
+    void testIsRehashRequired() {
+        def service = new DefaultPasswordService()
+        assertFalse service.isRehashRequired(service.hashPassword("secret"))
+        assertFalse service.isRehashRequired(service.encryptPassword("secret"))
+        assertTrue service.isRehashRequired(new Sha256Hash("secret", "salt", 1000))
+        assertTrue service.isRehashRequired(new Sha256Hash("secret", null, DefaultPasswordService.DEFAULT_HASH_ITERATIONS))
+        assertFalse service.isRehashRequired("not a formatted hash")
+        assertFalse service.isRehashRequired((String) null)
+    }
 }
@@ -21,6 +21,10 @@ package org.apache.shiro.authc.pam
 import org.apache.shiro.realm.Realm
 import org.apache.shiro.subject.PrincipalCollection
 import org.apache.shiro.authc.*
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
 import static org.easymock.EasyMock.*
 
 /**
@@ -190,6 +194,179 @@ class ModularRealmAuthenticatorTest extends GroovyTestCase {
         verify realm1, realm1Info, realm2, token, aggregate, strategy
     }
 
+    void testConcurrentMultiRealmAuthentication() {
+        //each realm only returns once both are running, which never happens if they are consulted sequentially:
+        def bothRunning = new CountDownLatch(2)
+        def rendezvous = {
+            bothRunning.countDown()
+            assertTrue bothRunning.await(5, TimeUnit.SECONDS)
+        }
+        def realm1 = realm('realm1', 'user1', rendezvous)
+        def realm2 = realm('realm2', 'user2', rendezvous)
+
+        ModularRealmAuthenticator mra = new ModularRealmAuthenticator()
+        mra.authenticationStrategy = new AllSuccessfulStrategy()
+        mra.concurrentAuthenticationEnabled = true
+        mra.realms = [realm1, realm2]
+
+        try {
+            def info = mra.doAuthenticate(new UsernamePasswordToken('user', 'secret'))
+            assertEquals(['user1', 'user2'], info.principals.asList())
+        } finally {
+            mra.destroy()
+        }
+    }
+
+    void testConcurrentFirstSuccessfulShortCircuit() {
+        def started = new CountDownLatch(1)
+        def interrupted = new CountDownLatch(1)
+        def realm1 = realm('realm1', 'user1', { assertTrue started.await(5, TimeUnit.SECONDS) })
+        def realm2 = realm('realm2', 'user2', {
+            started.countDown()
+            try {
+                new CountDownLatch(1).await()
+            } catch (InterruptedException expected) {
+                interrupted.countDown()
+                throw expected
+            }
+        })
+
+        ModularRealmAuthenticator mra = new ModularRealmAuthenticator()
+        mra.authenticationStrategy = new FirstSuccessfulStrategy()
+        mra.concurrentAuthenticationEnabled = true
+        mra.realms = [realm1, realm2]
+
+        try {
+            def info = mra.doAuthenticate(new UsernamePasswordToken('user', 'secret'))
+            assertEquals(['user1'], info.principals.asList())
+            //the blocked realm's result is no longer needed:
+            assertTrue interrupted.await(5, TimeUnit.SECONDS)
+        } finally {
+            mra.destroy()
+        }
+    }
+
+    void testConcurrentAtLeastOneSuccessfulAggregatesAllRealms() {
+        def realm1 = realm('realm1', 'user1', { Thread.sleep(50) })
+        def realm2 = realm('realm2', 'user2', {})
+
+        ModularRealmAuthenticator mra = new ModularRealmAuthenticator()
+        mra.concurrentAuthenticationEnabled = true
+        mra.realms = [realm1, realm2]
+
+        try {
+            //same account as a sequential attempt, even though realm2 returns first:
+            def info = mra.doAuthenticate(new UsernamePasswordToken('user', 'secret'))
+            assertEquals(['user1', 'user2'], info.principals.asList())
+        } finally {
+            mra.destroy()
+        }
+    }
+
+    void testConcurrentSaturatedPoolUsesCallingThread() {
+        def realm2Done = new CountDownLatch(1)
+        def realm2Thread = null
+        def realm1 = realm('realm1', 'user1', { assertTrue realm2Done.await(5, TimeUnit.SECONDS) })
+        def realm2 = realm('realm2', 'user2', {
+            realm2Thread = Thread.currentThread()
+            realm2Done.countDown()
+        })
+
+        ModularRealmAuthenticator mra = new ModularRealmAuthenticator()
+        mra.authenticationStrategy = new AllSuccessfulStrategy()
+        mra.concurrentAuthenticationEnabled = true
+        mra.maxThreads = 1
+        mra.realms = [realm1, realm2]
+
+        try {
+            def info = mra.doAuthenticate(new UsernamePasswordToken('user', 'secret'))
+            assertEquals(['user1', 'user2'], info.principals.asList())
+            //the only pool thread is busy with realm1:
+            assertSame Thread.currentThread(), realm2Thread
+        } finally {
+            mra.destroy()
+        }
+    }
+
+    void testConcurrentRealmTimeout() {
+        def realm1 = realm('realm1', 'user1', {})
+        def realm2 = realm('realm2', 'user2', { new CountDownLatch(1).await() })
+
+        ModularRealmAuthenticator mra = new ModularRealmAuthenticator()
+        mra.authenticationStrategy = new AllSuccessfulStrategy()
+        mra.concurrentAuthenticationEnabled = true
+        mra.realmTimeout = 100
+        mra.realms = [realm1, realm2]
+
+        try {
+            mra.doAuthenticate(new UsernamePasswordToken('user', 'secret'))
+            fail "AllSuccessfulStrategy should fail when a realm times out."
+        } catch (AuthenticationException expected) {
+            assertTrue expected.message.contains('did not return within 100 milliseconds')
+        } finally {
+            mra.destroy()
+        }
+    }
+
+    void testConcurrentStrategyCallbacks() {
+
+        def realm1 = createStrictMock(Realm)
+        def realm1Info = createStrictMock(AuthenticationInfo)
+        def realm2 = createStrictMock(Realm)
+        def token = createStrictMock(AuthenticationToken)
+        def aggregate = createStrictMock(AuthenticationInfo)
+        def strategy = createStrictMock(AuthenticationStrategy)
+        def authcException = new AuthenticationException("test")
+        def realms = [realm1, realm2]
+
+        expect(strategy.beforeAllAttempts(same(realms), same(token))).andReturn aggregate
+
+        expect(strategy.beforeAttempt(same(realm1), same(token), same(aggregate))).andReturn aggregate
+        expect(realm1.supports(same(token))).andReturn true
+        expect(strategy.beforeAttempt(same(realm2), same(token), same(aggregate))).andReturn aggregate
+        expect(realm2.supports(same(token))).andReturn true
+
+        expect(realm1.getAuthenticationInfo(same(token))).andReturn realm1Info
+        expect(realm2.getAuthenticationInfo(same(token))).andThrow authcException
+
+        expect(strategy.afterAttempt(same(realm1), same(token), same(realm1Info), same(aggregate), isNull(Throwable))).andReturn aggregate
+        expect(strategy.afterAttempt(same(realm2), same(token), isNull(AuthenticationInfo), same(aggregate), same(authcException))).andReturn aggregate
+
+        expect(strategy.afterAllAttempts(same(token), same(aggregate))).andReturn aggregate
+
+        //the realms are called on other threads, so they cannot be strict about ordering:
+        checkOrder(realm1, false)
+        checkOrder(realm2, false)
+        makeThreadSafe(realm1, true)
+        makeThreadSafe(realm2, true)
+
+        replay realm1, realm1Info, realm2, token, aggregate, strategy
+
+        ModularRealmAuthenticator mra = new ModularRealmAuthenticator()
+        mra.authenticationStrategy = strategy
+        mra.concurrentAuthenticationEnabled = true
+        mra.realms = realms
+
+        try {
+            assertSame aggregate, mra.doAuthenticate(token)
+        } finally {
+            mra.destroy()
+        }
+
+        verify realm1, realm1Info, realm2, token, aggregate, strategy
+    }
+
+    private static Realm realm(String name, String principal, Closure beforeReturn) {
+        [
+                getName: { name },
+                supports: { AuthenticationToken token -> true },
+                getAuthenticationInfo: { AuthenticationToken token ->
+                    beforeReturn.call()
+                    new SimpleAuthenticationInfo(principal, 'secret', name)
+                }
+        ] as Realm
+    }
+
     void testOnLogout() {
 
         def realm = createStrictMock(LogoutAwareRealm)
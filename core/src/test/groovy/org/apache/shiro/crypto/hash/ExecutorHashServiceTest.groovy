@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.crypto.hash
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.RejectedExecutionException
+import org.apache.shiro.util.ByteSource
+
+/**
+ * Unit tests for the {@link ExecutorHashService} implementation.
+ *
+ * @since 1.3
+ */
+class ExecutorHashServiceTest extends GroovyTestCase {
+
+    void testComputeHash() {
+        def delegate = new DefaultHashService(hashIterations: 2)
+        def service = new ExecutorHashService(delegate)
+        try {
+            def request = createRequest("password")
+            assertEquals delegate.computeHash(request), service.computeHash(request)
+            assertEquals delegate.computeHash(request), service.computeHashAsync(request).get()
+            assertNull service.computeHash(null)
+        } finally {
+            service.destroy()
+        }
+    }
+
+    void testFailureIsRethrown() {
+        def service = new ExecutorHashService([computeHash: { HashRequest r -> throw new IllegalStateException("boom") }] as HashService)
+        try {
+            shouldFail(IllegalStateException) {
+                service.computeHash(createRequest("password"))
+            }
+            try {
+                service.computeHashAsync(createRequest("password")).get()
+                fail "ExecutionException expected"
+            } catch (ExecutionException expected) {
+                assertTrue expected.cause instanceof IllegalStateException
+            }
+            waitForPendingRequests(service)
+        } finally {
+            service.destroy()
+        }
+    }
+
+    void testSaturatedServiceFailsFast() {
+        def started = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def delegate = new DefaultHashService()
+        def blocking = [computeHash: { HashRequest r ->
+            started.countDown()
+            release.await()
+            delegate.computeHash(r)
+        }] as HashService
+
+        def service = new ExecutorHashService(blocking)
+        service.maxThreads = 1
+        service.maxQueuedRequests = 1
+        try {
+            def running = service.computeHashAsync(createRequest("first"))
+            started.await()
+            def queued = service.computeHashAsync(createRequest("second"))
+            assertEquals 2, service.pendingRequestCount
+
+            shouldFail(RejectedExecutionException) {
+                service.computeHashAsync(createRequest("third"))
+            }
+            shouldFail(RejectedExecutionException) {
+                service.computeHash(createRequest("third"))
+            }
+
+            release.countDown()
+            assertEquals delegate.computeHash(createRequest("first")), running.get()
+            assertEquals delegate.computeHash(createRequest("second")), queued.get()
+            waitForPendingRequests(service)
+
+            //capacity is available again:
+            assertNotNull service.computeHash(createRequest("third"))
+        } finally {
+            release.countDown()
+            service.destroy()
+        }
+    }
+
+    void testInterruptedRequestStaysPendingUntilComputationStops() {
+        def started = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def delegate = new DefaultHashService()
+        def uninterruptible = [computeHash: { HashRequest r ->
+            started.countDown()
+            while (release.count > 0) {
+                try {
+                    release.await()
+                } catch (InterruptedException ignored) {
+                }
+            }
+            delegate.computeHash(r)
+        }] as HashService
+
+        def service = new ExecutorHashService(uninterruptible)
+        service.maxThreads = 1
+        try {
+            def running = callAndInterrupt(service, "first", started)
+            assertEquals 1, service.pendingRequestCount
+
+            //a request that is interrupted while still queued is removed from the queue right away:
+            callAndInterrupt(service, "second", null)
+            assertEquals 1, service.pendingRequestCount
+
+            assertTrue running.error instanceof org.apache.shiro.crypto.CryptoException
+            release.countDown()
+            waitForPendingRequests(service)
+        } finally {
+            release.countDown()
+            service.destroy()
+        }
+    }
+
+    void testInvalidLimits() {
+        def service = new ExecutorHashService()
+        shouldFail(IllegalArgumentException) {
+            service.maxThreads = 0
+        }
+        shouldFail(IllegalArgumentException) {
+            service.maxQueuedRequests = -1
+        }
+    }
+
+    private static HashRequest createRequest(String source) {
+        return new HashRequest.Builder().setSource(ByteSource.Util.bytes(source)).build()
+    }
+
+    /**
+     * Calls computeHash on a separate thread, interrupts that thread once the request is pending (and, if a latch is
+     * given, its computation has started) and waits for the call to return.
+     */
+    private static Map callAndInterrupt(ExecutorHashService service, String source, CountDownLatch started) {
+        def result = [:]
+        int pending = service.pendingRequestCount
+        def caller = Thread.start {
+            try {
+                service.computeHash(createRequest(source))
+            } catch (Throwable t) {
+                result.error = t
+            }
+        }
+        while (service.pendingRequestCount == pending) {
+            Thread.sleep(1)
+        }
+        started?.await()
+        caller.interrupt()
+        caller.join()
+        return result
+    }
+
+    private static void waitForPendingRequests(ExecutorHashService service) {
+        //pending requests are released when the task completes, just after the result is available:
+        for (int i = 0; i < 100 && service.pendingRequestCount > 0; i++) {
+            Thread.sleep(10)
+        }
+        assertEquals 0, service.pendingRequestCount
+    }
+}
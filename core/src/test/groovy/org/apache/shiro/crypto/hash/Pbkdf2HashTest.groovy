@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.crypto.hash
+
+import javax.crypto.SecretKeyFactory
+import javax.crypto.spec.PBEKeySpec
+import org.apache.shiro.codec.Hex
+import org.apache.shiro.crypto.UnknownAlgorithmException
+
+/**
+ * Unit tests for the {@link Pbkdf2Hash} implementation.
+ *
+ * @since 1.3
+ */
+class Pbkdf2HashTest extends GroovyTestCase {
+
+    /**
+     * RFC 6070 test vectors (PBKDF2-HMAC-SHA1, 20 byte derived keys).
+     */
+    void testRfc6070() {
+        assertEquals '0c60c80f961f0e71f3a9b524af6012062fe037a6',
+                new Pbkdf2Hash('PBKDF2WithHmacSHA1', 'password', 'salt', 1).toHex()
+        assertEquals 'ea6c014dc72d6f8ccd1ed92ace1d41f0d8de8957',
+                new Pbkdf2Hash('PBKDF2WithHmacSHA1', 'password', 'salt', 2).toHex()
+        assertEquals '4b007901b765489abead49d926f721d065a429c1',
+                new Pbkdf2Hash('PBKDF2WithHmacSHA1', 'password', 'salt', 4096).toHex()
+    }
+
+    void testSameResultAsSecretKeyFactory() {
+        def salt = 'NaCl'.getBytes('UTF-8')
+        for (String algorithmName : ['PBKDF2WithHmacSHA1', 'PBKDF2WithHmacSHA256', 'PBKDF2WithHmacSHA512']) {
+            def hash = new Pbkdf2Hash(algorithmName, 'pässword', salt, 1000)
+            def factory = SecretKeyFactory.getInstance(algorithmName)
+            def spec = new PBEKeySpec('pässword'.toCharArray(), salt, 1000, hash.bytes.length * 8)
+            assertEquals Hex.encodeToString(factory.generateSecret(spec).encoded), hash.toHex()
+            assertEquals algorithmName, hash.algorithmName
+            assertEquals 1000, hash.iterations
+        }
+    }
+
+    void testIsPbkdf2() {
+        assertTrue Pbkdf2Hash.isPbkdf2('PBKDF2WithHmacSHA256')
+        assertTrue Pbkdf2Hash.isPbkdf2('pbkdf2withhmacsha256')
+        assertFalse Pbkdf2Hash.isPbkdf2('PBKDF2WithHmac')
+        assertFalse Pbkdf2Hash.isPbkdf2('SHA-256')
+        assertFalse Pbkdf2Hash.isPbkdf2(null)
+    }
+
+    void testUnknownAlgorithm() {
+        shouldFail(UnknownAlgorithmException) {
+            new Pbkdf2Hash('PBKDF2WithHmacFoo', 'password', 'salt', 1)
+        }
+    }
+
+    void testDefaultHashService() {
+        def service = new DefaultHashService(hashAlgorithmName: Pbkdf2Hash.DEFAULT_ALGORITHM_NAME, hashIterations: 1000,
+                generatePublicSalt: true)
+        def request = new HashRequest.Builder().setSource('password').build()
+        def hash = service.computeHash(request)
+        assertEquals Pbkdf2Hash.DEFAULT_ALGORITHM_NAME, hash.algorithmName
+        assertEquals 1000, hash.iterations
+        assertEquals new Pbkdf2Hash(Pbkdf2Hash.DEFAULT_ALGORITHM_NAME, 'password', hash.salt, 1000), hash
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.crypto.hash
+
+import org.apache.shiro.codec.Hex
+import org.apache.shiro.crypto.hash.format.Shiro1CryptFormat
+
+/**
+ * Unit tests for the {@link ScryptHash} implementation.
+ *
+ * @since 1.3
+ */
+class ScryptHashTest extends GroovyTestCase {
+
+    private static String scrypt(String password, String salt, int n, int r, int p, int keyLength) {
+        return Hex.encodeToString(ScryptHash.scrypt(password.getBytes('UTF-8'), salt.getBytes('UTF-8'), n, r, p, keyLength))
+    }
+
+    /**
+     * RFC 7914 section 12 test vectors.
+     */
+    void testRfc7914() {
+        assertEquals '77d6576238657b203b19ca42c18a0497f16b4844e3074ae8dfdffa3fede21442' +
+                'fcd0069ded0948f8326a753a0fc81f17e8d3e0fb2e0d3628cf35e20c38d18906',
+                scrypt('', '', 16, 1, 1, 64)
+        assertEquals 'fdbabe1c9d3472007856e7190d01e9fe7c6ad7cbc8237830e77376634b373162' +
+                '2eaf30d92e22a3886ff109279d9830dac727afb94a83ee6d8360cbdfa2cc0640',
+                scrypt('password', 'NaCl', 1024, 8, 16, 64)
+    }
+
+    void testHash() {
+        def hash = new ScryptHash('password', 'NaCl', 1024)
+        assertEquals ScryptHash.ALGORITHM_NAME, hash.algorithmName
+        assertEquals 1024, hash.iterations
+        assertEquals ScryptHash.KEY_LENGTH, hash.bytes.length
+        assertEquals scrypt('password', 'NaCl', 1024, ScryptHash.BLOCK_SIZE, ScryptHash.PARALLELIZATION,
+                ScryptHash.KEY_LENGTH), hash.toHex()
+    }
+
+    void testInvalidCost() {
+        for (int cost : [1, 3, 1000]) {
+            shouldFail(IllegalArgumentException) {
+                new ScryptHash('password', 'NaCl', cost)
+            }
+        }
+    }
+
+    void testFormatRoundTrip() {
+        def service = new DefaultHashService(hashAlgorithmName: 'scrypt', hashIterations: 1024, generatePublicSalt: true)
+        def hash = service.computeHash(new HashRequest.Builder().setSource('password').build())
+        def format = new Shiro1CryptFormat()
+        def formatted = format.format(hash)
+        assertTrue formatted.startsWith('$shiro1$scrypt$1024$')
+
+        def parsed = format.parse(formatted)
+        def request = new HashRequest.Builder().setSource('password').setAlgorithmName(parsed.algorithmName)
+                .setSalt(parsed.salt).setIterations(parsed.iterations).build()
+        assertEquals parsed, service.computeHash(request)
+    }
+}
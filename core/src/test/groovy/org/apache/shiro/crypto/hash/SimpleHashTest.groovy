@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.crypto.hash
+
+import java.security.MessageDigest
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+import org.apache.shiro.crypto.UnknownAlgorithmException
+
+/**
+ * Unit tests for the {@link SimpleHash} implementation.
+ *
+ * @since 1.3
+ */
+class SimpleHashTest extends GroovyTestCase {
+
+    /**
+     * The straightforward computation: a new digest and a new array per iteration.
+     */
+    private static byte[] expected(String algorithmName, String source, String salt, int iterations) {
+        def digest = MessageDigest.getInstance(algorithmName)
+        if (salt != null) {
+            digest.update(salt.getBytes("UTF-8"))
+        }
+        byte[] hashed = digest.digest(source.getBytes("UTF-8"))
+        for (int i = 1; i < iterations; i++) {
+            digest.reset()
+            hashed = digest.digest(hashed)
+        }
+        return hashed
+    }
+
+    void testIteratedHashes() {
+        for (String algorithmName : ['MD5', 'SHA-1', 'SHA-256', 'SHA-512']) {
+            for (int iterations : [1, 2, 3, 1000]) {
+                for (String salt : [null, 'salt']) {
+                    //twice, so the second computation uses a pooled digest:
+                    2.times {
+                        def hash = new SimpleHash(algorithmName, 'password', salt, iterations)
+                        assertTrue Arrays.equals(expected(algorithmName, 'password', salt, iterations), hash.bytes)
+                    }
+                }
+            }
+        }
+    }
+
+    void testUnknownAlgorithm() {
+        shouldFail(UnknownAlgorithmException) {
+            new SimpleHash('foo', 'password')
+        }
+    }
+
+    void testConcurrentHashes() {
+        def expected = expected('SHA-256', 'password', 'salt', 500)
+        def executor = Executors.newFixedThreadPool(4)
+        try {
+            def tasks = (1..40).collect {
+                { -> new SimpleHash('SHA-256', 'password', 'salt', 500).bytes } as Callable
+            }
+            for (def future : executor.invokeAll(tasks)) {
+                assertTrue Arrays.equals(expected, (byte[]) future.get())
+            }
+        } finally {
+            executor.shutdown()
+        }
+    }
+
+    void testOverriddenGetDigestIsNotPooled() {
+        ForeignDigestHash.foreign = new Md5ReportingAsSha256Digest()
+        ForeignDigestHash.calls = 0
+        2.times {
+            new ForeignDigestHash('password')
+        }
+        assertEquals 2, ForeignDigestHash.calls
+        //the subclass's digest instance must never be handed out to other hashes:
+        20.times {
+            assertTrue Arrays.equals(expected('SHA-256', 'password', null, 1), new SimpleHash('SHA-256', 'password').bytes)
+        }
+    }
+}
+
+/**
+ * A hash whose {@code getDigest} override always returns the same, foreign, digest instance.
+ */
+class ForeignDigestHash extends SimpleHash {
+
+    static MessageDigest foreign
+    static int calls
+
+    ForeignDigestHash(Object source) {
+        super('SHA-256', source)
+    }
+
+    @Override
+    protected MessageDigest getDigest(String algorithmName) {
+        calls++
+        return foreign
+    }
+}
+
+/**
+ * A digest that claims to be SHA-256 but computes MD5.
+ */
+class Md5ReportingAsSha256Digest extends MessageDigest {
+
+    private final MessageDigest md5 = MessageDigest.getInstance('MD5')
+
+    Md5ReportingAsSha256Digest() {
+        super('SHA-256')
+    }
+
+    protected void engineUpdate(byte input) {
+        md5.update(input)
+    }
+
+    protected void engineUpdate(byte[] input, int offset, int len) {
+        md5.update(input, offset, len)
+    }
+
+    protected byte[] engineDigest() {
+        return md5.digest()
+    }
+
+    protected void engineReset() {
+        md5.reset()
+    }
+}
@@ -18,6 +18,7 @@
  */
 package org.apache.shiro.authz;
 
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
@@ -32,6 +33,7 @@ import org.apache.shiro.authz.permission.RolePermissionResolver;
 import org.apache.shiro.realm.AuthorizingRealm;
 import org.apache.shiro.realm.Realm;
 import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.SimplePrincipalCollection;
 import org.junit.Test;
 
 public class ModularRealmAuthorizerTest
@@ -95,6 +97,79 @@ public class ModularRealmAuthorizerTest
         
     }
     
+    @Test
+    public void testAuthorizationSnapshot()
+    {
+        CountingAuthorizingRealm first = new CountingAuthorizingRealm( "admin", "newsletter:*" );
+        CountingAuthorizingRealm second = new CountingAuthorizingRealm( "user", "document:read" );
+        Collection<Realm> realms = new ArrayList<Realm>();
+        realms.add( first );
+        realms.add( second );
+        ModularRealmAuthorizer modRealmAuthz = new ModularRealmAuthorizer( realms );
+
+        PrincipalCollection principals = new SimplePrincipalCollection( "jsmith", "test" );
+        AuthorizationSnapshot snapshot = modRealmAuthz.createAuthorizationSnapshot( principals );
+        Assert.assertSame( principals, snapshot.getPrincipals() );
+
+        for ( int i = 0; i < 10; i++ )
+        {
+            assertTrue( snapshot.isPermitted( "newsletter:edit:" + i ) );
+            assertTrue( snapshot.isPermitted( "document:read" ) );
+            assertFalse( snapshot.isPermitted( "document:write" ) );
+            assertTrue( snapshot.hasRole( "admin" ) );
+            assertTrue( snapshot.hasRole( "user" ) );
+            assertFalse( snapshot.hasRole( "guest" ) );
+        }
+        // each realm's authorization info is only acquired once for the life of the snapshot:
+        Assert.assertEquals( 1, first.count );
+        Assert.assertEquals( 1, second.count );
+    }
+
+    @Test
+    public void testAuthorizationSnapshotWithOverriddenChecks()
+    {
+        Collection<Realm> realms = new ArrayList<Realm>();
+        realms.add( new CountingAuthorizingRealm( "user", "document:read" ) );
+        ModularRealmAuthorizer modRealmAuthz = new ModularRealmAuthorizer( realms )
+        {
+            @Override
+            public boolean hasRole( PrincipalCollection principals, String roleIdentifier )
+            {
+                return "auditor".equals( roleIdentifier ) || super.hasRole( principals, roleIdentifier );
+            }
+        };
+
+        AuthorizationSnapshot snapshot =
+                modRealmAuthz.createAuthorizationSnapshot( new SimplePrincipalCollection( "jsmith", "test" ) );
+        assertTrue( snapshot.hasRole( "auditor" ) );
+        assertTrue( snapshot.hasRole( "user" ) );
+        assertFalse( snapshot.hasRole( "guest" ) );
+        assertTrue( snapshot.isPermitted( "document:read" ) );
+    }
+
+    class CountingAuthorizingRealm extends MockAuthorizingRealm
+    {
+        private final String role;
+        private final String permission;
+        private int count;
+
+        CountingAuthorizingRealm( String role, String permission )
+        {
+            this.role = role;
+            this.permission = permission;
+        }
+
+        @Override
+        protected AuthorizationInfo doGetAuthorizationInfo( PrincipalCollection principals )
+        {
+            count++;
+            SimpleAuthorizationInfo info = new SimpleAuthorizationInfo();
+            info.addRole( role );
+            info.addStringPermission( permission );
+            return info;
+        }
+    }
+
     class MockAuthorizingRealm extends AuthorizingRealm
     {
 
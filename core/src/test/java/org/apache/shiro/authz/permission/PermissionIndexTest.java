@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authz.permission;
+
+import org.apache.shiro.authz.Permission;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the {@link PermissionIndex} class.
+ *
+ * @since 1.3
+ */
+public class PermissionIndexTest {
+
+    private static final String[] GRANTED = {
+            "newsletter:view,edit",
+            "newsletter:create:12,13",
+            "printer:*:lp7200",
+            "document:read",
+            "*:audit",
+            "report:*:*",
+            "simple",
+            "BLAH:Foo"
+    };
+
+    private static final String[] CHECKED = {
+            "newsletter", "newsletter:view", "newsletter:edit", "newsletter:delete", "newsletter:view:1",
+            "newsletter:view,edit", "newsletter:view,delete", "newsletter:create", "newsletter:create:12",
+            "newsletter:create:12,13", "newsletter:create:14", "printer", "printer:print", "printer:print:lp7200",
+            "printer:print:lp4400", "printer:print:lp7200:tray1", "document", "document:read", "document:read:7",
+            "document:write", "anything:audit", "anything:audit:more", "anything:else", "report", "report:x",
+            "report:x:y", "report:x:y:z", "simple", "simple:foo", "blah:foo", "blah:bar", "*", "newsletter:*",
+            "printer:*:*", "other"
+    };
+
+    private static boolean impliesDirectly(List<Permission> granted, Permission permission) {
+        for (Permission p : granted) {
+            if (p.implies(permission)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void testEmpty() {
+        PermissionIndex index = new PermissionIndex(null);
+        assertTrue(index.isEmpty());
+        assertFalse(index.implies(new WildcardPermission("foo")));
+
+        index = new PermissionIndex(Collections.<Permission>emptySet());
+        assertTrue(index.isEmpty());
+        assertFalse(index.implies(new WildcardPermission("foo")));
+    }
+
+    @Test
+    public void testMatchesWildcardPermissionSemantics() {
+        List<Permission> granted = new ArrayList<Permission>();
+        for (String s : GRANTED) {
+            granted.add(new WildcardPermission(s));
+        }
+        PermissionIndex index = new PermissionIndex(granted);
+        assertEquals(GRANTED.length, index.size());
+
+        for (String s : CHECKED) {
+            WildcardPermission checked = new WildcardPermission(s);
+            assertEquals("Unexpected result for [" + s + "]", impliesDirectly(granted, checked), index.implies(checked));
+        }
+    }
+
+    @Test
+    public void testGrantedWildcard() {
+        PermissionIndex index = new PermissionIndex(Arrays.asList((Permission) new WildcardPermission("*")));
+        for (String s : CHECKED) {
+            assertTrue(index.implies(new WildcardPermission(s)));
+        }
+    }
+
+    @Test
+    public void testShorterGrantImpliesLongerChecks() {
+        PermissionIndex index = new PermissionIndex(Arrays.asList((Permission) new WildcardPermission("a:b")));
+        assertTrue(index.implies(new WildcardPermission("a:b:c:d")));
+        assertFalse(index.implies(new WildcardPermission("a")));
+        assertFalse(index.implies(new WildcardPermission("a:c:d")));
+    }
+
+    @Test
+    public void testMultipleSubpartsMustBeImpliedBySingleGrant() {
+        List<Permission> granted = new ArrayList<Permission>();
+        granted.add(new WildcardPermission("doc:read"));
+        granted.add(new WildcardPermission("doc:write"));
+        PermissionIndex index = new PermissionIndex(granted);
+        assertTrue(index.implies(new WildcardPermission("doc:read")));
+        assertTrue(index.implies(new WildcardPermission("doc:write")));
+        assertFalse(index.implies(new WildcardPermission("doc:read,write")));
+    }
+
+    @Test
+    public void testNonWildcardPermissions() {
+        List<Permission> granted = new ArrayList<Permission>();
+        granted.add(new WildcardPermission("doc:read"));
+        PermissionIndex index = new PermissionIndex(granted);
+        assertFalse(index.implies(new AllPermission()));
+
+        granted.add(new AllPermission());
+        index = new PermissionIndex(granted);
+        assertTrue(index.implies(new AllPermission()));
+        assertTrue(index.implies(new WildcardPermission("anything:at:all")));
+    }
+
+    @Test
+    public void testSubclassOverridingImpliesIsNotCompiled() {
+        Permission granted = new WildcardPermission("doc:read") {
+            @Override
+            public boolean implies(Permission p) {
+                return false;
+            }
+        };
+        PermissionIndex index = new PermissionIndex(Arrays.asList(granted));
+        assertFalse(index.implies(new WildcardPermission("doc:read")));
+    }
+
+    @Test
+    public void testDomainPermission() {
+        PermissionIndex index = new PermissionIndex(Arrays.asList(
+                (Permission) new DomainPermission("read,write", "12")));
+        assertTrue(index.implies(new WildcardPermission("domain:read:12")));
+        assertFalse(index.implies(new WildcardPermission("domain:delete:12")));
+    }
+}
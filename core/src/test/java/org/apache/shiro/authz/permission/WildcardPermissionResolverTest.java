@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authz.permission;
+
+import org.apache.shiro.authz.Permission;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the {@link WildcardPermissionResolver} class.
+ *
+ * @since 1.3
+ */
+public class WildcardPermissionResolverTest {
+
+    @Test
+    public void testCanonicalInstancesAreShared() {
+        Permission p1 = new WildcardPermissionResolver().resolvePermission("newsletter:edit");
+        Permission p2 = new WildcardPermissionResolver().resolvePermission("newsletter:edit");
+        assertTrue(p1 instanceof WildcardPermission);
+        assertSame(p1, p2);
+        assertTrue(p1.implies(new WildcardPermission("newsletter:edit:12")));
+    }
+
+    @Test
+    public void testCanonicalizationDisabled() {
+        WildcardPermissionResolver resolver = new WildcardPermissionResolver();
+        resolver.setCanonicalizationEnabled(false);
+        Permission p1 = resolver.resolvePermission("newsletter:view");
+        Permission p2 = resolver.resolvePermission("newsletter:view");
+        assertNotSame(p1, p2);
+        assertEquals(p1, p2);
+    }
+
+    @Test
+    public void testCacheIsBounded() {
+        WildcardPermissionResolver resolver = new WildcardPermissionResolver();
+        for (int i = 0; i <= WildcardPermissionResolver.MAX_CANONICAL_PERMISSIONS * 2; i++) {
+            Permission p = resolver.resolvePermission("document:read:" + i);
+            assertTrue(p.implies(new WildcardPermission("document:read:" + i)));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidString() {
+        new WildcardPermissionResolver().resolvePermission("::,,::,:");
+    }
+}
@@ -18,10 +18,16 @@
  */
 package org.apache.shiro.authz.permission;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
 
 /**
  * @since 0.9
@@ -196,4 +202,33 @@ public class WildcardPermissionTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testParts() {
+        WildcardPermission p = new WildcardPermission("Newsletter:VIEW,edit,view::");
+        List<Set<String>> parts = p.getParts();
+        assertEquals(2, parts.size());
+        assertEquals(1, parts.get(0).size());
+        assertTrue(parts.get(0).contains("newsletter"));
+        assertEquals(Arrays.asList("view", "edit"), new ArrayList<String>(parts.get(1)));
+        assertEquals("[newsletter]:[view, edit]", p.toString());
+
+        p = new WildcardPermission("Newsletter:VIEW", true);
+        assertTrue(p.getParts().get(0).contains("Newsletter"));
+        assertFalse(p.getParts().get(0).contains("newsletter"));
+
+        assertEquals(new WildcardPermission("a:b,c"), new WildcardPermission("A:C,B"));
+        assertEquals(new WildcardPermission("a:b,c").hashCode(), new WildcardPermission("A:C,B").hashCode());
+    }
+
+    @Test
+    public void testManySubparts() {
+        WildcardPermission p1 = new WildcardPermission("newsletter:view:1,2,3,4,5,6,7,8,9,10,11,12");
+        WildcardPermission p2 = new WildcardPermission("newsletter:view:12,3,7");
+        WildcardPermission p3 = new WildcardPermission("newsletter:view:12,13");
+        assertTrue(p1.implies(p2));
+        assertFalse(p1.implies(p3));
+        assertFalse(p2.implies(p1));
+        assertEquals(12, p1.getParts().get(2).size());
+    }
+
+}
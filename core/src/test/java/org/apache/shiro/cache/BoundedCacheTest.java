@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.cache;
+
+import org.apache.shiro.session.mgt.eis.CachingSessionDAO;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the {@link BoundedCache} and {@link BoundedCacheManager} classes.
+ *
+ * @since 1.3
+ */
+public class BoundedCacheTest {
+
+    /**
+     * BoundedCache with a manually advanced clock.
+     */
+    private static class TestBoundedCache extends BoundedCache<String, String> {
+
+        private long now = 1000;
+
+        TestBoundedCache(int maxEntries, long timeToLive, long timeToIdle) {
+            super("test", maxEntries, timeToLive, timeToIdle);
+        }
+
+        void advance(long millis) {
+            now += millis;
+        }
+
+        @Override
+        protected long currentTimeMillis() {
+            return now;
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullName() {
+        new BoundedCache<String, String>(null, 0, 0, 0);
+    }
+
+    @Test
+    public void testBasicOperations() {
+        BoundedCache<String, String> cache = new BoundedCache<String, String>("test", 0, 0, 0);
+        assertNull(cache.put("a", "1"));
+        assertEquals("1", cache.put("a", "2"));
+        assertEquals("2", cache.get("a"));
+        assertNull(cache.get("b"));
+        cache.put("b", "3");
+        assertEquals(2, cache.size());
+        assertTrue(cache.keys().contains("a"));
+        assertTrue(cache.values().contains("3"));
+        assertEquals("3", cache.remove("b"));
+        assertNull(cache.remove("b"));
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertTrue(cache.keys().isEmpty());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testSizeBoundEvictsUnreferencedEntries() {
+        BoundedCache<String, String> cache = new BoundedCache<String, String>("test", 3, 0, 0);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.put("c", "3");
+        //reading 'a' gives it a second chance, so 'b' is evicted instead:
+        assertEquals("1", cache.get("a"));
+        cache.put("d", "4");
+
+        assertEquals(3, cache.size());
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("3", cache.get("c"));
+        assertEquals("4", cache.get("d"));
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    public void testSizeBoundWhenAllEntriesReferenced() {
+        BoundedCache<String, String> cache = new BoundedCache<String, String>("test", 2, 0, 0);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.get("a");
+        cache.get("b");
+        cache.put("c", "3");
+        assertEquals(2, cache.size());
+        assertNull(cache.get("a"));
+        assertEquals("3", cache.get("c"));
+    }
+
+    @Test
+    public void testTimeToLive() {
+        TestBoundedCache cache = new TestBoundedCache(0, 100, 0);
+        cache.put("a", "1");
+        cache.advance(50);
+        assertEquals("1", cache.get("a"));
+        cache.advance(50);
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getExpirationCount());
+    }
+
+    @Test
+    public void testTimeToIdle() {
+        TestBoundedCache cache = new TestBoundedCache(0, 0, 100);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.advance(60);
+        assertEquals("1", cache.get("a"));
+        cache.advance(60);
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.keys().size());
+    }
+
+    @Test
+    public void testExpiredEntriesPurgedOnPut() {
+        TestBoundedCache cache = new TestBoundedCache(0, 100, 0);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.advance(100);
+        assertNull(cache.put("a", "3"));
+        assertEquals(1, cache.getExpirationCount());
+        assertEquals(1, cache.size());
+        assertEquals("3", cache.get("a"));
+    }
+
+    @Test
+    public void testManagerDefaultsAndOverrides() {
+        BoundedCacheManager manager = new BoundedCacheManager();
+        manager.setTimeToIdle(1000);
+
+        BoundedCacheConfiguration config = new BoundedCacheConfiguration();
+        config.setMaxEntries(0);
+        config.setTimeToLive(5000L);
+        Map<String, BoundedCacheConfiguration> configs = new HashMap<String, BoundedCacheConfiguration>();
+        configs.put("configured", config);
+        manager.setCacheConfigurations(configs);
+
+        BoundedCache defaults = (BoundedCache) manager.getCache("defaults");
+        assertEquals(BoundedCacheManager.DEFAULT_MAX_ENTRIES, defaults.getMaxEntries());
+        assertEquals(0, defaults.getTimeToLive());
+        assertEquals(1000, defaults.getTimeToIdle());
+
+        BoundedCache configured = (BoundedCache) manager.getCache("configured");
+        assertEquals(0, configured.getMaxEntries());
+        assertEquals(5000, configured.getTimeToLive());
+        assertEquals(1000, configured.getTimeToIdle());
+
+        assertSame(configured, manager.getCache("configured"));
+    }
+
+    @Test
+    public void testManagerActiveSessionCacheUnboundedByDefault() {
+        BoundedCacheManager manager = new BoundedCacheManager();
+        manager.setTimeToLive(1000);
+        manager.setTimeToIdle(1000);
+
+        BoundedCache sessions = (BoundedCache) manager.getCache(CachingSessionDAO.ACTIVE_SESSION_CACHE_NAME);
+        assertEquals(0, sessions.getMaxEntries());
+        assertEquals(0, sessions.getTimeToLive());
+        assertEquals(0, sessions.getTimeToIdle());
+
+        BoundedCacheConfiguration config = new BoundedCacheConfiguration();
+        config.setMaxEntries(50000);
+        manager = new BoundedCacheManager();
+        manager.setCacheConfigurations(Collections.singletonMap(CachingSessionDAO.ACTIVE_SESSION_CACHE_NAME, config));
+        sessions = (BoundedCache) manager.getCache(CachingSessionDAO.ACTIVE_SESSION_CACHE_NAME);
+        assertEquals(50000, sessions.getMaxEntries());
+    }
+}
@@ -25,9 +25,16 @@ import org.junit.Test;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
 
 /**
  * Test class for the AesCipherService class.
@@ -76,4 +83,71 @@ public class AesCipherServiceTest {
             assertTrue(Arrays.equals(plaintext, decrypted));
         }
     }
+
+    @Test
+    public void testPooledCipherReuseAcrossKeys() {
+        AesCipherService aes = new AesCipherService();
+        byte[] key1 = aes.generateNewKey().getEncoded();
+        byte[] key2 = aes.generateNewKey().getEncoded();
+        byte[] plaintext = CodecSupport.toBytes(PLAINTEXTS[1]);
+
+        for (int i = 0; i < 5; i++) {
+            byte[] key = i % 2 == 0 ? key1 : key2;
+            ByteSource ciphertext = aes.encrypt(plaintext, key);
+            assertTrue(Arrays.equals(plaintext, aes.decrypt(ciphertext.getBytes(), key).getBytes()));
+        }
+
+        //a failed operation must not affect subsequent ones:
+        ByteSource ciphertext = aes.encrypt(plaintext, key1);
+        try {
+            byte[] decrypted = aes.decrypt(ciphertext.getBytes(), key2).getBytes();
+            assertTrue(!Arrays.equals(plaintext, decrypted));
+        } catch (CryptoException expected) {
+        }
+        assertTrue(Arrays.equals(plaintext, aes.decrypt(ciphertext.getBytes(), key1).getBytes()));
+    }
+
+    @Test
+    public void testPoolingDisabled() {
+        AesCipherService aes = new AesCipherService();
+        aes.setMaxPooledCiphers(0);
+        byte[] key = aes.generateNewKey().getEncoded();
+        byte[] plaintext = CodecSupport.toBytes(PLAINTEXTS[0]);
+        for (int i = 0; i < 3; i++) {
+            ByteSource ciphertext = aes.encrypt(plaintext, key);
+            assertTrue(Arrays.equals(plaintext, aes.decrypt(ciphertext.getBytes(), key).getBytes()));
+        }
+    }
+
+    @Test
+    public void testConcurrentOperations() throws Exception {
+        final AesCipherService aes = new AesCipherService();
+        aes.setMaxPooledCiphers(2);
+        final byte[] key = aes.generateNewKey().getEncoded();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for (int i = 0; i < 8; i++) {
+                final byte[] plaintext = CodecSupport.toBytes(PLAINTEXTS[i % PLAINTEXTS.length] + i);
+                results.add(executor.submit(new Callable<Boolean>() {
+                    public Boolean call() throws Exception {
+                        for (int j = 0; j < 200; j++) {
+                            ByteSource ciphertext = aes.encrypt(plaintext, key);
+                            if (!Arrays.equals(plaintext, aes.decrypt(ciphertext.getBytes(), key).getBytes())) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                if (!result.get()) {
+                    fail("Concurrent encryption/decryption produced an incorrect result.");
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 }
@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.io;
+
+import org.apache.shiro.session.mgt.SimpleSession;
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.apache.shiro.subject.support.DefaultSubjectContext;
+import org.junit.Test;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the {@link CompactSerializer} class.
+ *
+ * @since 1.3
+ */
+public class CompactSerializerTest {
+
+    private static SimplePrincipalCollection createPrincipals() {
+        SimplePrincipalCollection principals = new SimplePrincipalCollection();
+        principals.add("jsmith", "ldapRealm");
+        principals.add(42L, "ldapRealm");
+        principals.add("jsmith@example.com", "jdbcRealm");
+        return principals;
+    }
+
+    private static SimpleSession createSession() {
+        SimpleSession session = new SimpleSession("192.168.1.10");
+        session.setId("7a1cd2f8-61e3-4a54-a1de-2d3b4c5e6f70");
+        session.setLastAccessTime(new Date(session.getStartTimestamp().getTime() + 1000));
+        session.setTimeout(1800000);
+        session.setAttribute(DefaultSubjectContext.PRINCIPALS_SESSION_KEY, createPrincipals());
+        session.setAttribute(DefaultSubjectContext.AUTHENTICATED_SESSION_KEY, Boolean.TRUE);
+        session.setAttribute("count", 3);
+        session.setAttribute("bytes", new byte[]{1, 2, 3});
+        return session;
+    }
+
+    private static void assertSessionsEqual(SimpleSession expected, SimpleSession actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getStartTimestamp(), actual.getStartTimestamp());
+        assertEquals(expected.getStopTimestamp(), actual.getStopTimestamp());
+        assertEquals(expected.getLastAccessTime(), actual.getLastAccessTime());
+        assertEquals(expected.getTimeout(), actual.getTimeout());
+        assertEquals(expected.isExpired(), actual.isExpired());
+        assertEquals(expected.getHost(), actual.getHost());
+        assertEquals(expected.getAttributeKeys(), actual.getAttributeKeys());
+        for (Object key : expected.getAttributeKeys()) {
+            Object value = expected.getAttribute(key);
+            if (value instanceof byte[]) {
+                assertTrue(Arrays.equals((byte[]) value, (byte[]) actual.getAttribute(key)));
+            } else {
+                assertEquals(value, actual.getAttribute(key));
+            }
+        }
+    }
+
+    @Test
+    public void testPrincipals() {
+        CompactSerializer<PrincipalCollection> serializer = new CompactSerializer<PrincipalCollection>();
+        SimplePrincipalCollection principals = createPrincipals();
+        byte[] serialized = serializer.serialize(principals);
+        PrincipalCollection deserialized = serializer.deserialize(serialized);
+        assertEquals(principals, deserialized);
+        assertEquals("jsmith", deserialized.getPrimaryPrincipal());
+        assertEquals(principals.getRealmNames(), deserialized.getRealmNames());
+
+        byte[] javaSerialized = new DefaultSerializer<PrincipalCollection>().serialize(principals);
+        assertTrue(serialized.length * 4 < javaSerialized.length);
+    }
+
+    @Test
+    public void testSession() {
+        CompactSerializer<SimpleSession> serializer = new CompactSerializer<SimpleSession>();
+        SimpleSession session = createSession();
+        byte[] serialized = serializer.serialize(session);
+        SimpleSession deserialized = serializer.deserialize(serialized);
+        assertSessionsEqual(session, deserialized);
+        assertFalse(deserialized.isDirty());
+
+        session.stop();
+        session.setExpired(true);
+        session.setHost(null);
+        deserialized = serializer.deserialize(serializer.serialize(session));
+        assertSessionsEqual(session, deserialized);
+
+        byte[] javaSerialized = new DefaultSerializer<SimpleSession>().serialize(createSession());
+        assertTrue(serialized.length * 2 < javaSerialized.length);
+    }
+
+    @Test
+    public void testJavaSerializationCompatibility() {
+        SimplePrincipalCollection principals = createPrincipals();
+        byte[] javaSerialized = new DefaultSerializer<PrincipalCollection>().serialize(principals);
+        CompactSerializer<PrincipalCollection> serializer = new CompactSerializer<PrincipalCollection>();
+        assertEquals(principals, serializer.deserialize(javaSerialized));
+
+        serializer.setJavaSerializationEnabled(false);
+        try {
+            serializer.deserialize(javaSerialized);
+            fail("JVM serialization data should be rejected.");
+        } catch (SerializationException expected) {
+        }
+    }
+
+    @Test
+    public void testJavaSerializationFallback() {
+        CompactSerializer<PrincipalCollection> serializer = new CompactSerializer<PrincipalCollection>();
+        PrincipalCollection principals = new SimplePrincipalCollection(new UserId(7), "realm");
+        assertEquals(principals, serializer.deserialize(serializer.serialize(principals)));
+
+        serializer.setJavaSerializationEnabled(false);
+        try {
+            serializer.serialize(principals);
+            fail("Values without a codec should be rejected.");
+        } catch (SerializationException expected) {
+        }
+    }
+
+    @Test
+    public void testCodec() {
+        CompactSerializer<PrincipalCollection> serializer = new CompactSerializer<PrincipalCollection>();
+        serializer.setJavaSerializationEnabled(false);
+        serializer.addCodec(new UserIdCodec());
+        PrincipalCollection principals = new SimplePrincipalCollection(new UserId(7), "realm");
+        byte[] serialized = serializer.serialize(principals);
+        assertEquals(principals, serializer.deserialize(serialized));
+
+        try {
+            new CompactSerializer<PrincipalCollection>().deserialize(serialized);
+            fail("Data requiring an unregistered codec should be rejected.");
+        } catch (SerializationException expected) {
+        }
+    }
+
+    @Test
+    public void testInvalidData() {
+        CompactSerializer<PrincipalCollection> serializer = new CompactSerializer<PrincipalCollection>();
+        byte[] serialized = serializer.serialize(createPrincipals());
+        byte[][] invalid = {
+                new byte[0],
+                new byte[]{1, 2, 3},
+                copy(serialized, serialized.length - 1),
+                copy(serialized, serialized.length + 1),
+                new byte[]{0x53, 2, 0},
+                new byte[]{0x53, 1, 8, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x7F}
+        };
+        for (byte[] bytes : invalid) {
+            try {
+                serializer.deserialize(bytes);
+                fail("Invalid data " + Arrays.toString(bytes) + " should be rejected.");
+            } catch (SerializationException expected) {
+            }
+        }
+    }
+
+    private static byte[] copy(byte[] bytes, int length) {
+        byte[] copy = new byte[length];
+        System.arraycopy(bytes, 0, copy, 0, Math.min(bytes.length, length));
+        return copy;
+    }
+
+    private static class UserId implements Serializable {
+        private final long id;
+
+        private UserId(long id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof UserId && ((UserId) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) id;
+        }
+    }
+
+    private static class UserIdCodec implements TypeCodec<UserId> {
+        public Class<UserId> getType() {
+            return UserId.class;
+        }
+
+        public void write(UserId value, DataOutput out) throws IOException {
+            out.writeLong(value.id);
+        }
+
+        public UserId read(DataInput in) throws IOException {
+            return new UserId(in.readLong());
+        }
+    }
+}
@@ -19,12 +19,14 @@
 package org.apache.shiro.mgt;
 
 import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.SimplePrincipalCollection;
 import org.apache.shiro.subject.Subject;
 import org.apache.shiro.subject.SubjectContext;
 import org.apache.shiro.subject.support.DefaultSubjectContext;
 import org.junit.Test;
 
-import static org.junit.Assert.assertNull;
+import static org.easymock.EasyMock.*;
+import static org.junit.Assert.*;
 
 /**
  * Test cases for the {@link AbstractRememberMeManager} implementation.
@@ -56,6 +58,88 @@ public class AbstractRememberMeManagerTest {
         assertNull(principals);
     }
 
+    @Test
+    public void testPrincipalsCache() {
+        CountingRememberMeManager rmm = new CountingRememberMeManager();
+        PrincipalCollection principals = new SimplePrincipalCollection("user", "realm");
+        rmm.rememberIdentity(null, principals);
+
+        //disabled by default:
+        assertEquals(principals, rmm.getRememberedPrincipals(new DefaultSubjectContext()));
+        assertEquals(principals, rmm.getRememberedPrincipals(new DefaultSubjectContext()));
+        assertEquals(2, rmm.conversions);
+
+        rmm.setPrincipalsCacheSize(10);
+        PrincipalCollection remembered = rmm.getRememberedPrincipals(new DefaultSubjectContext());
+        assertEquals(principals, remembered);
+        assertSame(remembered, rmm.getRememberedPrincipals(new DefaultSubjectContext()));
+        assertEquals(3, rmm.conversions);
+
+        //a different remembered identity is not served from the cache:
+        PrincipalCollection other = new SimplePrincipalCollection("other", "realm");
+        rmm.rememberIdentity(null, other);
+        assertEquals(other, rmm.getRememberedPrincipals(new DefaultSubjectContext()));
+        assertEquals(4, rmm.conversions);
+
+        //forgetting the identity on logout removes the cached principals:
+        rmm.onLogout(createNiceMock(Subject.class));
+        assertEquals(other, rmm.getRememberedPrincipals(new DefaultSubjectContext()));
+        assertEquals(5, rmm.conversions);
+
+        //as does changing the cipher key:
+        rmm.getRememberedPrincipals(new DefaultSubjectContext());
+        assertEquals(5, rmm.conversions);
+        rmm.setCipherKey(rmm.getCipherKey());
+        rmm.getRememberedPrincipals(new DefaultSubjectContext());
+        assertEquals(6, rmm.conversions);
+
+        rmm.forgetCachedPrincipals(rmm.serialized);
+        rmm.getRememberedPrincipals(new DefaultSubjectContext());
+        assertEquals(7, rmm.conversions);
+    }
+
+    @Test
+    public void testPrincipalsCacheTimeToLive() throws InterruptedException {
+        CountingRememberMeManager rmm = new CountingRememberMeManager();
+        rmm.setPrincipalsCacheSize(10);
+        rmm.setPrincipalsCacheTimeToLive(1);
+        rmm.rememberIdentity(null, new SimplePrincipalCollection("user", "realm"));
+        rmm.getRememberedPrincipals(new DefaultSubjectContext());
+        Thread.sleep(5);
+        rmm.getRememberedPrincipals(new DefaultSubjectContext());
+        assertEquals(2, rmm.conversions);
+    }
+
+    private static class CountingRememberMeManager extends AbstractRememberMeManager {
+        private byte[] serialized;
+        private int conversions;
+
+        public void forgetIdentity(SubjectContext subjectContext) {
+            this.serialized = null;
+        }
+
+        @Override
+        protected void forgetIdentity(Subject subject) {
+            forgetCachedPrincipals(this.serialized);
+        }
+
+        @Override
+        protected void rememberSerializedIdentity(Subject subject, byte[] serialized) {
+            this.serialized = serialized;
+        }
+
+        @Override
+        protected byte[] getRememberedSerializedIdentity(SubjectContext subjectContext) {
+            return serialized;
+        }
+
+        @Override
+        protected PrincipalCollection convertBytesToPrincipals(byte[] bytes, SubjectContext subjectContext) {
+            conversions++;
+            return super.convertBytesToPrincipals(bytes, subjectContext);
+        }
+    }
+
     private static class DummyRememberMeManager extends AbstractRememberMeManager {
         public void forgetIdentity(SubjectContext subjectContext) {
             //do nothing
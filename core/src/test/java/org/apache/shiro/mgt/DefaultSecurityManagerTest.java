@@ -21,11 +21,14 @@ package org.apache.shiro.mgt;
 import org.apache.shiro.SecurityUtils;
 import org.apache.shiro.authc.AuthenticationToken;
 import org.apache.shiro.authc.UsernamePasswordToken;
+import org.apache.shiro.authz.AuthorizationSnapshot;
 import org.apache.shiro.config.Ini;
 import org.apache.shiro.realm.text.IniRealm;
 import org.apache.shiro.session.ExpiredSessionException;
 import org.apache.shiro.session.Session;
 import org.apache.shiro.session.mgt.AbstractValidatingSessionManager;
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.SimplePrincipalCollection;
 import org.apache.shiro.subject.Subject;
 import org.junit.After;
 import org.junit.Before;
@@ -153,4 +156,21 @@ public class DefaultSecurityManagerTest extends AbstractSecurityManagerTest {
         assertNull(subject.getPrincipals());
 
     }
+
+    @Test
+    public void testAuthorizationSnapshotWithOverriddenChecks() {
+        DefaultSecurityManager overriding = new DefaultSecurityManager(sm.getRealms()) {
+            @Override
+            public boolean isPermitted(PrincipalCollection principals, String permission) {
+                return "report:print".equals(permission) || super.isPermitted(principals, permission);
+            }
+        };
+        String realmName = sm.getRealms().iterator().next().getName();
+        PrincipalCollection principals = new SimplePrincipalCollection("guest", realmName);
+        AuthorizationSnapshot snapshot = overriding.createAuthorizationSnapshot(principals);
+        assertTrue(snapshot.isPermitted("report:print"));
+        assertFalse(snapshot.isPermitted("report:delete"));
+        assertTrue(snapshot.hasRole("guest"));
+        overriding.destroy();
+    }
 }
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.realm;
+
+import org.apache.shiro.authc.AuthenticationInfo;
+import org.apache.shiro.authc.AuthenticationToken;
+import org.apache.shiro.authc.IncorrectCredentialsException;
+import org.apache.shiro.authc.UsernamePasswordToken;
+import org.apache.shiro.authc.credential.CredentialsMatcher;
+import org.apache.shiro.authc.credential.SimpleCredentialsMatcher;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the {@link AuthenticatingRealm} verified credentials cache.
+ *
+ * @since 1.3
+ */
+public class AuthenticatingRealmTest {
+
+    private static final String USERNAME = "jsmith";
+    private static final String PASSWORD = "secret";
+
+    private SimpleAccountRealm realm;
+    private CountingCredentialsMatcher matcher;
+
+    /**
+     * Counts the number of times credentials are actually compared.
+     */
+    private static class CountingCredentialsMatcher extends SimpleCredentialsMatcher {
+        private int count;
+
+        @Override
+        public boolean doCredentialsMatch(AuthenticationToken token, AuthenticationInfo info) {
+            count++;
+            return super.doCredentialsMatch(token, info);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        realm = new SimpleAccountRealm();
+        realm.addAccount(USERNAME, PASSWORD);
+        matcher = new CountingCredentialsMatcher();
+        realm.setCredentialsMatcher(matcher);
+    }
+
+    private void authenticate(String password) {
+        realm.getAuthenticationInfo(new UsernamePasswordToken(USERNAME, password));
+    }
+
+    private void assertIncorrect(String password) {
+        try {
+            authenticate(password);
+            fail("Incorrect credentials should have been rejected.");
+        } catch (IncorrectCredentialsException expected) {
+        }
+    }
+
+    @Test
+    public void testDisabledByDefault() {
+        assertEquals(0, realm.getVerifiedCredentialsCacheSize());
+        authenticate(PASSWORD);
+        authenticate(PASSWORD);
+        assertEquals(2, matcher.count);
+    }
+
+    @Test
+    public void testVerifiedCredentialsCache() {
+        realm.setVerifiedCredentialsCacheSize(10);
+        authenticate(PASSWORD);
+        authenticate(PASSWORD);
+        authenticate(PASSWORD);
+        assertEquals(1, matcher.count);
+
+        //different credentials are always compared and failures are never cached:
+        assertIncorrect("wrong");
+        assertIncorrect("wrong");
+        assertEquals(3, matcher.count);
+        authenticate(PASSWORD);
+        assertEquals(3, matcher.count);
+
+        //a changed stored password must not be matched against the stale entry:
+        realm.addAccount(USERNAME, "changed");
+        assertIncorrect(PASSWORD);
+        authenticate("changed");
+        authenticate("changed");
+        assertEquals(5, matcher.count);
+    }
+
+    @Test
+    public void testClearCachedAuthenticationInfo() {
+        realm.setVerifiedCredentialsCacheSize(10);
+        AuthenticationInfo info = realm.getAuthenticationInfo(new UsernamePasswordToken(USERNAME, PASSWORD));
+        authenticate(PASSWORD);
+        assertEquals(1, matcher.count);
+        realm.clearCachedAuthenticationInfo(info.getPrincipals());
+        authenticate(PASSWORD);
+        assertEquals(2, matcher.count);
+    }
+
+    @Test
+    public void testSetCredentialsMatcherClearsCache() {
+        realm.setVerifiedCredentialsCacheSize(10);
+        authenticate(PASSWORD);
+        CredentialsMatcher rejectAll = new CredentialsMatcher() {
+            public boolean doCredentialsMatch(AuthenticationToken token, AuthenticationInfo info) {
+                return false;
+            }
+        };
+        realm.setCredentialsMatcher(rejectAll);
+        assertIncorrect(PASSWORD);
+    }
+
+    @Test
+    public void testTimeToLive() throws InterruptedException {
+        realm.setVerifiedCredentialsCacheTimeToLive(50);
+        realm.setVerifiedCredentialsCacheSize(10);
+        authenticate(PASSWORD);
+        authenticate(PASSWORD);
+        assertEquals(1, matcher.count);
+        Thread.sleep(100);
+        authenticate(PASSWORD);
+        assertEquals(2, matcher.count);
+    }
+}
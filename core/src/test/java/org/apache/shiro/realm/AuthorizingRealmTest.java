@@ -21,11 +21,13 @@ package org.apache.shiro.realm;
 import org.apache.shiro.authc.*;
 import org.apache.shiro.authc.credential.AllowAllCredentialsMatcher;
 import org.apache.shiro.authz.AuthorizationInfo;
+import org.apache.shiro.authz.AuthorizationSnapshot;
 import org.apache.shiro.authz.Permission;
 import org.apache.shiro.authz.SimpleAuthorizationInfo;
 import org.apache.shiro.authz.UnauthorizedException;
 import org.apache.shiro.authz.permission.RolePermissionResolver;
 import org.apache.shiro.authz.permission.WildcardPermission;
+import org.apache.shiro.cache.MemoryConstrainedCacheManager;
 import org.apache.shiro.subject.PrincipalCollection;
 import org.apache.shiro.subject.SimplePrincipalCollection;
 import org.junit.After;
@@ -214,6 +216,143 @@ public class AuthorizingRealmTest {
         assertTrue( realm.isPermitted( pCollection, "other:bar:foo" ) );
     }
 
+    @Test
+    public void testCachedPermissionIndex() {
+        Principal principal = new UsernamePrincipal("indexed");
+        PrincipalCollection pCollection = new SimplePrincipalCollection(principal, "testCachedPermissionIndex");
+
+        AuthorizingRealm realm = new AllowAllRealm() {
+            @Override
+            protected AuthorizationInfo doGetAuthorizationInfo(PrincipalCollection principals) {
+                SimpleAuthorizationInfo info = (SimpleAuthorizationInfo) super.doGetAuthorizationInfo(principals);
+                info.addStringPermission("newsletter:view,edit");
+                info.addStringPermission("printer:*:lp7200");
+                info.addObjectPermission(new WildcardPermission("document:read"));
+                return info;
+            }
+        };
+        realm.setCacheManager(new MemoryConstrainedCacheManager());
+
+        assertTrue(realm.isPermitted(pCollection, "newsletter:edit"));
+        assertTrue(realm.isPermitted(pCollection, "printer:print:lp7200"));
+        assertTrue(realm.isPermitted(pCollection, "document:read:12"));
+        assertFalse(realm.isPermitted(pCollection, "newsletter:delete"));
+        assertFalse(realm.isPermitted(pCollection, "newsletter:view,delete"));
+        assertArrayEquals(new boolean[]{true, false}, realm.isPermitted(pCollection, "newsletter:view", "printer:print"));
+        assertTrue(realm.hasRole(pCollection, ROLE));
+
+        //the index is kept separately, the subclass's own instance is cached:
+        AuthorizationInfo cached = realm.getAuthorizationCache().get(pCollection);
+        assertTrue(cached instanceof SimpleAuthorizationInfo);
+
+        realm.setPermissionIndexingEnabled(false);
+        realm.clearCachedAuthorizationInfo(pCollection);
+        assertTrue(realm.isPermitted(pCollection, "newsletter:edit"));
+        assertFalse(realm.isPermitted(pCollection, "newsletter:delete"));
+    }
+
+    @Test
+    public void testPermissionIndexOfChangedInfo() {
+        PrincipalCollection pCollection = new SimplePrincipalCollection(new UsernamePrincipal("changed"), "realm");
+        //long-lived and changed in place, like a SimpleAccount:
+        final SimpleAuthorizationInfo account = new SimpleAuthorizationInfo();
+        account.addStringPermission("newsletter:view");
+
+        AuthorizingRealm realm = new AllowAllRealm() {
+            @Override
+            protected AuthorizationInfo doGetAuthorizationInfo(PrincipalCollection principals) {
+                return account;
+            }
+        };
+        realm.setCacheManager(new MemoryConstrainedCacheManager());
+        assertTrue(realm.isPermitted(pCollection, "newsletter:view"));
+        assertFalse(realm.isPermitted(pCollection, "newsletter:edit"));
+
+        account.addStringPermission("newsletter:edit");
+        realm.clearCachedAuthorizationInfo(pCollection);
+        assertTrue(realm.isPermitted(pCollection, "newsletter:edit"));
+
+        account.addStringPermission("newsletter:delete");
+        realm.clearCache(pCollection);
+        assertTrue(realm.isPermitted(pCollection, "newsletter:delete"));
+
+        //evicted by the cache itself (e.g. expired):
+        account.addStringPermission("printer:print");
+        realm.getAuthorizationCache().remove(pCollection);
+        assertTrue(realm.isPermitted(pCollection, "printer:print"));
+    }
+
+    @Test
+    public void testRolePermissionCache() {
+        PrincipalCollection user1 = new SimplePrincipalCollection(new UsernamePrincipal("user1"), "testRolePermissionCache");
+        PrincipalCollection user2 = new SimplePrincipalCollection(new UsernamePrincipal("user2"), "testRolePermissionCache");
+        final int[] resolutions = new int[1];
+
+        AuthorizingRealm realm = new AllowAllRealm();
+        realm.setRolePermissionResolver(new RolePermissionResolver() {
+            public Collection<Permission> resolvePermissionsInRole(String roleString) {
+                resolutions[0]++;
+                return Collections.<Permission>singleton(new WildcardPermission(roleString + ":perm1"));
+            }
+        });
+        realm.setCacheManager(new MemoryConstrainedCacheManager());
+        realm.setRolePermissionCachingEnabled(true);
+
+        assertTrue(realm.isPermitted(user1, ROLE + ":perm1"));
+        assertTrue(realm.isPermitted(user2, ROLE + ":perm1"));
+        assertFalse(realm.isPermitted(user2, ROLE + ":perm2"));
+        assertEquals(1, resolutions[0]);
+        assertEquals(1, realm.getRolePermissionCache().get(ROLE).size());
+
+        realm.clearCachedRolePermissions(ROLE);
+        assertNull(realm.getRolePermissionCache().get(ROLE));
+        assertEquals(0, realm.getAuthorizationCache().size());
+        assertTrue(realm.isPermitted(user1, ROLE + ":perm1"));
+        assertTrue(realm.isPermitted(user2, ROLE + ":perm1"));
+        assertEquals(2, resolutions[0]);
+
+        realm.clearAllCachedRolePermissions();
+        assertEquals(0, realm.getRolePermissionCache().size());
+    }
+
+    @Test
+    public void testRolePermissionCachingDisabledByDefault() {
+        final int[] resolutions = new int[1];
+        AuthorizingRealm realm = new AllowAllRealm();
+        realm.setRolePermissionResolver(new RolePermissionResolver() {
+            public Collection<Permission> resolvePermissionsInRole(String roleString) {
+                resolutions[0]++;
+                return Collections.<Permission>singleton(new WildcardPermission(roleString + ":perm1"));
+            }
+        });
+        realm.setCacheManager(new MemoryConstrainedCacheManager());
+        assertFalse(realm.isRolePermissionCachingEnabled());
+
+        assertTrue(realm.isPermitted(new SimplePrincipalCollection("user1", "realm"), ROLE + ":perm1"));
+        assertTrue(realm.isPermitted(new SimplePrincipalCollection("user2", "realm"), ROLE + ":perm1"));
+        assertEquals(2, resolutions[0]);
+        assertNull(realm.getRolePermissionCache());
+    }
+
+    @Test
+    public void testAuthorizationSnapshotHonorsOverriddenChecks() {
+        PrincipalCollection principals = new SimplePrincipalCollection("user1", "testAuthorizationSnapshot");
+
+        AuthorizationSnapshot snapshot = new AllowAllRealm().createAuthorizationSnapshot(principals);
+        assertTrue(snapshot.hasRole(ROLE));
+        assertFalse(snapshot.hasRole("virtual"));
+
+        AuthorizingRealm realm = new AllowAllRealm() {
+            @Override
+            public boolean hasRole(PrincipalCollection principal, String roleIdentifier) {
+                return "virtual".equals(roleIdentifier) || super.hasRole(principal, roleIdentifier);
+            }
+        };
+        snapshot = realm.createAuthorizationSnapshot(principals);
+        assertTrue(snapshot.hasRole(ROLE));
+        assertTrue(snapshot.hasRole("virtual"));
+    }
+
     private void assertArrayEquals(boolean[] expected, boolean[] actual) {
         if (expected.length != actual.length) {
             fail("Expected array of length [" + expected.length + "] but received array of length [" + actual.length + "]");
@@ -36,11 +36,21 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import javax.naming.NamingEnumeration;
 import javax.naming.NamingException;
-import java.util.HashSet;
-import java.util.Set;
+import javax.naming.directory.BasicAttributes;
+import javax.naming.directory.SearchControls;
+import javax.naming.directory.SearchResult;
+import javax.naming.ldap.BasicControl;
+import javax.naming.ldap.Control;
+import javax.naming.ldap.LdapContext;
+import javax.naming.ldap.PagedResultsControl;
+import javax.naming.ldap.PagedResultsResponseControl;
+import java.io.IOException;
+import java.util.*;
 
-import static org.junit.Assert.assertTrue;
+import static org.easymock.EasyMock.*;
+import static org.junit.Assert.*;
 
 
 /**
@@ -97,6 +107,145 @@ public class ActiveDirectoryRealmTest {
         subject.logout();
     }
 
+    @Test
+    public void testGroupRolesCached() {
+        CountingActiveDirectoryRealm adRealm = new CountingActiveDirectoryRealm();
+        adRealm.setGroupRolesMap(Collections.singletonMap("CN=Admins,DC=example,DC=com", "admin,user"));
+
+        List<String> groups = Arrays.asList("CN=Admins,DC=example,DC=com", "CN=Other,DC=example,DC=com");
+        assertEquals(new HashSet<String>(Arrays.asList("admin", "user")), adRealm.getRoleNamesForGroups(groups));
+        assertEquals(new HashSet<String>(Arrays.asList("admin", "user")), adRealm.getRoleNamesForGroups(groups));
+        //each group (mapped or not) is resolved only once:
+        assertEquals(2, adRealm.resolveCount);
+
+        adRealm.clearGroupRolesCache();
+        adRealm.getRoleNamesForGroups(groups);
+        assertEquals(4, adRealm.resolveCount);
+    }
+
+    @Test
+    public void testGroupRolesCacheDisabled() {
+        CountingActiveDirectoryRealm adRealm = new CountingActiveDirectoryRealm();
+        adRealm.setGroupRolesMap(Collections.singletonMap("CN=Admins,DC=example,DC=com", "admin"));
+        adRealm.setGroupRolesCacheTimeout(0);
+
+        List<String> groups = Collections.singletonList("CN=Admins,DC=example,DC=com");
+        assertEquals(Collections.singleton("admin"), adRealm.getRoleNamesForGroups(groups));
+        assertEquals(Collections.singleton("admin"), adRealm.getRoleNamesForGroups(groups));
+        assertEquals(2, adRealm.resolveCount);
+    }
+
+    @Test
+    public void testGroupRolesCacheBounded() {
+        CountingActiveDirectoryRealm adRealm = new CountingActiveDirectoryRealm();
+        adRealm.setGroupRolesCacheSize(1);
+
+        List<String> groups = Arrays.asList("CN=Admins,DC=example,DC=com", "CN=Other,DC=example,DC=com");
+        adRealm.getRoleNamesForGroups(groups);
+        adRealm.getRoleNamesForGroups(groups);
+        //only one group fits in the cache, so each lookup evicts the other:
+        assertEquals(4, adRealm.resolveCount);
+    }
+
+    @Test
+    public void testNestedGroupsPaged() throws Exception {
+        ActiveDirectoryRealm adRealm = new ActiveDirectoryRealm();
+        adRealm.setSearchBase("DC=example,DC=com");
+        adRealm.setPrincipalSuffix("@example.com");
+        adRealm.setNestedGroupsEnabled(true);
+        adRealm.setPageSize(2);
+        Map<String, String> groupRolesMap = new HashMap<String, String>();
+        groupRolesMap.put("CN=Admins,DC=example,DC=com", "admin");
+        groupRolesMap.put("CN=Nested,DC=example,DC=com", "nested");
+        adRealm.setGroupRolesMap(groupRolesMap);
+
+        String userDn = "CN=Test User,DC=example,DC=com";
+        byte[] cookie = new byte[]{1, 2, 3};
+
+        Control previous = new BasicControl("1.2.3.4");
+
+        LdapContext ctx = createMock(LdapContext.class);
+        expect(ctx.getRequestControls()).andReturn(new Control[]{previous});
+        expect(ctx.search(eq("DC=example,DC=com"), eq("(&(objectClass=*)(userPrincipalName={0}))"),
+                aryEq(new Object[]{"testuser@example.com"}), isA(SearchControls.class)))
+                .andReturn(results(userDn));
+
+        String groupFilter = "(&(objectClass=group)(member:" + ActiveDirectoryRealm.MATCHING_RULE_IN_CHAIN_OID + ":={0}))";
+        //first page:
+        ctx.setRequestControls(isA(Control[].class));
+        expect(ctx.search(eq("DC=example,DC=com"), eq(groupFilter), aryEq(new Object[]{userDn}), isA(SearchControls.class)))
+                .andReturn(results("CN=Admins,DC=example,DC=com", "CN=Users,DC=example,DC=com"));
+        expect(ctx.getResponseControls()).andReturn(new Control[]{pagedResultsResponse(cookie)});
+        //second (last) page:
+        ctx.setRequestControls(isA(Control[].class));
+        expect(ctx.search(eq("DC=example,DC=com"), eq(groupFilter), aryEq(new Object[]{userDn}), isA(SearchControls.class)))
+                .andReturn(results("CN=Nested,DC=example,DC=com"));
+        expect(ctx.getResponseControls()).andReturn(new Control[]{pagedResultsResponse(new byte[0])});
+        //controls must be reset afterwards:
+        //the controls that were set before the search are restored:
+        ctx.setRequestControls(aryEq(new Control[]{previous}));
+        replay(ctx);
+
+        Set<String> roleNames = adRealm.getRoleNamesForUser(USERNAME, ctx);
+        assertEquals(new HashSet<String>(Arrays.asList("admin", "nested")), roleNames);
+        verify(ctx);
+    }
+
+    private static NamingEnumeration<SearchResult> results(String... dns) {
+        List<SearchResult> results = new ArrayList<SearchResult>(dns.length);
+        for (String dn : dns) {
+            SearchResult result = new SearchResult(dn, null, new BasicAttributes());
+            result.setNameInNamespace(dn);
+            results.add(result);
+        }
+        final Iterator<SearchResult> iterator = results.iterator();
+        return new NamingEnumeration<SearchResult>() {
+            public SearchResult next() {
+                return iterator.next();
+            }
+
+            public boolean hasMore() {
+                return iterator.hasNext();
+            }
+
+            public void close() {
+            }
+
+            public boolean hasMoreElements() {
+                return iterator.hasNext();
+            }
+
+            public SearchResult nextElement() {
+                return iterator.next();
+            }
+        };
+    }
+
+    private static Control pagedResultsResponse(byte[] cookie) throws IOException {
+        //BER encoding of realSearchControlValue ::= SEQUENCE { size INTEGER, cookie OCTET STRING }
+        byte[] value = new byte[7 + cookie.length];
+        value[0] = 0x30;
+        value[1] = (byte) (5 + cookie.length);
+        value[2] = 0x02;
+        value[3] = 0x01;
+        value[4] = 0x00;
+        value[5] = 0x04;
+        value[6] = (byte) cookie.length;
+        System.arraycopy(cookie, 0, value, 7, cookie.length);
+        return new PagedResultsResponseControl(PagedResultsControl.OID, false, value);
+    }
+
+    private static class CountingActiveDirectoryRealm extends ActiveDirectoryRealm {
+
+        private int resolveCount;
+
+        @Override
+        protected Set<String> resolveRoleNamesForGroup(String groupName) {
+            resolveCount++;
+            return super.resolveRoleNamesForGroup(groupName);
+        }
+    }
+
     public class TestActiveDirectoryRealm extends ActiveDirectoryRealm {
 
         /*--------------------------------------------
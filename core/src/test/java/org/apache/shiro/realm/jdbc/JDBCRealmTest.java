@@ -22,6 +22,7 @@ import org.apache.shiro.SecurityUtils;
 import org.apache.shiro.authc.AuthenticationException;
 import org.apache.shiro.authc.IncorrectCredentialsException;
 import org.apache.shiro.authc.UsernamePasswordToken;
+import org.apache.shiro.cache.MemoryConstrainedCacheManager;
 import org.apache.shiro.config.Ini;
 import org.apache.shiro.config.IniSecurityManagerFactory;
 import org.apache.shiro.crypto.hash.Sha256Hash;
@@ -258,6 +259,112 @@ public class JDBCRealmTest {
         Assert.assertFalse(currentUser.isPermitted("testDomain:testTarget:specialAction"));
     }
     
+    @Test
+    public void testPermissionsBatched() throws Exception {
+        String testMethodName = name.getMethodName();
+        JdbcRealm realm = realmMap.get(testMethodName);
+        createDefaultSchema(testMethodName, false);
+        addRoles(testMethodName, 4);
+        realm.setSaltStyle(JdbcRealm.SaltStyle.NO_SALT);
+        realm.setPermissionsLookupEnabled(true);
+        realm.setPermissionsLookupStyle(JdbcRealm.PermissionsLookupStyle.BATCHED);
+        realm.setPermissionsBatchSize(2);
+
+        Subject.Builder builder = new Subject.Builder(securityManager);
+        Subject currentUser = builder.buildSubject();
+        UsernamePasswordToken token = new UsernamePasswordToken(username, plainTextPassword);
+        currentUser.login(token);
+        Assert.assertTrue(currentUser.isPermitted(testPermissionString));
+        for (int i = 1; i <= 4; i++) {
+            Assert.assertTrue(currentUser.hasRole("role" + i));
+            Assert.assertTrue(currentUser.isPermitted("domain" + i + ":read"));
+        }
+        Assert.assertFalse(currentUser.isPermitted("domain5:read"));
+    }
+
+    @Test
+    public void testPermissionsJoined() throws Exception {
+        String testMethodName = name.getMethodName();
+        JdbcRealm realm = realmMap.get(testMethodName);
+        createDefaultSchema(testMethodName, false);
+        addRoles(testMethodName, 2);
+        Connection conn = dsMap.get(testMethodName).getConnection();
+        Statement sql = conn.createStatement();
+        sql.executeUpdate("insert into user_roles values ('" + username + "', 'noPermissionsRole')");
+        JdbcUtils.closeStatement(sql);
+        JdbcUtils.closeConnection(conn);
+        realm.setSaltStyle(JdbcRealm.SaltStyle.NO_SALT);
+        realm.setPermissionsLookupEnabled(true);
+        realm.setPermissionsLookupStyle(JdbcRealm.PermissionsLookupStyle.JOINED);
+
+        Subject.Builder builder = new Subject.Builder(securityManager);
+        Subject currentUser = builder.buildSubject();
+        UsernamePasswordToken token = new UsernamePasswordToken(username, plainTextPassword);
+        currentUser.login(token);
+        Assert.assertTrue(currentUser.hasRole(testRole));
+        Assert.assertTrue(currentUser.hasRole("role1"));
+        Assert.assertTrue(currentUser.hasRole("role2"));
+        Assert.assertTrue(currentUser.hasRole("noPermissionsRole"));
+        Assert.assertTrue(currentUser.isPermitted(testPermissionString));
+        Assert.assertTrue(currentUser.isPermitted("domain1:read"));
+        Assert.assertTrue(currentUser.isPermitted("domain2:read"));
+        Assert.assertFalse(currentUser.isPermitted("testDomain:testTarget:specialAction"));
+    }
+
+    @Test
+    public void testSharedRolePermissions() throws Exception {
+        assertSharedRolePermissions(JdbcRealm.PermissionsLookupStyle.PER_ROLE);
+    }
+
+    @Test
+    public void testSharedRolePermissionsBatched() throws Exception {
+        assertSharedRolePermissions(JdbcRealm.PermissionsLookupStyle.BATCHED);
+    }
+
+    private void assertSharedRolePermissions(JdbcRealm.PermissionsLookupStyle style) throws Exception {
+        String testMethodName = name.getMethodName();
+        JdbcRealm realm = realmMap.get(testMethodName);
+        createDefaultSchema(testMethodName, false);
+        addRoles(testMethodName, 3);
+        realm.setSaltStyle(JdbcRealm.SaltStyle.NO_SALT);
+        realm.setPermissionsLookupEnabled(true);
+        realm.setPermissionsLookupStyle(style);
+        realm.setPermissionsBatchSize(2);
+        realm.setCacheManager(new MemoryConstrainedCacheManager());
+        realm.setRolePermissionCachingEnabled(true);
+
+        Subject currentUser = new Subject.Builder(securityManager).buildSubject();
+        currentUser.login(new UsernamePasswordToken(username, plainTextPassword));
+        Assert.assertTrue(currentUser.isPermitted(testPermissionString));
+        Assert.assertTrue(currentUser.isPermitted("domain3:read"));
+        Assert.assertEquals(1, realm.getRolePermissionCache().get("role2").size());
+        currentUser.logout();
+
+        // Role permissions are now served from the shared cache, not the database
+        Connection conn = dsMap.get(testMethodName).getConnection();
+        Statement sql = conn.createStatement();
+        sql.executeUpdate("delete from roles_permissions where role_name = 'role1'");
+        JdbcUtils.closeStatement(sql);
+        JdbcUtils.closeConnection(conn);
+
+        currentUser = new Subject.Builder(securityManager).buildSubject();
+        currentUser.login(new UsernamePasswordToken(username, plainTextPassword));
+        Assert.assertTrue(currentUser.isPermitted("domain1:read"));
+
+        realm.clearCachedRolePermissions("role1");
+        Assert.assertFalse(currentUser.isPermitted("domain1:read"));
+        Assert.assertTrue(currentUser.isPermitted("domain2:read"));
+        Assert.assertTrue(currentUser.isPermitted(testPermissionString));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBatchedPermissionsQueryWithoutPlaceholder() {
+        String testMethodName = name.getMethodName();
+        createDefaultSchema(testMethodName, false);
+        realmMap.get(testMethodName).setBatchedPermissionsQuery(
+                "select permission from roles_permissions where role_name = ?");
+    }
+
     /**
      * Creates a realm for a test method and puts it in the realMap.
      */
@@ -349,6 +456,23 @@ public class JDBCRealmTest {
         dsMap.put(testName, ds);
     }
     
+    /**
+     * Assigns roles 'role1' to 'role[count]' to the test user, each with the permission 'domain[n]:read'.
+     */
+    protected void addRoles(String testName, int count) throws SQLException {
+        Connection conn = dsMap.get(testName).getConnection();
+        Statement sql = conn.createStatement();
+        try {
+            for (int i = 1; i <= count; i++) {
+                sql.executeUpdate("insert into user_roles values ('" + username + "', 'role" + i + "')");
+                sql.executeUpdate("insert into roles_permissions values ('role" + i + "', 'domain" + i + ":read')");
+            }
+        } finally {
+            JdbcUtils.closeStatement(sql);
+            JdbcUtils.closeConnection(conn);
+        }
+    }
+
     /**
      * Creates and adds test data to user_role and roles_permissions tables.
      */
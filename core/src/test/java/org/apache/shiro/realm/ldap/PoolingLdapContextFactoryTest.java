@@ -0,0 +1,262 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.realm.ldap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.naming.AuthenticationException;
+import javax.naming.CommunicationException;
+import javax.naming.Context;
+import javax.naming.NamingException;
+import javax.naming.ServiceUnavailableException;
+import javax.naming.directory.SearchControls;
+import javax.naming.ldap.LdapContext;
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.easymock.EasyMock.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the {@link PoolingLdapContextFactory} class.
+ *
+ * @since 1.3
+ */
+public class PoolingLdapContextFactoryTest {
+
+    private PoolingLdapContextFactory factory;
+
+    /**
+     * The mock contexts to be returned by createLdapContext, created on demand if empty.
+     */
+    private LinkedList<LdapContext> contexts;
+
+    /**
+     * The environments contexts were created with.
+     */
+    private List<Hashtable> environments;
+
+    @Before
+    public void setUp() {
+        contexts = new LinkedList<LdapContext>();
+        environments = new ArrayList<Hashtable>();
+        factory = new PoolingLdapContextFactory() {
+            //Fake a JNDI environment for the tests:
+            @Override
+            protected LdapContext createLdapContext(Hashtable env) throws NamingException {
+                environments.add(env);
+                if (contexts.isEmpty()) {
+                    LdapContext ctx = createNiceMock(LdapContext.class);
+                    replay(ctx);
+                    return ctx;
+                }
+                return contexts.removeFirst();
+            }
+        };
+        factory.setUrl("ldap://localhost:389");
+        factory.setSystemUsername("cn=system");
+        factory.setSystemPassword("secret");
+        factory.setTimeBetweenEvictionRuns(0);
+    }
+
+    @After
+    public void tearDown() {
+        factory.destroy();
+    }
+
+    @Test
+    public void testSystemContextReused() throws NamingException {
+        LdapContext ctx = factory.getSystemLdapContext();
+        ctx.close();
+        ctx = factory.getSystemLdapContext();
+        assertEquals(1, environments.size());
+        assertNull(environments.get(0).get(JndiLdapContextFactory.SUN_CONNECTION_POOLING_PROPERTY));
+
+        PoolingLdapContextFactory.PoolMetrics metrics = factory.getSystemPoolMetrics();
+        assertEquals(1, metrics.getActiveCount());
+        assertEquals(0, metrics.getIdleCount());
+        assertEquals(1, metrics.getCreatedCount());
+        assertEquals(2, metrics.getBorrowedCount());
+        ctx.close();
+        ctx.close();
+        assertEquals(1, factory.getSystemPoolMetrics().getIdleCount());
+        assertEquals(0, factory.getAuthenticationPoolMetrics().getBorrowedCount());
+    }
+
+    @Test(expected = NamingException.class)
+    public void testClosedContextUnusable() throws NamingException {
+        LdapContext ctx = factory.getSystemLdapContext();
+        ctx.close();
+        ctx.getEnvironment();
+    }
+
+    @Test
+    public void testAuthenticationContextReauthenticated() throws NamingException {
+        LdapContext pooled = createNiceMock(LdapContext.class);
+        expect(pooled.addToEnvironment(Context.SECURITY_PRINCIPAL, "user2")).andReturn(null);
+        expect(pooled.addToEnvironment(Context.SECURITY_CREDENTIALS, "password2")).andReturn(null);
+        pooled.reconnect(null);
+        expectLastCall().once();
+        expect(pooled.removeFromEnvironment(Context.SECURITY_CREDENTIALS)).andReturn(null).times(2);
+        replay(pooled);
+        contexts.add(pooled);
+
+        factory.getLdapContext((Object) "user1", "password1").close();
+        factory.getLdapContext((Object) "user2", "password2").close();
+
+        assertEquals(1, environments.size());
+        assertEquals("user1", environments.get(0).get(Context.SECURITY_PRINCIPAL));
+        verify(pooled);
+        assertEquals(2, factory.getAuthenticationPoolMetrics().getBorrowedCount());
+        assertEquals(0, factory.getSystemPoolMetrics().getBorrowedCount());
+    }
+
+    @Test
+    public void testFailedReauthenticationClosesContext() throws NamingException {
+        LdapContext pooled = createNiceMock(LdapContext.class);
+        pooled.reconnect(null);
+        expectLastCall().andThrow(new AuthenticationException("invalid credentials"));
+        pooled.close();
+        expectLastCall().once();
+        replay(pooled);
+        contexts.add(pooled);
+
+        factory.getLdapContext((Object) "user1", "password1").close();
+        try {
+            factory.getLdapContext((Object) "user1", "wrong");
+            fail("AuthenticationException expected");
+        } catch (AuthenticationException expected) {
+        }
+        verify(pooled);
+        PoolingLdapContextFactory.PoolMetrics metrics = factory.getAuthenticationPoolMetrics();
+        assertEquals(0, metrics.getActiveCount());
+        assertEquals(0, metrics.getIdleCount());
+        assertEquals(1, metrics.getDestroyedCount());
+    }
+
+    @Test
+    public void testSystemUsernameWithOtherCredentialsNotPooledAsSystem() throws NamingException {
+        factory.getSystemLdapContext().close();
+        factory.getLdapContext((Object) "cn=system", "guess").close();
+        assertEquals(2, environments.size());
+        assertEquals("guess", environments.get(1).get(Context.SECURITY_CREDENTIALS));
+        assertEquals(1, factory.getAuthenticationPoolMetrics().getBorrowedCount());
+    }
+
+    @Test
+    public void testPoolExhausted() throws NamingException {
+        factory.setMaxActive(1);
+        factory.setMaxWait(0);
+        LdapContext ctx = factory.getSystemLdapContext();
+        try {
+            factory.getSystemLdapContext();
+            fail("ServiceUnavailableException expected");
+        } catch (ServiceUnavailableException expected) {
+        }
+        assertEquals(1, factory.getSystemPoolMetrics().getExhaustedCount());
+        ctx.close();
+        factory.getSystemLdapContext().close();
+        assertEquals(1, environments.size());
+    }
+
+    @Test
+    public void testBrokenContextClosed() throws NamingException {
+        LdapContext broken = createNiceMock(LdapContext.class);
+        expect(broken.getAttributes("cn=user")).andThrow(new CommunicationException("connection reset"));
+        broken.close();
+        expectLastCall().once();
+        replay(broken);
+        contexts.add(broken);
+
+        LdapContext ctx = factory.getSystemLdapContext();
+        try {
+            ctx.getAttributes("cn=user");
+            fail("CommunicationException expected");
+        } catch (CommunicationException expected) {
+        }
+        ctx.close();
+        verify(broken);
+        assertEquals(0, factory.getSystemPoolMetrics().getIdleCount());
+        assertEquals(1, factory.getSystemPoolMetrics().getDestroyedCount());
+    }
+
+    @Test
+    public void testTestOnBorrow() throws NamingException {
+        LdapContext invalid = createNiceMock(LdapContext.class);
+        expect(invalid.search(eq(""), eq(PoolingLdapContextFactory.DEFAULT_VALIDATION_SEARCH_FILTER),
+                isA(SearchControls.class))).andThrow(new CommunicationException("connection reset"));
+        replay(invalid);
+        contexts.add(invalid);
+        factory.setTestOnBorrow(true);
+
+        factory.getSystemLdapContext().close();
+        factory.getSystemLdapContext().close();
+        assertEquals(2, environments.size());
+        assertEquals(1, factory.getSystemPoolMetrics().getValidationFailureCount());
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        factory.setMaxIdleTime(1);
+        factory.setTestWhileIdle(false);
+        factory.getSystemLdapContext().close();
+        Thread.sleep(10);
+        factory.evict();
+        PoolingLdapContextFactory.PoolMetrics metrics = factory.getSystemPoolMetrics();
+        assertEquals(0, metrics.getIdleCount());
+        assertEquals(1, metrics.getDestroyedCount());
+
+        factory.setMinIdle(2);
+        factory.setMaxIdleTime(0);
+        factory.evict();
+        assertEquals(2, factory.getSystemPoolMetrics().getIdleCount());
+        assertEquals(3, environments.size());
+    }
+
+    @Test
+    public void testPoolingDisabled() throws NamingException {
+        factory.setPoolingEnabled(false);
+        factory.getSystemLdapContext().close();
+        factory.getSystemLdapContext().close();
+        assertEquals(2, environments.size());
+        assertEquals(0, factory.getSystemPoolMetrics().getBorrowedCount());
+    }
+
+    @Test
+    public void testDestroy() throws NamingException {
+        LdapContext idle = createNiceMock(LdapContext.class);
+        idle.close();
+        expectLastCall().once();
+        replay(idle);
+        contexts.add(idle);
+
+        factory.getSystemLdapContext().close();
+        factory.destroy();
+        verify(idle);
+        try {
+            factory.getSystemLdapContext();
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException expected) {
+        }
+    }
+}
@@ -19,12 +19,22 @@
 package org.apache.shiro.realm.text;
 
 import org.apache.shiro.authc.AuthenticationInfo;
+import org.apache.shiro.authc.SimpleAccount;
 import org.apache.shiro.authc.UsernamePasswordToken;
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.permission.WildcardPermission;
+import org.apache.shiro.cache.MemoryConstrainedCacheManager;
 import org.apache.shiro.config.Ini;
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 
+import java.util.Collection;
+
 /**
  * Unit tests for the {@link IniRealm} class.
  *
@@ -59,6 +69,32 @@ public class IniRealmTest {
         assertTrue(realm.hasRole(info.getPrincipals(), "admin"));
     }
 
+    @Test
+    public void testRolePermissionsSharedBetweenAccounts() {
+        Ini ini = new Ini();
+        ini.setSectionProperty(IniRealm.USERS_SECTION_NAME, "user1", "pw, writer");
+        ini.setSectionProperty(IniRealm.USERS_SECTION_NAME, "user2", "pw, writer, reader");
+        ini.setSectionProperty(IniRealm.ROLES_SECTION_NAME, "writer", "document:write");
+        ini.setSectionProperty(IniRealm.ROLES_SECTION_NAME, "reader", "document:read");
+        IniRealm realm = new IniRealm(ini);
+        realm.setCacheManager(new MemoryConstrainedCacheManager());
+        realm.setRolePermissionCachingEnabled(true);
+
+        PrincipalCollection user1 = new SimplePrincipalCollection("user1", realm.getName());
+        PrincipalCollection user2 = new SimplePrincipalCollection("user2", realm.getName());
+        SimpleAccount account = (SimpleAccount) realm.getAuthenticationInfo(new UsernamePasswordToken("user1", "pw"));
+        assertTrue(account.getObjectPermissions() == null || account.getObjectPermissions().isEmpty());
+        assertTrue(realm.isPermitted(user1, "document:write"));
+        assertFalse(realm.isPermitted(user1, "document:read"));
+        assertTrue(realm.isPermitted(user2, "document:write"));
+        assertTrue(realm.isPermitted(user2, "document:read"));
+
+        Collection<Permission> writerPermissions = realm.getRolePermissionCache().get("writer");
+        assertEquals(1, writerPermissions.size());
+        assertTrue(writerPermissions.iterator().next().implies(new WildcardPermission("document:write")));
+        assertEquals(1, realm.getRolePermissionCache().get("reader").size());
+    }
+
     @Test
     public void testIniFileWithoutUsers() {
         IniRealm realm = new IniRealm();
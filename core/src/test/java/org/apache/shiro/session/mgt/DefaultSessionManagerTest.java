@@ -19,6 +19,8 @@
 package org.apache.shiro.session.mgt;
 
 import org.apache.shiro.session.*;
+import org.apache.shiro.session.mgt.eis.CachingSessionDAO;
+import org.apache.shiro.session.mgt.eis.MemorySessionDAO;
 import org.apache.shiro.session.mgt.eis.SessionDAO;
 import org.apache.shiro.util.ThreadContext;
 import org.easymock.EasyMock;
@@ -27,7 +29,14 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ThreadPoolExecutor;
 
 import static org.easymock.EasyMock.*;
 import static org.junit.Assert.*;
@@ -169,11 +178,334 @@ public class DefaultSessionManagerTest {
         verify(sessionDAO); //verify that the delete call was actually made on the DAO
     }
 
+    @Test
+    public void testCoalescedTouches() {
+        CopyingSessionDAO sessionDAO = new CopyingSessionDAO();
+        sm.setSessionDAO(sessionDAO);
+        sm.setLastAccessTimeGranularity(60000);
+
+        Session session = sm.start(null);
+        SessionKey key = new DefaultSessionKey(session.getId());
+        int updates = sessionDAO.updates;
+
+        sessionDAO.setLastAccessTime(session.getId(), ago(1000));
+        sm.touch(key);
+        sm.touch(key);
+        assertEquals(updates, sessionDAO.updates);
+
+        //the manager still sees the latest access time:
+        Date persisted = sessionDAO.readSession(session.getId()).getLastAccessTime();
+        assertTrue(sm.getLastAccessTime(key).after(persisted));
+
+        assertEquals(1, sm.flushPendingTouches());
+        assertEquals(updates + 1, sessionDAO.updates);
+        assertEquals(sm.getLastAccessTime(key), sessionDAO.readSession(session.getId()).getLastAccessTime());
+        assertEquals(0, sm.flushPendingTouches());
+
+        //once the last access time has moved far enough, the touch is persisted immediately:
+        sessionDAO.setLastAccessTime(session.getId(), ago(120000));
+        sm.touch(key);
+        assertEquals(updates + 2, sessionDAO.updates);
+    }
+
+    @Test
+    public void testCoalescedTouchesDoNotExpireSession() {
+        CopyingSessionDAO sessionDAO = new CopyingSessionDAO();
+        sm.setSessionDAO(sessionDAO);
+        sm.setLastAccessTimeGranularity(60 * 60 * 1000);
+        sm.setGlobalSessionTimeout(10 * 60 * 1000);
+
+        Session session = sm.start(null);
+        SessionKey key = new DefaultSessionKey(session.getId());
+        sessionDAO.setLastAccessTime(session.getId(), ago(60 * 1000));
+        sm.touch(key);
+        //persisted last access time is older than the timeout, but the coalesced touch is not:
+        sessionDAO.setLastAccessTime(session.getId(), ago(20 * 60 * 1000));
+        sm.checkValid(key);
+    }
+
+    @Test
+    public void testFlushPersistsOnlyLastAccessTime() {
+        final RemoteSessionDAO sessionDAO = new RemoteSessionDAO();
+        sm.setSessionDAO(sessionDAO);
+        sm.setLastAccessTimeGranularity(60000);
+
+        final Session session = sm.start(null);
+        SessionKey key = new DefaultSessionKey(session.getId());
+        sessionDAO.setLastAccessTime(session.getId(), ago(1000));
+        sm.touch(key);
+        Date touched = sm.getLastAccessTime(key);
+
+        //another node sets an attribute right after the flush has read the session:
+        sessionDAO.afterRead = new Runnable() {
+            public void run() {
+                sessionDAO.store.get(session.getId()).setAttribute("foo", "bar");
+            }
+        };
+        assertEquals(1, sm.flushPendingTouches());
+
+        SimpleSession stored = sessionDAO.store.get(session.getId());
+        assertEquals(touched, stored.getLastAccessTime());
+        assertEquals("bar", stored.getAttribute("foo"));
+        assertTrue(sessionDAO.lastChanges.isLastAccessTimeOnly());
+    }
+
+    @Test
+    public void testIndexedSessionValidation() {
+        SessionExpiryIndex index = new SessionExpiryIndex();
+        index.setBucketDuration(10);
+        sm.setSessionExpiryIndex(index);
+
+        Session shortLived = sm.start(null);
+        sm.setTimeout(new DefaultSessionKey(shortLived.getId()), 50);
+        sm.start(null);
+
+        //the first run visits all sessions:
+        sm.validateSessions();
+        assertEquals(2, sm.getLastValidationSessionCount());
+        assertEquals(0, sm.getLastValidationInvalidCount());
+        assertEquals(2, index.size());
+
+        sleep(100);
+
+        //subsequent runs only visit the sessions that can have expired:
+        sm.validateSessions();
+        assertEquals(1, sm.getLastValidationSessionCount());
+        assertEquals(1, sm.getLastValidationInvalidCount());
+        assertEquals(1, sm.getTotalValidationInvalidCount());
+        assertEquals(2, sm.getValidationCount());
+        assertEquals(1, index.size());
+        assertEquals(1, sm.getActiveSessions().size());
+    }
+
+    @Test
+    public void testIndexedSessionValidationFailureIsRetried() {
+        final boolean[] unavailable = new boolean[1];
+        sm.setSessionDAO(new MemorySessionDAO() {
+            @Override
+            protected Session doReadSession(Serializable sessionId) {
+                if (unavailable[0]) {
+                    throw new IllegalStateException("session store unavailable");
+                }
+                return super.doReadSession(sessionId);
+            }
+        });
+        SessionExpiryIndex index = new SessionExpiryIndex();
+        index.setBucketDuration(10);
+        sm.setSessionExpiryIndex(index);
+        sm.setGlobalSessionTimeout(50);
+        sm.start(null);
+
+        sm.validateSessions();
+        assertEquals(1, index.size());
+
+        sleep(100);
+
+        //the session can not be read, so it must stay indexed:
+        unavailable[0] = true;
+        sm.validateSessions();
+        assertEquals(0, sm.getLastValidationInvalidCount());
+        assertEquals(1, index.size());
+
+        unavailable[0] = false;
+        sm.validateSessions();
+        assertEquals(1, sm.getLastValidationInvalidCount());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void testParallelSessionValidation() {
+        sm.setGlobalSessionTimeout(50);
+        sm.setSessionValidationThreads(4);
+        sm.setSessionValidationBatchSize(5);
+        for (int i = 0; i < 23; i++) {
+            sm.start(null);
+        }
+        Session valid = sm.start(null);
+        sm.setTimeout(new DefaultSessionKey(valid.getId()), 60000);
+
+        sleep(100);
+
+        sm.validateSessions();
+        assertEquals(24, sm.getLastValidationSessionCount());
+        assertEquals(23, sm.getLastValidationInvalidCount());
+        assertEquals(1, sm.getActiveSessions().size());
+    }
+
+    @Test
+    public void testParallelSessionValidationPoolReused() {
+        final List<ThreadPoolExecutor> pools = new ArrayList<ThreadPoolExecutor>();
+        sm = new DefaultSessionManager() {
+            @Override
+            protected ThreadPoolExecutor createSessionValidationExecutor(int threads) {
+                ThreadPoolExecutor pool = super.createSessionValidationExecutor(threads);
+                pools.add(pool);
+                return pool;
+            }
+        };
+        sm.setSessionValidationThreads(2);
+        sm.setSessionValidationBatchSize(2);
+        for (int i = 0; i < 5; i++) {
+            sm.start(null);
+        }
+
+        sm.validateSessions();
+        sm.validateSessions();
+        assertEquals(5, sm.getLastValidationSessionCount());
+        assertEquals(1, pools.size());
+        assertFalse(pools.get(0).isShutdown());
+
+        sm.destroy();
+        assertTrue(pools.get(0).isShutdown());
+    }
+
+    @Test
+    public void testSessionInvalidationRateLimit() {
+        sm.setGlobalSessionTimeout(10);
+        sm.setMaxSessionInvalidationsPerSecond(100);
+        for (int i = 0; i < 6; i++) {
+            sm.start(null);
+        }
+
+        sleep(50);
+
+        sm.validateSessions();
+        assertEquals(6, sm.getLastValidationInvalidCount());
+        //6 invalidations at 100 per second take at least 50 milliseconds:
+        assertTrue(sm.getLastValidationDuration() >= 45);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSessionValidationThreads() {
+        sm.setSessionValidationThreads(0);
+    }
+
     public static <T extends Session> T eqSessionTimeout(long timeout) {
         EasyMock.reportMatcher(new SessionTimeoutMatcher(timeout));
         return null;
     }
 
+    /**
+     * Simulates a SessionDAO backed by a remote data store: it stores and returns copies of sessions and counts
+     * updates.
+     */
+    private static Date ago(long millis) {
+        return new Date(System.currentTimeMillis() - millis);
+    }
+
+    private static class CopyingSessionDAO extends MemorySessionDAO {
+
+        private int updates;
+
+        private static SimpleSession copy(Session session) {
+            SimpleSession s = (SimpleSession) session;
+            SimpleSession copy = new SimpleSession();
+            copy.setId(s.getId());
+            copy.setStartTimestamp(s.getStartTimestamp());
+            copy.setLastAccessTime(s.getLastAccessTime());
+            copy.setStopTimestamp(s.getStopTimestamp());
+            copy.setTimeout(s.getTimeout());
+            copy.setExpired(s.isExpired());
+            copy.setHost(s.getHost());
+            if (s.getAttributes() != null) {
+                copy.setAttributes(new HashMap<Object, Object>(s.getAttributes()));
+            }
+            return copy;
+        }
+
+        @Override
+        protected Session storeSession(Serializable id, Session session) {
+            return super.storeSession(id, copy(session));
+        }
+
+        @Override
+        protected Session doReadSession(Serializable sessionId) {
+            Session s = super.doReadSession(sessionId);
+            return s != null ? copy(s) : null;
+        }
+
+        @Override
+        public void update(Session session) throws UnknownSessionException {
+            updates++;
+            super.update(session);
+        }
+
+        /**
+         * Changes the stored copy directly, as another node (or the passing of time) would.
+         */
+        private void setLastAccessTime(Serializable sessionId, Date lastAccessTime) {
+            ((SimpleSession) super.doReadSession(sessionId)).setLastAccessTime(lastAccessTime);
+        }
+    }
+
+    /**
+     * Simulates a CachingSessionDAO backed by a remote data store that supports delta updates: sessions are not
+     * cached locally, reads return copies and delta updates only write the changed fields.
+     */
+    private static class RemoteSessionDAO extends CachingSessionDAO {
+
+        private final Map<Serializable, SimpleSession> store = new HashMap<Serializable, SimpleSession>();
+        private Runnable afterRead;
+        private SessionChanges lastChanges;
+
+        @Override
+        protected Session getCachedSession(Serializable sessionId) {
+            return null;
+        }
+
+        @Override
+        protected void cache(Session session, Serializable sessionId) {
+        }
+
+        @Override
+        protected Serializable doCreate(Session session) {
+            Serializable sessionId = generateSessionId(session);
+            assignSessionId(session, sessionId);
+            store.put(sessionId, CopyingSessionDAO.copy(session));
+            return sessionId;
+        }
+
+        @Override
+        protected Session doReadSession(Serializable sessionId) {
+            SimpleSession s = store.get(sessionId);
+            SimpleSession copy = s != null ? CopyingSessionDAO.copy(s) : null;
+            if (afterRead != null) {
+                afterRead.run();
+                afterRead = null;
+            }
+            return copy;
+        }
+
+        @Override
+        protected void doUpdate(Session session) {
+            lastChanges = null;
+            store.put(session.getId(), CopyingSessionDAO.copy(session));
+        }
+
+        @Override
+        protected void doUpdate(Session session, SessionChanges changes) {
+            lastChanges = changes;
+            SimpleSession stored = store.get(session.getId());
+            if (changes.isChanged(SessionChanges.Field.LAST_ACCESS_TIME)) {
+                stored.setLastAccessTime(session.getLastAccessTime());
+            }
+            if (changes.getChangedFields().size() > 1 || changes.isAttributesReplaced() ||
+                    !changes.getChangedAttributes().isEmpty() || !changes.getRemovedAttributeKeys().isEmpty()) {
+                //not needed by these tests:
+                doUpdate(session);
+            }
+        }
+
+        @Override
+        protected void doDelete(Session session) {
+            store.remove(session.getId());
+        }
+
+        private void setLastAccessTime(Serializable sessionId, Date lastAccessTime) {
+            store.get(sessionId).setLastAccessTime(lastAccessTime);
+        }
+    }
+
     private static class SessionTimeoutMatcher implements IArgumentMatcher {
 
         private final long timeout;
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.session.mgt;
+
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.Collection;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the {@link SessionExpiryIndex} class.
+ *
+ * @since 1.3
+ */
+public class SessionExpiryIndexTest {
+
+    @Test
+    public void testRemoveDue() {
+        SessionExpiryIndex index = new SessionExpiryIndex();
+        index.setBucketDuration(10);
+        index.put("a", 100);
+        index.put("b", 205);
+        index.put("c", 1000);
+        assertEquals(3, index.size());
+
+        assertTrue(index.removeDue(99).isEmpty());
+
+        Collection<Serializable> due = index.removeDue(209);
+        assertEquals(2, due.size());
+        assertTrue(due.contains("a"));
+        assertTrue(due.contains("b"));
+        assertEquals(1, index.size());
+        assertTrue(index.removeDue(209).isEmpty());
+    }
+
+    @Test
+    public void testReindexAndRemove() {
+        SessionExpiryIndex index = new SessionExpiryIndex();
+        index.setBucketDuration(10);
+        index.put("a", 100);
+        index.put("a", 500);
+        index.put("b", 100);
+        index.remove("b");
+        index.remove("doesNotExist");
+        assertEquals(1, index.size());
+        assertTrue(index.removeDue(400).isEmpty());
+        assertEquals(1, index.removeDue(500).size());
+        assertEquals(0, index.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidBucketDuration() {
+        new SessionExpiryIndex().setBucketDuration(0);
+    }
+}
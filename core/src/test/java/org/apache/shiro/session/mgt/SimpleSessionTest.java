@@ -24,6 +24,7 @@ import java.io.*;
 import java.util.Date;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class SimpleSessionTest {
@@ -56,6 +57,47 @@ public class SimpleSessionTest {
         assertTrue(serializeAndDeserialize(session).isExpired());
     }
 
+    @Test
+    public void testChangeTracking() throws Exception {
+        SimpleSession session = new SimpleSession();
+        assertFalse(session.isDirty());
+        assertTrue(session.getChanges().isEmpty());
+
+        session.touch();
+        assertTrue(session.isDirty());
+        assertTrue(session.getChanges().isLastAccessTimeOnly());
+
+        session.setAttribute("foo", "bar");
+        session.setAttribute("baz", "qux");
+        session.removeAttribute("baz");
+        session.removeAttribute("doesNotExist");
+        session.setTimeout(1000);
+        SessionChanges changes = session.getChanges();
+        assertFalse(changes.isLastAccessTimeOnly());
+        assertFalse(changes.isAttributesReplaced());
+        assertTrue(changes.isChanged(SessionChanges.Field.TIMEOUT));
+        assertFalse(changes.isChanged(SessionChanges.Field.HOST));
+        assertEquals(1, changes.getChangedAttributes().size());
+        assertEquals("bar", changes.getChangedAttributes().get("foo"));
+        assertEquals(1, changes.getRemovedAttributeKeys().size());
+        assertTrue(changes.getRemovedAttributeKeys().contains("baz"));
+
+        session.clearChanges();
+        assertFalse(session.isDirty());
+
+        session.setHost("localhost");
+        changes = session.drainChanges();
+        assertTrue(changes.isChanged(SessionChanges.Field.HOST));
+        assertFalse(session.isDirty());
+        assertTrue(session.drainChanges().isEmpty());
+
+        session.setAttributes(null);
+        assertTrue(session.getChanges().isAttributesReplaced());
+
+        //changes are not serialized:
+        assertFalse(serializeAndDeserialize(session).isDirty());
+    }
+
     private SimpleSession serializeAndDeserialize(SimpleSession session) throws IOException, ClassNotFoundException {
         ByteArrayOutputStream serialized = new ByteArrayOutputStream();
         ObjectOutputStream serializer = new ObjectOutputStream(serialized);
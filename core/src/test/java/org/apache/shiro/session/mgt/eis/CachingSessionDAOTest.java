@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.session.mgt.eis;
+
+import org.apache.shiro.cache.MemoryConstrainedCacheManager;
+import org.apache.shiro.session.Session;
+import org.apache.shiro.session.mgt.SessionChanges;
+import org.apache.shiro.session.mgt.SimpleSession;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the {@link CachingSessionDAO} class.
+ *
+ * @since 1.3
+ */
+public class CachingSessionDAOTest {
+
+    private static class RecordingSessionDAO extends CachingSessionDAO {
+
+        private final List<SessionChanges> updates = new ArrayList<SessionChanges>();
+
+        @Override
+        protected Serializable doCreate(Session session) {
+            Serializable sessionId = generateSessionId(session);
+            assignSessionId(session, sessionId);
+            return sessionId;
+        }
+
+        @Override
+        protected Session doReadSession(Serializable sessionId) {
+            return null;
+        }
+
+        @Override
+        protected void doUpdate(Session session) {
+            fail("delta update expected");
+        }
+
+        @Override
+        protected void doUpdate(Session session, SessionChanges changes) {
+            updates.add(changes);
+        }
+
+        @Override
+        protected void doDelete(Session session) {
+        }
+    }
+
+    @Test
+    public void testDeltaUpdates() {
+        RecordingSessionDAO dao = new RecordingSessionDAO();
+        dao.setCacheManager(new MemoryConstrainedCacheManager());
+
+        SimpleSession session = new SimpleSession();
+        session.setAttribute("foo", "bar");
+        dao.create(session);
+        assertFalse(session.isDirty());
+
+        session.touch();
+        dao.update(session);
+        assertEquals(1, dao.updates.size());
+        assertTrue(dao.updates.get(0).isLastAccessTimeOnly());
+        assertFalse(session.isDirty());
+
+        session.setAttribute("foo", "baz");
+        dao.update(session);
+        SessionChanges changes = dao.updates.get(1);
+        assertTrue(changes.getChangedFields().isEmpty());
+        assertEquals("baz", changes.getChangedAttributes().get("foo"));
+
+        assertSame(session, dao.readSession(session.getId()));
+    }
+}
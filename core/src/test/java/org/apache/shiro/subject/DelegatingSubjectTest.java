@@ -20,6 +20,9 @@ package org.apache.shiro.subject;
 
 import org.apache.shiro.SecurityUtils;
 import org.apache.shiro.authc.UsernamePasswordToken;
+import org.apache.shiro.authz.AuthorizationSnapshot;
+import org.apache.shiro.authz.AuthorizationSnapshotUtils;
+import org.apache.shiro.authz.permission.WildcardPermission;
 import org.apache.shiro.config.Ini;
 import org.apache.shiro.config.IniSecurityManagerFactory;
 import org.apache.shiro.mgt.DefaultSecurityManager;
@@ -139,6 +142,56 @@ public class DelegatingSubjectTest {
         assertNull(ThreadContext.getSecurityManager());
     }
 
+    @Test
+    public void testAuthorizationSnapshot() {
+        Ini ini = new Ini();
+        ini.addSection("users").put("user1", "user1,role1");
+        ini.addSection("roles").put("role1", "newsletter:*");
+        IniSecurityManagerFactory factory = new IniSecurityManagerFactory(ini);
+        SecurityManager sm = factory.getInstance();
+
+        Subject subject = new Subject.Builder(sm).buildSubject();
+        AuthorizationSnapshot snapshot = AuthorizationSnapshotUtils.getAuthorizationSnapshot(subject);
+        assertNull(snapshot.getPrincipals());
+        assertFalse(snapshot.hasRole("role1"));
+        assertFalse(snapshot.isPermitted("newsletter:edit"));
+
+        subject.login(new UsernamePasswordToken("user1", "user1"));
+        snapshot = AuthorizationSnapshotUtils.getAuthorizationSnapshot(subject);
+        assertEquals(subject.getPrincipals(), snapshot.getPrincipals());
+        assertTrue(snapshot.hasRole("role1"));
+        assertFalse(snapshot.hasRole("role2"));
+        assertTrue(snapshot.isPermitted("newsletter:edit"));
+        assertTrue(snapshot.isPermitted(new WildcardPermission("newsletter:view:12")));
+        assertFalse(snapshot.isPermitted("document:read"));
+
+        subject.logout();
+        LifecycleUtils.destroy(sm);
+    }
+
+    @Test
+    public void testAuthorizationSnapshotWithOverriddenChecks() {
+        Ini ini = new Ini();
+        ini.addSection("users").put("user1", "user1,role1");
+        IniSecurityManagerFactory factory = new IniSecurityManagerFactory(ini);
+        SecurityManager sm = factory.getInstance();
+
+        PrincipalCollection principals = new SimplePrincipalCollection("user1", "iniRealm");
+        Subject subject = new DelegatingSubject(principals, true, null, null, sm) {
+            @Override
+            public boolean hasRole(String roleIdentifier) {
+                return "role2".equals(roleIdentifier) || super.hasRole(roleIdentifier);
+            }
+        };
+        AuthorizationSnapshot snapshot = AuthorizationSnapshotUtils.getAuthorizationSnapshot(subject);
+        assertEquals(subject.getPrincipals(), snapshot.getPrincipals());
+        assertTrue(snapshot.hasRole("role1"));
+        assertTrue(snapshot.hasRole("role2"));
+        assertFalse(snapshot.hasRole("role3"));
+
+        LifecycleUtils.destroy(sm);
+    }
+
     @Test
     public void testRunAs() {
 
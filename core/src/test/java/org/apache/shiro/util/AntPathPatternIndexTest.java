@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the {@link AntPathPatternIndex} class.
+ *
+ * @since 1.3
+ */
+public class AntPathPatternIndexTest {
+
+    private static final String[] PATTERNS = {
+            "/login.jsp", "/logout", "/account/**", "/account/*/edit", "/admin/*", "/admin/", "/docs/**/*.html",
+            "/static/**", "/api/v?/users/*", "/api/**/orders/**", "/a/**/b/**/c", "/*.do", "/**/secret/**",
+            "/x/*", "/x/*/", "/y/**/", "/", "/*", "relative/*", "*", "**", "/**"
+    };
+
+    private static final String[] PATHS = {
+            "/", "", "/login.jsp", "/login.jsp/", "/logout", "/account", "/account/", "/account/1/edit",
+            "/account/1/view", "/admin", "/admin/", "/admin/users", "/admin/users/", "/docs/a.html", "/docs/x/y/a.html",
+            "/docs/a.txt", "/static/css/site.css", "/api/v1/users/7", "/api/v12/users/7", "/api/x/orders",
+            "/api/x/orders/9", "/a/b/c", "/a/x/b/y/c", "/a/c", "/a/b/x", "/foo.do", "/bar/foo.do", "/p/secret",
+            "/secret/q", "/x/1", "/x/1/", "/x/", "/y", "/y/", "/y/z/", "relative/1", "relative", "other", "//x//1",
+            "/ x /1", "/unknown/path"
+    };
+
+    private static String firstMatch(List<String> patterns, String path) {
+        AntPathMatcher matcher = new AntPathMatcher();
+        for (String pattern : patterns) {
+            if (matcher.matches(pattern, path)) {
+                return pattern;
+            }
+        }
+        return null;
+    }
+
+    private static void assertEquivalent(List<String> patterns) {
+        AntPathPatternIndex index = new AntPathPatternIndex(patterns);
+        for (String path : PATHS) {
+            assertEquals("Unexpected match for path [" + path + "] in " + patterns,
+                    firstMatch(patterns, path), index.match(path));
+        }
+    }
+
+    @Test
+    public void testMatchesAntPathMatcherForEachPattern() {
+        for (String pattern : PATTERNS) {
+            assertEquivalent(Arrays.asList(pattern));
+        }
+    }
+
+    @Test
+    public void testFirstMatchWins() {
+        List<String> patterns = new ArrayList<String>(Arrays.asList(PATTERNS));
+        assertEquivalent(patterns);
+        Collections.reverse(patterns);
+        assertEquivalent(patterns);
+        Collections.shuffle(patterns, new java.util.Random(42));
+        assertEquivalent(patterns);
+    }
+
+    @Test
+    public void testIndexOf() {
+        AntPathPatternIndex index = new AntPathPatternIndex(Arrays.asList("/a/**", "/a/b", "/**"));
+        assertEquals(0, index.indexOf("/a/b"));
+        assertEquals(2, index.indexOf("/c"));
+        assertEquals(-1, index.indexOf("c"));
+        assertEquals(-1, index.indexOf(null));
+        assertEquals(3, index.getPatterns().size());
+    }
+
+    @Test
+    public void testEmpty() {
+        AntPathPatternIndex index = new AntPathPatternIndex(null);
+        assertNull(index.match("/foo"));
+        assertTrue(index.getPatterns().isEmpty());
+    }
+
+    @Test
+    public void testCustomPathSeparator() {
+        List<String> patterns = Arrays.asList("com.*.foo", "com.**");
+        AntPathPatternIndex index = new AntPathPatternIndex(patterns, ".");
+        assertEquals("com.*.foo", index.match("com.x.foo"));
+        assertEquals("com.**", index.match("com.x.bar"));
+        assertNull(index.match("org.x"));
+    }
+}
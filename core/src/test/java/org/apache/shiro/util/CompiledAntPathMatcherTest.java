@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.util;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the {@link CompiledAntPathMatcher} and {@link AntPathPattern} classes.
+ *
+ * @since 1.3
+ */
+public class CompiledAntPathMatcherTest {
+
+    private static final String[] PATTERNS = {
+            "/login.jsp", "/logout", "/account/**", "/account/*/edit", "/admin/*", "/admin/", "/docs/**/*.html",
+            "/static/**", "/api/v?/users/*", "/api/**/orders/**", "/a/**/b/**/c", "/*.do", "/**/secret/**",
+            "/x/*", "/x/*/", "/y/**/", "/", "/*", "relative/*", "*", "**", "/**", "/a*b*c/d", "/**/**/z", "/ a /b"
+    };
+
+    private static final String[] PATHS = {
+            "/", "", "/login.jsp", "/login.jsp/", "/logout", "/account", "/account/", "/account/1/edit",
+            "/account/1/view", "/admin", "/admin/", "/admin/users", "/admin/users/", "/docs/a.html", "/docs/x/y/a.html",
+            "/docs/a.txt", "/static/css/site.css", "/api/v1/users/7", "/api/v12/users/7", "/api/x/orders",
+            "/api/x/orders/9", "/a/b/c", "/a/x/b/y/c", "/a/c", "/a/b/x", "/foo.do", "/bar/foo.do", "/p/secret",
+            "/secret/q", "/x/1", "/x/1/", "/x/", "/y", "/y/", "/y/z/", "relative/1", "relative", "other", "//x//1",
+            "/ x /1", "/a/b", "/ a / b ", "/axbyc/d", "/abc/d", "/z", "/q/z", "/unknown/path"
+    };
+
+    private static void assertEquivalent(String pattern, String path) {
+        boolean expected = new AntPathMatcher().matches(pattern, path);
+        assertEquals("Unexpected result for pattern [" + pattern + "] and path [" + path + "]",
+                expected, new AntPathPattern(pattern).matches(path));
+    }
+
+    @Test
+    public void testMatchesAntPathMatcher() {
+        for (String pattern : PATTERNS) {
+            for (String path : PATHS) {
+                assertEquivalent(pattern, path);
+            }
+        }
+    }
+
+    @Test
+    public void testMatchesAntPathMatcherForRandomInput() {
+        Random random = new Random(42);
+        String[] tokens = {"/", "/", "a", "b", "*", "?", "**", " ", "ab"};
+        for (int i = 0; i < 20000; i++) {
+            assertEquivalent(randomString(random, tokens), randomString(random, tokens));
+        }
+    }
+
+    private static String randomString(Random random, String[] tokens) {
+        StringBuilder sb = new StringBuilder();
+        int length = random.nextInt(8);
+        for (int i = 0; i < length; i++) {
+            sb.append(tokens[random.nextInt(tokens.length)]);
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testPathSeparator() {
+        CompiledAntPathMatcher matcher = new CompiledAntPathMatcher();
+        assertTrue(matcher.matches("a.*", "a.b.c"));
+        matcher.setPathSeparator(".");
+        assertEquals(0, matcher.getCachedPatternCount());
+        assertTrue(matcher.matches("a.*", "a.b"));
+        assertFalse(matcher.matches("a.*", "a.b.c"));
+        assertFalse(new AntPathPattern("a.*", ".").matches("a.b.c"));
+    }
+
+    @Test
+    public void testBoundedCache() {
+        CompiledAntPathMatcher matcher = new CompiledAntPathMatcher();
+        matcher.setMaxCachedPatterns(2);
+        assertTrue(matcher.matches("/a", "/a"));
+        assertSame(matcher.compile("/a"), matcher.compile("/a"));
+        assertTrue(matcher.matches("/b", "/b"));
+        assertEquals(2, matcher.getCachedPatternCount());
+        assertTrue(matcher.matches("/c", "/c"));
+        assertTrue(matcher.getCachedPatternCount() <= 2);
+
+        matcher.setMaxCachedPatterns(0);
+        assertTrue(matcher.matches("/d", "/d"));
+        assertEquals(0, matcher.getCachedPatternCount());
+    }
+}
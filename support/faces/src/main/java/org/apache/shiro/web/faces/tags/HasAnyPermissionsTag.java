@@ -18,7 +18,7 @@
  */
 package org.apache.shiro.web.faces.tags;
 
-import org.apache.shiro.subject.Subject;
+import org.apache.shiro.authz.AuthorizationSnapshot;
 import org.apache.shiro.util.StringUtils;
 
 import javax.faces.view.facelets.TagConfig;
@@ -39,13 +39,13 @@ public class HasAnyPermissionsTag extends AuthorizationTagHandler {
     protected boolean showTagBody(String commaDelimitedPermissions) {
         boolean hasAnyPermission = false;
 
-        Subject subject = getSubject();
+        AuthorizationSnapshot snapshot = getAuthorizationSnapshot();
 
-        if (subject != null) {
+        if (snapshot != null) {
             // Iterate through permissions and check to see if the user has one of the permission
             String[] permissions = StringUtils.split(commaDelimitedPermissions);
             for (String permission : permissions) {
-                if (subject.isPermitted(permission)) {
+                if (snapshot.isPermitted(permission)) {
                     hasAnyPermission = true;
                     break;
                 }
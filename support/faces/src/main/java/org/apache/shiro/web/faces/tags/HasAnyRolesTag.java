@@ -18,7 +18,7 @@
  */
 package org.apache.shiro.web.faces.tags;
 
-import org.apache.shiro.subject.Subject;
+import org.apache.shiro.authz.AuthorizationSnapshot;
 import org.apache.shiro.util.StringUtils;
 
 import javax.faces.view.facelets.TagConfig;
@@ -38,13 +38,13 @@ public class HasAnyRolesTag extends AuthorizationTagHandler {
     protected boolean showTagBody(String commaDelimitedRoleNames) {
         boolean hasAnyRole = false;
 
-        Subject subject = getSubject();
+        AuthorizationSnapshot snapshot = getAuthorizationSnapshot();
 
-        if (subject != null) {
+        if (snapshot != null) {
             // Iterate through roles and check to see if the user has one of the roles
             String[] roleNames = StringUtils.split(commaDelimitedRoleNames);
             for (String roleName : roleNames) {
-                if (subject.hasRole(roleName)) {
+                if (snapshot.hasRole(roleName)) {
                     hasAnyRole = true;
                     break;
                 }
@@ -18,6 +18,8 @@
  */
 package org.apache.shiro.web.faces.tags;
 
+import org.apache.shiro.authz.AuthorizationSnapshot;
+
 import javax.faces.view.facelets.TagConfig;
 
 /**
@@ -38,6 +40,7 @@ public class HasPermissionTag extends AuthorizationTagHandler {
     }
     
     protected boolean isPermitted(String p) {
-        return getSubject() != null && getSubject().isPermitted(p);
+        AuthorizationSnapshot snapshot = getAuthorizationSnapshot();
+        return snapshot != null && snapshot.isPermitted(p);
     }
 }
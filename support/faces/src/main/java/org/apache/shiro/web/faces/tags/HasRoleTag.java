@@ -18,6 +18,8 @@
  */
 package org.apache.shiro.web.faces.tags;
 
+import org.apache.shiro.authz.AuthorizationSnapshot;
+
 import javax.faces.view.facelets.TagConfig;
 
 /**
@@ -35,6 +37,7 @@ public class HasRoleTag extends AuthorizationTagHandler {
     }
     
     protected boolean hasRole(String roleName) {
-        return getSubject() != null && getSubject().hasRole(roleName);
+        AuthorizationSnapshot snapshot = getAuthorizationSnapshot();
+        return snapshot != null && snapshot.hasRole(roleName);
     }
 }
\ No newline at end of file
@@ -19,14 +19,18 @@
 package org.apache.shiro.web.faces.tags;
 
 import org.apache.shiro.SecurityUtils;
+import org.apache.shiro.authz.AuthorizationSnapshot;
 import org.apache.shiro.subject.Subject;
+import org.apache.shiro.web.util.WebUtils;
 
 import javax.el.ELException;
 import javax.faces.FacesException;
 import javax.faces.component.UIComponent;
+import javax.faces.context.FacesContext;
 import javax.faces.view.facelets.FaceletContext;
 import javax.faces.view.facelets.TagConfig;
 import javax.faces.view.facelets.TagHandler;
+import javax.servlet.ServletRequest;
 import java.io.IOException;
 
 /**
@@ -44,6 +48,29 @@ public abstract class SecureTagHandler extends TagHandler {
         return SecurityUtils.getSubject();
     }
 
+    /**
+     * Returns the {@link #getSubject() subject}'s {@link AuthorizationSnapshot AuthorizationSnapshot}, shared by all
+     * tags rendered during the current request, or {@code null} if there is no subject.
+     * <p/>
+     * The snapshot is obtained via
+     * {@link WebUtils#getAuthorizationSnapshot(javax.servlet.ServletRequest, org.apache.shiro.subject.Subject)}, so
+     * it is also shared with Shiro's JSP tags and is only reused while it matches the subject's current principals.
+     *
+     * @return the current subject's request-scoped {@code AuthorizationSnapshot}, or {@code null} if there is no
+     *         subject.
+     */
+    protected AuthorizationSnapshot getAuthorizationSnapshot() {
+        Subject subject = getSubject();
+        if (subject == null) {
+            return null;
+        }
+        FacesContext facesContext = FacesContext.getCurrentInstance();
+        Object request = facesContext != null ? facesContext.getExternalContext().getRequest() : null;
+        //outside of a servlet request (e.g. a portlet) the snapshot cannot be shared and is created for this tag only:
+        return WebUtils.getAuthorizationSnapshot(request instanceof ServletRequest ? (ServletRequest) request : null,
+                subject);
+    }
+
     public void apply(FaceletContext ctx, UIComponent parent) throws IOException, FacesException, ELException {
         if (showTagBody(ctx, parent)) {
             this.nextHandler.apply(ctx, parent);
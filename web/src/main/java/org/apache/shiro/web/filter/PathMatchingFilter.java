@@ -18,7 +18,7 @@
  */
 package org.apache.shiro.web.filter;
 
-import org.apache.shiro.util.AntPathMatcher;
+import org.apache.shiro.util.CompiledAntPathMatcher;
 import org.apache.shiro.util.PatternMatcher;
 import org.apache.shiro.util.StringUtils;
 import org.apache.shiro.web.servlet.AdviceFilter;
@@ -47,9 +47,11 @@ public abstract class PathMatchingFilter extends AdviceFilter implements PathCon
     private static final Logger log = LoggerFactory.getLogger(PathMatchingFilter.class);
 
     /**
-     * PatternMatcher used in determining which paths to react to for a given request.
+     * PatternMatcher used in determining which paths to react to for a given request.  The default
+     * {@link CompiledAntPathMatcher} compiles each configured path once, so requests are matched without
+     * re-tokenizing the configured paths.
      */
-    protected PatternMatcher pathMatcher = new AntPathMatcher();
+    protected PatternMatcher pathMatcher = new CompiledAntPathMatcher();
 
     /**
      * A collection of path-to-config entries where the key is a path which this filter should process and
@@ -19,6 +19,8 @@
 package org.apache.shiro.web.filter.mgt;
 
 import org.apache.shiro.util.AntPathMatcher;
+import org.apache.shiro.util.AntPathPatternIndex;
+import org.apache.shiro.util.CompiledAntPathMatcher;
 import org.apache.shiro.util.PatternMatcher;
 import org.apache.shiro.web.util.WebUtils;
 import org.slf4j.Logger;
@@ -28,6 +30,11 @@ import javax.servlet.FilterChain;
 import javax.servlet.FilterConfig;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
 
 /**
  * A {@code FilterChainResolver} that resolves {@link FilterChain}s based on url path
@@ -36,6 +43,13 @@ import javax.servlet.ServletResponse;
  * This implementation functions by consulting a {@link org.apache.shiro.web.filter.mgt.FilterChainManager} for all configured filter chains (keyed
  * by configured path pattern).  If an incoming Request path matches one of the configured path patterns (via
  * the {@code PathMatcher}, the corresponding configured {@code FilterChain} is returned.
+ * <p/>
+ * If the {@code PathMatcher} is a plain {@link AntPathMatcher AntPathMatcher} or
+ * {@link CompiledAntPathMatcher CompiledAntPathMatcher} (the default) and
+ * {@link #pathMatches(String, String) pathMatches} has not been overridden, the configured path patterns are compiled
+ * into an {@link AntPathPatternIndex AntPathPatternIndex} the first time a chain is resolved (and again whenever
+ * chains are added), so resolving a request does not match the request path against each pattern in turn.  The
+ * resolved chain is always the same: the first configured chain whose pattern matches.
  *
  * @since 1.0
  */
@@ -47,20 +61,30 @@ public class PathMatchingFilterChainResolver implements FilterChainResolver {
 
     private PatternMatcher pathMatcher;
 
+    /**
+     * The compiled chain name patterns, or {@code null} if not (yet) compiled.
+     */
+    private volatile CompiledChainNames compiledChainNames;
+
+    /**
+     * Whether or not a subclass overrides {@link #pathMatches(String, String)}, or {@code null} if not yet determined.
+     */
+    private volatile Boolean pathMatchesOverridden;
+
     public PathMatchingFilterChainResolver() {
-        this.pathMatcher = new AntPathMatcher();
+        this.pathMatcher = new CompiledAntPathMatcher();
         this.filterChainManager = new DefaultFilterChainManager();
     }
 
     public PathMatchingFilterChainResolver(FilterConfig filterConfig) {
-        this.pathMatcher = new AntPathMatcher();
+        this.pathMatcher = new CompiledAntPathMatcher();
         this.filterChainManager = new DefaultFilterChainManager(filterConfig);
     }
 
     /**
      * Returns the {@code PatternMatcher} used when determining if an incoming request's path
      * matches a configured filter chain.  Unless overridden, the
-     * default implementation is an {@link org.apache.shiro.util.AntPathMatcher AntPathMatcher}.
+     * default implementation is a {@link CompiledAntPathMatcher CompiledAntPathMatcher}.
      *
      * @return the {@code PatternMatcher} used when determining if an incoming request's path
      *         matches a configured filter chain.
@@ -72,7 +96,7 @@ public class PathMatchingFilterChainResolver implements FilterChainResolver {
     /**
      * Sets the {@code PatternMatcher} used when determining if an incoming request's path
      * matches a configured filter chain.  Unless overridden, the
-     * default implementation is an {@link org.apache.shiro.util.AntPathMatcher AntPathMatcher}.
+     * default implementation is a {@link CompiledAntPathMatcher CompiledAntPathMatcher}.
      *
      * @param pathMatcher the {@code PatternMatcher} used when determining if an incoming request's path
      *                    matches a configured filter chain.
@@ -98,6 +122,19 @@ public class PathMatchingFilterChainResolver implements FilterChainResolver {
 
         String requestURI = getPathWithinApplication(request);
 
+        AntPathPatternIndex index = getChainNameIndex(filterChainManager);
+        if (index != null) {
+            String pathPattern = index.match(requestURI);
+            if (pathPattern == null) {
+                return null;
+            }
+            if (log.isTraceEnabled()) {
+                log.trace("Matched path pattern [" + pathPattern + "] for requestURI [" + requestURI + "].  " +
+                        "Utilizing corresponding filter chain...");
+            }
+            return filterChainManager.proxy(originalChain, pathPattern);
+        }
+
         //the 'chain names' in this implementation are actually path patterns defined by the user.  We just use them
         //as the chain name for the FilterChainManager's requirements
         for (String pathPattern : filterChainManager.getChainNames()) {
@@ -115,6 +152,57 @@ public class PathMatchingFilterChainResolver implements FilterChainResolver {
         return null;
     }
 
+    private static boolean isAntPathMatcher(Class<?> clazz) {
+        return clazz == AntPathMatcher.class || clazz == CompiledAntPathMatcher.class;
+    }
+
+    /**
+     * Returns an index of the manager's chain names compiled with the configured {@link AntPathMatcher}'s semantics,
+     * or {@code null} if chain names must be matched one by one via {@link #pathMatches(String, String) pathMatches}
+     * because a different {@code PatternMatcher} is configured or {@code pathMatches} has been overridden.
+     *
+     * @param filterChainManager the manager whose chain names are to be matched
+     * @return an index of the manager's chain names, or {@code null} if they must be matched one by one.
+     */
+    private AntPathPatternIndex getChainNameIndex(FilterChainManager filterChainManager) {
+        PatternMatcher pathMatcher = getPathMatcher();
+        if (pathMatcher == null || !isAntPathMatcher(pathMatcher.getClass()) || overridesPathMatches()) {
+            return null;
+        }
+        String pathSeparator = ((AntPathMatcher) pathMatcher).getPathSeparator();
+        Set<String> chainNames = filterChainManager.getChainNames();
+        CompiledChainNames compiled = this.compiledChainNames;
+        if (compiled != null && compiled.isCurrent(filterChainManager, chainNames, pathSeparator)) {
+            return compiled.index;
+        }
+        compiled = new CompiledChainNames(filterChainManager, chainNames, pathSeparator);
+        this.compiledChainNames = compiled;
+        return compiled.index;
+    }
+
+    private boolean overridesPathMatches() {
+        Boolean overridden = this.pathMatchesOverridden;
+        if (overridden == null) {
+            overridden = declaresPathMatches(getClass());
+            this.pathMatchesOverridden = overridden;
+        }
+        return overridden;
+    }
+
+    private static boolean declaresPathMatches(Class<?> type) {
+        for (Class<?> clazz = type; clazz != PathMatchingFilterChainResolver.class; clazz = clazz.getSuperclass()) {
+            try {
+                Method method = clazz.getDeclaredMethod("pathMatches", String.class, String.class);
+                if (method != null) {
+                    return true;
+                }
+            } catch (NoSuchMethodException e) {
+                //not declared at this level - check the superclass
+            }
+        }
+        return false;
+    }
+
     /**
      * Returns {@code true} if an incoming request path (the {@code path} argument)
      * matches a configured filter chain path (the {@code pattern} argument), {@code false} otherwise.
@@ -146,4 +234,50 @@ public class PathMatchingFilterChainResolver implements FilterChainResolver {
     protected String getPathWithinApplication(ServletRequest request) {
         return WebUtils.getPathWithinApplication(WebUtils.toHttp(request));
     }
+
+    /**
+     * An {@link AntPathPatternIndex} of a {@code FilterChainManager}'s chain names, along with what is needed to
+     * detect that they have changed.
+     */
+    private static final class CompiledChainNames {
+
+        private final FilterChainManager filterChainManager;
+        private final String pathSeparator;
+        private final AntPathPatternIndex index;
+        /**
+         * The chain names instance the index was last verified against.  {@code DefaultFilterChainManager} returns
+         * the same (live) instance on every call, so the check is usually an identity and size comparison.
+         */
+        private volatile Set<String> chainNames;
+
+        private CompiledChainNames(FilterChainManager filterChainManager, Set<String> chainNames, String pathSeparator) {
+            this.filterChainManager = filterChainManager;
+            this.pathSeparator = pathSeparator;
+            this.chainNames = chainNames;
+            this.index = new AntPathPatternIndex(new ArrayList<String>(chainNames), pathSeparator);
+        }
+
+        private boolean isCurrent(FilterChainManager filterChainManager, Set<String> chainNames, String pathSeparator) {
+            if (this.filterChainManager != filterChainManager || !this.pathSeparator.equals(pathSeparator)) {
+                return false;
+            }
+            List<String> patterns = this.index.getPatterns();
+            if (chainNames.size() != patterns.size()) {
+                return false;
+            }
+            if (this.chainNames == chainNames) {
+                return true;
+            }
+            //a different instance - verify the names and their order are unchanged:
+            Iterator<String> i = chainNames.iterator();
+            for (String pattern : patterns) {
+                String name = i.next();
+                if (pattern == null ? name != null : !pattern.equals(name)) {
+                    return false;
+                }
+            }
+            this.chainNames = chainNames;
+            return true;
+        }
+    }
 }
@@ -279,12 +279,19 @@ public class CookieRememberMeManager extends AbstractRememberMeManager {
     }
 
     /**
-     * Removes the rememberMe cookie from the given request/response pair.
+     * Removes the rememberMe cookie from the given request/response pair, as well as any principals
+     * {@link #setPrincipalsCacheSize(int) cached} for the cookie's value.
      *
      * @param request  the incoming HTTP servlet request
      * @param response the outgoing HTTP servlet response
      */
     private void forgetIdentity(HttpServletRequest request, HttpServletResponse response) {
+        if (isPrincipalsCacheEnabled()) {
+            String base64 = getCookie().readValue(request, response);
+            if (base64 != null && !Cookie.DELETED_COOKIE_VALUE.equals(base64)) {
+                forgetCachedPrincipals(Base64.decode(ensurePadding(base64)));
+            }
+        }
         getCookie().removeFrom(request, response);
     }
 }
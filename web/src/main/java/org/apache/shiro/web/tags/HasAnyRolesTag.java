@@ -18,7 +18,7 @@
  */
 package org.apache.shiro.web.tags;
 
-import org.apache.shiro.subject.Subject;
+import org.apache.shiro.authz.AuthorizationSnapshot;
 
 
 /**
@@ -39,14 +39,14 @@ public class HasAnyRolesTag extends RoleTag {
     protected boolean showTagBody(String roleNames) {
         boolean hasAnyRole = false;
 
-        Subject subject = getSubject();
+        AuthorizationSnapshot snapshot = getAuthorizationSnapshot();
 
-        if (subject != null) {
+        if (snapshot != null) {
 
             // Iterate through roles and check to see if the user has one of the roles
             for (String role : roleNames.split(ROLE_NAMES_DELIMETER)) {
 
-                if (subject.hasRole(role.trim())) {
+                if (snapshot.hasRole(role.trim())) {
                     hasAnyRole = true;
                     break;
                 }
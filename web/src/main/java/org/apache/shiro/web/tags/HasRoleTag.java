@@ -29,7 +29,7 @@ public class HasRoleTag extends RoleTag {
     }
 
     protected boolean showTagBody(String roleName) {
-        return getSubject() != null && getSubject().hasRole(roleName);
+        return hasRole(roleName);
     }
 
 }
@@ -29,8 +29,7 @@ public class LacksRoleTag extends RoleTag {
     }
 
     protected boolean showTagBody(String roleName) {
-        boolean hasRole = getSubject() != null && getSubject().hasRole(roleName);
-        return !hasRole;
+        return !hasRole(roleName);
     }
 
 }
@@ -18,6 +18,8 @@
  */
 package org.apache.shiro.web.tags;
 
+import org.apache.shiro.authz.AuthorizationSnapshot;
+
 import javax.servlet.jsp.JspException;
 import javax.servlet.jsp.tagext.TagSupport;
 
@@ -63,7 +65,8 @@ public abstract class PermissionTag extends SecureTag {
     }
 
     protected boolean isPermitted(String p) {
-        return getSubject() != null && getSubject().isPermitted(p);
+        AuthorizationSnapshot snapshot = getAuthorizationSnapshot();
+        return snapshot != null && snapshot.isPermitted(p);
     }
 
     protected abstract boolean showTagBody(String p);
@@ -18,6 +18,8 @@
  */
 package org.apache.shiro.web.tags;
 
+import org.apache.shiro.authz.AuthorizationSnapshot;
+
 import javax.servlet.jsp.JspException;
 import javax.servlet.jsp.tagext.TagSupport;
 
@@ -50,6 +52,18 @@ public abstract class RoleTag extends SecureTag {
         }
     }
 
+    /**
+     * Returns {@code true} if the current subject has the specified role, {@code false} otherwise.
+     *
+     * @param roleName the name of the role to check
+     * @return {@code true} if the current subject has the specified role, {@code false} otherwise.
+     * @since 1.3
+     */
+    protected boolean hasRole(String roleName) {
+        AuthorizationSnapshot snapshot = getAuthorizationSnapshot();
+        return snapshot != null && snapshot.hasRole(roleName);
+    }
+
     protected abstract boolean showTagBody(String roleName);
 
 }
@@ -25,7 +25,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.apache.shiro.SecurityUtils;
+import org.apache.shiro.authz.AuthorizationSnapshot;
 import org.apache.shiro.subject.Subject;
+import org.apache.shiro.web.util.WebUtils;
 
 /**
  * @since 0.1
@@ -43,6 +45,24 @@ public abstract class SecureTag extends TagSupport {
         return SecurityUtils.getSubject();
     }
 
+    /**
+     * Returns the {@link #getSubject() subject}'s {@link AuthorizationSnapshot AuthorizationSnapshot}, shared by all
+     * tags rendered during the current request (see
+     * {@link WebUtils#getAuthorizationSnapshot(javax.servlet.ServletRequest, org.apache.shiro.subject.Subject)}), or
+     * {@code null} if there is no subject.
+     *
+     * @return the current subject's request-scoped {@code AuthorizationSnapshot}, or {@code null} if there is no
+     *         subject.
+     * @since 1.3
+     */
+    protected AuthorizationSnapshot getAuthorizationSnapshot() {
+        Subject subject = getSubject();
+        if (subject == null) {
+            return null;
+        }
+        return WebUtils.getAuthorizationSnapshot(pageContext != null ? pageContext.getRequest() : null, subject);
+    }
+
     protected void verifyAttributes() throws JspException {
     }
 
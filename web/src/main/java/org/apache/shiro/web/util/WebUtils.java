@@ -19,9 +19,13 @@
 package org.apache.shiro.web.util;
 
 import org.apache.shiro.SecurityUtils;
+import org.apache.shiro.authz.AuthorizationSnapshot;
+import org.apache.shiro.authz.AuthorizationSnapshotUtils;
 import org.apache.shiro.session.Session;
+import org.apache.shiro.subject.PrincipalCollection;
 import org.apache.shiro.subject.Subject;
 import org.apache.shiro.subject.support.DefaultSubjectContext;
+import org.apache.shiro.util.CollectionUtils;
 import org.apache.shiro.util.StringUtils;
 import org.apache.shiro.web.env.EnvironmentLoader;
 import org.apache.shiro.web.env.WebEnvironment;
@@ -62,6 +66,17 @@ public class WebUtils {
      */
     public static final String SAVED_REQUEST_KEY = "shiroSavedRequest";
 
+    /**
+     * Request attribute key used to store the current Subject's
+     * {@link org.apache.shiro.authz.AuthorizationSnapshot AuthorizationSnapshot} so it may be reused by all
+     * authorization checks (e.g. JSP and JSF tags) performed while processing the request, equal to
+     * {@code shiroAuthorizationSnapshot}.
+     *
+     * @see #getAuthorizationSnapshot(javax.servlet.ServletRequest, org.apache.shiro.subject.Subject)
+     * @since 1.3
+     */
+    public static final String AUTHORIZATION_SNAPSHOT_ATTRIBUTE = "shiroAuthorizationSnapshot";
+
     /**
      * Standard Servlet 2.3+ spec request attributes for include URI and paths.
      * <p>If included via a RequestDispatcher, the current resource will see the
@@ -601,6 +616,40 @@ public class WebUtils {
         return StringUtils.clean(request.getParameter(paramName));
     }
 
+    /**
+     * Returns the {@link AuthorizationSnapshot AuthorizationSnapshot} stored on the request for the specified
+     * Subject, creating and storing one first if necessary.  This allows any number of authorization checks
+     * performed while processing a single request (for example by tags rendering a large menu) to share the
+     * Subject's authorization data instead of looking it up for each check.
+     * <p/>
+     * A stored snapshot is only reused if it was created for the Subject's current principals, so a snapshot
+     * created before a login or logout occurring during the same request is replaced automatically.
+     *
+     * @param request the current request, may be {@code null} in which case a new snapshot is always returned.
+     * @param subject the Subject for which to return the snapshot.
+     * @return the {@code AuthorizationSnapshot} for the specified Subject, reused from the request if possible.
+     * @since 1.3
+     */
+    public static AuthorizationSnapshot getAuthorizationSnapshot(ServletRequest request, Subject subject) {
+        PrincipalCollection principals = subject.getPrincipals();
+        if (CollectionUtils.isEmpty(principals)) {
+            principals = null;
+        }
+        Object stored = request != null ? request.getAttribute(AUTHORIZATION_SNAPSHOT_ATTRIBUTE) : null;
+        if (stored instanceof AuthorizationSnapshot) {
+            AuthorizationSnapshot snapshot = (AuthorizationSnapshot) stored;
+            PrincipalCollection snapshotPrincipals = snapshot.getPrincipals();
+            if (snapshotPrincipals == principals || (principals != null && principals.equals(snapshotPrincipals))) {
+                return snapshot;
+            }
+        }
+        AuthorizationSnapshot snapshot = AuthorizationSnapshotUtils.getAuthorizationSnapshot(subject);
+        if (request != null) {
+            request.setAttribute(AUTHORIZATION_SNAPSHOT_ATTRIBUTE, snapshot);
+        }
+        return snapshot;
+    }
+
     public static void saveRequest(ServletRequest request) {
         Subject subject = SecurityUtils.getSubject();
         Session session = subject.getSession();
@@ -19,6 +19,7 @@
 package org.apache.shiro.web.filter.mgt;
 
 import org.apache.shiro.util.AntPathMatcher;
+import org.apache.shiro.util.CompiledAntPathMatcher;
 import org.apache.shiro.web.WebTest;
 import org.apache.shiro.web.util.WebUtils;
 import org.junit.Before;
@@ -163,4 +164,77 @@ public class PathMatchingFilterChainResolverTest extends WebTest {
         assertNull(resolved);
         verify(request);
     }
+
+    /**
+     * Records the name of the last chain proxied.
+     */
+    private static class RecordingFilterChainManager extends DefaultFilterChainManager {
+        private String proxied;
+
+        @Override
+        public FilterChain proxy(FilterChain original, String chainName) {
+            this.proxied = chainName;
+            return super.proxy(original, chainName);
+        }
+    }
+
+    private String resolve(String requestURI) {
+        HttpServletRequest request = createNiceMock(HttpServletRequest.class);
+        expect(request.getAttribute(WebUtils.INCLUDE_CONTEXT_PATH_ATTRIBUTE)).andReturn(null).anyTimes();
+        expect(request.getContextPath()).andReturn("");
+        expect(request.getRequestURI()).andReturn(requestURI);
+        replay(request);
+        RecordingFilterChainManager manager = (RecordingFilterChainManager) resolver.getFilterChainManager();
+        manager.proxied = null;
+        FilterChain resolved = resolver.getChain(request, createNiceMock(HttpServletResponse.class),
+                createNiceMock(FilterChain.class));
+        assertEquals(manager.proxied != null, resolved != null);
+        return manager.proxied;
+    }
+
+    @Test
+    public void testFirstMatchWins() {
+        resolver.setFilterChainManager(new RecordingFilterChainManager());
+        FilterChainManager manager = resolver.getFilterChainManager();
+        manager.addToChain("/account/*/edit", "authcBasic");
+        manager.addToChain("/account/**", "anon");
+        manager.addToChain("/**", "authcBasic");
+
+        assertEquals("/account/*/edit", resolve("/account/1/edit"));
+        assertEquals("/account/**", resolve("/account/1/view"));
+        assertEquals("/**", resolve("/other"));
+
+        //chains added after the first resolution are taken into account:
+        manager.addToChain("/static/**", "anon");
+        assertEquals("/**", resolve("/static/site.css"));
+        resolver.setFilterChainManager(new RecordingFilterChainManager());
+        resolver.getFilterChainManager().addToChain("/static/**", "anon");
+        assertEquals("/static/**", resolve("/static/site.css"));
+        assertNull(resolve("/other"));
+    }
+
+    @Test
+    public void testOverriddenPathMatches() {
+        resolver = new PathMatchingFilterChainResolver() {
+            @Override
+            protected boolean pathMatches(String pattern, String path) {
+                return pattern.equals("/custom");
+            }
+        };
+        resolver.setFilterChainManager(new RecordingFilterChainManager());
+        resolver.getFilterChainManager().addToChain("/**", "anon");
+        resolver.getFilterChainManager().addToChain("/custom", "anon");
+        assertEquals("/custom", resolve("/anything"));
+    }
+
+    @Test
+    public void testPlainAntPathMatcher() {
+        assertTrue(resolver.getPathMatcher() instanceof CompiledAntPathMatcher);
+        resolver.setPathMatcher(new AntPathMatcher());
+        resolver.setFilterChainManager(new RecordingFilterChainManager());
+        resolver.getFilterChainManager().addToChain("/account/*/edit", "authcBasic");
+        resolver.getFilterChainManager().addToChain("/**", "anon");
+        assertEquals("/account/*/edit", resolve("/account/1/edit"));
+        assertEquals("/**", resolve("/account/1/view"));
+    }
 }